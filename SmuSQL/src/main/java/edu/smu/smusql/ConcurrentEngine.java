@@ -0,0 +1,302 @@
+package edu.smu.smusql;
+
+import edu.smu.smusql.bplustreeA.bplustreeArray.BPlusTreeArrayEngine;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Lets one engine serve many threads. Every table has a StampedLock: SELECT and EXPLAIN take it
+ * shared, INSERT, UPDATE, DELETE and COPY exclusively, so reads of a table run in parallel and
+ * statements on different tables never wait for each other. Statements that change the catalog
+ * (CREATE, DROP, ADVISE, CHECKPOINT) take a catalog lock exclusively, which every other statement
+ * holds shared, and wait for all tables.
+ *
+ * A read first tries to answer from the engine's result cache under optimistic stamps, which
+ * costs no lock acquisition at all, and only takes the table's read lock if that misses or a
+ * write intervened. Cursors from {@link #executeQuery} are read to the end under the lock, since
+ * a live cursor would outlast it.
+ *
+ * Writes wait for durability only after their locks are released, see {@link IEngine#commit()},
+ * so writers to the same table still share a log flush.
+ *
+ * The wrapped engine must keep state shared between tables safe for concurrent use, all state of
+ * a single table is guarded here.
+ */
+public class ConcurrentEngine implements IEngine {
+
+    private final IEngine delegate;
+    private final StampedLock catalogLock = new StampedLock();
+    private final Map<String, StampedLock> tableLocks = new ConcurrentHashMap<>();
+
+    private enum Access {
+        READ, WRITE, CATALOG
+    }
+
+    // A statement's lock requirement, table is null for catalog statements
+    private static final class Statement {
+        final Access access;
+        final String table;
+
+        Statement(Access access, String table) {
+            this.access = access;
+            this.table = table;
+        }
+    }
+
+    public ConcurrentEngine(IEngine delegate) {
+        if (delegate instanceof BPlusTreeArrayEngine
+            && ((BPlusTreeArrayEngine) delegate).isAutoIndexing()) {
+            // Automatic index advice changes other tables from inside a statement
+            throw new IllegalArgumentException(
+                "ERROR: Automatic indexing cannot run concurrently, use ADVISE APPLY instead");
+        }
+        this.delegate = delegate;
+        delegate.deferCommits();
+    }
+
+    @Override
+    public String executeSQL(String query) {
+        Statement statement = classify(query);
+        if (statement.access == Access.READ) {
+            return executeLocked(query, statement);
+        }
+
+        try {
+            return executeLocked(query, statement);
+        } finally {
+            delegate.commit();
+        }
+    }
+
+    private String executeLocked(String query, Statement statement) {
+        if (statement.access == Access.CATALOG) {
+            long stamp = catalogLock.writeLock();
+            try {
+                return delegate.executeSQL(query);
+            } finally {
+                catalogLock.unlockWrite(stamp);
+            }
+        }
+
+        StampedLock tableLock = tableLock(statement.table);
+        if (statement.access == Access.READ) {
+            String cached = readOptimistically(query, tableLock);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        long catalogStamp = catalogLock.readLock();
+        try {
+            if (statement.access == Access.READ) {
+                long stamp = tableLock.readLock();
+                try {
+                    return delegate.executeSQL(query);
+                } finally {
+                    tableLock.unlockRead(stamp);
+                }
+            }
+
+            long stamp = tableLock.writeLock();
+            try {
+                return delegate.executeSQL(query);
+            } finally {
+                tableLock.unlockWrite(stamp);
+            }
+        } finally {
+            catalogLock.unlockRead(catalogStamp);
+        }
+    }
+
+    private String readOptimistically(String query, StampedLock tableLock) {
+        long catalogStamp = catalogLock.tryOptimisticRead();
+        long stamp = tableLock.tryOptimisticRead();
+        if (catalogStamp == 0 || stamp == 0) {
+            return null;
+        }
+
+        String cached = delegate.executeIfCached(query);
+        return cached != null && tableLock.validate(stamp) && catalogLock.validate(catalogStamp)
+            ? cached : null;
+    }
+
+    @Override
+    public ResultSet executeQuery(String query) {
+        Statement statement = classify(query);
+        if (statement.access != Access.READ) {
+            throw new RuntimeException("ERROR: executeQuery only runs SELECT statements");
+        }
+
+        StampedLock tableLock = tableLock(statement.table);
+        long catalogStamp = catalogLock.readLock();
+        long stamp = tableLock.readLock();
+        try (ResultSet resultSet = delegate.executeQuery(query)) {
+            List<String> columns = resultSet.getColumnNames();
+            List<Object[]> rows = new ArrayList<>();
+            while (resultSet.next()) {
+                Object[] row = new Object[columns.size()];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = resultSet.getObject(i + 1);
+                }
+                rows.add(row);
+            }
+            return new IteratorResultSet(columns, rows.iterator());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("ERROR: " + e.getMessage(), e);
+        } finally {
+            tableLock.unlockRead(stamp);
+            catalogLock.unlockRead(catalogStamp);
+        }
+    }
+
+    /**
+     * Runs the batch under the write locks of every table it touches, taken in name order, or
+     * under the catalog lock if it contains a catalog statement
+     */
+    @Override
+    public List<String> executeBatch(List<String> queries) {
+        try {
+            return executeBatchLocked(queries);
+        } finally {
+            delegate.commit();
+        }
+    }
+
+    private List<String> executeBatchLocked(List<String> queries) {
+        TreeSet<String> tables = new TreeSet<>();
+        boolean catalog = false;
+        for (String query : queries) {
+            Statement statement = classify(query);
+            if (statement.access == Access.CATALOG) {
+                catalog = true;
+                break;
+            }
+            tables.add(statement.table);
+        }
+
+        if (catalog) {
+            long stamp = catalogLock.writeLock();
+            try {
+                return delegate.executeBatch(queries);
+            } finally {
+                catalogLock.unlockWrite(stamp);
+            }
+        }
+
+        long catalogStamp = catalogLock.readLock();
+        List<StampedLock> locks = new ArrayList<>();
+        List<Long> stamps = new ArrayList<>();
+        try {
+            for (String table : tables) {
+                StampedLock lock = tableLock(table);
+                stamps.add(lock.writeLock());
+                locks.add(lock);
+            }
+            return delegate.executeBatch(queries);
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlockWrite(stamps.get(i));
+            }
+            catalogLock.unlockRead(catalogStamp);
+        }
+    }
+
+    @Override
+    public void clearDatabase() {
+        long stamp = catalogLock.writeLock();
+        try {
+            delegate.clearDatabase();
+        } finally {
+            catalogLock.unlockWrite(stamp);
+        }
+    }
+
+    public IEngine getDelegate() {
+        return delegate;
+    }
+
+    private StampedLock tableLock(String table) {
+        return tableLocks.computeIfAbsent(table, name -> new StampedLock());
+    }
+
+    /**
+     * Finds the statement kind and its table from the leading keywords. Anything not recognised
+     * as a single table statement is treated as a catalog change
+     */
+    private static Statement classify(String query) {
+        Words words = new Words(query);
+        String first = words.next();
+        if (first == null) {
+            return new Statement(Access.CATALOG, null);
+        }
+
+        String table;
+        Access access;
+        switch (first.toUpperCase(Locale.ROOT)) {
+            case "SELECT":
+            case "EXPLAIN":
+                table = words.after("FROM");
+                access = Access.READ;
+                break;
+            case "INSERT":
+                table = words.after("INTO");
+                access = Access.WRITE;
+                break;
+            case "DELETE":
+                table = words.after("FROM");
+                access = Access.WRITE;
+                break;
+            case "UPDATE":
+            case "COPY":
+                table = words.next();
+                access = Access.WRITE;
+                break;
+            default:
+                return new Statement(Access.CATALOG, null);
+        }
+
+        return table == null ? new Statement(Access.CATALOG, null) : new Statement(access, table);
+    }
+
+    // Splits on whitespace and punctuation as it goes, a long INSERT is only read up to its table
+    private static final class Words {
+        private final String query;
+        private int position;
+
+        Words(String query) {
+            this.query = query;
+        }
+
+        String next() {
+            while (position < query.length() && isSeparator(query.charAt(position))) {
+                position++;
+            }
+            int start = position;
+            while (position < query.length() && !isSeparator(query.charAt(position))) {
+                position++;
+            }
+            return start < position ? query.substring(start, position) : null;
+        }
+
+        String after(String keyword) {
+            String word;
+            while ((word = next()) != null) {
+                if (word.equalsIgnoreCase(keyword)) {
+                    return next();
+                }
+            }
+            return null;
+        }
+
+        private static boolean isSeparator(char c) {
+            return Character.isWhitespace(c) || c == ',' || c == '(' || c == ')' || c == ';';
+        }
+    }
+}
@@ -6,6 +6,83 @@ public class Constants {
     public static final int B_PLUS_TREE_ORDER = 32;
     public static final int CACHE_SIZE = 10000;
 
+    // Query cache: bytes of results held, and the overhead charged per entry on top of its text
+    public static final long CACHE_MAX_BYTES = 64L << 20;
+    public static final long CACHE_ENTRY_OVERHEAD = 128;
+    // Query cache: shares of the byte budget for the W-TinyLFU window and protected segment
+    public static final double CACHE_WINDOW_FRACTION = 0.01;
+    public static final double CACHE_PROTECTED_FRACTION = 0.8;
+    // Query cache: results above this share of a shard's byte budget are never cached
+    public static final double CACHE_MAX_ENTRY_FRACTION = 0.1;
+    // Query cache: independently locked shards (a power of two), and the accesses each buffers
+    // for its eviction policy between two acquisitions of its lock
+    public static final int CACHE_SHARDS = 8;
+    public static final int CACHE_READ_BUFFER_SIZE = 64;
+    // Index lookup cache: primary keys held over all cached posting lists, and per list
+    public static final long POSTING_CACHE_MAX_KEYS = 1 << 22;
+    public static final int POSTING_CACHE_MAX_LIST_KEYS = 1 << 16;
+    // Query cache: a table with a hit rate below CACHE_BYPASS_HIT_RATE over CACHE_BYPASS_WINDOW
+    // lookups skips the cache for its next CACHE_BYPASS_LOOKUPS selects
+    public static final int CACHE_BYPASS_WINDOW = 500;
+    public static final double CACHE_BYPASS_HIT_RATE = 0.02;
+    public static final int CACHE_BYPASS_LOOKUPS = 5000;
+
+    // Query planner: above this fraction of the table an index scan loses to a sequential scan
+    public static final double PLANNER_SEQ_SCAN_THRESHOLD = 0.5;
+    // Query planner: assumed selectivity of a predicate that cannot be estimated from an index
+    public static final double PLANNER_DEFAULT_SELECTIVITY = 0.33;
+    // Query planner: cost of fetching one row from the main tree, relative to reading one posting
+    public static final double PLANNER_ROW_FETCH_COST = 4.0;
+
+    // Index advisor: observations a column needs before an index is created or dropped for it
+    public static final double INDEX_ADVISOR_MIN_PREDICATES = 20;
+    // Index advisor: cost of maintaining one index entry, relative to scanning one row
+    public static final double INDEX_ADVISOR_WRITE_COST = 32.0;
+    // Index advisor: a range predicate counts as this fraction of an equality predicate
+    public static final double INDEX_ADVISOR_RANGE_WEIGHT = 0.5;
+    // Index advisor: statements between automatic applications of its advice
+    public static final int INDEX_ADVISOR_INTERVAL = 5000;
+
+    // COPY FROM: bytes read from the file per chunk, each chunk is parsed as its own task
+    public static final int COPY_CHUNK_SIZE = 4 << 20;
+    public static final int COPY_PARSER_THREADS = Runtime.getRuntime().availableProcessors();
+
+    // GROUP BY: key ranges hash aggregated in parallel, and the table size below which a single
+    // thread aggregates it
+    public static final int GROUP_BY_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final int GROUP_BY_PARALLEL_ROWS = 1 << 16;
+
+    // Query server: default port, pending connection queue, per connection stream buffers, and
+    // the largest request or response accepted
+    public static final int SERVER_PORT = 9201;
+    public static final int SERVER_BACKLOG = 1024;
+    public static final int SERVER_BUFFER_SIZE = 8 << 10;
+    public static final int SERVER_MAX_FRAME_BYTES = 64 << 20;
+
+    // Write-ahead log: how often the INTERVAL and OFF modes flush, and the buffered bytes after
+    // which a commit writes the buffer out without waiting for the flusher
+    public static final long WAL_FLUSH_INTERVAL_MS = 10;
+    public static final int WAL_BUFFER_SIZE = 1 << 20;
+    // Checkpoint: stream buffer used to write and read each table's snapshot file
+    public static final int SNAPSHOT_BUFFER_SIZE = 1 << 20;
+    // Checkpoint: restore tables on first use rather than all at startup
+    public static final boolean SNAPSHOT_LAZY_LOAD = true;
+    // Array engine: distinct strings a column shares between its rows before it stops sharing
+    public static final int DICTIONARY_MAX_VALUES = 1 << 16;
+    // Array engine: keep table rows packed off heap in slabs of this many bytes, see RowArena
+    public static final boolean ROW_ARENA = true;
+    public static final int ROW_ARENA_SLAB_SIZE = 1 << 20;
+    // Keys per leaf and children per internal node of the packed row store's address tree
+    public static final int ROW_STORE_NODE_SIZE = 256;
+    // Columnar engine: rows filtered per batch, a multiple of 64, and initial column array length
+    public static final int COLUMNAR_BATCH_ROWS = 1024;
+    public static final int COLUMNAR_INITIAL_CAPACITY = 1024;
+
+    // Scan kernels: use the Vector API ones when available, and the keys a vector lower bound
+    // search scans linearly once binary search has narrowed the range down to them
+    public static final boolean VECTOR_KERNELS = true;
+    public static final int VECTOR_SEARCH_SPAN = 64;
+
     public static String getIndexTableName(String tableName, String column) {
         return "idx_" + tableName + "_" + column ;
     }
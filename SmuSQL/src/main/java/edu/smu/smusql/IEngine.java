@@ -1,8 +1,50 @@
 package edu.smu.smusql;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public interface IEngine {
 
     public String executeSQL(String query);
 
+    /**
+     * Runs a SELECT and returns a cursor over its rows instead of the formatted text
+     */
+    public ResultSet executeQuery(String query);
+
+    /**
+     * Runs the statements in order and returns one result per statement. Engines may override
+     * this to apply runs of writes together
+     */
+    public default List<String> executeBatch(List<String> queries) {
+        List<String> results = new ArrayList<>(queries.size());
+        for (String query : queries) {
+            results.add(executeSQL(query));
+        }
+        return results;
+    }
+
+    /**
+     * Result of a read statement if it can be answered from a cache without reading any table,
+     * otherwise null. May be called while other threads write, see {@link ConcurrentEngine}
+     */
+    public default String executeIfCached(String query) {
+        return null;
+    }
+
+    /**
+     * Asks the engine to stop waiting for durability inside each statement, the caller then calls
+     * {@link #commit()} itself, typically once its locks are released so concurrent writers share
+     * one flush. Engines without a log ignore this
+     */
+    public default void deferCommits() {
+    }
+
+    /**
+     * Returns once the calling thread's changes are as durable as the engine promises
+     */
+    public default void commit() {
+    }
+
     public void clearDatabase();
 }
@@ -0,0 +1,41 @@
+package edu.smu.smusql;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * ResultSet over a lazily produced sequence of rows, each an array in column order
+ */
+public class IteratorResultSet implements ResultSet {
+
+    private final List<String> columnNames;
+    private final Iterator<Object[]> rows;
+    private Object[] current;
+
+    public IteratorResultSet(List<String> columnNames, Iterator<Object[]> rows) {
+        this.columnNames = columnNames;
+        this.rows = rows;
+    }
+
+    @Override
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    @Override
+    public boolean next() {
+        current = rows.hasNext() ? rows.next() : null;
+        return current != null;
+    }
+
+    @Override
+    public Object getObject(int columnIndex) {
+        if (current == null) {
+            throw new RuntimeException("ERROR: No current row, call next() first");
+        }
+        if (columnIndex < 1 || columnIndex > columnNames.size()) {
+            throw new RuntimeException("ERROR: Column index " + columnIndex + " out of range");
+        }
+        return current[columnIndex - 1];
+    }
+}
@@ -0,0 +1,95 @@
+package edu.smu.smusql;
+
+import java.util.List;
+
+/**
+ * Forward-only cursor over the rows of a SELECT, modelled on java.sql.ResultSet. Rows are pulled
+ * from the engine's storage as next() is called, so a large result is never held as a whole.
+ * Column indexes start at 1.
+ *
+ * A cursor reads the live tables and is only valid until the next write to them.
+ */
+public interface ResultSet extends AutoCloseable {
+
+    List<String> getColumnNames();
+
+    /**
+     * Moves to the next row, returning false once the rows are exhausted
+     */
+    boolean next();
+
+    Object getObject(int columnIndex);
+
+    default int getColumnCount() {
+        return getColumnNames().size();
+    }
+
+    default int findColumn(String column) {
+        int index = getColumnNames().indexOf(column);
+        if (index < 0) {
+            throw new RuntimeException("ERROR: Column " + column + " does not exist");
+        }
+        return index + 1;
+    }
+
+    default Object getObject(String column) {
+        return getObject(findColumn(column));
+    }
+
+    default String getString(int columnIndex) {
+        Object value = getObject(columnIndex);
+        return value != null ? value.toString() : null;
+    }
+
+    default String getString(String column) {
+        return getString(findColumn(column));
+    }
+
+    /**
+     * Column value as an int. Engines that store text have it parsed, NULL reads as 0
+     */
+    default int getInt(int columnIndex) {
+        Object value = getObject(columnIndex);
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        try {
+            return Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("ERROR: Value " + value + " is not an integer");
+        }
+    }
+
+    default int getInt(String column) {
+        return getInt(findColumn(column));
+    }
+
+    /**
+     * Column value as a float. Engines that store text have it parsed, NULL reads as 0
+     */
+    default float getFloat(int columnIndex) {
+        Object value = getObject(columnIndex);
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).floatValue();
+        }
+        try {
+            return Float.parseFloat(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("ERROR: Value " + value + " is not a number");
+        }
+    }
+
+    default float getFloat(String column) {
+        return getFloat(findColumn(column));
+    }
+
+    @Override
+    default void close() {
+    }
+}
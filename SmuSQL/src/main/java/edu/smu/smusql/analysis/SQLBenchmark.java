@@ -6,6 +6,7 @@ import edu.smu.smusql.analysis.utils.UniqueIdManager;
 import edu.smu.smusql.bplustreeA.bplustreeArray.BPlusTreeArrayEngine;
 import edu.smu.smusql.bplustreeA.bplustreeArray.BPlusTree_MultiRange_ArrayEngine;
 import edu.smu.smusql.bplustreeA.bplustreeHashmap.BPlusTreeEngine;
+import edu.smu.smusql.columnar.ColumnarEngine;
 import edu.smu.smusql.hashMap.HashMapEngine;
 import edu.smu.smusql.skipHash.SkipHashEngine;
 import edu.smu.smusql.skipLinkedListIndexed.SkipLinkedListIndexedEngine;
@@ -22,7 +23,7 @@ import java.util.Map;
 
 enum EngineType {
     BPLUSHASHMAP, BPLUSARRAY, BPLUSMULTIRANGEARRAY, HASHMAP, 
-    SKIPHASH, SKIPINDEXED
+    SKIPHASH, SKIPINDEXED, COLUMNAR
 }
 
 enum QueryType {
@@ -37,7 +38,8 @@ class SQLEngineFactory {
             case BPLUSHASHMAP:
                 return new BPlusTreeEngine((boolean) config.getParameter("useCache"));
             case BPLUSARRAY:
-                return new BPlusTreeArrayEngine((boolean) config.getParameter("useCache"));
+                return new BPlusTreeArrayEngine((boolean) config.getParameter("useCache"),
+                    Boolean.TRUE.equals(config.getParameter("autoIndex")));
             case BPLUSMULTIRANGEARRAY:
                 return new BPlusTree_MultiRange_ArrayEngine(
                     (boolean) config.getParameter("useCache"));
@@ -47,6 +49,8 @@ class SQLEngineFactory {
                 return new SkipHashEngine();
             case SKIPINDEXED:
                 return new SkipLinkedListIndexedEngine();
+            case COLUMNAR:
+                return new ColumnarEngine();
             default:
                 throw new IllegalArgumentException("Unsupported engine type: " + type);
         }
@@ -107,9 +111,16 @@ public class SQLBenchmark extends AbstractBenchmark {
         );
 
         engineConfigs.put(EngineType.BPLUSHASHMAP, bplusConfigs);
-        engineConfigs.put(EngineType.BPLUSARRAY, bplusConfigs);
+        engineConfigs.put(EngineType.BPLUSARRAY, Arrays.asList(
+            new EngineConfig.Builder().addParameter("useCache", true).build(),
+            new EngineConfig.Builder().addParameter("useCache", false).build(),
+            new EngineConfig.Builder().addParameter("useCache", true)
+                .addParameter("autoIndex", true).build()
+        ));
         engineConfigs.put(EngineType.SKIPHASH,
             Collections.singletonList(new EngineConfig.Builder().build()));
+        engineConfigs.put(EngineType.COLUMNAR,
+            Collections.singletonList(new EngineConfig.Builder().build()));
         // engineConfigs.put(EngineType.HASHMAP,
         //     Collections.singletonList(new EngineConfig.Builder().build()));
         // engineConfigs.put(EngineType.SKIPINDEXED,
@@ -142,8 +153,9 @@ public class SQLBenchmark extends AbstractBenchmark {
                 return config.getParameter("useCache") != null && (boolean) config.getParameter(
                     "useCache") ? "withcache" : "nocache";
             case BPLUSARRAY:
-                return config.getParameter("useCache") != null && (boolean) config.getParameter(
-                    "useCache") ? "withcache" : "nocache";
+                return (config.getParameter("useCache") != null && (boolean) config.getParameter(
+                    "useCache") ? "withcache" : "nocache")
+                    + (Boolean.TRUE.equals(config.getParameter("autoIndex")) ? "_autoindex" : "");
             default:
                 return "default";
         }
@@ -259,18 +271,23 @@ public class SQLBenchmark extends AbstractBenchmark {
     private void writeMetricsToCSV(int queryCount) {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
 
+        // Indexes in place at this point, so changes made by the index advisor show up over time
+        String indexes = engine instanceof BPlusTreeArrayEngine
+            ? String.join(" ", ((BPlusTreeArrayEngine) engine).getIndexNames()) : "";
+
         try (FileWriter fw = new FileWriter(outputFile, true)) {
             for (QueryType type : QueryType.values()) {
                 QueryMetrics metrics = metricsCollector.getMetrics(type);
                 if (metrics.getTotalQueries() > 0) {
-                    fw.write(String.format("%s,%s,%d,%s,%.2f,%.2f,%.2f\n",
+                    fw.write(String.format("%s,%s,%d,%s,%.2f,%.2f,%.2f,%s\n",
                         timestamp,
                         engine.getClass().getSimpleName(),
                         metrics.getTotalQueries(),         // <-- Use individual query type count
                         type.name(),
                         metrics.getAverageExecutionTime(),
                         metrics.getTotalExecutionTime(),
-                        metrics.getSuccessRate()));
+                        metrics.getSuccessRate(),
+                        indexes));
                 }
             }
         } catch (IOException e) {
@@ -280,7 +297,7 @@ public class SQLBenchmark extends AbstractBenchmark {
 
     @Override
     protected String getCSVHeader() {
-        return "Timestamp,EngineType,QueryCount,QueryType,AverageExecutionTime,TotalExecutionTime,SuccessRate\n";
+        return "Timestamp,EngineType,QueryCount,QueryType,AverageExecutionTime,TotalExecutionTime,SuccessRate,Indexes\n";
     }
 
     private String getRandomCity() {
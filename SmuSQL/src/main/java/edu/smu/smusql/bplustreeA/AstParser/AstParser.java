@@ -22,9 +22,13 @@ public class AstParser {
         Token firstToken = tokens.get(0);
         ASTNode statement;
 
-        switch (firstToken.value) {
+        switch (firstToken.getValue()) {
             case "CREATE":
-                statement = parseCreateTable();
+                statement = tokens.size() > 1 && tokens.get(1).getValue().equals("INDEX")
+                        ? parseCreateIndex() : parseCreateTable();
+                break;
+            case "DROP":
+                statement = parseDropIndex();
                 break;
             case "INSERT":
                 statement = parseInsert();
@@ -38,13 +42,76 @@ public class AstParser {
             case "DELETE":
                 statement = parseDelete();
                 break;
+            case "EXPLAIN":
+                statement = parseExplain();
+                break;
+            case "COPY":
+                statement = parseCopy();
+                break;
+            case "ADVISE":
+                expect("ADVISE");
+                statement = new AdviseNode(match("APPLY"));
+                break;
+            case "CHECKPOINT":
+                expect("CHECKPOINT");
+                statement = new CheckpointNode();
+                break;
             default:
-                throw new RuntimeException("Unsupported SQL statement: " + firstToken.value);
+                throw new RuntimeException("Unsupported SQL statement: " + firstToken.getValue());
         }
 
         return statement;
     }
 
+    private ExplainNode parseExplain() {
+        expect("EXPLAIN");
+        if (currentIndex >= tokens.size()) {
+            throw new RuntimeException("Expected statement after EXPLAIN");
+        }
+        ASTNode statement = new AstParser(tokens.subList(currentIndex, tokens.size())).parse();
+        if (statement instanceof ExplainNode) {
+            throw new RuntimeException("Unsupported SQL statement: EXPLAIN EXPLAIN");
+        }
+        return new ExplainNode(statement);
+    }
+
+    private CreateIndexNode parseCreateIndex() {
+        expect("CREATE");
+        expect("INDEX");
+        String indexName = peek("ON") ? null : expectIdentifier();
+        expect("ON");
+        String tableName = expectIdentifier();
+        expect("(");
+        String column = expectIdentifier();
+        expect(")");
+        return new CreateIndexNode(indexName, tableName, column);
+    }
+
+    private DropIndexNode parseDropIndex() {
+        expect("DROP");
+        expect("INDEX");
+        if (!match("ON")) {
+            return new DropIndexNode(expectIdentifier(), null, null);
+        }
+        String tableName = expectIdentifier();
+        expect("(");
+        String column = expectIdentifier();
+        expect(")");
+        return new DropIndexNode(null, tableName, column);
+    }
+
+    private CopyNode parseCopy() {
+        expect("COPY");
+        String tableName = expectIdentifier();
+        expect("FROM");
+        ExpressionNode path = parseExpression();
+        if (!(path instanceof LiteralNode)
+                || ((LiteralNode) path).getType() != LiteralNodeType.STRING) {
+            throw new RuntimeException("Expected file path after FROM");
+        }
+        return new CopyNode(tableName, ((LiteralNode) path).getStringValue());
+    }
+
     private CreateTableNode parseCreateTable() {
         expect("CREATE");
         expect("TABLE");
@@ -53,11 +120,21 @@ public class AstParser {
         return new CreateTableNode(tableName, columns);
     }
 
-    private InsertNode parseInsert() {
+    private ASTNode parseInsert() {
         expect("INSERT");
         expect("INTO");
         String tableName = expectIdentifier();
         expect("VALUES");
+
+        List<InsertNode> rows = new ArrayList<>();
+        do {
+            rows.add(parseValues(tableName));
+        } while (match(","));
+
+        return rows.size() == 1 ? rows.get(0) : new MultiInsertNode(tableName, rows);
+    }
+
+    private InsertNode parseValues(String tableName) {
         expect("(");
 
         ExpressionNode primaryKey = parseExpression();
@@ -75,14 +152,71 @@ public class AstParser {
 
     private SelectNode parseSelect() {
         expect("SELECT");
-        List<String> columns = parseColumnNames();
+        List<String> columns = new ArrayList<>();
+        List<AggregateNode> aggregates = new ArrayList<>();
+        parseSelectList(columns, aggregates);
         expect("FROM");
         String tableName = expectIdentifier();
         ConditionNode whereClause = null;
         if (match("WHERE")) {
             whereClause = parseCondition();
         }
-        return new SelectNode(columns, tableName, whereClause);
+        String groupBy = null;
+        if (match("GROUP")) {
+            expect("BY");
+            groupBy = expectIdentifier();
+        }
+
+        if (groupBy != null) {
+            // Only the group column can be selected next to the aggregates
+            for (String column : columns) {
+                if (!column.equals(groupBy)) {
+                    throw new RuntimeException(
+                        "ERROR: Column " + column + " must appear in the GROUP BY clause");
+                }
+            }
+        } else if (!aggregates.isEmpty() && !columns.isEmpty()) {
+            throw new RuntimeException("ERROR: Cannot select columns alongside aggregates");
+        }
+        return new SelectNode(columns, tableName, whereClause, aggregates, groupBy);
+    }
+
+    /**
+     * Columns, or aggregates such as COUNT(*) and MAX(price). Function names are matched in any
+     * case and are not reserved, a column may still be called count
+     */
+    private void parseSelectList(List<String> columns, List<AggregateNode> aggregates) {
+        if (match("*")) {
+            columns.add("*");
+            return;
+        }
+        do {
+            String identifier = expectIdentifier();
+            if (match("(")) {
+                aggregates.add(parseAggregate(identifier.toUpperCase()));
+            } else {
+                columns.add(identifier);
+            }
+        } while (match(","));
+    }
+
+    private AggregateNode parseAggregate(String function) {
+        String column;
+        switch (function) {
+            case "COUNT":
+                column = match("*") ? "*" : expectIdentifier();
+                break;
+            case "MIN":
+            case "MAX":
+            case "SUM":
+            case "AVG":
+                column = expectIdentifier();
+                break;
+            default:
+                throw new RuntimeException("ERROR: Unsupported function " + function);
+        }
+        expect(")");
+        return new AggregateNode(function, column);
     }
 
     private UpdateNode parseUpdate() {
@@ -148,7 +282,7 @@ public class AstParser {
         ConditionNode condition = parseSimpleCondition();
 
         while (match("AND") || match("OR")) {
-            String operator = tokens.get(currentIndex - 1).value;
+            String operator = tokens.get(currentIndex - 1).getValue();
             ConditionNode right = parseSimpleCondition();
             condition = new ConditionNode(condition, operator, right);
         }
@@ -168,28 +302,28 @@ public class AstParser {
         switch (token.type) {
             case IDENTIFIER:
                 currentIndex++;
-                return new ColumnNode(token.value);
+                return new ColumnNode(token.getValue());
             case LITERAL:
                 currentIndex++;
                 LiteralNodeType type;
-                if (token.value.startsWith("'")) {
+                if (token.isStringLiteral()) {
                     type = LiteralNodeType.STRING;
-                } else if (token.value.contains(".")) {
+                } else if (token.isFloatLiteral()) {
                     type = LiteralNodeType.FLOAT;
                 } else {
                     type = LiteralNodeType.NUMBER;
                 }
-                return new LiteralNode(token.value, type);
+                return new LiteralNode(token.getValue(), type);
             default:
-                throw new RuntimeException("Unexpected token in expression: " + token.value);
+                throw new RuntimeException("Unexpected token in expression: " + token.getValue());
         }
     }
 
     private void expect(String expected) {
         Token token = tokens.get(currentIndex);
         if ((token.type != TokenType.KEYWORD && token.type != TokenType.OPERATOR && token.type != TokenType.PUNCTUATION)
-                || !token.value.equalsIgnoreCase(expected)) {
-            throw new RuntimeException("Expected " + expected + ", but got " + token.value);
+                || !token.getValue().equalsIgnoreCase(expected)) {
+            throw new RuntimeException("Expected " + expected + ", but got " + token.getValue());
         }
         currentIndex++;
     }
@@ -197,19 +331,19 @@ public class AstParser {
     private String expectIdentifier() {
         Token token = tokens.get(currentIndex);
         if (token.type != TokenType.IDENTIFIER) {
-            throw new RuntimeException("Expected identifier, but got " + token.value);
+            throw new RuntimeException("Expected identifier, but got " + token.getValue());
         }
         currentIndex++;
-        return token.value;
+        return token.getValue();
     }
 
     private String expectOperator() {
         Token token = tokens.get(currentIndex);
         if (token.type != TokenType.OPERATOR) {
-            throw new RuntimeException("Expected operator, but got " + token.value);
+            throw new RuntimeException("Expected operator, but got " + token.getValue());
         }
         currentIndex++;
-        return token.value;
+        return token.getValue();
     }
 
     private boolean match(String value) {
@@ -220,7 +354,7 @@ public class AstParser {
 
         Token token = tokens.get(currentIndex);
         if ((token.type == TokenType.KEYWORD || token.type == TokenType.PUNCTUATION)
-                && token.value.equalsIgnoreCase(value)) {
+                && token.getValue().equalsIgnoreCase(value)) {
             currentIndex++;
             return true;
         }
@@ -231,7 +365,7 @@ public class AstParser {
         if (currentIndex < tokens.size()) {
             Token token = tokens.get(currentIndex);
             return (token.type == TokenType.KEYWORD || token.type == TokenType.PUNCTUATION)
-                    && token.value.equalsIgnoreCase(value);
+                    && token.getValue().equalsIgnoreCase(value);
         }
         return false;
     }
@@ -2,14 +2,25 @@ package edu.smu.smusql.bplustreeA.AstParser;
 
 public class Token {
     TokenType type;
-    String value;
+    private final CharSequence source;
+    private final int start;
+    private final int end;
+    private String value; // Materialized lazily from source[start, end)
 
     public enum TokenType {
         KEYWORD, OPERATOR, IDENTIFIER, LITERAL, PUNCTUATION
     }
 
-    Token(TokenType type, String value) {
+    /**
+     * Token backed by an offset range of the original query. Keywords, operators and punctuation
+     * pass their canonical constant as {@code value}, identifiers and literals pass null and only
+     * pay for a substring when the parser asks for it.
+     */
+    Token(TokenType type, CharSequence source, int start, int end, String value) {
         this.type = type;
+        this.source = source;
+        this.start = start;
+        this.end = end;
         this.value = value;
     }
 
@@ -17,9 +28,46 @@ public class Token {
         return type;
     }
 
+    public String getValue() {
+        if (value == null) {
+            value = source.subSequence(start, end).toString();
+        }
+        return value;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * True if this is a string literal, checked on the source without materializing the value
+     */
+    boolean isStringLiteral() {
+        return type == TokenType.LITERAL && source.charAt(start) == '\'';
+    }
+
+    /**
+     * True if this is a numeric literal containing a decimal point
+     */
+    boolean isFloatLiteral() {
+        if (type != TokenType.LITERAL || isStringLiteral()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (source.charAt(i) == '.') {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public String toString() {
-        return String.format("Token{type=%s, value='%s'}", type, value);
+        return String.format("Token{type=%s, value='%s'}", type, getValue());
     }
 
-}
\ No newline at end of file
+}
@@ -2,54 +2,220 @@ package edu.smu.smusql.bplustreeA.AstParser;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import edu.smu.smusql.bplustreeA.AstParser.Token.TokenType;
 
+/**
+ * Single pass, character level lexer. Tokens are offsets into the query, keywords are resolved
+ * through a (length, first letter) lookup table and numeric literals are left unparsed.
+ *
+ * Produces the same token stream as the previous regex alternation: unknown characters are
+ * skipped, an unterminated quote is dropped and numbers may carry a leading minus sign.
+ */
 public class Tokenizer {
 
     private static final String[] KEYWORDS = {
             "INSERT", "INTO", "VALUES", "SELECT", "FROM", "WHERE", "UPDATE", "SET", "DELETE",
-            "CREATE", "TABLE", "AND", "OR"
+            "CREATE", "TABLE", "AND", "OR", "EXPLAIN", "COPY", "INDEX", "ON", "DROP", "ADVISE",
+            "APPLY", "CHECKPOINT", "GROUP", "BY"
     };
 
-    // Reordered operators to put longer ones first
-    private static final String[] OPERATORS = {
-            "<=", ">=", "<>", "!=", "=", "<", ">"
-    };
+    private static final int MAX_KEYWORD_LENGTH;
+
+    // Candidates indexed by [length][first letter - 'A']
+    private static final String[][][] KEYWORD_TABLE;
 
-    private static final Pattern TOKEN_PATTERN = Pattern.compile(
-            "(?i)\\b(" + String.join("|", KEYWORDS) + ")\\b" + "|" +
-                    "(" + String.join("|", OPERATORS).replace("<=", "\\<=").replace(">=", "\\>=") + ")" + "|" +
-                    "(-?\\d*\\.?\\d+)" + "|" +
-                    "'([^']*)'" + "|" +
-                    "([a-zA-Z_]\\w*)" + "|" +
-                    "(,|\\(|\\)|\\*)");
+    static {
+        int maxLength = 0;
+        for (String keyword : KEYWORDS) {
+            maxLength = Math.max(maxLength, keyword.length());
+        }
+        MAX_KEYWORD_LENGTH = maxLength;
+        KEYWORD_TABLE = new String[MAX_KEYWORD_LENGTH + 1][26][];
+
+        for (String keyword : KEYWORDS) {
+            String[] bucket = KEYWORD_TABLE[keyword.length()][keyword.charAt(0) - 'A'];
+            String[] grown = bucket == null ? new String[1] : new String[bucket.length + 1];
+            if (bucket != null) {
+                System.arraycopy(bucket, 0, grown, 0, bucket.length);
+            }
+            grown[grown.length - 1] = keyword;
+            KEYWORD_TABLE[keyword.length()][keyword.charAt(0) - 'A'] = grown;
+        }
+    }
 
-    public static List<Token> tokenize(String input) {
+    public static List<Token> tokenize(CharSequence input) {
         List<Token> tokens = new ArrayList<>();
-        Matcher matcher = TOKEN_PATTERN.matcher(input);
-
-        while (matcher.find()) {
-            if (matcher.group(1) != null) {
-                tokens.add(new Token(TokenType.KEYWORD, matcher.group(1).toUpperCase()));
-            } else if (matcher.group(2) != null) {
-                tokens.add(new Token(TokenType.OPERATOR, matcher.group(2)));
-            } else if (matcher.group(3) != null) {
-                tokens.add(new Token(TokenType.LITERAL, matcher.group(3)));
-            } else if (matcher.group(4) != null) {
-                tokens.add(new Token(TokenType.LITERAL, "'" + matcher.group(4) + "'"));
-            } else if (matcher.group(5) != null) {
-                tokens.add(new Token(TokenType.IDENTIFIER, matcher.group(5)));
-            } else if (matcher.group(6) != null) {
-                tokens.add(new Token(TokenType.PUNCTUATION, matcher.group(6)));
+        int length = input.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = input.charAt(i);
+
+            if (isIdentifierStart(c)) {
+                int start = i++;
+                while (i < length && isIdentifierPart(input.charAt(i))) {
+                    i++;
+                }
+                String keyword = lookupKeyword(input, start, i);
+                if (keyword != null) {
+                    tokens.add(new Token(TokenType.KEYWORD, input, start, i, keyword));
+                } else {
+                    tokens.add(new Token(TokenType.IDENTIFIER, input, start, i, null));
+                }
+                continue;
+            }
+
+            if (isDigit(c) || ((c == '-' || c == '.') && startsNumber(input, i, length))) {
+                int start = i;
+                i = scanNumber(input, i, length);
+                tokens.add(new Token(TokenType.LITERAL, input, start, i, null));
+                continue;
+            }
+
+            switch (c) {
+                case '\'': {
+                    int close = i + 1;
+                    while (close < length && input.charAt(close) != '\'') {
+                        close++;
+                    }
+                    if (close < length) {
+                        tokens.add(new Token(TokenType.LITERAL, input, i, close + 1, null));
+                        i = close + 1;
+                    } else {
+                        i++; // Unterminated quote, skip it like the regex did
+                    }
+                    break;
+                }
+                case '<':
+                    if (i + 1 < length && input.charAt(i + 1) == '=') {
+                        tokens.add(new Token(TokenType.OPERATOR, input, i, i + 2, "<="));
+                        i += 2;
+                    } else if (i + 1 < length && input.charAt(i + 1) == '>') {
+                        tokens.add(new Token(TokenType.OPERATOR, input, i, i + 2, "<>"));
+                        i += 2;
+                    } else {
+                        tokens.add(new Token(TokenType.OPERATOR, input, i, i + 1, "<"));
+                        i++;
+                    }
+                    break;
+                case '>':
+                    if (i + 1 < length && input.charAt(i + 1) == '=') {
+                        tokens.add(new Token(TokenType.OPERATOR, input, i, i + 2, ">="));
+                        i += 2;
+                    } else {
+                        tokens.add(new Token(TokenType.OPERATOR, input, i, i + 1, ">"));
+                        i++;
+                    }
+                    break;
+                case '!':
+                    if (i + 1 < length && input.charAt(i + 1) == '=') {
+                        tokens.add(new Token(TokenType.OPERATOR, input, i, i + 2, "!="));
+                        i += 2;
+                    } else {
+                        i++;
+                    }
+                    break;
+                case '=':
+                    tokens.add(new Token(TokenType.OPERATOR, input, i, i + 1, "="));
+                    i++;
+                    break;
+                case ',':
+                    tokens.add(new Token(TokenType.PUNCTUATION, input, i, i + 1, ","));
+                    i++;
+                    break;
+                case '(':
+                    tokens.add(new Token(TokenType.PUNCTUATION, input, i, i + 1, "("));
+                    i++;
+                    break;
+                case ')':
+                    tokens.add(new Token(TokenType.PUNCTUATION, input, i, i + 1, ")"));
+                    i++;
+                    break;
+                case '*':
+                    tokens.add(new Token(TokenType.PUNCTUATION, input, i, i + 1, "*"));
+                    i++;
+                    break;
+                default:
+                    i++; // Whitespace and unknown characters
+                    break;
             }
         }
 
         return tokens;
     }
 
+    /**
+     * Returns the canonical upper case keyword for input[start, end), or null for identifiers
+     */
+    private static String lookupKeyword(CharSequence input, int start, int end) {
+        int length = end - start;
+        if (length > MAX_KEYWORD_LENGTH) {
+            return null;
+        }
+
+        int first = (input.charAt(start) & 0xDF) - 'A';
+        if (first < 0 || first >= 26) {
+            return null;
+        }
+
+        String[] candidates = KEYWORD_TABLE[length][first];
+        if (candidates == null) {
+            return null;
+        }
+
+        for (String candidate : candidates) {
+            int j = 1;
+            // Clearing bit 5 upper-cases ASCII letters and never maps digits or '_' onto one
+            while (j < length && (input.charAt(start + j) & 0xDF) == candidate.charAt(j)) {
+                j++;
+            }
+            if (j == length) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    // Mirrors -?\d*\.?\d+ : an optional sign, digits, and a fraction only if a digit follows '.'
+    private static int scanNumber(CharSequence input, int i, int length) {
+        if (input.charAt(i) == '-') {
+            i++;
+        }
+        while (i < length && isDigit(input.charAt(i))) {
+            i++;
+        }
+        if (i + 1 < length && input.charAt(i) == '.' && isDigit(input.charAt(i + 1))) {
+            i++;
+            while (i < length && isDigit(input.charAt(i))) {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    private static boolean startsNumber(CharSequence input, int i, int length) {
+        if (input.charAt(i) == '-') {
+            i++;
+            if (i < length && isDigit(input.charAt(i))) {
+                return true;
+            }
+        }
+        return i + 1 < length && input.charAt(i) == '.' && isDigit(input.charAt(i + 1));
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || isDigit(c);
+    }
+
     public static void main(String[] args) {
         // Test: Tokenize Keywords with *
         String input = "SELECT * FROM table WHERE column = 10";
@@ -60,7 +226,7 @@ public class Tokenizer {
                 "Expected: [(KEYWORD, SELECT), (PUNCTUATION, *), (KEYWORD, FROM), (IDENTIFIER, table), (KEYWORD, WHERE), (IDENTIFIER, column), (OPERATOR, =), (LITERAL, 10)]");
         System.out.print("Actual: [");
         for (Token token : tokens) {
-            System.out.print("(" + token.type + ", " + token.value + "), ");
+            System.out.print("(" + token.type + ", " + token.getValue() + "), ");
         }
         System.out.println("]");
         System.out.println();
@@ -74,7 +240,7 @@ public class Tokenizer {
                 "Expected: [(IDENTIFIER, column1), (OPERATOR, >=), (LITERAL, 5.5), (KEYWORD, AND), (IDENTIFIER, column2), (OPERATOR, <), (LITERAL, -10.25)]");
         System.out.print("Actual: [");
         for (Token token : tokens) {
-            System.out.print("(" + token.type + ", " + token.value + "), ");
+            System.out.print("(" + token.type + ", " + token.getValue() + "), ");
         }
         System.out.println("]");
         System.out.println();
@@ -90,7 +256,7 @@ public class Tokenizer {
                         "(IDENTIFIER, column3), (OPERATOR, <>), (LITERAL, 'test')]");
         System.out.print("Actual: [");
         for (Token token : tokens) {
-            System.out.print("(" + token.type + ", " + token.value + "), ");
+            System.out.print("(" + token.type + ", " + token.getValue() + "), ");
         }
         System.out.println("]");
         System.out.println();
@@ -106,7 +272,7 @@ public class Tokenizer {
                         "(KEYWORD, AND), (IDENTIFIER, status), (OPERATOR, !=), (LITERAL, 'pending')]");
         System.out.print("Actual: [");
         for (Token token : tokens) {
-            System.out.print("(" + token.type + ", " + token.value + "), ");
+            System.out.print("(" + token.type + ", " + token.getValue() + "), ");
         }
         System.out.println("]");
 
@@ -119,7 +285,7 @@ public class Tokenizer {
                 "Expected: [(KEYWORD, INSERT), (KEYWORD, INTO), (IDENTIFIER, table), (KEYWORD, VALUES), (PUNCTUATION, (), (LITERAL, 1), (PUNCTUATION, ,), (LITERAL, 'text'), (PUNCTUATION, ,), (LITERAL, 3.14), (PUNCTUATION, ))]");
         System.out.print("Actual: [");
         for (Token token : tokens) {
-            System.out.print("(" + token.type + ", " + token.value + "), ");
+            System.out.print("(" + token.type + ", " + token.getValue() + "), ");
         }
         System.out.println("]");
         System.out.println();
@@ -133,8 +299,8 @@ public class Tokenizer {
                 "Expected: [(KEYWORD, UPDATE), (IDENTIFIER, table), (KEYWORD, SET), (IDENTIFIER, column1), (OPERATOR, =), (LITERAL, 'value'), (KEYWORD, WHERE), (IDENTIFIER, column2), (OPERATOR, <>), (LITERAL, 100)]");
         System.out.print("Actual: [");
         for (Token token : tokens) {
-            System.out.print("(" + token.type + ", " + token.value + "), ");
+            System.out.print("(" + token.type + ", " + token.getValue() + "), ");
         }
         System.out.println("]");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,15 @@
+package edu.smu.smusql.bplustreeA.AstParser.nodes;
+
+// Node for ADVISE [APPLY] statements, which report or apply the index advisor's recommendations
+public class AdviseNode extends ASTNode {
+    boolean apply;
+
+    public AdviseNode(boolean apply) {
+        this.apply = apply;
+    }
+
+    public boolean isApply() {
+        return apply;
+    }
+
+}
@@ -0,0 +1,42 @@
+package edu.smu.smusql.bplustreeA.AstParser.nodes;
+
+// Node for an aggregate in a SELECT list: COUNT(*), or COUNT, MIN, MAX, SUM or AVG of a column
+public class AggregateNode extends ExpressionNode {
+    String function; // Upper case
+    String column; // "*" for COUNT(*)
+
+    public AggregateNode(String function, String column) {
+        this.function = function;
+        this.column = column;
+    }
+
+    public String getFunction() {
+        return function;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public boolean isCountAll() {
+        return column.equals("*");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof AggregateNode
+            && function.equals(((AggregateNode) o).function)
+            && column.equals(((AggregateNode) o).column));
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+
+    // Column header of the aggregate's result, e.g. MAX(price)
+    @Override
+    public String toString() {
+        return function + "(" + column + ")";
+    }
+}
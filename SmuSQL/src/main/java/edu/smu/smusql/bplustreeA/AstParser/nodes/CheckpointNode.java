@@ -0,0 +1,6 @@
+package edu.smu.smusql.bplustreeA.AstParser.nodes;
+
+// Node for CHECKPOINT statements, which snapshot every table and truncate the write-ahead log
+public class CheckpointNode extends ASTNode {
+
+}
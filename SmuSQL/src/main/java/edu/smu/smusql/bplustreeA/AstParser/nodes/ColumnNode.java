@@ -11,4 +11,19 @@ public class ColumnNode extends ExpressionNode {
     public String getName() {
         return name;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof ColumnNode && name.equals(((ColumnNode) o).name));
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
 }
\ No newline at end of file
@@ -1,10 +1,15 @@
 package edu.smu.smusql.bplustreeA.AstParser.nodes;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 // Node for WHERE conditions
 public class ConditionNode extends ASTNode {
     ASTNode left;
     String operator;
     ASTNode right;
+    private String fingerprint; // Computed on first use, nodes are not modified after parsing
 
     public ConditionNode(ASTNode left, String operator, ASTNode right) {
         this.left = left;
@@ -24,4 +29,68 @@ public class ConditionNode extends ASTNode {
         return right;
     }
 
+    public boolean isLogical() {
+        return left instanceof ConditionNode && right instanceof ConditionNode;
+    }
+
+    /**
+     * Canonical text of the condition: chains of the same logical operator are flattened and
+     * their operands sorted, <> is written as != and literals are tagged with their type. Two
+     * conditions selecting the same rows by the same predicates share a fingerprint regardless
+     * of how the operands were ordered or grouped.
+     */
+    public String fingerprint() {
+        if (fingerprint == null) {
+            fingerprint = computeFingerprint();
+        }
+        return fingerprint;
+    }
+
+    private String computeFingerprint() {
+        if (!isLogical()) {
+            String normalized = operator.equals("<>") ? "!=" : operator;
+            String value = right instanceof LiteralNode ? ((LiteralNode) right).fingerprint()
+                : String.valueOf(right);
+            return left + " " + normalized + " " + value;
+        }
+
+        List<String> operands = new ArrayList<>();
+        collectOperands(this, operator, operands);
+        Collections.sort(operands);
+        return "(" + String.join(" " + operator + " ", operands) + ")";
+    }
+
+    private static void collectOperands(ConditionNode node, String operator, List<String> out) {
+        if (node.isLogical() && node.operator.equals(operator)) {
+            collectOperands((ConditionNode) node.left, operator, out);
+            collectOperands((ConditionNode) node.right, operator, out);
+        } else {
+            out.add(node.fingerprint());
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ConditionNode)) {
+            return false;
+        }
+        return fingerprint().equals(((ConditionNode) o).fingerprint());
+    }
+
+    @Override
+    public int hashCode() {
+        return fingerprint().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        if (isLogical()) {
+            return "(" + left + " " + operator + " " + right + ")";
+        }
+        return left + " " + operator + " " + right;
+    }
+
 }
\ No newline at end of file
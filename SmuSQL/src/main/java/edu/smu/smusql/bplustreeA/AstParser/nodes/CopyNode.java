@@ -0,0 +1,21 @@
+package edu.smu.smusql.bplustreeA.AstParser.nodes;
+
+// Node for COPY table FROM 'file' statements
+public class CopyNode extends ASTNode {
+    String tableName;
+    String path;
+
+    public CopyNode(String tableName, String path) {
+        this.tableName = tableName;
+        this.path = path;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+}
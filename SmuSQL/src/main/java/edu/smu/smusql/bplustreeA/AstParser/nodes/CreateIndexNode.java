@@ -0,0 +1,28 @@
+package edu.smu.smusql.bplustreeA.AstParser.nodes;
+
+// Node for CREATE INDEX [name] ON table (column) statements
+public class CreateIndexNode extends ASTNode {
+    String indexName;
+    String tableName;
+    String column;
+
+    public CreateIndexNode(String indexName, String tableName, String column) {
+        this.indexName = indexName;
+        this.tableName = tableName;
+        this.column = column;
+    }
+
+    // Null if the statement did not name the index
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+}
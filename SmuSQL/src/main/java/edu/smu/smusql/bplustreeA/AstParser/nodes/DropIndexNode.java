@@ -0,0 +1,28 @@
+package edu.smu.smusql.bplustreeA.AstParser.nodes;
+
+// Node for DROP INDEX name and DROP INDEX ON table (column) statements
+public class DropIndexNode extends ASTNode {
+    String indexName;
+    String tableName;
+    String column;
+
+    public DropIndexNode(String indexName, String tableName, String column) {
+        this.indexName = indexName;
+        this.tableName = tableName;
+        this.column = column;
+    }
+
+    // Null if the index is given by table and column
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+}
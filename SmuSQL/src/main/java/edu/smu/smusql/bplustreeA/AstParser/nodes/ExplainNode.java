@@ -0,0 +1,15 @@
+package edu.smu.smusql.bplustreeA.AstParser.nodes;
+
+// Node for EXPLAIN statements, wraps the statement whose plan is requested
+public class ExplainNode extends ASTNode {
+    ASTNode statement;
+
+    public ExplainNode(ASTNode statement) {
+        this.statement = statement;
+    }
+
+    public ASTNode getStatement() {
+        return statement;
+    }
+
+}
@@ -1,5 +1,7 @@
 package edu.smu.smusql.bplustreeA.AstParser.nodes;
 
+import java.util.Objects;
+
 // Node for literal values
 public class LiteralNode extends ExpressionNode {
 
@@ -58,4 +60,40 @@ public class LiteralNode extends ExpressionNode {
         return type;
     }
 
+    /**
+     * The value tagged with its type, so 1 and 1.0 stay apart
+     */
+    public String fingerprint() {
+        switch (type) {
+            case STRING:
+                return "s'" + value + "'"; // Quotes cannot occur inside a string literal
+            case FLOAT:
+                return "f" + value;
+            default:
+                return "i" + value;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LiteralNode)) {
+            return false;
+        }
+        LiteralNode other = (LiteralNode) o;
+        return type == other.type && Objects.equals(value, other.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, value);
+    }
+
+    @Override
+    public String toString() {
+        return type == LiteralNodeType.STRING ? "'" + value + "'" : String.valueOf(value);
+    }
+
 }
\ No newline at end of file
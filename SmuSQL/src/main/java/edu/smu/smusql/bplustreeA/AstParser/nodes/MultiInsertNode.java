@@ -0,0 +1,23 @@
+package edu.smu.smusql.bplustreeA.AstParser.nodes;
+
+import java.util.List;
+
+// Node for INSERT statements with more than one VALUES tuple
+public class MultiInsertNode extends ASTNode {
+    String tableName;
+    List<InsertNode> rows;
+
+    public MultiInsertNode(String tableName, List<InsertNode> rows) {
+        this.tableName = tableName;
+        this.rows = rows;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public List<InsertNode> getRows() {
+        return rows;
+    }
+
+}
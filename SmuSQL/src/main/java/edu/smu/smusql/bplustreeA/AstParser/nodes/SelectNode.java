@@ -1,5 +1,6 @@
 package edu.smu.smusql.bplustreeA.AstParser.nodes;
 
+import java.util.Collections;
 import java.util.List;
 
 // Node for SELECT statements
@@ -7,11 +8,20 @@ public class SelectNode extends ASTNode {
     List<String> columns;
     String tableName;
     ConditionNode whereClause;
+    List<AggregateNode> aggregates;
+    String groupBy; // Null without a GROUP BY clause
 
     public SelectNode(List<String> columns, String tableName, ConditionNode whereClause) {
+        this(columns, tableName, whereClause, Collections.emptyList(), null);
+    }
+
+    public SelectNode(List<String> columns, String tableName, ConditionNode whereClause,
+        List<AggregateNode> aggregates, String groupBy) {
         this.columns = columns;
         this.tableName = tableName;
         this.whereClause = whereClause;
+        this.aggregates = aggregates;
+        this.groupBy = groupBy;
     }
 
     public List<String> getColumns() {
@@ -26,4 +36,21 @@ public class SelectNode extends ASTNode {
         return whereClause;
     }
 
+    public List<AggregateNode> getAggregates() {
+        return aggregates;
+    }
+
+    public boolean hasAggregates() {
+        return !aggregates.isEmpty();
+    }
+
+    public String getGroupBy() {
+        return groupBy;
+    }
+
+    // True if the result is aggregated rather than a row per table row
+    public boolean isAggregate() {
+        return hasAggregates() || groupBy != null;
+    }
+
 }
\ No newline at end of file
@@ -1,9 +1,17 @@
 package edu.smu.smusql.bplustreeA;
 
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+import edu.smu.smusql.bplustreeA.helper.PostingLists;
 
 public class BPlusTree<K extends Number, V> {
 
@@ -47,6 +55,21 @@ public class BPlusTree<K extends Number, V> {
         return allKeys;
     }
 
+    /**
+     * Walks the leaves in key order, passing each stored key with its own value list. Keys that
+     * compare equal but are stored apart, such as 5 and 5.0, are each passed once
+     */
+    public void forEachKeyList(BiConsumer<? super K, ? super List<V>> action) {
+        LeafNode current = firstLeaf;
+
+        while (current != null) {
+            for (int i = 0; i < current.keys.size(); i++) {
+                action.accept(current.keys.get(i), current.values.get(i));
+            }
+            current = current.next;
+        }
+    }
+
     /**
      * For Main Tree Retrieval
      */
@@ -163,6 +186,120 @@ public class BPlusTree<K extends Number, V> {
 //        return results;
 //    }
 
+    /**
+     * Same walk as {@link #multiKeySearch(List)} for a sorted primitive key list, so posting lists
+     * from the index trees can be fetched without boxing or re-sorting
+     */
+    public Map<K, V> multiKeySearch(int[] keys) {
+        if (keys == null || keys.length == 0 || root == null) {
+            return new HashMap<>();
+        }
+
+        Map<K, V> results = new HashMap<>((int) (keys.length / 0.75f) + 1);
+        LeafNode leaf = findLeaf(keys[0]);
+        int keyIndex = 0;
+        int lastKey = keys[keys.length - 1];
+
+        while (leaf != null && keyIndex < keys.length) {
+            for (int i = 0; i < leaf.keys.size() && keyIndex < keys.length; i++) {
+                K leafKey = leaf.keys.get(i);
+                double leafValue = leafKey.doubleValue();
+
+                if (leafValue > lastKey) {
+                    return results;
+                }
+                while (keyIndex < keys.length && keys[keyIndex] < leafValue) {
+                    keyIndex++;
+                }
+                if (keyIndex < keys.length && keys[keyIndex] == leafValue) {
+                    results.put(leafKey, leaf.values.get(i).get(0));
+                    keyIndex++;
+                }
+            }
+            leaf = leaf.next;
+        }
+
+        return results;
+    }
+
+    /**
+     * Lazily walks the leaves in key order, yielding each key with its first value. For Main Tree
+     * scans that should not materialize the whole table
+     */
+    public Iterator<Map.Entry<K, V>> entryIterator() {
+        return new Iterator<>() {
+            private LeafNode leaf = firstLeaf;
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (leaf != null && position >= leaf.keys.size()) {
+                    leaf = leaf.next;
+                    position = 0;
+                }
+                return leaf != null;
+            }
+
+            @Override
+            public Map.Entry<K, V> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Map.Entry<K, V> entry = new SimpleImmutableEntry<>(leaf.keys.get(position),
+                    leaf.values.get(position).get(0));
+                position++;
+                return entry;
+            }
+        };
+    }
+
+    /**
+     * Lazy form of {@link #multiKeySearch(int[])}, yielding the entries of the sorted keys that
+     * exist in key order as the leaves are walked
+     */
+    public Iterator<Map.Entry<K, V>> multiKeyIterator(int[] keys) {
+        return new Iterator<>() {
+            private LeafNode leaf = keys.length > 0 ? findLeaf(keys[0]) : null;
+            private int position = 0;
+            private int keyIndex = 0;
+            private Map.Entry<K, V> pending;
+
+            @Override
+            public boolean hasNext() {
+                while (pending == null && leaf != null && keyIndex < keys.length) {
+                    if (position >= leaf.keys.size()) {
+                        leaf = leaf.next;
+                        position = 0;
+                        continue;
+                    }
+
+                    K leafKey = leaf.keys.get(position);
+                    double leafValue = leafKey.doubleValue();
+                    while (keyIndex < keys.length && keys[keyIndex] < leafValue) {
+                        keyIndex++;
+                    }
+                    if (keyIndex < keys.length && keys[keyIndex] == leafValue) {
+                        pending = new SimpleImmutableEntry<>(leafKey,
+                            leaf.values.get(position).get(0));
+                        keyIndex++;
+                    }
+                    position++;
+                }
+                return pending != null;
+            }
+
+            @Override
+            public Map.Entry<K, V> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Map.Entry<K, V> entry = pending;
+                pending = null;
+                return entry;
+            }
+        };
+    }
+
     private LeafNode getLeafNode(List<K> keys) {
 
         Node current = root;
@@ -197,6 +334,248 @@ public class BPlusTree<K extends Number, V> {
         return root.rangeSearch(startKey, endKey);
     }
 
+    /**
+     * Range search with explicit bound inclusivity, so callers do not have to search the boundary
+     * key again to strip it out
+     */
+    public List<V> rangeSearch(K startKey, boolean startInclusive, K endKey,
+        boolean endInclusive) {
+        List<V> result = new ArrayList<>();
+        LeafNode leaf = findLeaf(startKey);
+
+        while (leaf != null) {
+            for (int i = 0; i < leaf.keys.size(); i++) {
+                K key = leaf.keys.get(i);
+                int lower = comparator.compare(key, startKey);
+                if (lower < 0 || (lower == 0 && !startInclusive)) {
+                    continue;
+                }
+                int upper = comparator.compare(key, endKey);
+                if (upper > 0 || (upper == 0 && !endInclusive)) {
+                    return result;
+                }
+                result.addAll(leaf.values.get(i));
+            }
+            leaf = leaf.next;
+        }
+        return result;
+    }
+
+    /**
+     * Key-ordered entries within [startKey, endKey]. For Main Tree range retrieval
+     */
+    public Map<K, V> rangeSearchKeyValues(K startKey, boolean startInclusive, K endKey,
+        boolean endInclusive) {
+        Map<K, V> result = new LinkedHashMap<>();
+        LeafNode leaf = findLeaf(startKey);
+
+        while (leaf != null) {
+            for (int i = 0; i < leaf.keys.size(); i++) {
+                K key = leaf.keys.get(i);
+                int lower = comparator.compare(key, startKey);
+                if (lower < 0 || (lower == 0 && !startInclusive)) {
+                    continue;
+                }
+                int upper = comparator.compare(key, endKey);
+                if (upper > 0 || (upper == 0 && !endInclusive)) {
+                    return result;
+                }
+                result.put(key, leaf.values.get(i).get(0));
+            }
+            leaf = leaf.next;
+        }
+        return result;
+    }
+
+    /**
+     * Smallest key in the tree, read from the first leaf. Null when empty
+     */
+    public K getMinKey() {
+        return firstLeaf.keys.isEmpty() ? null : firstLeaf.keys.get(0);
+    }
+
+    /**
+     * Largest key in the tree, read from the right-most leaf. Null when empty
+     */
+    public K getMaxKey() {
+        Node current = root;
+        while (current instanceof InternalNode) {
+            List<Node> children = ((InternalNode) current).children;
+            current = children.get(children.size() - 1);
+        }
+        return current.keys.isEmpty() ? null : current.keys.get(current.keys.size() - 1);
+    }
+
+    /**
+     * Separator keys cutting the tree into at least the given number of key ranges of whole
+     * subtrees, read from the internal node levels, or fewer if the tree has fewer leaves. Range i
+     * starts at key i - 1 inclusive and ends before key i, the first and last are open
+     */
+    public List<K> splitKeys(int parts) {
+        List<Node> level = List.of(root);
+        List<K> bounds = new ArrayList<>();
+
+        while (level.size() < parts && level.get(0) instanceof InternalNode) {
+            List<Node> children = new ArrayList<>();
+            List<K> childBounds = new ArrayList<>();
+            for (int i = 0; i < level.size(); i++) {
+                if (i > 0) {
+                    childBounds.add(bounds.get(i - 1));
+                }
+                InternalNode node = (InternalNode) level.get(i);
+                children.addAll(node.children);
+                childBounds.addAll(node.keys);
+            }
+            level = children;
+            bounds = childBounds;
+        }
+        return bounds;
+    }
+
+    /**
+     * Number of values under the keys within the bounds, read from the leaves' list sizes without
+     * collecting the values
+     */
+    public int rangeCount(K startKey, boolean startInclusive, K endKey, boolean endInclusive) {
+        int count = 0;
+        LeafNode leaf = findLeaf(startKey);
+
+        while (leaf != null) {
+            for (int i = 0; i < leaf.keys.size(); i++) {
+                K key = leaf.keys.get(i);
+                int lower = comparator.compare(key, startKey);
+                if (lower < 0 || (lower == 0 && !startInclusive)) {
+                    continue;
+                }
+                int upper = comparator.compare(key, endKey);
+                if (upper > 0 || (upper == 0 && !endInclusive)) {
+                    return count;
+                }
+                count += leaf.values.get(i).size();
+            }
+            leaf = leaf.next;
+        }
+        return count;
+    }
+
+    /**
+     * Values of every key within the bounds as a sorted primitive array. For index trees, whose
+     * values are primary keys
+     */
+    public int[] rangeSearchPostings(K startKey, boolean startInclusive, K endKey,
+        boolean endInclusive) {
+        int[] result = new int[16];
+        int n = 0;
+        boolean sorted = true;
+        LeafNode leaf = findLeaf(startKey);
+
+        while (leaf != null) {
+            for (int i = 0; i < leaf.keys.size(); i++) {
+                K key = leaf.keys.get(i);
+                int lower = comparator.compare(key, startKey);
+                if (lower < 0 || (lower == 0 && !startInclusive)) {
+                    continue;
+                }
+                int upper = comparator.compare(key, endKey);
+                if (upper > 0 || (upper == 0 && !endInclusive)) {
+                    return finishPostings(result, n, sorted);
+                }
+
+                // Each key's list is already sorted, only the concatenation across keys may not be
+                for (V value : leaf.values.get(i)) {
+                    int posting = ((Number) value).intValue();
+                    if (n == result.length) {
+                        result = Arrays.copyOf(result, n * 2);
+                    }
+                    if (n > 0 && result[n - 1] >= posting) {
+                        sorted = false;
+                    }
+                    result[n++] = posting;
+                }
+            }
+            leaf = leaf.next;
+        }
+        return finishPostings(result, n, sorted);
+    }
+
+    /**
+     * Visits every (key, value) pair within the bounds in key order
+     */
+    public void rangeForEach(K startKey, boolean startInclusive, K endKey, boolean endInclusive,
+        BiConsumer<? super K, ? super V> action) {
+        LeafNode leaf = findLeaf(startKey);
+
+        while (leaf != null) {
+            for (int i = 0; i < leaf.keys.size(); i++) {
+                K key = leaf.keys.get(i);
+                int lower = comparator.compare(key, startKey);
+                if (lower < 0 || (lower == 0 && !startInclusive)) {
+                    continue;
+                }
+                int upper = comparator.compare(key, endKey);
+                if (upper > 0 || (upper == 0 && !endInclusive)) {
+                    return;
+                }
+                for (V value : leaf.values.get(i)) {
+                    action.accept(key, value);
+                }
+            }
+            leaf = leaf.next;
+        }
+    }
+
+    private static int[] finishPostings(int[] postings, int length, boolean sorted) {
+        if (!sorted) {
+            return PostingLists.sortedDistinct(postings, length);
+        }
+        return length == postings.length ? postings : Arrays.copyOf(postings, length);
+    }
+
+    /**
+     * Keys within the bounds as a sorted primitive array. For Main Tree range retrieval
+     */
+    public int[] rangeSearchKeys(K startKey, boolean startInclusive, K endKey,
+        boolean endInclusive) {
+        int[] result = new int[16];
+        int n = 0;
+        LeafNode leaf = findLeaf(startKey);
+
+        while (leaf != null) {
+            for (int i = 0; i < leaf.keys.size(); i++) {
+                K key = leaf.keys.get(i);
+                int lower = comparator.compare(key, startKey);
+                if (lower < 0 || (lower == 0 && !startInclusive)) {
+                    continue;
+                }
+                int upper = comparator.compare(key, endKey);
+                if (upper > 0 || (upper == 0 && !endInclusive)) {
+                    return Arrays.copyOf(result, n);
+                }
+                if (n == result.length) {
+                    result = Arrays.copyOf(result, n * 2);
+                }
+                result[n++] = key.intValue();
+            }
+            leaf = leaf.next;
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private LeafNode findLeaf(Number key) {
+        Node current = root;
+
+        while (current instanceof InternalNode) {
+            InternalNode node = (InternalNode) current;
+            int index = 0;
+            while (index < node.keys.size() && comparator.compare(key, node.keys.get(index)) >= 0) {
+                index++;
+            }
+            current = node.children.get(index);
+        }
+
+        return (LeafNode) current;
+    }
+
     /**
      * Updates all values associated with a key Used primarily for the main tree where each key has
      * one value
@@ -288,12 +667,96 @@ public class BPlusTree<K extends Number, V> {
         size++;
     }
 
+    /**
+     * Inserts pairs already sorted by key in one pass. A key that falls inside the leaf the
+     * previous pair went to is placed there without descending from the root again, and only
+     * inserts that split a leaf take the regular path
+     */
+    public void insertSorted(List<K> keys, List<V> values) {
+        LeafNode leaf = null;
+
+        for (int i = 0; i < keys.size(); i++) {
+            K key = keys.get(i);
+            V value = values.get(i);
+
+            if (leaf == null || !leaf.covers(key)) {
+                leaf = findLeaf(key);
+            }
+
+            if (leaf.keys.size() < order - 1 || leaf.keys.contains(key)) {
+                leaf.insert(key, value); // Cannot split
+                size++;
+            } else {
+                insert(key, value);
+                leaf = null;
+            }
+        }
+    }
+
+    /**
+     * Replaces the contents of an empty tree with the given keys, built bottom up: full leaves are
+     * cut straight from the input and each internal level is laid over the one below it, so
+     * nothing is ever split.
+     *
+     * @param sortedKeys distinct keys in ascending order
+     * @param valueLists the values of each key, taken over by the tree
+     */
+    public void bulkLoad(List<K> sortedKeys, List<List<V>> valueLists) {
+        if (size != 0) {
+            throw new IllegalStateException("Bulk load requires an empty tree");
+        }
+        if (sortedKeys.isEmpty()) {
+            return;
+        }
+
+        // Leaves hold up to order - 1 keys, spread evenly so the last one is not left near empty
+        int leafCount = (sortedKeys.size() + order - 2) / (order - 1);
+        List<Node> level = new ArrayList<>(leafCount);
+        LeafNode previous = null;
+        int from = 0;
+        for (int i = 0; i < leafCount; i++) {
+            int to = (int) ((long) sortedKeys.size() * (i + 1) / leafCount);
+            LeafNode leaf = new LeafNode();
+            leaf.keys = new ArrayList<>(sortedKeys.subList(from, to));
+            leaf.values = new ArrayList<>(valueLists.subList(from, to));
+            for (List<V> values : leaf.values) {
+                size += values.size();
+            }
+            if (previous != null) {
+                previous.next = leaf;
+            }
+            previous = leaf;
+            level.add(leaf);
+            from = to;
+        }
+        firstLeaf = (LeafNode) level.get(0);
+
+        // Internal nodes hold up to order children, keyed by the first key under each child
+        while (level.size() > 1) {
+            int nodeCount = (level.size() + order - 1) / order;
+            List<Node> parents = new ArrayList<>(nodeCount);
+            from = 0;
+            for (int i = 0; i < nodeCount; i++) {
+                int to = (int) ((long) level.size() * (i + 1) / nodeCount);
+                InternalNode node = new InternalNode();
+                node.children = new ArrayList<>(level.subList(from, to));
+                for (int c = 1; c < node.children.size(); c++) {
+                    node.keys.add(node.children.get(c).getFirstLeafKey());
+                }
+                parents.add(node);
+                from = to;
+            }
+            level = parents;
+        }
+        root = level.get(0);
+    }
+
     public int getSize() {
         return size; // Return the size of the B+ tree
     }
 
-    public Node removeValue(K key, V value) {
-        Node result = root.removeValue(key, value);
+    public void removeValue(K key, V value) {
+        root.removeValue(key, value);
         size--;
 
         // If root is an internal node with no keys and only one child, make its child
@@ -308,8 +771,6 @@ public class BPlusTree<K extends Number, V> {
             root = new LeafNode();
             firstLeaf = (LeafNode) root;
         }
-
-        return result;
     }
 
     private abstract class Node {
@@ -625,7 +1086,7 @@ public class BPlusTree<K extends Number, V> {
             int index = keys.indexOf(key);
             if (index != -1) {
                 // Key exists, add value to the existing list
-                values.get(index).add(value);
+                addSorted(values.get(index), value);
             } else {
                 // Key doesn't exist, insert new key-value pair
                 int insertionPoint = findInsertionPoint(key);
@@ -642,6 +1103,47 @@ public class BPlusTree<K extends Number, V> {
             return null;
         }
 
+        /**
+         * Keeps comparable values (primary keys in index trees) in ascending order, so a single
+         * key's posting list never needs sorting on the read path
+         */
+        @SuppressWarnings("unchecked")
+        private void addSorted(List<V> valueList, V value) {
+            if (!(value instanceof Comparable) || valueList.isEmpty()) {
+                valueList.add(value);
+                return;
+            }
+
+            Comparable<Object> comparable = (Comparable<Object>) value;
+            // Rows usually arrive in primary key order, so appending is the common case
+            if (comparable.compareTo(valueList.get(valueList.size() - 1)) >= 0) {
+                valueList.add(value);
+                return;
+            }
+
+            int low = 0, high = valueList.size() - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (comparable.compareTo(valueList.get(mid)) > 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            valueList.add(low, value);
+        }
+
+        /**
+         * True if a search for key is certain to end in this leaf: the key lies within the keys
+         * already here, or beyond them in the right-most leaf
+         */
+        boolean covers(K key) {
+            if (keys.isEmpty() || comparator.compare(key, keys.get(0)) < 0) {
+                return false;
+            }
+            return next == null || comparator.compare(key, keys.get(keys.size() - 1)) <= 0;
+        }
+
         private int findInsertionPoint(K key) {
             int index = 0;
             while (index < keys.size() && comparator.compare(key, keys.get(index)) > 0) {
@@ -1,10 +1,13 @@
 package edu.smu.smusql.bplustreeA;
 
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 public class BPlusTreeMultiRange<K extends Number, V> {
 
@@ -193,6 +196,37 @@ public class BPlusTreeMultiRange<K extends Number, V> {
         return range > threshold;
     }
 
+    /**
+     * Lazily walks the leaves in key order, yielding each key with its first value. For Main Tree
+     * scans that should not materialize the whole table
+     */
+    public Iterator<Map.Entry<K, V>> entryIterator() {
+        return new Iterator<>() {
+            private LeafNode leaf = firstLeaf;
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (leaf != null && position >= leaf.keys.size()) {
+                    leaf = leaf.next;
+                    position = 0;
+                }
+                return leaf != null;
+            }
+
+            @Override
+            public Map.Entry<K, V> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Map.Entry<K, V> entry = new SimpleImmutableEntry<>(leaf.keys.get(position),
+                    leaf.values.get(position).get(0));
+                position++;
+                return entry;
+            }
+        };
+    }
+
     public List<V> rangeSearch(K startKey, K endKey) {
         return root.rangeSearch(startKey, endKey);
     }
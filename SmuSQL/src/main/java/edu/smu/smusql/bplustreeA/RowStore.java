@@ -0,0 +1,76 @@
+package edu.smu.smusql.bplustreeA;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * A table's rows in primary key order, one row per key. This is all the array engine and its
+ * planner ask of a main tree, so rows may be kept in a {@link BPlusTree} on the heap or packed
+ * elsewhere.
+ *
+ * Any number of threads may read while no thread writes.
+ */
+public interface RowStore {
+
+    int getSize();
+
+    Integer getMinKey();
+
+    Integer getMaxKey();
+
+    /**
+     * The key's row as a single element list, or null if the key has none
+     */
+    List<Object[]> search(Integer key);
+
+    void insert(Integer key, Object[] row);
+
+    /**
+     * Inserts rows under keys in ascending order, none of them stored yet
+     */
+    void insertSorted(List<Integer> keys, List<Object[]> rows);
+
+    /**
+     * Fills an empty store with rows under keys in ascending order
+     */
+    void bulkLoad(List<Integer> sortedKeys, List<Object[]> rows);
+
+    /**
+     * Replaces the key's row, throwing IllegalArgumentException if the key has none
+     */
+    void update(Integer key, Object[] row);
+
+    void removeKey(Integer key);
+
+    Iterator<Map.Entry<Integer, Object[]>> entryIterator();
+
+    /**
+     * Rows of the keys in the ascending array that are stored, in key order
+     */
+    Iterator<Map.Entry<Integer, Object[]>> multiKeyIterator(int[] keys);
+
+    Map<Integer, Object[]> multiKeySearch(int[] keys);
+
+    Map<Integer, Object[]> getAllKeyValues();
+
+    int[] rangeSearchKeys(Integer startKey, boolean startInclusive, Integer endKey,
+        boolean endInclusive);
+
+    /**
+     * Rows within the bounds, in key order
+     */
+    Map<Integer, Object[]> rangeSearchKeyValues(Integer startKey, boolean startInclusive,
+        Integer endKey, boolean endInclusive);
+
+    void rangeForEach(Integer startKey, boolean startInclusive, Integer endKey,
+        boolean endInclusive, BiConsumer<? super Integer, ? super Object[]> action);
+
+    /**
+     * Keys cutting the rows into about the given number of key ranges, or fewer for a small
+     * store. Range i starts at key i - 1 inclusive and ends before key i, the first and last are
+     * open
+     */
+    List<Integer> splitKeys(int parts);
+}
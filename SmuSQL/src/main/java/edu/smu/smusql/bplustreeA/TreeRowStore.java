@@ -0,0 +1,113 @@
+package edu.smu.smusql.bplustreeA;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Rows held on the heap in a {@link BPlusTree} keyed by primary key
+ */
+public class TreeRowStore implements RowStore {
+
+    private final BPlusTree<Integer, Object[]> tree;
+
+    public TreeRowStore(int order) {
+        this.tree = new BPlusTree<>(order);
+    }
+
+    @Override
+    public int getSize() {
+        return tree.getSize();
+    }
+
+    @Override
+    public Integer getMinKey() {
+        return tree.getMinKey();
+    }
+
+    @Override
+    public Integer getMaxKey() {
+        return tree.getMaxKey();
+    }
+
+    @Override
+    public List<Object[]> search(Integer key) {
+        return tree.search(key);
+    }
+
+    @Override
+    public void insert(Integer key, Object[] row) {
+        tree.insert(key, row);
+    }
+
+    @Override
+    public void insertSorted(List<Integer> keys, List<Object[]> rows) {
+        tree.insertSorted(keys, rows);
+    }
+
+    @Override
+    public void bulkLoad(List<Integer> sortedKeys, List<Object[]> rows) {
+        List<List<Object[]>> valueLists = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            List<Object[]> single = new ArrayList<>(1);
+            single.add(row);
+            valueLists.add(single);
+        }
+        tree.bulkLoad(sortedKeys, valueLists);
+    }
+
+    @Override
+    public void update(Integer key, Object[] row) {
+        tree.update(key, row);
+    }
+
+    @Override
+    public void removeKey(Integer key) {
+        tree.removeKey(key);
+    }
+
+    @Override
+    public Iterator<Map.Entry<Integer, Object[]>> entryIterator() {
+        return tree.entryIterator();
+    }
+
+    @Override
+    public Iterator<Map.Entry<Integer, Object[]>> multiKeyIterator(int[] keys) {
+        return tree.multiKeyIterator(keys);
+    }
+
+    @Override
+    public Map<Integer, Object[]> multiKeySearch(int[] keys) {
+        return tree.multiKeySearch(keys);
+    }
+
+    @Override
+    public Map<Integer, Object[]> getAllKeyValues() {
+        return tree.getAllKeyValues();
+    }
+
+    @Override
+    public int[] rangeSearchKeys(Integer startKey, boolean startInclusive, Integer endKey,
+        boolean endInclusive) {
+        return tree.rangeSearchKeys(startKey, startInclusive, endKey, endInclusive);
+    }
+
+    @Override
+    public Map<Integer, Object[]> rangeSearchKeyValues(Integer startKey, boolean startInclusive,
+        Integer endKey, boolean endInclusive) {
+        return tree.rangeSearchKeyValues(startKey, startInclusive, endKey, endInclusive);
+    }
+
+    @Override
+    public void rangeForEach(Integer startKey, boolean startInclusive, Integer endKey,
+        boolean endInclusive, BiConsumer<? super Integer, ? super Object[]> action) {
+        tree.rangeForEach(startKey, startInclusive, endKey, endInclusive, action);
+    }
+
+    @Override
+    public List<Integer> splitKeys(int parts) {
+        return tree.splitKeys(parts);
+    }
+}
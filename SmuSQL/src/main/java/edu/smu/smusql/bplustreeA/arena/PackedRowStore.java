@@ -0,0 +1,567 @@
+package edu.smu.smusql.bplustreeA.arena;
+
+import edu.smu.smusql.bplustreeA.RowStore;
+import edu.smu.smusql.bplustreeA.helper.StringDictionary;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * Rows packed in a {@link RowArena}, found through a B+ tree of primary keys whose nodes are
+ * primitive arrays: a leaf holds an int array of keys beside a long array of row addresses, and
+ * an internal node an int array of separator keys beside its children. Leaves are linked in key
+ * order for scans. A full node splits into its parent, so an insert or removal costs O(log n).
+ * An emptied node is unlinked from its parent rather than merged with a neighbour, so removals
+ * never grow the tree. Rows are decoded into fresh arrays as they are read.
+ *
+ * Rows handed out are copies: changing one does not change the stored row, which is replaced
+ * through {@link #update} as the engine already does.
+ */
+public class PackedRowStore implements RowStore {
+
+    private final int nodeSize;
+    private final RowArena arena;
+    private Node root; // Null while empty
+    private Leaf firstLeaf;
+    private Leaf lastLeaf;
+    private int size;
+
+    private abstract static class Node {
+        int count; // Keys of a leaf, children of an internal node
+    }
+
+    private static final class Leaf extends Node {
+        final int[] keys;
+        final long[] addresses;
+        Leaf previous;
+        Leaf next;
+
+        Leaf(int capacity) {
+            this.keys = new int[capacity];
+            this.addresses = new long[capacity];
+        }
+
+        int find(int key) {
+            return Arrays.binarySearch(keys, 0, count, key);
+        }
+
+        void insertAt(int position, int key, long address) {
+            System.arraycopy(keys, position, keys, position + 1, count - position);
+            System.arraycopy(addresses, position, addresses, position + 1, count - position);
+            keys[position] = key;
+            addresses[position] = address;
+            count++;
+        }
+
+        void removeAt(int position) {
+            System.arraycopy(keys, position + 1, keys, position, count - position - 1);
+            System.arraycopy(addresses, position + 1, addresses, position, count - position - 1);
+            count--;
+        }
+
+        // Moves the upper half into a new leaf linked after this one and returns it
+        Leaf split() {
+            Leaf right = new Leaf(keys.length);
+            int half = count / 2;
+            right.count = count - half;
+            System.arraycopy(keys, half, right.keys, 0, right.count);
+            System.arraycopy(addresses, half, right.addresses, 0, right.count);
+            count = half;
+
+            right.previous = this;
+            right.next = next;
+            if (next != null) {
+                next.previous = right;
+            }
+            next = right;
+            return right;
+        }
+    }
+
+    // Child i holds the keys from separator i - 1 up to before separator i
+    private static final class Internal extends Node {
+        final int[] keys; // count - 1 separators, one spare for an overflow before a split
+        final Node[] children;
+
+        Internal(int capacity) {
+            this.keys = new int[capacity];
+            this.children = new Node[capacity + 1];
+        }
+
+        int childOf(int key) {
+            int position = Arrays.binarySearch(keys, 0, count - 1, key);
+            return position >= 0 ? position + 1 : -position - 1;
+        }
+
+        // Adds the child after the one at the index, holding the keys from the separator on
+        void insertAfter(int index, int separator, Node child) {
+            System.arraycopy(keys, index, keys, index + 1, count - 1 - index);
+            System.arraycopy(children, index + 1, children, index + 2, count - 1 - index);
+            keys[index] = separator;
+            children[index + 1] = child;
+            count++;
+        }
+
+        // Drops the child at the index, its keys falling to a neighbour's range
+        void removeChild(int index) {
+            int separator = index > 0 ? index - 1 : 0;
+            if (count > 1) {
+                System.arraycopy(keys, separator + 1, keys, separator, count - 2 - separator);
+            }
+            System.arraycopy(children, index + 1, children, index, count - 1 - index);
+            children[--count] = null;
+        }
+    }
+
+    // Visits one stored key and its row address
+    private interface AddressVisitor {
+        void visit(int key, long address);
+    }
+
+    /**
+     * @param nodeSize     keys per leaf and children per internal node
+     * @param dictionaries the table's column dictionaries, strings found there are stored by code
+     */
+    public PackedRowStore(int nodeSize, StringDictionary[] dictionaries) {
+        this.nodeSize = nodeSize;
+        this.arena = new RowArena(dictionaries);
+    }
+
+    public RowArena getArena() {
+        return arena;
+    }
+
+    private Leaf leafOf(int key) {
+        Node node = root;
+        while (node instanceof Internal) {
+            Internal internal = (Internal) node;
+            node = internal.children[internal.childOf(key)];
+        }
+        return (Leaf) node;
+    }
+
+    private long addressOf(int key) {
+        if (root == null) {
+            return -1;
+        }
+        Leaf leaf = leafOf(key);
+        int position = leaf.find(key);
+        return position < 0 ? -1 : leaf.addresses[position];
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public Integer getMinKey() {
+        return root == null ? null : firstLeaf.keys[0];
+    }
+
+    @Override
+    public Integer getMaxKey() {
+        return root == null ? null : lastLeaf.keys[lastLeaf.count - 1];
+    }
+
+    @Override
+    public List<Object[]> search(Integer key) {
+        long address = addressOf(key);
+        if (address < 0) {
+            return null;
+        }
+        List<Object[]> rows = new ArrayList<>(1);
+        rows.add(arena.read(address));
+        return rows;
+    }
+
+    @Override
+    public void insert(Integer key, Object[] row) {
+        if (root == null) {
+            firstLeaf = lastLeaf = new Leaf(nodeSize);
+            root = firstLeaf;
+        }
+
+        // The internal nodes on the way down and the child taken at each
+        Internal[] path = new Internal[8];
+        int[] taken = new int[8];
+        int depth = 0;
+        Node node = root;
+        while (node instanceof Internal) {
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+                taken = Arrays.copyOf(taken, depth * 2);
+            }
+            Internal internal = (Internal) node;
+            path[depth] = internal;
+            taken[depth] = internal.childOf(key);
+            node = internal.children[taken[depth++]];
+        }
+
+        Leaf leaf = (Leaf) node;
+        int position = leaf.find(key);
+        if (position >= 0) {
+            throw new IllegalArgumentException("Key already stored: " + key);
+        }
+        position = -position - 1;
+        long address = arena.allocate(row);
+
+        if (leaf.count < nodeSize) {
+            leaf.insertAt(position, key, address);
+            size++;
+            return;
+        }
+
+        Leaf right = leaf.split();
+        if (lastLeaf == leaf) {
+            lastLeaf = right;
+        }
+        if (position > leaf.count) {
+            right.insertAt(position - leaf.count, key, address);
+        } else {
+            leaf.insertAt(position, key, address);
+        }
+        size++;
+
+        // Carry the split up until a parent has room
+        int separator = right.keys[0];
+        Node split = right;
+        while (depth > 0) {
+            Internal parent = path[--depth];
+            parent.insertAfter(taken[depth], separator, split);
+            if (parent.count <= nodeSize) {
+                return;
+            }
+
+            int half = parent.count / 2;
+            Internal upper = new Internal(nodeSize);
+            upper.count = parent.count - half;
+            System.arraycopy(parent.keys, half, upper.keys, 0, upper.count - 1);
+            System.arraycopy(parent.children, half, upper.children, 0, upper.count);
+            Arrays.fill(parent.children, half, parent.count, null);
+            separator = parent.keys[half - 1];
+            parent.count = half;
+            split = upper;
+        }
+
+        Internal newRoot = new Internal(nodeSize);
+        newRoot.count = 2;
+        newRoot.keys[0] = separator;
+        newRoot.children[0] = root;
+        newRoot.children[1] = split;
+        root = newRoot;
+    }
+
+    @Override
+    public void insertSorted(List<Integer> keys, List<Object[]> rows) {
+        for (int i = 0; i < keys.size(); i++) {
+            insert(keys.get(i), rows.get(i));
+        }
+    }
+
+    /**
+     * Fills leaves to capacity and builds the internal levels over them, so later inserts in
+     * between split them
+     */
+    @Override
+    public void bulkLoad(List<Integer> sortedKeys, List<Object[]> rows) {
+        if (size != 0) {
+            throw new IllegalStateException("Bulk load requires an empty tree");
+        }
+        if (sortedKeys.isEmpty()) {
+            return;
+        }
+
+        List<Node> level = new ArrayList<>();
+        List<Integer> firstKeys = new ArrayList<>();
+        Leaf leaf = null;
+        for (int i = 0; i < sortedKeys.size(); i++) {
+            if (leaf == null || leaf.count == nodeSize) {
+                Leaf previous = leaf;
+                leaf = new Leaf(nodeSize);
+                leaf.previous = previous;
+                if (previous != null) {
+                    previous.next = leaf;
+                }
+                level.add(leaf);
+                firstKeys.add(sortedKeys.get(i));
+            }
+            leaf.keys[leaf.count] = sortedKeys.get(i);
+            leaf.addresses[leaf.count++] = arena.allocate(rows.get(i));
+        }
+        firstLeaf = (Leaf) level.get(0);
+        lastLeaf = leaf;
+        size = sortedKeys.size();
+
+        while (level.size() > 1) {
+            List<Node> parents = new ArrayList<>();
+            List<Integer> parentFirstKeys = new ArrayList<>();
+            for (int i = 0; i < level.size(); i += nodeSize) {
+                Internal parent = new Internal(nodeSize);
+                parent.count = Math.min(nodeSize, level.size() - i);
+                for (int j = 0; j < parent.count; j++) {
+                    parent.children[j] = level.get(i + j);
+                    if (j > 0) {
+                        parent.keys[j - 1] = firstKeys.get(i + j);
+                    }
+                }
+                parents.add(parent);
+                parentFirstKeys.add(firstKeys.get(i));
+            }
+            level = parents;
+            firstKeys = parentFirstKeys;
+        }
+        root = level.get(0);
+    }
+
+    @Override
+    public void update(Integer key, Object[] row) {
+        if (root != null) {
+            Leaf leaf = leafOf(key);
+            int position = leaf.find(key);
+            if (position >= 0) {
+                leaf.addresses[position] = arena.replace(leaf.addresses[position], row);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Key not found: " + key);
+    }
+
+    @Override
+    public void removeKey(Integer key) {
+        if (root == null) {
+            return;
+        }
+
+        Internal[] path = new Internal[8];
+        int[] taken = new int[8];
+        int depth = 0;
+        Node node = root;
+        while (node instanceof Internal) {
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+                taken = Arrays.copyOf(taken, depth * 2);
+            }
+            Internal internal = (Internal) node;
+            path[depth] = internal;
+            taken[depth] = internal.childOf(key);
+            node = internal.children[taken[depth++]];
+        }
+
+        Leaf leaf = (Leaf) node;
+        int position = leaf.find(key);
+        if (position < 0) {
+            return;
+        }
+        arena.free(leaf.addresses[position]);
+        leaf.removeAt(position);
+        size--;
+        if (leaf.count > 0) {
+            return;
+        }
+
+        if (leaf.previous != null) {
+            leaf.previous.next = leaf.next;
+        } else {
+            firstLeaf = leaf.next;
+        }
+        if (leaf.next != null) {
+            leaf.next.previous = leaf.previous;
+        } else {
+            lastLeaf = leaf.previous;
+        }
+
+        // Unlink the emptied node from its parent, and the parent too if that empties it
+        while (depth > 0) {
+            Internal parent = path[--depth];
+            parent.removeChild(taken[depth]);
+            if (parent.count > 0) {
+                break;
+            }
+        }
+        if (size == 0) {
+            root = null;
+            return;
+        }
+        while (root instanceof Internal && ((Internal) root).count == 1) {
+            root = ((Internal) root).children[0];
+        }
+    }
+
+    @Override
+    public Iterator<Map.Entry<Integer, Object[]>> entryIterator() {
+        return new Iterator<>() {
+            private Leaf leaf = root == null ? null : firstLeaf;
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                return leaf != null;
+            }
+
+            @Override
+            public Map.Entry<Integer, Object[]> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Map.Entry<Integer, Object[]> entry = new SimpleImmutableEntry<>(
+                    leaf.keys[position], arena.read(leaf.addresses[position]));
+                if (++position == leaf.count) {
+                    leaf = leaf.next;
+                    position = 0;
+                }
+                return entry;
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Map.Entry<Integer, Object[]>> multiKeyIterator(int[] keys) {
+        return new Iterator<>() {
+            private int keyIndex;
+            private int key;
+            private long address = advance();
+
+            // Address of the next stored key, or -1 past the last
+            private long advance() {
+                while (keyIndex < keys.length) {
+                    key = keys[keyIndex++];
+                    long found = addressOf(key);
+                    if (found >= 0) {
+                        return found;
+                    }
+                }
+                return -1;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return address >= 0;
+            }
+
+            @Override
+            public Map.Entry<Integer, Object[]> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Map.Entry<Integer, Object[]> entry = new SimpleImmutableEntry<>(key,
+                    arena.read(address));
+                address = advance();
+                return entry;
+            }
+        };
+    }
+
+    @Override
+    public Map<Integer, Object[]> multiKeySearch(int[] keys) {
+        Map<Integer, Object[]> rows = new HashMap<>((int) (keys.length / 0.75f) + 1);
+        multiKeyIterator(keys).forEachRemaining(entry -> rows.put(entry.getKey(),
+            entry.getValue()));
+        return rows;
+    }
+
+    @Override
+    public Map<Integer, Object[]> getAllKeyValues() {
+        Map<Integer, Object[]> rows = new HashMap<>((int) (size / 0.75f) + 1);
+        for (Leaf leaf = root == null ? null : firstLeaf; leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.count; i++) {
+                rows.put(leaf.keys[i], arena.read(leaf.addresses[i]));
+            }
+        }
+        return rows;
+    }
+
+    // Visits the stored keys within the bounds in ascending order
+    private void visitRange(int startKey, boolean startInclusive, int endKey,
+        boolean endInclusive, AddressVisitor visitor) {
+        if (root == null) {
+            return;
+        }
+        Leaf leaf = leafOf(startKey);
+        int position = leaf.find(startKey);
+        if (position < 0) {
+            position = -position - 1;
+        } else if (!startInclusive) {
+            position++;
+        }
+
+        for (; leaf != null; leaf = leaf.next, position = 0) {
+            for (; position < leaf.count; position++) {
+                int key = leaf.keys[position];
+                if (key > endKey || (key == endKey && !endInclusive)) {
+                    return;
+                }
+                visitor.visit(key, leaf.addresses[position]);
+            }
+        }
+    }
+
+    @Override
+    public int[] rangeSearchKeys(Integer startKey, boolean startInclusive, Integer endKey,
+        boolean endInclusive) {
+        int[][] found = {new int[16]};
+        int[] count = {0};
+        visitRange(startKey, startInclusive, endKey, endInclusive, (key, address) -> {
+            if (count[0] == found[0].length) {
+                found[0] = Arrays.copyOf(found[0], count[0] * 2);
+            }
+            found[0][count[0]++] = key;
+        });
+        return Arrays.copyOf(found[0], count[0]);
+    }
+
+    @Override
+    public Map<Integer, Object[]> rangeSearchKeyValues(Integer startKey, boolean startInclusive,
+        Integer endKey, boolean endInclusive) {
+        Map<Integer, Object[]> rows = new LinkedHashMap<>();
+        visitRange(startKey, startInclusive, endKey, endInclusive,
+            (key, address) -> rows.put(key, arena.read(address)));
+        return rows;
+    }
+
+    @Override
+    public void rangeForEach(Integer startKey, boolean startInclusive, Integer endKey,
+        boolean endInclusive, BiConsumer<? super Integer, ? super Object[]> action) {
+        visitRange(startKey, startInclusive, endKey, endInclusive,
+            (key, address) -> action.accept(key, arena.read(address)));
+    }
+
+    /**
+     * Separator keys read from the internal levels, descending until a level has the parts
+     */
+    @Override
+    public List<Integer> splitKeys(int parts) {
+        List<Integer> bounds = new ArrayList<>();
+        if (root == null) {
+            return bounds;
+        }
+        List<Node> level = List.of(root);
+
+        while (level.size() < parts && level.get(0) instanceof Internal) {
+            List<Node> children = new ArrayList<>();
+            List<Integer> childBounds = new ArrayList<>();
+            for (int i = 0; i < level.size(); i++) {
+                if (i > 0) {
+                    childBounds.add(bounds.get(i - 1));
+                }
+                Internal node = (Internal) level.get(i);
+                for (int j = 0; j < node.count; j++) {
+                    children.add(node.children[j]);
+                    if (j > 0) {
+                        childBounds.add(node.keys[j - 1]);
+                    }
+                }
+            }
+            level = children;
+            bounds = childBounds;
+        }
+        return bounds;
+    }
+}
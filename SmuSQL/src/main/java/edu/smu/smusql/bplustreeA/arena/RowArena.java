@@ -0,0 +1,238 @@
+package edu.smu.smusql.bplustreeA.arena;
+
+import edu.smu.smusql.Constants;
+import edu.smu.smusql.bplustreeA.helper.StringDictionary;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rows of one table packed into direct ByteBuffer slabs outside the Java heap, each addressed by
+ * a long of slab number and offset. A row is a block of
+ *
+ * [block size][one type tag per column][4 byte slot per column][string bytes]
+ *
+ * where a slot holds an int, the bits of a float, the column dictionary's code of a string, or
+ * the UTF-8 length of a string outside the dictionary whose bytes follow the slots in column
+ * order. Blocks are sized in multiples of 8 bytes, and freed blocks are kept per size for the
+ * next row that needs exactly that size.
+ *
+ * Reads use absolute gets only, so any number of readers may decode rows while no row is
+ * written, the same rule the engine's trees follow.
+ */
+public class RowArena {
+
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte FLOAT = 2;
+    private static final byte STRING = 3;
+    private static final byte CODE = 4; // A string by its dictionary code
+    private static final int ALIGNMENT = 8;
+
+    private final int columnCount;
+    private final StringDictionary[] dictionaries; // Per column, shared with the table
+    private final int fixedSize; // Block size, tags and slots, ahead of the string bytes
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private ByteBuffer current;
+    private int top; // First unused byte of the current slab
+    private final Map<Integer, FreeBlocks> freeBlocks = new HashMap<>();
+    private long slabBytes;
+    private long freeBytes;
+
+    // Addresses of freed blocks of one size
+    private static final class FreeBlocks {
+        long[] addresses = new long[8];
+        int count;
+    }
+
+    public RowArena(StringDictionary[] dictionaries) {
+        this.columnCount = dictionaries.length;
+        this.dictionaries = dictionaries;
+        this.fixedSize = 4 + columnCount + 4 * columnCount;
+    }
+
+    /**
+     * Stores the row and returns its address
+     */
+    public long allocate(Object[] row) {
+        byte[][] strings = encodeStrings(row);
+        long address = allocateBlock(blockSize(strings));
+        write(address, row, strings);
+        return address;
+    }
+
+    /**
+     * Overwrites the row at the address if the new one fits its block, otherwise frees the block
+     * and stores the row elsewhere. Returns the row's address either way
+     */
+    public long replace(long address, Object[] row) {
+        byte[][] strings = encodeStrings(row);
+        if (blockSize(strings) <= slab(address).getInt(offset(address))) {
+            write(address, row, strings);
+            return address;
+        }
+        free(address);
+        long moved = allocateBlock(blockSize(strings));
+        write(moved, row, strings);
+        return moved;
+    }
+
+    public void free(long address) {
+        int size = slab(address).getInt(offset(address));
+        FreeBlocks blocks = freeBlocks.computeIfAbsent(size, s -> new FreeBlocks());
+        if (blocks.count == blocks.addresses.length) {
+            blocks.addresses = Arrays.copyOf(blocks.addresses, blocks.count * 2);
+        }
+        blocks.addresses[blocks.count++] = address;
+        freeBytes += size;
+    }
+
+    public Object[] read(long address) {
+        ByteBuffer slab = slab(address);
+        int offset = offset(address);
+        int tags = offset + 4;
+        int slots = tags + columnCount;
+        int tail = slots + 4 * columnCount;
+
+        Object[] row = new Object[columnCount];
+        for (int column = 0; column < columnCount; column++) {
+            int slot = slab.getInt(slots + 4 * column);
+            switch (slab.get(tags + column)) {
+                case INT:
+                    row[column] = slot;
+                    break;
+                case FLOAT:
+                    row[column] = Float.intBitsToFloat(slot);
+                    break;
+                case STRING:
+                    byte[] bytes = new byte[slot];
+                    slab.get(tail, bytes);
+                    row[column] = new String(bytes, StandardCharsets.UTF_8);
+                    tail += slot;
+                    break;
+                case CODE:
+                    row[column] = dictionaries[column].valueOf(slot);
+                    break;
+                default:
+                    row[column] = null;
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Bytes of direct memory held by the slabs
+     */
+    public long getSlabBytes() {
+        return slabBytes;
+    }
+
+    /**
+     * Bytes of freed blocks waiting to be reused
+     */
+    public long getFreeBytes() {
+        return freeBytes;
+    }
+
+    private byte[][] encodeStrings(Object[] row) {
+        if (row.length != columnCount) {
+            throw new IllegalArgumentException(
+                "Expected " + columnCount + " values but got " + row.length);
+        }
+        byte[][] strings = null;
+        for (int column = 0; column < columnCount; column++) {
+            Object value = row[column];
+            if (value instanceof String) {
+                if (dictionaries[column].codeOf((String) value) >= 0) {
+                    continue;
+                }
+                if (strings == null) {
+                    strings = new byte[columnCount][];
+                }
+                strings[column] = ((String) value).getBytes(StandardCharsets.UTF_8);
+            } else if (value != null && !(value instanceof Integer) && !(value instanceof Float)) {
+                throw new IllegalArgumentException("Unsupported value type: " + value.getClass());
+            }
+        }
+        return strings;
+    }
+
+    private int blockSize(byte[][] strings) {
+        int size = fixedSize;
+        if (strings != null) {
+            for (byte[] bytes : strings) {
+                if (bytes != null) {
+                    size += bytes.length;
+                }
+            }
+        }
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private long allocateBlock(int size) {
+        FreeBlocks blocks = freeBlocks.get(size);
+        if (blocks != null && blocks.count > 0) {
+            freeBytes -= size;
+            return blocks.addresses[--blocks.count];
+        }
+
+        if (current == null || top + size > current.capacity()) {
+            // A row larger than a slab gets a slab of its own
+            current = ByteBuffer.allocateDirect(Math.max(Constants.ROW_ARENA_SLAB_SIZE, size));
+            slabs.add(current);
+            slabBytes += current.capacity();
+            top = 0;
+        }
+
+        long address = ((long) (slabs.size() - 1) << 32) | top;
+        current.putInt(top, size);
+        top += size;
+        return address;
+    }
+
+    private void write(long address, Object[] row, byte[][] strings) {
+        ByteBuffer slab = slab(address);
+        int offset = offset(address);
+        int tags = offset + 4;
+        int slots = tags + columnCount;
+        int tail = slots + 4 * columnCount;
+
+        for (int column = 0; column < columnCount; column++) {
+            Object value = row[column];
+            byte tag;
+            int slot;
+            if (value instanceof Integer) {
+                tag = INT;
+                slot = (Integer) value;
+            } else if (value instanceof Float) {
+                tag = FLOAT;
+                slot = Float.floatToRawIntBits((Float) value);
+            } else if (strings != null && strings[column] != null) {
+                tag = STRING;
+                slot = strings[column].length;
+                slab.put(tail, strings[column]);
+                tail += slot;
+            } else if (value instanceof String) {
+                tag = CODE;
+                slot = dictionaries[column].codeOf((String) value);
+            } else {
+                tag = NULL;
+                slot = 0;
+            }
+            slab.put(tags + column, tag);
+            slab.putInt(slots + 4 * column, slot);
+        }
+    }
+
+    private ByteBuffer slab(long address) {
+        return slabs.get((int) (address >>> 32));
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+}
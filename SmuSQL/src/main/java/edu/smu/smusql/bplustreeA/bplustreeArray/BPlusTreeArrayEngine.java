@@ -2,341 +2,518 @@ package edu.smu.smusql.bplustreeA.bplustreeArray;
 
 import edu.smu.smusql.Constants;
 import edu.smu.smusql.IEngine;
+import edu.smu.smusql.IteratorResultSet;
+import edu.smu.smusql.ResultSet;
 import edu.smu.smusql.bplustreeA.BPlusTree;
-import edu.smu.smusql.bplustreeA.lruCache.LRUCache;
+import edu.smu.smusql.bplustreeA.NumberComparator;
+import edu.smu.smusql.bplustreeA.RowStore;
+import edu.smu.smusql.bplustreeA.lruCache.PostingListCache;
+import edu.smu.smusql.bplustreeA.lruCache.QueryResultCache;
+import edu.smu.smusql.bplustreeA.lruCache.TableGenerations;
 import edu.smu.smusql.bplustreeA.lruCache.CacheQueryKey;
 import edu.smu.smusql.bplustreeA.AstParser.AstParser;
 import edu.smu.smusql.bplustreeA.AstParser.Token;
 import edu.smu.smusql.bplustreeA.AstParser.Tokenizer;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.ASTNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.AdviseNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.AggregateNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.AssignmentNode;
-import edu.smu.smusql.bplustreeA.AstParser.nodes.ColumnNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.CheckpointNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.ConditionNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.CopyNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.CreateIndexNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.CreateTableNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.DeleteNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.DropIndexNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.ExplainNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.ExpressionNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.InsertNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.LiteralNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.MultiInsertNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.SelectNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.UpdateNode;
+import edu.smu.smusql.bplustreeA.helper.Aggregator;
+import edu.smu.smusql.bplustreeA.helper.CsvReader;
+import edu.smu.smusql.bplustreeA.helper.GroupAggregator;
+import edu.smu.smusql.bplustreeA.helper.Helper;
+import edu.smu.smusql.bplustreeA.planner.ConditionEvaluator;
+import edu.smu.smusql.bplustreeA.planner.IndexAdvisor;
+import edu.smu.smusql.bplustreeA.planner.IndexScanNode;
+import edu.smu.smusql.bplustreeA.planner.KeyScanNode;
+import edu.smu.smusql.bplustreeA.planner.PlanNode;
+import edu.smu.smusql.bplustreeA.planner.QueryPlanner;
+import edu.smu.smusql.bplustreeA.planner.SeqScanNode;
+import edu.smu.smusql.bplustreeA.wal.SnapshotCatalog;
+import edu.smu.smusql.bplustreeA.wal.SnapshotFile;
+import edu.smu.smusql.bplustreeA.wal.WalRecord;
+import edu.smu.smusql.bplustreeA.wal.WriteAheadLog;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 public class BPlusTreeArrayEngine implements IEngine {
 
-    private final LRUCache<CacheQueryKey, String> queryCache; // Only implemented for "SELECT *" statements
+    private final QueryResultCache queryCache;
+    private final PostingListCache postingCache; // Index lookups, invalidated per index key
+    private final TableGenerations tableGenerations = new TableGenerations();
     private final boolean useCaching;
     private Map<String, BPlusTreeTableArray> database;
     private Map<String, BPlusTree<Number, Integer>> indexDatabase;
-    private long cacheHits = 0;
-    private long cacheMisses = 0;
+    private Map<String, String> indexNames; // Index name to its key in indexDatabase
+    private final IndexAdvisor indexAdvisor = new IndexAdvisor();
+    private final boolean autoIndex; // Apply the advisor's advice every INDEX_ADVISOR_INTERVAL
+    private int statementsSinceAdvice = 0;
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private WriteAheadLog wal; // Null if changes are not logged, set once the log is replayed
+    private final Path snapshotDir; // Where CHECKPOINT writes, next to the log
+    // Checkpointed tables not paged in yet, and index builds of tables just paged in
+    private final Map<String, SnapshotCatalog.TableEntry> unloaded = new ConcurrentHashMap<>();
+    private final Map<String, ForkJoinTask<?>> indexBuilds = new ConcurrentHashMap<>();
+    private volatile boolean deferCommits;
 
     public BPlusTreeArrayEngine() {
         this(true);
     }
 
     public BPlusTreeArrayEngine(boolean useCaching) {
-        this.database = new HashMap<>();
-        this.indexDatabase = new HashMap<>();
-        this.useCaching = useCaching;
-        this.queryCache = useCaching ? new LRUCache<>(Constants.CACHE_SIZE) : null;
+        this(useCaching, false);
     }
 
-    private static String buildHeaderString(List<String> columns) {
-        StringBuilder header = new StringBuilder("id");
-        for (String column : columns) {
-            header.append('\t').append(column);
-        }
-        header.append('\n');
-        return header.toString();
+    public BPlusTreeArrayEngine(boolean useCaching, boolean autoIndex) {
+        this(useCaching, autoIndex, null);
     }
 
-    private <T> T retrieveTable(Map<String, T> database, String tableName) {
+    /**
+     * Logs every change to the write-ahead log. The last checkpoint is restored first and then
+     * the part of the log written after it is replayed
+     */
+    public BPlusTreeArrayEngine(boolean useCaching, boolean autoIndex, WriteAheadLog wal) {
+        // Concurrent so statements on different tables can run together, see ConcurrentEngine
+        this.database = new ConcurrentHashMap<>();
+        this.indexDatabase = new ConcurrentHashMap<>();
+        this.indexNames = new ConcurrentHashMap<>();
+        this.useCaching = useCaching;
+        this.autoIndex = autoIndex;
+        this.queryCache = useCaching ? new QueryResultCache() : null;
+        this.postingCache = useCaching ? new PostingListCache() : null;
 
-        if (!database.containsKey(tableName)) {
-            throw new RuntimeException("ERROR: Table " + tableName + " does not exist");
-        }
+        this.snapshotDir = wal == null ? null
+            : wal.getPath().resolveSibling(wal.getPath().getFileName() + ".snapshot");
 
-        return database.get(tableName);
+        if (wal != null) {
+            recover(wal, restoreCheckpoint(wal));
+            this.wal = wal;
+        }
     }
 
-    private List<Integer> filterIndexes(String tableName, ConditionNode node) {
+    /**
+     * Registers the tables of the last checkpoint and returns the log offset to replay from. With
+     * SNAPSHOT_LAZY_LOAD a table is only read on first use, otherwise all tables load now in
+     * parallel on the common ForkJoinPool
+     */
+    private long restoreCheckpoint(WriteAheadLog log) {
+        SnapshotCatalog catalog;
+        long logSize;
+        try {
+            catalog = SnapshotCatalog.read(snapshotDir);
+            logSize = log.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("ERROR: Could not read checkpoint in " + snapshotDir, e);
+        }
+        if (catalog == null) {
+            return 0;
+        }
 
-        if (node == null) {
-            return null;
+        for (SnapshotCatalog.TableEntry entry : catalog.getTables()) {
+            unloaded.put(entry.getName(), entry);
+        }
+        if (!Constants.SNAPSHOT_LAZY_LOAD) {
+            List<ForkJoinTask<?>> tables = new ArrayList<>();
+            for (SnapshotCatalog.TableEntry entry : catalog.getTables()) {
+                tables.add(ForkJoinTask.adapt(() -> retrieveTableForWrite(entry.getName())));
+            }
+            ForkJoinTask.invokeAll(tables);
         }
 
-        return evaluateConditionNode(tableName, node);
+        // A log shorter than the offset was already truncated by the checkpoint that wrote it
+        return logSize >= catalog.getLogOffset() ? catalog.getLogOffset() : 0;
     }
 
-    private List<Integer> evaluateConditionNode(String tableName, ConditionNode node) {
+    /**
+     * Pages a checkpointed table in: its snapshot is memory mapped and the main tree bulk built
+     * from it, while its indexes are built by a background task on the common ForkJoinPool, one
+     * subtask per index. Until that task finishes queries on the table plan scans
+     */
+    private void loadTable(String tableName) {
+        SnapshotCatalog.TableEntry entry = unloaded.get(tableName);
+        if (entry == null) {
+            return;
+        }
 
-        if (node.getLeft() instanceof ConditionNode && node.getRight() instanceof ConditionNode) {
+        synchronized (entry) {
+            if (!unloaded.containsKey(tableName)) {
+                return; // Loaded by another reader meanwhile
+            }
 
-            // Both left and right are ConditionNodes
-            List<Integer> leftResult = evaluateConditionNode(tableName,
-                (ConditionNode) node.getLeft());
-            List<Integer> rightResult = evaluateConditionNode(tableName,
-                (ConditionNode) node.getRight());
-            return combineResults(leftResult, rightResult, node.getOperator());
+            SnapshotFile.Rows snapshot;
+            try {
+                snapshot = SnapshotFile.read(snapshotDir.resolve(entry.getFile()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(
+                    "ERROR: Could not read snapshot of " + tableName, e);
+            }
 
-        } else if (node.getLeft() instanceof ExpressionNode
-            && node.getRight() instanceof ExpressionNode) {
-            // Both left and right are ExpressionNodes
-            return evaluateSimpleCondition(tableName, node);
-        } else {
-            throw new RuntimeException("Unsupported condition node structure");
-        }
-    }
+            BPlusTreeTableArray table = new BPlusTreeTableArray(entry.getColumns());
+            // Values are recorded first so the column dictionaries are complete when the rows
+            // are stored, and the index builds below only look values up
+            for (Object[] row : snapshot.values) {
+                for (int column = 0; column < row.length; column++) {
+                    row[column] = table.recordValue(column, row[column]);
+                }
+            }
 
-    private List<Integer> evaluateSimpleCondition(String tableName, ConditionNode node) {
+            List<Integer> keys = new ArrayList<>(snapshot.size());
+            for (int i = 0; i < snapshot.size(); i++) {
+                keys.add(snapshot.keys[i]);
+            }
+            table.getRows().bulkLoad(keys, Arrays.asList(snapshot.values));
 
-        ExpressionNode left = (ExpressionNode) node.getLeft();
-        ExpressionNode right = (ExpressionNode) node.getRight();
-        String operator = node.getOperator();
+            if (!entry.getIndexes().isEmpty()) {
+                indexBuilds.put(tableName, ForkJoinPool.commonPool().submit(
+                    () -> buildIndexes(tableName, table, entry.getIndexes(), keys,
+                        snapshot.values)));
+            }
+            database.put(tableName, table);
+            unloaded.remove(tableName);
+        }
+    }
 
-        if (!(left instanceof ColumnNode) || !(right instanceof LiteralNode)) {
-            throw new RuntimeException("Unsupported simple condition structure");
+    private void buildIndexes(String tableName, BPlusTreeTableArray table,
+        Map<String, String> indexes, List<Integer> keys, Object[][] rows) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (Map.Entry<String, String> index : indexes.entrySet()) {
+            tasks.add(ForkJoinTask.adapt(() -> {
+                BPlusTree<Number, Integer> indexTree = new BPlusTree<>(Constants.B_PLUS_TREE_ORDER);
+                bulkLoadIndex(indexTree, table, table.getColumnIndex(index.getValue()), keys,
+                    rows);
+
+                // Complete before it is published, the planner may pick it up straight away
+                String indexTableName = Constants.getIndexTableName(tableName, index.getValue());
+                indexDatabase.put(indexTableName, indexTree);
+                indexNames.put(index.getKey(), indexTableName);
+            }));
         }
+        ForkJoinTask.invokeAll(tasks);
+    }
 
-        String columnName = ((ColumnNode) left).getName();
-        LiteralNode literalNode = (LiteralNode) right;
-        Object value = getValueFromLiteralNode(literalNode);
+    /**
+     * True once the table is in memory, false while it only exists in the checkpoint
+     */
+    public boolean isTableLoaded(String tableName) {
+        return database.containsKey(tableName);
+    }
 
-        // Check if we're searching by primary key
-        if (columnName.equals("id")) {
-            Integer intValue = literalNode.getType() == LiteralNode.LiteralNodeType.NUMBER
-                ? literalNode.getIntegerValue()
-                : literalNode.getValue().hashCode();
+    /**
+     * Writes every table's rows from its main tree leaves to a snapshot file, then empties the
+     * log. The catalog is written with the log's length before the log is truncated and again
+     * with offset 0 after, so a crash at any point restarts from a consistent pair
+     */
+    public String checkpoint(CheckpointNode node) {
+        if (wal == null) {
+            throw new RuntimeException("ERROR: CHECKPOINT needs a write-ahead log");
+        }
 
-            // For primary key searches, return a single-element list
-            if (operator.equals("=")) {
-                return Collections.singletonList(intValue);
+        try {
+            Files.createDirectories(snapshotDir);
+            SnapshotCatalog previous = SnapshotCatalog.read(snapshotDir);
+            long generation = previous == null ? 1 : previous.getGeneration() + 1;
+
+            awaitIndexBuilds();
+            wal.sync();
+            long logOffset = wal.size();
+
+            List<SnapshotCatalog.TableEntry> entries = new ArrayList<>();
+            List<SnapshotCatalog.TableEntry> written = new ArrayList<>();
+            for (String tableName : new TreeSet<>(database.keySet())) {
+                BPlusTreeTableArray table = database.get(tableName);
+                Map<String, String> indexes = new LinkedHashMap<>();
+                for (Map.Entry<String, String> index : new TreeMap<>(indexNames).entrySet()) {
+                    for (String column : table.getColumns()) {
+                        if (index.getValue().equals(
+                            Constants.getIndexTableName(tableName, column))) {
+                            indexes.put(index.getKey(), column);
+                        }
+                    }
+                }
+                written.add(new SnapshotCatalog.TableEntry(tableName, table.getColumns(),
+                    tableName + "-" + generation + ".rows", indexes));
             }
+            entries.addAll(written);
+            // Tables never paged in are unchanged, their snapshot files carry over
+            entries.addAll(unloaded.values());
+            entries.sort(Comparator.comparing(SnapshotCatalog.TableEntry::getName));
+
+            long rowCount = written.parallelStream().mapToLong(entry -> {
+                RowStore rows = database.get(entry.getName()).getRows();
+                try {
+                    SnapshotFile.write(snapshotDir.resolve(entry.getFile()),
+                        entry.getColumns().size(), rows.getSize(), rows.entryIterator());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return rows.getSize();
+            }).sum();
+
+            SnapshotCatalog catalog = new SnapshotCatalog(generation, logOffset, entries);
+            catalog.write(snapshotDir);
+            wal.truncate();
+            catalog.withLogOffset(0).write(snapshotDir);
+            catalog.deleteUnreferenced(snapshotDir);
+
+            return "Checkpoint written, " + written.size() + " table(s), " + rowCount + " row(s)";
+        } catch (IOException | UncheckedIOException e) {
+            throw new RuntimeException("ERROR: Checkpoint failed: " + e.getMessage(), e);
+        }
+    }
 
-            // For other operators, get all keys and filter
-            BPlusTreeTableArray table = retrieveTable(database, tableName);
-            BPlusTree<Integer, Object[]> mainTree = table.getRows();
-            List<Integer> allKeys = mainTree.getAllKeys();
+    /**
+     * Replays the log. Catalog records rerun their statement, consecutive inserts go through the
+     * batch insert path together and updates and deletes are applied to the stored rows directly
+     */
+    private void recover(WriteAheadLog log, long from) {
+        List<String> tableNames = new ArrayList<>();
+        List<Integer> keys = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+
+        try {
+            log.replay(from, record -> {
+                if (record.getType() == WalRecord.Type.INSERT) {
+                    tableNames.add(record.getTable());
+                    keys.add(record.getKey());
+                    rows.add(record.getRow());
+                    return;
+                }
+                if (!keys.isEmpty()) {
+                    insertRows(tableNames, keys, rows);
+                    tableNames.clear();
+                    keys.clear();
+                    rows.clear();
+                }
 
-            return filterKeysByOperator(allKeys, intValue, operator);
+                switch (record.getType()) {
+                    case UPDATE:
+                        replaceRow(record.getTable(), record.getKey(), record.getRow());
+                        break;
+                    case DELETE:
+                        deleteRow(record.getTable(), record.getKey());
+                        break;
+                    default:
+                        dispatch(parse(record.getStatement()));
+                        break;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("ERROR: Could not replay " + log.getPath(), e);
         }
 
-        String indexTableName = Constants.getIndexTableName(tableName, columnName);
-        BPlusTree<Number, Integer> indexTree = retrieveTable(indexDatabase, indexTableName);
+        if (!keys.isEmpty()) {
+            insertRows(tableNames, keys, rows);
+        }
+    }
 
-        // Convert value to appropriate type for comparison
-        Number searchValue;
-        if (value instanceof String) {
-            searchValue = value.hashCode();
-        } else if (value instanceof Number) {
-            searchValue = (Number) value;
-        } else {
-            throw new IllegalArgumentException("Unsupported value type: " + value.getClass());
+    private void log(WalRecord record) {
+        if (wal != null) {
+            wal.append(record);
         }
+    }
 
-        return evaluateCondition(indexTree, searchValue, operator);
+    /**
+     * Statements return before their changes are durable, {@link #commit()} must be called after
+     * each write, see ConcurrentEngine
+     */
+    @Override
+    public void deferCommits() {
+        deferCommits = true;
     }
 
-    private Object getValueFromLiteralNode(LiteralNode literalNode) {
-        switch (literalNode.getType()) {
-            case STRING:
-                return literalNode.getStringValue();
-            case NUMBER:
-                return literalNode.getIntegerValue();
-            case FLOAT:
-                return literalNode.getFloatValue();
-            default:
-                throw new IllegalStateException(
-                    "Unexpected LiteralNodeType: " + literalNode.getType());
+    @Override
+    public void commit() {
+        if (wal != null) {
+            wal.commit();
         }
     }
 
-    private Number convertToNumber(Object obj) {
-        if (obj instanceof String) {
-            return obj.hashCode();
-        } else if (obj instanceof Integer) {
-            return (Integer) obj;
-        } else if (obj instanceof Float) {
-            return (Float) obj;
-        } else {
-            throw new IllegalArgumentException("Received an unsupported object: " + obj.toString());
+    private void commitUnlessDeferred() {
+        if (wal != null && !deferCommits) {
+            wal.commit();
         }
     }
 
-    private List<Integer> filterKeysByOperator(List<Integer> keys, Integer value, String operator) {
-        return keys.stream().filter(key -> {
-            switch (operator) {
-                case "!=":
-                    return !key.equals(value);
-                case "<":
-                    return key < value;
-                case "<=":
-                    return key <= value;
-                case ">":
-                    return key > value;
-                case ">=":
-                    return key >= value;
-                default:
-                    return false;
-            }
-        }).collect(Collectors.toList());
+    private static String buildHeaderString(List<String> columns) {
+        StringBuilder header = new StringBuilder("id");
+        for (String column : columns) {
+            header.append('\t').append(column);
+        }
+        header.append('\n');
+        return header.toString();
     }
 
-    private List<Integer> evaluateCondition(BPlusTree<Number, Integer> indexTree, Number value,
-        String operator) {
-
-        // If the index tree is empty, return an empty list
-        if (indexTree.getSize() == 0) {
-            return new ArrayList<>();
+    /**
+     * Returns the table, paging it in from the checkpoint if this is its first use
+     */
+    private BPlusTreeTableArray retrieveTable(String tableName) {
+        BPlusTreeTableArray table = database.get(tableName);
+        if (table == null && unloaded.containsKey(tableName)) {
+            loadTable(tableName);
+            table = database.get(tableName);
         }
 
-        switch (operator) {
-            case "=":
-                return indexTree.search(value);
-
-            case "!=":
-                // Get all values
-                List<Integer> allValues = indexTree.getAllValues();
-                if (allValues.isEmpty()) {
-                    return allValues;
-                }
-
-                // Remove matching values using a Set
-                Set<Integer> equalValues = new HashSet<>(
-                    indexTree.search(value) != null ? indexTree.search(value)
-                        : Collections.emptyList());
-
-                return allValues.stream().filter(v -> !equalValues.contains(v))
-                    .collect(Collectors.toList());
-
-            case "<":
-                List<Integer> lessThanResult = indexTree.rangeSearch(Double.NEGATIVE_INFINITY,
-                    value.doubleValue());
-                if (lessThanResult == null || lessThanResult.isEmpty()) {
-                    return new ArrayList<>();
-                }
-
-                // Remove boundary values using Set
-                Set<Integer> boundaryValues = new HashSet<>(
-                    indexTree.search(value) != null ? indexTree.search(value)
-                        : Collections.emptyList());
-                return lessThanResult.stream().filter(v -> !boundaryValues.contains(v))
-                    .collect(Collectors.toList());
-
-            case "<=":
-                return indexTree.rangeSearch(Double.NEGATIVE_INFINITY, value.doubleValue());
-
-            case ">":
-                List<Integer> greaterThanResult = indexTree.rangeSearch(value.doubleValue(),
-                    Double.POSITIVE_INFINITY);
-                if (greaterThanResult == null || greaterThanResult.isEmpty()) {
-                    return new ArrayList<>();
-                }
-
-                // Remove boundary values using Set
-                Set<Integer> upperBoundaryValues = new HashSet<>(
-                    indexTree.search(value) != null ? indexTree.search(value)
-                        : Collections.emptyList());
-                return greaterThanResult.stream().filter(v -> !upperBoundaryValues.contains(v))
-                    .collect(Collectors.toList());
-
-            case ">=":
-                return indexTree.rangeSearch(value.doubleValue(), Double.POSITIVE_INFINITY);
-
-            default:
-                throw new IllegalArgumentException("Unsupported operator: " + operator);
+        if (table == null) {
+            throw new RuntimeException("ERROR: Table " + tableName + " does not exist");
         }
+        return table;
     }
 
-    private List<Integer> combineResults(List<Integer> leftResult, List<Integer> rightResult,
-        String operator) {
-
-        if (leftResult == null || leftResult.isEmpty()) {
-            return rightResult != null ? new ArrayList<>(rightResult) : new ArrayList<>();
-        }
-        if (rightResult == null || rightResult.isEmpty()) {
-            return new ArrayList<>(leftResult);
+    /**
+     * Returns the table once its indexes are complete. Reads may run while a freshly loaded
+     * table's indexes are still being built, planning scans instead, but changes must wait so no
+     * write is missed by the indexes being built
+     */
+    private BPlusTreeTableArray retrieveTableForWrite(String tableName) {
+        BPlusTreeTableArray table = retrieveTable(tableName);
+        ForkJoinTask<?> build = indexBuilds.get(tableName);
+        if (build != null) {
+            build.join();
+            indexBuilds.remove(tableName, build);
         }
+        return table;
+    }
 
-        if (operator.equals("AND")) {
-            // Use HashSet for better performance with large datasets
-            if (leftResult.size() > rightResult.size()) {
-                // Swap to ensure we use the smaller list for the HashSet
-                List<Integer> temp = leftResult;
-                leftResult = rightResult;
-                rightResult = temp;
-            }
+    private void awaitIndexBuilds() {
+        for (String tableName : new ArrayList<>(indexBuilds.keySet())) {
+            retrieveTableForWrite(tableName);
+        }
+    }
 
-            // Create HashSet from the smaller list
-            Set<Integer> rightSet = new HashSet<>(rightResult);
-            List<Integer> result = new ArrayList<>();
+    /**
+     * Plans the WHERE clause against the table's indexes and returns the matching rows
+     */
+    private Map<Integer, Object[]> filterRows(String tableName, BPlusTreeTableArray table,
+        ConditionNode whereClause) {
+        return planQuery(tableName, table, whereClause).execute();
+    }
 
-            // Iterate through the smaller list
-            for (Integer value : leftResult) {
-                if (rightSet.contains(value)) {
-                    result.add(value);
-                }
-            }
-            return result;
-        } else if (operator.equals("OR")) {
-            // For OR operations, use HashSet for deduplication
-            Set<Integer> uniqueResults = new HashSet<>(leftResult);
-            uniqueResults.addAll(rightResult);
-            List<Integer> result = new ArrayList<>(uniqueResults);
-            Collections.sort(result); // Maintain sorted order
-            return result;
-        } else {
-            throw new RuntimeException("Unsupported logical operator: " + operator);
-        }
+    private PlanNode planQuery(String tableName, BPlusTreeTableArray table,
+        ConditionNode whereClause) {
+        return new QueryPlanner(tableName, table, indexDatabase, postingCache).plan(whereClause);
     }
 
-    private String formatSelectResults(Map<Integer, Object[]> rows, List<String> columns) {
-        String header = buildHeaderString(columns);
+    private String formatSelectResults(ResultSet resultSet) {
+        String header = buildHeaderString(
+            resultSet.getColumnNames().subList(1, resultSet.getColumnCount()));
 
-        if (rows == null || rows.isEmpty()) {
+        if (!resultSet.next()) {
             return header;
         }
 
         StringBuilder sb = new StringBuilder();
         sb.append(header);
 
-        // Rows data
-        for (Map.Entry<Integer, Object[]> entry : rows.entrySet()) {
-            Integer id = entry.getKey();
-            Object[] row = entry.getValue();
-
-            if (row == null) {
-                continue;
-            }
-
-            sb.append(id).append("\t");
-
-            for (int i = 0; i < columns.size(); i++) {
-                Object value = row[i];
+        // Rows data, the primary key first
+        do {
+            for (int i = 1; i <= resultSet.getColumnCount(); i++) {
+                Object value = resultSet.getObject(i);
                 sb.append(value != null ? value.toString() : "NULL").append('\t');
             }
             sb.append('\n');
-        }
+        } while (resultSet.next());
 
         return sb.toString().trim();
     }
 
     public String executeSQL(String query) {
+        try {
+            return execute(parse(query));
+        } finally {
+            commitUnlessDeferred();
+        }
+    }
 
-        List<Token> tokens = Tokenizer.tokenize(query);
-        AstParser parser = new AstParser(tokens);
-        ASTNode statement = parser.parse();
+    /**
+     * Statements are parsed up front so a malformed one rejects the whole batch. Consecutive
+     * INSERTs are then applied together, see {@link #insertStatements(List)}
+     */
+    @Override
+    public List<String> executeBatch(List<String> queries) {
+        try {
+            return executeStatements(queries);
+        } finally {
+            commitUnlessDeferred();
+        }
+    }
+
+    private List<String> executeStatements(List<String> queries) {
+        List<ASTNode> statements = new ArrayList<>(queries.size());
+        for (String query : queries) {
+            statements.add(parse(query));
+        }
+
+        List<String> results = new ArrayList<>(statements.size());
+        List<ASTNode> inserts = new ArrayList<>();
+        for (ASTNode statement : statements) {
+            if (statement instanceof InsertNode || statement instanceof MultiInsertNode) {
+                inserts.add(statement);
+                continue;
+            }
+            if (!inserts.isEmpty()) {
+                results.addAll(insertStatements(inserts));
+                afterStatements(inserts.size());
+                inserts.clear();
+            }
+            results.add(execute(statement));
+        }
+        if (!inserts.isEmpty()) {
+            results.addAll(insertStatements(inserts));
+            afterStatements(inserts.size());
+        }
+        return results;
+    }
+
+    private String execute(ASTNode statement) {
+        String result = dispatch(statement);
+        afterStatements(1);
+        return result;
+    }
+
+    private String dispatch(ASTNode statement) {
 
         if (statement instanceof InsertNode) {
             return insert((InsertNode) statement);
+        } else if (statement instanceof MultiInsertNode) {
+            return insertStatements(List.of(statement)).get(0);
         } else if (statement instanceof DeleteNode) {
             return delete((DeleteNode) statement);
         } else if (statement instanceof SelectNode) {
@@ -345,19 +522,84 @@ public class BPlusTreeArrayEngine implements IEngine {
             return update((UpdateNode) statement);
         } else if (statement instanceof CreateTableNode) {
             return create((CreateTableNode) statement);
+        } else if (statement instanceof ExplainNode) {
+            return explain((ExplainNode) statement);
+        } else if (statement instanceof CopyNode) {
+            return copy((CopyNode) statement);
+        } else if (statement instanceof CreateIndexNode) {
+            return createIndex((CreateIndexNode) statement);
+        } else if (statement instanceof DropIndexNode) {
+            return dropIndex((DropIndexNode) statement);
+        } else if (statement instanceof AdviseNode) {
+            return advise((AdviseNode) statement);
+        } else if (statement instanceof CheckpointNode) {
+            return checkpoint((CheckpointNode) statement);
         } else {
             return "Unsupported SQL statement";
         }
     }
 
+    @Override
+    public String executeIfCached(String query) {
+        if (!useCaching) {
+            return null;
+        }
+
+        ASTNode statement = parse(query);
+        if (!(statement instanceof SelectNode)) {
+            return null;
+        }
+
+        String cachedResult = queryCache.getIfPresent(cacheKey((SelectNode) statement));
+        if (cachedResult != null) {
+            recordCacheHit();
+        }
+        return cachedResult;
+    }
+
+    public ResultSet executeQuery(String query) {
+
+        ASTNode statement = parse(query);
+
+        if (!(statement instanceof SelectNode)) {
+            throw new RuntimeException("ERROR: executeQuery only runs SELECT statements");
+        }
+        return query((SelectNode) statement);
+    }
+
+    private static ASTNode parse(String query) {
+        List<Token> tokens = Tokenizer.tokenize(query);
+        AstParser parser = new AstParser(tokens);
+        return parser.parse();
+    }
+
     /**
      * Clears all data from the database and index database. Used primarily for
      * testing purposes.
      */
     public void clearDatabase() {
+        awaitIndexBuilds();
+        unloaded.clear();
+        indexBuilds.clear();
         // Clear both main database and index database
         database.clear();
         indexDatabase.clear();
+        indexNames.clear();
+        tableGenerations.clear();
+        if (useCaching) {
+            queryCache.clear();
+            postingCache.clear();
+        }
+        indexAdvisor.clear();
+
+        if (wal != null) {
+            try {
+                SnapshotCatalog.deleteAll(snapshotDir);
+                wal.truncate();
+            } catch (IOException e) {
+                throw new UncheckedIOException("ERROR: Could not truncate " + wal.getPath(), e);
+            }
+        }
     }
 
     public String create(CreateTableNode node) {
@@ -366,28 +608,175 @@ public class BPlusTreeArrayEngine implements IEngine {
         List<String> columns = node.getColumns();
 
         // Add table into database
-        if (database.containsKey(tableName)) {
+        if (database.containsKey(tableName) || unloaded.containsKey(tableName)) {
             throw new RuntimeException("Table " + tableName + " already exist");
         }
 
+        // Tables start without column indexes, see createIndex
         BPlusTreeTableArray table = new BPlusTreeTableArray(columns);
         database.put(tableName, table);
 
-        /**
-         * Create Indexing Trees with column fields as Key and PrimaryKey as Value
-         */
-        for (String col : columns) {
-            BPlusTree<Number, Integer> indexTree = new BPlusTree<>(Constants.B_PLUS_TREE_ORDER);
-            String indexTableName = Constants.getIndexTableName(tableName, col);
-            indexDatabase.put(indexTableName, indexTree);
+        StringBuilder statement = new StringBuilder("CREATE TABLE ").append(tableName)
+            .append(" (id");
+        for (String column : columns) {
+            statement.append(", ").append(column);
+        }
+        log(WalRecord.statement(statement.append(')').toString()));
+
+        return "Table " + tableName + " created successfully";
+    }
+
+    /**
+     * Builds an index tree with the column's values as keys and primary keys as values from the
+     * rows already in the table. An unnamed index is named after its tree, idx_table_column
+     */
+    public String createIndex(CreateIndexNode node) {
+        String tableName = node.getTableName();
+        String column = node.getColumn();
+        BPlusTreeTableArray table = retrieveTableForWrite(tableName);
+        int columnIndex = table.getColumnIndex(column);
+
+        if (column.equals("id")) {
+            throw new RuntimeException("ERROR: Column id is the primary key and always indexed");
+        }
+        if (columnIndex < 0) {
+            throw new RuntimeException("ERROR: Column " + column + " does not exist");
+        }
+
+        String indexTableName = Constants.getIndexTableName(tableName, column);
+        String indexName = node.getIndexName() != null ? node.getIndexName() : indexTableName;
+        if (indexDatabase.containsKey(indexTableName)) {
+            throw new RuntimeException("ERROR: Column " + column + " is already indexed");
+        }
+        awaitIndexBuilds();
+        if (indexNames.containsKey(indexName) || unloadedTableOfIndex(indexName) != null) {
+            throw new RuntimeException("ERROR: Index " + indexName + " already exists");
+        }
+
+        RowStore mainTree = table.getRows();
+        List<Integer> keys = new ArrayList<>(mainTree.getSize());
+        Object[][] rows = new Object[mainTree.getSize()][];
+        Iterator<Map.Entry<Integer, Object[]>> entries = mainTree.entryIterator();
+        int count = 0;
+        while (entries.hasNext()) {
+            Map.Entry<Integer, Object[]> entry = entries.next();
+            keys.add(entry.getKey());
+            rows[count++] = entry.getValue();
+        }
+
+        BPlusTree<Number, Integer> indexTree = new BPlusTree<>(Constants.B_PLUS_TREE_ORDER);
+        bulkLoadIndex(indexTree, table, columnIndex, keys, Arrays.copyOf(rows, count));
+        indexDatabase.put(indexTableName, indexTree);
+        indexNames.put(indexName, indexTableName);
+        log(WalRecord.statement(
+            "CREATE INDEX " + indexName + " ON " + tableName + " (" + column + ")"));
+
+        if (Constants.LOGGING) {
+            System.out.println("Indexing Table " + indexTableName + " created successfully");
+        }
+
+        return "Index " + indexName + " created successfully";
+    }
+
+    /**
+     * Lists the index advisor's recommendations, or applies them for ADVISE APPLY
+     */
+    public String advise(AdviseNode node) {
+        if (node.isApply()) {
+            List<String> applied = applyIndexAdvice();
+            return applied.isEmpty() ? "No index changes recommended" : String.join("\n", applied);
+        }
+
+        List<IndexAdvisor.Advice> advice = indexAdvisor.advise(database, indexDatabase);
+        if (advice.isEmpty()) {
+            return "No index changes recommended";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (IndexAdvisor.Advice entry : advice) {
+            sb.append(entry).append('\n');
+        }
+        return sb.toString().trim();
+    }
 
-            if (Constants.LOGGING) {
-                System.out.println("Indexing Table " + indexTableName + " created successfully");
+    private List<String> applyIndexAdvice() {
+        List<String> applied = new ArrayList<>();
+        for (IndexAdvisor.Advice advice : indexAdvisor.advise(database, indexDatabase)) {
+            if (advice.getAction() == IndexAdvisor.Action.CREATE) {
+                applied.add(createIndex(
+                    new CreateIndexNode(null, advice.getTableName(), advice.getColumn())));
+            } else {
+                applied.add(dropIndex(
+                    new DropIndexNode(null, advice.getTableName(), advice.getColumn())));
             }
+        }
+        return applied;
+    }
 
+    private void afterStatements(int count) {
+        if (!autoIndex) {
+            return;
         }
 
-        return "Table " + tableName + " created successfully";
+        statementsSinceAdvice += count;
+        if (statementsSinceAdvice >= Constants.INDEX_ADVISOR_INTERVAL) {
+            statementsSinceAdvice = 0;
+            applyIndexAdvice();
+            indexAdvisor.decay();
+        }
+    }
+
+    /**
+     * Names of the indexes currently defined, in alphabetical order
+     */
+    public List<String> getIndexNames() {
+        awaitIndexBuilds();
+        Set<String> names = new TreeSet<>(indexNames.keySet());
+        for (SnapshotCatalog.TableEntry entry : unloaded.values()) {
+            names.addAll(entry.getIndexes().keySet());
+        }
+        return new ArrayList<>(names);
+    }
+
+    private String unloadedTableOfIndex(String indexName) {
+        for (SnapshotCatalog.TableEntry entry : unloaded.values()) {
+            if (entry.getIndexes().containsKey(indexName)) {
+                return entry.getName();
+            }
+        }
+        return null;
+    }
+
+    public String dropIndex(DropIndexNode node) {
+        String indexName = node.getIndexName();
+        String indexTableName;
+
+        if (indexName != null) {
+            String unloadedTable = unloadedTableOfIndex(indexName);
+            if (unloadedTable != null) {
+                retrieveTableForWrite(unloadedTable);
+            }
+            awaitIndexBuilds();
+            indexTableName = indexNames.get(indexName);
+        } else {
+            retrieveTableForWrite(node.getTableName());
+            indexTableName = Constants.getIndexTableName(node.getTableName(), node.getColumn());
+            indexName = indexTableName;
+            for (Map.Entry<String, String> entry : indexNames.entrySet()) {
+                if (entry.getValue().equals(indexTableName)) {
+                    indexName = entry.getKey();
+                }
+            }
+        }
+
+        if (indexTableName == null || indexDatabase.remove(indexTableName) == null) {
+            throw new RuntimeException("ERROR: Index " + indexName + " does not exist");
+        }
+        indexNames.remove(indexName);
+        invalidateIndex(indexTableName);
+        log(WalRecord.statement("DROP INDEX " + indexName));
+
+        return "Index " + indexName + " dropped successfully";
     }
 
     /**
@@ -406,8 +795,8 @@ public class BPlusTreeArrayEngine implements IEngine {
         Integer primaryKey = node.getPrimaryKey().getIntegerValue();
         List<LiteralNode> values = node.getValues().stream().map(LiteralNode.class::cast).toList();
 
-        BPlusTreeTableArray table = retrieveTable(database, tableName);
-        BPlusTree<Integer, Object[]> rows = table.getRows();
+        BPlusTreeTableArray table = retrieveTableForWrite(tableName);
+        RowStore rows = table.getRows();
         List<String> columns = table.getColumns();
 
         if (values.size() != columns.size()) {
@@ -419,6 +808,7 @@ public class BPlusTreeArrayEngine implements IEngine {
         }
 
         invalidateCacheForTable(node.getTableName());
+        indexAdvisor.recordRowWrites(tableName, 1);
 
         // Create array for row data
         Object[] rowData = new Object[table.getColumnCount()];
@@ -428,36 +818,359 @@ public class BPlusTreeArrayEngine implements IEngine {
             String indexTableName = Constants.getIndexTableName(tableName, column);
             LiteralNode literalNode = values.get(i);
 
-            Object value = getValueFromLiteralNode(literalNode);
+            Object value = table.recordValue(i, Helper.getValueFromLiteralNode(literalNode));
             rowData[i] = value;
 
             BPlusTree<Number, Integer> tree = indexDatabase.get(indexTableName);
-            tree.insert(convertToNumber(value), primaryKey);
+            if (tree != null) {
+                Number indexKey = Helper.convertToNumber(value);
+                tree.insert(indexKey, primaryKey);
+                invalidateIndexKey(indexTableName, indexKey);
+            }
         }
 
         rows.insert(primaryKey, rowData);
+        log(WalRecord.insert(tableName, primaryKey, rowData));
         return "1 row inserted successfully";
     }
 
-    private void invalidateCacheForTable(String tableName) {
+    /**
+     * Applies INSERT and multi row INSERT statements as one batch. Rows are checked first, then
+     * each table's rows are sorted by primary key and by every indexed value so each tree takes
+     * them in a single ordered pass, and the table's cached results are dropped once.
+     *
+     * If a statement fails validation the statements before it are still applied before the
+     * error is thrown, as if they had run one by one.
+     *
+     * @return one message per statement
+     */
+    private List<String> insertStatements(List<ASTNode> statements) {
+        List<List<InsertNode>> rowsPerStatement = new ArrayList<>(statements.size());
+        for (ASTNode statement : statements) {
+            rowsPerStatement.add(statement instanceof MultiInsertNode
+                ? ((MultiInsertNode) statement).getRows() : List.of((InsertNode) statement));
+        }
 
-        if (useCaching) {
-            queryCache.entrySet().removeIf(entry -> entry.getKey().tableName.equals(tableName));
+        List<Integer> keys = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        List<String> tableNames = new ArrayList<>();
+        RuntimeException failure = null;
+        int validStatements = 0;
+
+        try {
+            for (List<InsertNode> statementRows : rowsPerStatement) {
+                for (InsertNode row : statementRows) {
+                    keys.add(row.getPrimaryKey().getIntegerValue());
+                    rows.add(toRowData(retrieveTableForWrite(row.getTableName()), row));
+                    tableNames.add(row.getTableName());
+                }
+                validStatements++;
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+            int validRows = 0;
+            for (int i = 0; i < validStatements; i++) {
+                validRows += rowsPerStatement.get(i).size();
+            }
+            keys.subList(validRows, keys.size()).clear();
+            rows.subList(validRows, rows.size()).clear();
+            tableNames.subList(validRows, tableNames.size()).clear();
+        }
+
+        boolean[] inserted = insertRows(tableNames, keys, rows);
+
+        if (failure != null) {
+            throw failure;
+        }
+
+        List<String> results = new ArrayList<>(statements.size());
+        int row = 0;
+        for (int s = 0; s < statements.size(); s++) {
+            int count = 0;
+            int skipped = 0;
+            for (int i = 0; i < rowsPerStatement.get(s).size(); i++, row++) {
+                if (inserted[row]) {
+                    count++;
+                } else {
+                    skipped++;
+                }
+            }
+
+            if (statements.get(s) instanceof InsertNode) {
+                results.add(count == 1 ? "1 row inserted successfully"
+                    : "0 row inserted, primary key already exists");
+            } else {
+                String message = count + (count == 1 ? " row" : " rows") + " inserted successfully";
+                if (skipped > 0) {
+                    message += ", " + skipped + " skipped, primary key already exists";
+                }
+                results.add(message);
+            }
+        }
+        return results;
+    }
+
+    private static Object[] toRowData(BPlusTreeTableArray table, InsertNode node) {
+        List<ExpressionNode> values = node.getValues();
+        if (values.size() != table.getColumnCount()) {
+            throw new RuntimeException("ERROR: Column count does not match value count");
+        }
+
+        Object[] rowData = new Object[values.size()];
+        for (int i = 0; i < values.size(); i++) {
+            rowData[i] = Helper.getValueFromLiteralNode((LiteralNode) values.get(i));
+        }
+        return rowData;
+    }
+
+    /**
+     * Inserts validated rows, keeping the first occurrence of a primary key within the batch and
+     * skipping keys already stored. Returns which rows were inserted
+     */
+    private boolean[] insertRows(List<String> tableNames, List<Integer> keys, List<Object[]> rows) {
+        boolean[] inserted = new boolean[keys.size()];
+
+        Map<String, List<Integer>> rowsByTable = new LinkedHashMap<>();
+        for (int i = 0; i < tableNames.size(); i++) {
+            rowsByTable.computeIfAbsent(tableNames.get(i), name -> new ArrayList<>()).add(i);
+        }
+
+        for (Map.Entry<String, List<Integer>> entry : rowsByTable.entrySet()) {
+            insertTableRows(entry.getKey(), entry.getValue(), keys, rows, inserted);
+        }
+
+        return inserted;
+    }
+
+    /**
+     * Inserts the rows at the given positions into one table, marking the ones inserted
+     */
+    private void insertTableRows(String tableName, List<Integer> positions, List<Integer> keys,
+        List<Object[]> rows, boolean[] inserted) {
+        BPlusTreeTableArray table = retrieveTableForWrite(tableName);
+        RowStore mainTree = table.getRows();
+
+        Set<Integer> seen = new HashSet<>();
+        List<Integer> accepted = new ArrayList<>();
+        for (int i : positions) {
+            Integer key = keys.get(i);
+            if (seen.add(key) && mainTree.search(key) == null) {
+                accepted.add(i);
+                inserted[i] = true;
+            }
+        }
+
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        invalidateCacheForTable(tableName);
+        indexAdvisor.recordRowWrites(tableName, accepted.size());
+
+        accepted.sort(Comparator.comparing(keys::get));
+        List<Integer> sortedKeys = new ArrayList<>(accepted.size());
+        List<Object[]> sortedRows = new ArrayList<>(accepted.size());
+        for (int i : accepted) {
+            sortedKeys.add(keys.get(i));
+            sortedRows.add(rows.get(i));
+            log(WalRecord.insert(tableName, keys.get(i), rows.get(i)));
+        }
+
+        List<String> columns = table.getColumns();
+        NumberComparator comparator = new NumberComparator();
+        for (int c = 0; c < columns.size(); c++) {
+            int column = c;
+            for (Object[] row : sortedRows) {
+                row[column] = table.recordValue(column, row[column]);
+            }
+
+            String indexTableName = Constants.getIndexTableName(tableName, columns.get(column));
+            BPlusTree<Number, Integer> indexTree = indexDatabase.get(indexTableName);
+            if (indexTree == null) {
+                continue;
+            }
+
+            Number[] indexKeys = new Number[accepted.size()];
+            Integer[] order = new Integer[accepted.size()];
+            for (int i = 0; i < order.length; i++) {
+                indexKeys[i] = Helper.convertToNumber(sortedRows.get(i)[column]);
+                order[i] = i;
+            }
+
+            // Stable sort, rows with equal values stay in primary key order
+            Arrays.sort(order, (a, b) -> comparator.compare(indexKeys[a], indexKeys[b]));
+
+            List<Number> indexBatchKeys = new ArrayList<>(order.length);
+            List<Integer> indexBatchValues = new ArrayList<>(order.length);
+            for (int i : order) {
+                indexBatchKeys.add(indexKeys[i]);
+                indexBatchValues.add(sortedKeys.get(i));
+                invalidateIndexKey(indexTableName, indexKeys[i]);
+            }
+            indexTree.insertSorted(indexBatchKeys, indexBatchValues);
         }
+
+        mainTree.insertSorted(sortedKeys, sortedRows);
     }
 
-    private Map<Integer, Object[]> retrieveFilteredRows(List<Integer> filteredKeys,
-        BPlusTree<Integer, Object[]> rows) {
+    /**
+     * Loads the rows of a CSV file, see {@link CsvReader} for the format. Rows repeating a
+     * primary key already seen are skipped. An empty table is built bottom up, every column index
+     * in parallel and then the main tree, otherwise the rows go through the batch insert path.
+     */
+    public String copy(CopyNode node) {
+        String tableName = node.getTableName();
+        BPlusTreeTableArray table = retrieveTableForWrite(tableName);
 
-        if (filteredKeys == null || filteredKeys.isEmpty()) {
-            return new HashMap<>();
+        CsvReader.Rows parsed;
+        try {
+            parsed = CsvReader.read(Paths.get(node.getPath()), table.getColumnCount());
+        } catch (IOException e) {
+            throw new RuntimeException("ERROR: Could not read " + node.getPath(), e);
         }
 
-        // Pre-sort filtered keys if not already sorted
-        Collections.sort(filteredKeys);
+        int copied;
+        if (table.getRows().getSize() == 0) {
+            copied = bulkLoad(tableName, table, parsed);
+        } else {
+            List<Integer> keys = new ArrayList<>(parsed.size());
+            List<Integer> positions = new ArrayList<>(parsed.size());
+            for (int i = 0; i < parsed.size(); i++) {
+                keys.add(parsed.keys[i]);
+                positions.add(i);
+            }
+            boolean[] inserted = new boolean[parsed.size()];
+            insertTableRows(tableName, positions, keys, Arrays.asList(parsed.values), inserted);
 
-        // Use the optimized multi-key search
-        return rows.multiKeySearch(filteredKeys);
+            copied = 0;
+            for (boolean rowInserted : inserted) {
+                copied += rowInserted ? 1 : 0;
+            }
+        }
+
+        int skipped = parsed.size() - copied;
+        String message = copied + " row(s) copied successfully";
+        return skipped > 0 ? message + ", " + skipped + " skipped, primary key already exists"
+            : message;
+    }
+
+    /**
+     * Builds the trees of an empty table from parsed rows and returns the number of rows loaded
+     */
+    private int bulkLoad(String tableName, BPlusTreeTableArray table, CsvReader.Rows parsed) {
+
+        // Sort on (primary key, file position), the first row of each key wins
+        long[] order = new long[parsed.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = ((long) parsed.keys[i] << 32) | i;
+        }
+        Arrays.parallelSort(order);
+
+        int distinct = 0;
+        for (int i = 0; i < order.length; i++) {
+            if (i == 0 || (int) (order[i] >> 32) != (int) (order[i - 1] >> 32)) {
+                order[distinct++] = order[i];
+            }
+        }
+
+        if (distinct == 0) {
+            return 0;
+        }
+        int count = distinct;
+
+        invalidateCacheForTable(tableName);
+        indexAdvisor.recordRowWrites(tableName, count);
+
+        Object[][] rows = new Object[count][];
+        List<Integer> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add((int) (order[i] >> 32));
+            rows[i] = parsed.values[(int) order[i]];
+            log(WalRecord.insert(tableName, keys.get(i), rows[i]));
+        }
+
+        // Fresh trees, deletes can leave emptied nodes behind in the old ones. Unindexed columns
+        // get no tree but still have their values recorded
+        List<String> columns = table.getColumns();
+        RowStore mainTree = table.newRowStore();
+        List<BPlusTree<Number, Integer>> indexTrees = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            String indexTableName = Constants.getIndexTableName(tableName, column);
+            BPlusTree<Number, Integer> indexTree = null;
+            if (indexDatabase.containsKey(indexTableName)) {
+                indexTree = new BPlusTree<>(Constants.B_PLUS_TREE_ORDER);
+                indexDatabase.put(indexTableName, indexTree);
+                invalidateIndex(indexTableName);
+            }
+            indexTrees.add(indexTree);
+        }
+        table.setRows(mainTree);
+
+        // One task per column, building its index. The main tree follows, once the column
+        // dictionaries hold every value its rows may store by code
+        IntStream.range(0, columns.size()).parallel().forEach(column -> {
+            if (indexTrees.get(column) != null) {
+                bulkLoadIndex(indexTrees.get(column), table, column, keys, rows);
+            } else {
+                for (Object[] row : rows) {
+                    row[column] = table.recordValue(column, row[column]);
+                }
+            }
+        });
+
+        mainTree.bulkLoad(keys, Arrays.asList(rows));
+        return count;
+    }
+
+    private static void bulkLoadIndex(BPlusTree<Number, Integer> indexTree,
+        BPlusTreeTableArray table, int column, List<Integer> keys, Object[][] rows) {
+        Number[] indexKeys = new Number[rows.length];
+        Integer[] order = new Integer[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i][column] = table.recordValue(column, rows[i][column]);
+            indexKeys[i] = Helper.convertToNumber(rows[i][column]);
+            order[i] = i;
+        }
+
+        // Stable, so each value's primary keys stay ascending. Integer and Float keys that compare
+        // equal are still distinct tree keys, keep them apart
+        NumberComparator comparator = new NumberComparator();
+        Arrays.parallelSort(order, (a, b) -> {
+            int result = comparator.compare(indexKeys[a], indexKeys[b]);
+            return result != 0 ? result
+                : Boolean.compare(indexKeys[a] instanceof Float, indexKeys[b] instanceof Float);
+        });
+
+        List<Number> distinctKeys = new ArrayList<>();
+        List<List<Integer>> postings = new ArrayList<>();
+        for (int i : order) {
+            Number key = indexKeys[i];
+            if (distinctKeys.isEmpty() || !distinctKeys.get(distinctKeys.size() - 1).equals(key)) {
+                distinctKeys.add(key);
+                postings.add(new ArrayList<>());
+            }
+            postings.get(postings.size() - 1).add(keys.get(i));
+        }
+        indexTree.bulkLoad(distinctKeys, postings);
+    }
+
+    private void invalidateCacheForTable(String tableName) {
+
+        if (useCaching) {
+            tableGenerations.advance(tableName);
+        }
+    }
+
+    private void invalidateIndexKey(String indexTableName, Number indexKey) {
+        if (useCaching) {
+            postingCache.invalidate(indexTableName, indexKey);
+        }
+    }
+
+    private void invalidateIndex(String indexTableName) {
+        if (useCaching) {
+            postingCache.invalidateIndex(indexTableName);
+        }
     }
 
     public String select(SelectNode node) {
@@ -471,8 +1184,7 @@ public class BPlusTreeArrayEngine implements IEngine {
         if (useCaching) {
 
             // Create cache key
-            queryKey = new CacheQueryKey(node.getTableName(), node.getWhereClause(),
-                node.getColumns());
+            queryKey = cacheKey(node);
 
             // Check cache first
             String cachedResult = queryCache.get(queryKey);
@@ -486,52 +1198,445 @@ public class BPlusTreeArrayEngine implements IEngine {
         }
 
         // If not in cache, execute query
-        BPlusTreeTableArray table = retrieveTable(database, tableName);
-        BPlusTree<Integer, Object[]> rows = table.getRows();
-        List<String> columns = table.getColumns();
+        String result = node.isAggregate() ? Aggregator.format(query(node))
+            : formatSelectResults(query(node));
 
-        String result;
+        // Keyed by the canonical WHERE clause, any write to the table moves it to a new generation
+        if (useCaching) {
+            queryCache.put(queryKey, result);
+        }
+
+        return result;
+    }
+
+    private CacheQueryKey cacheKey(SelectNode node) {
+        // Aggregates are keyed by their result columns and GROUP BY, see Aggregator.describe
+        List<String> columns = node.isAggregate() ? Aggregator.describe(node)
+            : node.getColumns();
+        return new CacheQueryKey(node.getTableName(), node.getWhereClause(), columns,
+            tableGenerations.current(node.getTableName()));
+    }
+
+    /**
+     * Plans the select and returns a cursor that pulls the matching rows from the trees as it
+     * advances. Columns are the primary key followed by the selected columns. Aggregates give a
+     * single row with one column per aggregate, or with GROUP BY a row per group
+     */
+    public ResultSet query(SelectNode node) {
+        String tableName = node.getTableName();
+        BPlusTreeTableArray table = retrieveTable(tableName);
+        if (node.isAggregate()) {
+            return aggregate(tableName, table, node);
+        }
+        int[] projection = resolveProjection(table, node.getColumns());
+        PlanNode plan = planQuery(tableName, table, node.getWhereClause());
+        indexAdvisor.recordPredicates(tableName, node.getWhereClause());
+
+        List<String> columnNames = new ArrayList<>();
+        columnNames.add("id");
+        columnNames.addAll(projectedColumns(table, projection));
+
+        if (isIndexOnly(table, plan, projection)) {
+            // Index only rows hold just the selected column, if any
+            int[] indexProjection = projection.length == 0 ? projection : new int[]{0};
+            return new IteratorResultSet(columnNames,
+                project(selectIndexOnly(plan, projection).entrySet().iterator(),
+                    indexProjection));
+        }
+        return new IteratorResultSet(columnNames, project(plan.iterator(), projection));
+    }
 
-        // Handle SELECT * Query
-        if (whereClause == null && Objects.equals(node.getColumns().get(0), "*")) {
-            result = formatSelectResults(rows.getAllKeyValues(), columns);
+    /**
+     * Answers each aggregate from the cheapest source that holds it. COUNT(*) is the main tree's
+     * size, or the length of the plan's key list, without fetching a row. MIN and MAX of an
+     * indexed column over the whole table are the first and last index keys. What is left is
+     * computed in one pass, over the index leaves if the plan scans the index of the only column
+     * it needs, otherwise over the planned rows
+     */
+    private ResultSet aggregate(String tableName, BPlusTreeTableArray table, SelectNode node) {
+        PlanNode plan = planQuery(tableName, table, node.getWhereClause());
+        indexAdvisor.recordPredicates(tableName, node.getWhereClause());
+        int[] columns = aggregateColumns(table, node.getAggregates());
+        if (node.getGroupBy() != null) {
+            return group(tableName, table, node, plan, columns).toResultSet();
+        }
 
-            if (useCaching) {
-                queryCache.put(queryKey, result);
+        List<Aggregator> aggregators = Aggregator.of(node.getAggregates());
+        RowStore mainTree = table.getRows();
+        boolean[] remaining = new boolean[columns.length];
+        List<Aggregator> scanned = new ArrayList<>();
+        for (int i = 0; i < columns.length; i++) {
+            Aggregator aggregator = aggregators.get(i);
+            AggregateNode aggregate = aggregator.getAggregate();
+
+            if (aggregate.isCountAll() && node.getWhereClause() == null) {
+                aggregator.addCount(mainTree.getSize());
+            } else if (aggregate.isCountAll() && plan instanceof KeyScanNode) {
+                aggregator.addCount(((KeyScanNode) plan).executeKeys().length);
+            } else if (node.getWhereClause() != null
+                || !addExtreme(tableName, table, aggregator, columns[i])) {
+                remaining[i] = true;
+                scanned.add(aggregator);
             }
+        }
+        if (scanned.isEmpty()) {
+            return Aggregator.toResultSet(aggregators);
+        }
 
-            return result;
+        String indexColumn = plan instanceof IndexScanNode
+            ? ((IndexScanNode) plan).getColumnName() : null;
+        boolean indexOnly = indexColumn != null
+            && table.isNumericColumn(table.getColumnIndex(indexColumn));
+        for (Aggregator aggregator : scanned) {
+            indexOnly &= aggregator.getAggregate().getColumn().equals(indexColumn);
         }
 
-        // Get primary keys based on whereClause
-        List<Integer> filteredKeys = filterIndexes(tableName, whereClause);
-        // Get rows using filteredKeys
-        Map<Integer, Object[]> fitleredRows = retrieveFilteredRows(filteredKeys, rows);
+        if (indexOnly) {
+            ((IndexScanNode) plan).scanEntries((value, key) -> {
+                for (Aggregator aggregator : scanned) {
+                    aggregator.add(value);
+                }
+            });
+            return Aggregator.toResultSet(aggregators);
+        }
 
-        // Format results
-        result = formatSelectResults(fitleredRows, columns);
-        return result;
+        Iterator<Map.Entry<Integer, Object[]>> rows = plan.iterator();
+        while (rows.hasNext()) {
+            Map.Entry<Integer, Object[]> row = rows.next();
+            for (int i = 0; i < columns.length; i++) {
+                if (remaining[i]) {
+                    aggregators.get(i).add(columns[i] < 0 ? row.getKey()
+                        : row.getValue()[columns[i]]);
+                }
+            }
+        }
+        return Aggregator.toResultSet(aggregators);
+    }
+
+    /**
+     * Row positions of the columns the aggregates read, -1 for COUNT(*) and the primary key
+     */
+    private static int[] aggregateColumns(BPlusTreeTableArray table,
+        List<AggregateNode> aggregates) {
+        int[] columns = new int[aggregates.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = aggregates.get(i).isCountAll() ? -1
+                : columnOf(table, aggregates.get(i).getColumn());
+        }
+        return columns;
+    }
+
+    // Row position of the column, -1 for the primary key
+    private static int columnOf(BPlusTreeTableArray table, String column) {
+        if (column.equals("id")) {
+            return -1;
+        }
+        int columnIndex = table.getColumnIndex(column);
+        if (columnIndex < 0) {
+            throw new RuntimeException("ERROR: Column " + column + " does not exist");
+        }
+        return columnIndex;
+    }
+
+    /**
+     * GROUP BY. Over the whole table, a numeric group column with an index has its distinct keys
+     * walked in order when the aggregates need nothing but the key and the row count, each key's
+     * postings forming a group. Otherwise the rows are hash aggregated: split into disjoint key
+     * ranges of the main tree, or slices of the plan's key list, that worker threads aggregate on
+     * their own before their partial groups are merged
+     */
+    private GroupAggregator group(String tableName, BPlusTreeTableArray table, SelectNode node,
+        PlanNode plan, int[] columns) {
+        int groupColumn = columnOf(table, node.getGroupBy());
+        BPlusTree<Number, Integer> indexTree = groupColumn < 0 ? null
+            : indexDatabase.get(Constants.getIndexTableName(tableName, node.getGroupBy()));
+        if (node.getWhereClause() == null && indexTree != null
+            && isKeysOnly(table, node, groupColumn)) {
+            return groupByIndex(node, indexTree, columns);
+        }
+
+        RowStore mainTree = table.getRows();
+        List<Consumer<BiConsumer<Integer, Object[]>>> partitions = new ArrayList<>();
+        int parts = mainTree.getSize() < Constants.GROUP_BY_PARALLEL_ROWS ? 1
+            : Constants.GROUP_BY_THREADS;
+
+        if (plan instanceof KeyScanNode) {
+            int[] keys = ((KeyScanNode) plan).executeKeys();
+            int slice = Math.max(1, (keys.length + parts - 1) / parts);
+            for (int from = 0; from < keys.length; from += slice) {
+                int[] sliceKeys = Arrays.copyOfRange(keys, from,
+                    Math.min(from + slice, keys.length));
+                partitions.add(visitor -> mainTree.multiKeyIterator(sliceKeys)
+                    .forEachRemaining(row -> visitor.accept(row.getKey(), row.getValue())));
+            }
+        } else if (plan instanceof SeqScanNode) {
+            // The scan's filter is the whole WHERE clause, evaluated by each range's worker
+            ConditionNode where = node.getWhereClause();
+            ConditionEvaluator evaluator = new ConditionEvaluator(table.getColumns());
+            List<Integer> bounds = mainTree.splitKeys(parts);
+            for (int i = 0; i <= bounds.size(); i++) {
+                int from = i == 0 ? Integer.MIN_VALUE : bounds.get(i - 1);
+                int to = i == bounds.size() ? Integer.MAX_VALUE : bounds.get(i);
+                boolean last = i == bounds.size();
+                partitions.add(visitor -> mainTree.rangeForEach(from, true, to, last,
+                    (key, row) -> {
+                        if (where == null || evaluator.matches(where, key, row)) {
+                            visitor.accept(key, row);
+                        }
+                    }));
+            }
+        } else {
+            partitions.add(visitor -> plan.iterator()
+                .forEachRemaining(row -> visitor.accept(row.getKey(), row.getValue())));
+        }
+
+        List<ForkJoinTask<GroupAggregator>> tasks = new ArrayList<>();
+        for (Consumer<BiConsumer<Integer, Object[]>> partition : partitions) {
+            tasks.add(ForkJoinTask.adapt(() -> {
+                GroupAggregator partial = new GroupAggregator(node);
+                partition.accept((key, row) -> {
+                    List<Aggregator> aggregators = partial.groupOf(
+                        groupColumn < 0 ? key : row[groupColumn]);
+                    for (int i = 0; i < columns.length; i++) {
+                        aggregators.get(i).add(columns[i] < 0 ? key : row[columns[i]]);
+                    }
+                });
+                return partial;
+            }));
+        }
+        ForkJoinTask.invokeAll(tasks);
+
+        GroupAggregator groups = new GroupAggregator(node);
+        for (ForkJoinTask<GroupAggregator> task : tasks) {
+            groups.merge(task.join());
+        }
+        return groups;
+    }
+
+    /**
+     * True if the group column's index keys are its values, and every aggregate is COUNT(*) or of
+     * the group column. Fetching rows a group at a time would walk the main tree once per group,
+     * so other groupings scan it once instead
+     */
+    private static boolean isKeysOnly(BPlusTreeTableArray table, SelectNode node,
+        int groupColumn) {
+        if (!table.isNumericColumn(groupColumn)) {
+            return false;
+        }
+        for (AggregateNode aggregate : node.getAggregates()) {
+            if (!aggregate.isCountAll() && !aggregate.getColumn().equals(node.getGroupBy())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Walks the group column's index leaves once, aggregating each stored key's own postings.
+     * 5 and 5.0 are separate keys that compare equal, so looking a key up again could read the
+     * other's list
+     */
+    private static GroupAggregator groupByIndex(SelectNode node,
+        BPlusTree<Number, Integer> indexTree, int[] columns) {
+        GroupAggregator groups = new GroupAggregator(node);
+        indexTree.forEachKeyList((value, keys) -> {
+            if (keys.isEmpty()) {
+                return;
+            }
+
+            List<Aggregator> aggregators = groups.groupOf(value);
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i] < 0) {
+                    aggregators.get(i).addCount(keys.size());
+                    continue;
+                }
+                for (int j = 0; j < keys.size(); j++) {
+                    aggregators.get(i).add(value);
+                }
+            }
+        });
+        return groups;
+    }
+
+    /**
+     * Feeds MIN or MAX of the whole column from the end of its index, or of the main tree for the
+     * primary key. A string column's index is keyed by hash code, which says nothing of the
+     * strings' order. Returns false if the column has no numeric index to answer from
+     */
+    private boolean addExtreme(String tableName, BPlusTreeTableArray table, Aggregator aggregator,
+        int column) {
+        String function = aggregator.getAggregate().getFunction();
+        if (!function.equals("MIN") && !function.equals("MAX")) {
+            return false;
+        }
+
+        RowStore mainTree = table.getRows();
+        if (column < 0) {
+            aggregator.add(function.equals("MIN") ? mainTree.getMinKey() : mainTree.getMaxKey());
+            return true;
+        }
+
+        BPlusTree<Number, Integer> indexTree = indexDatabase.get(
+            Constants.getIndexTableName(tableName, table.getColumns().get(column)));
+        if (indexTree == null || !table.isNumericColumn(column)) {
+            return false;
+        }
+
+        aggregator.add(function.equals("MIN") ? indexTree.getMinKey() : indexTree.getMaxKey());
+        return true;
+    }
+
+    /**
+     * Maps each (primary key, row) entry to the primary key followed by the projected values
+     */
+    private static Iterator<Object[]> project(Iterator<Map.Entry<Integer, Object[]>> rows,
+        int[] projection) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public Object[] next() {
+                Map.Entry<Integer, Object[]> entry = rows.next();
+                Object[] row = entry.getValue();
+                Object[] projected = new Object[projection.length + 1];
+                projected[0] = entry.getKey();
+                for (int i = 0; i < projection.length; i++) {
+                    projected[i + 1] = row[projection[i]];
+                }
+                return projected;
+            }
+        };
+    }
+
+    /**
+     * Row positions of the selected columns in select order. The primary key is always written
+     * first, so an explicit id is dropped
+     */
+    private int[] resolveProjection(BPlusTreeTableArray table, List<String> selected) {
+        if (selected.size() == 1 && selected.get(0).equals("*")) {
+            int[] all = new int[table.getColumnCount()];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] projection = new int[selected.size()];
+        int n = 0;
+        for (String column : selected) {
+            if (column.equals("id")) {
+                continue;
+            }
+            int columnIndex = table.getColumnIndex(column);
+            if (columnIndex < 0) {
+                throw new RuntimeException("ERROR: Column " + column + " does not exist");
+            }
+            projection[n++] = columnIndex;
+        }
+        return Arrays.copyOf(projection, n);
+    }
+
+    private static List<String> projectedColumns(BPlusTreeTableArray table, int[] projection) {
+        List<String> columns = new ArrayList<>(projection.length);
+        for (int column : projection) {
+            columns.add(table.getColumns().get(column));
+        }
+        return columns;
+    }
+
+    /**
+     * True if the plan's index lookups alone hold every selected column: either only the primary
+     * key is selected, or the only other column is the numeric column the index scan is on
+     */
+    private static boolean isIndexOnly(BPlusTreeTableArray table, PlanNode plan,
+        int[] projection) {
+        if (projection.length == 0) {
+            return plan instanceof KeyScanNode;
+        }
+        return projection.length == 1 && plan instanceof IndexScanNode
+            && table.isNumericColumn(projection[0])
+            && ((IndexScanNode) plan).getColumnName()
+            .equals(table.getColumns().get(projection[0]));
+    }
+
+    private static Map<Integer, Object[]> selectIndexOnly(PlanNode plan, int[] projection) {
+        // Index leaves are in column order, keep the output in primary key order
+        Map<Integer, Object[]> rows = new TreeMap<>();
+
+        if (projection.length == 0) {
+            for (int key : ((KeyScanNode) plan).executeKeys()) {
+                rows.put(key, new Object[0]);
+            }
+            return rows;
+        }
+
+        ((IndexScanNode) plan).scanEntries((value, key) -> rows.put(key, new Object[]{value}));
+        return rows;
+    }
+
+    /**
+     * Describes the plan chosen for the statement's WHERE clause without executing it
+     */
+    public String explain(ExplainNode node) {
+        ASTNode statement = node.getStatement();
+        String tableName;
+        ConditionNode whereClause;
+
+        if (statement instanceof SelectNode) {
+            tableName = ((SelectNode) statement).getTableName();
+            whereClause = ((SelectNode) statement).getWhereClause();
+        } else if (statement instanceof UpdateNode) {
+            tableName = ((UpdateNode) statement).getTableName();
+            whereClause = ((UpdateNode) statement).getWhereClause();
+        } else if (statement instanceof DeleteNode) {
+            tableName = ((DeleteNode) statement).getTableName();
+            whereClause = ((DeleteNode) statement).getWhereClause();
+        } else {
+            return "Nothing to explain for " + statement.getClass().getSimpleName();
+        }
+
+        BPlusTreeTableArray table = retrieveTable(tableName);
+        PlanNode plan = planQuery(tableName, table, whereClause);
+
+        if (statement instanceof SelectNode) {
+            SelectNode select = (SelectNode) statement;
+            if (select.isAggregate()) {
+                return plan.explain() + "\nOutput: "
+                    + String.join(", ", Aggregator.describe(select));
+            }
+            int[] projection = resolveProjection(table, select.getColumns());
+            List<String> output = new ArrayList<>();
+            output.add("id");
+            output.addAll(projectedColumns(table, projection));
+            return plan.explain() + "\nOutput: " + String.join(", ", output)
+                + (isIndexOnly(table, plan, projection) ? " (index only)" : "");
+        }
+        return plan.explain();
     }
 
     public String delete(DeleteNode node) {
         String tableName = node.getTableName();
         ConditionNode whereClause = node.getWhereClause();
 
-        BPlusTreeTableArray table = retrieveTable(database, tableName);
-        BPlusTree<Integer, Object[]> rows = table.getRows();
+        BPlusTreeTableArray table = retrieveTableForWrite(tableName);
+        RowStore rows = table.getRows();
 
         if (rows.getSize() == 0) {
             return "0 row(s) deleted, no rows found";
         }
 
-        List<Integer> filteredKeys = filterIndexes(tableName, whereClause);
-        Map<Integer, Object[]> filteredRows = retrieveFilteredRows(filteredKeys, rows);
+        Map<Integer, Object[]> filteredRows = filterRows(tableName, table, whereClause);
+        indexAdvisor.recordPredicates(tableName, whereClause);
 
         if (filteredRows.isEmpty()) {
             return "0 row(s) deleted, not found";
         }
 
         invalidateCacheForTable(node.getTableName());
+        indexAdvisor.recordRowWrites(tableName, filteredRows.size());
 
         for (Map.Entry<Integer, Object[]> row : filteredRows.entrySet()) {
             Integer rowKey = row.getKey();
@@ -546,24 +1651,73 @@ public class BPlusTreeArrayEngine implements IEngine {
             }
         }
 
-        for (Integer key : filteredKeys) {
+        for (Integer key : filteredRows.keySet()) {
             rows.removeKey(key);
+            log(WalRecord.delete(tableName, key));
         }
 
-        return filteredKeys.size() + " row(s) deleted successfully";
+        return filteredRows.size() + " row(s) deleted successfully";
     }
 
     private void removeIndexEntry(String indexTableName, Object value, Integer key) {
+        BPlusTree<Number, Integer> indexTree = indexDatabase.get(indexTableName);
+        if (indexTree == null) {
+            return; // Column is not indexed
+        }
+
         if (value instanceof String) {
-            indexDatabase.get(indexTableName).removeValue(((String) value).hashCode(), key);
+            indexTree.removeValue(((String) value).hashCode(), key);
         } else if (value instanceof Integer) {
-            indexDatabase.get(indexTableName).removeValue((Integer) value, key);
+            indexTree.removeValue((Integer) value, key);
         } else if (value instanceof Float) {
-            indexDatabase.get(indexTableName).removeValue((Float) value, key);
+            indexTree.removeValue((Float) value, key);
         } else {
             throw new IllegalStateException(
                 "Unexpected value type for removal: " + value.getClass());
         }
+        invalidateIndexKey(indexTableName, Helper.convertToNumber(value));
+    }
+
+    /**
+     * Replaces a stored row during replay, moving its entries in the indexes whose value changed
+     */
+    private void replaceRow(String tableName, int key, Object[] newRow) {
+        BPlusTreeTableArray table = retrieveTableForWrite(tableName);
+        List<Object[]> stored = table.getRows().search(key);
+        if (stored == null || stored.isEmpty()) {
+            return;
+        }
+
+        Object[] oldRow = stored.get(0);
+        List<String> columns = table.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            String indexTableName = Constants.getIndexTableName(tableName, columns.get(i));
+            BPlusTree<Number, Integer> indexTree = indexDatabase.get(indexTableName);
+            if (indexTree != null && !Objects.equals(oldRow[i], newRow[i])) {
+                indexTree.removeValue(Helper.convertToNumber(oldRow[i]), key);
+                indexTree.insert(Helper.convertToNumber(newRow[i]), key);
+            }
+            newRow[i] = table.recordValue(i, newRow[i]);
+        }
+        table.getRows().update(key, newRow);
+    }
+
+    /**
+     * Removes a stored row and its index entries during replay
+     */
+    private void deleteRow(String tableName, int key) {
+        BPlusTreeTableArray table = retrieveTableForWrite(tableName);
+        List<Object[]> stored = table.getRows().search(key);
+        if (stored == null || stored.isEmpty()) {
+            return;
+        }
+
+        Object[] row = stored.get(0);
+        List<String> columns = table.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            removeIndexEntry(Constants.getIndexTableName(tableName, columns.get(i)), row[i], key);
+        }
+        table.getRows().removeKey(key);
     }
 
     public String update(UpdateNode node) {
@@ -571,22 +1725,24 @@ public class BPlusTreeArrayEngine implements IEngine {
         ConditionNode whereClause = node.getWhereClause();
         List<AssignmentNode> assignments = node.getAssignments();
 
-        BPlusTreeTableArray table = retrieveTable(database, tableName);
-        BPlusTree<Integer, Object[]> rows = table.getRows();
+        BPlusTreeTableArray table = retrieveTableForWrite(tableName);
+        RowStore rows = table.getRows();
         List<String> columns = table.getColumns();
 
         if (rows.getSize() == 0) {
             return "0 row(s) updated, no rows found";
         }
 
-        List<Integer> filteredKeys = filterIndexes(tableName, whereClause);
-        Map<Integer, Object[]> filteredRows = retrieveFilteredRows(filteredKeys, rows);
+        Map<Integer, Object[]> filteredRows = filterRows(tableName, table, whereClause);
+        indexAdvisor.recordPredicates(tableName, whereClause);
 
         if (filteredRows.isEmpty()) {
             return "0 row(s) updated, not found";
         }
 
         invalidateCacheForTable(node.getTableName());
+        indexAdvisor.recordUpdates(tableName,
+            assignments.stream().map(AssignmentNode::getColumn).toList(), filteredRows.size());
 
         for (Map.Entry<Integer, Object[]> row : filteredRows.entrySet()) {
             Integer primaryKey = row.getKey();
@@ -597,40 +1753,53 @@ public class BPlusTreeArrayEngine implements IEngine {
                 String columnName = assignment.getColumn();
                 int columnIndex = table.getColumnIndex(columnName);
                 LiteralNode newValueNode = (LiteralNode) assignment.getValue();
-                Object newValue = getValueFromLiteralNode(newValueNode);
+                Object newValue = table.recordValue(columnIndex,
+                    Helper.getValueFromLiteralNode(newValueNode));
                 Object oldValue = rowData[columnIndex];
 
                 String indexTableName = Constants.getIndexTableName(tableName, columnName);
                 BPlusTree<Number, Integer> indexTree = indexDatabase.get(indexTableName);
 
-                indexTree.removeValue(convertToNumber(oldValue), primaryKey);
-                indexTree.insert(convertToNumber(newValue), primaryKey);
+                if (indexTree != null) {
+                    Number oldKey = Helper.convertToNumber(oldValue);
+                    Number newKey = Helper.convertToNumber(newValue);
+                    indexTree.removeValue(oldKey, primaryKey);
+                    indexTree.insert(newKey, primaryKey);
+                    invalidateIndexKey(indexTableName, oldKey);
+                    invalidateIndexKey(indexTableName, newKey);
+                }
 
                 updatedRowData[columnIndex] = newValue;
             }
 
             rows.update(primaryKey, updatedRowData);
+            log(WalRecord.update(tableName, primaryKey, updatedRowData));
         }
 
-        return filteredKeys.size() + " row(s) updated successfully";
+        return filteredRows.size() + " row(s) updated successfully";
     }
 
     public void recordCacheHit() {
-        cacheHits++;
+        cacheHits.increment();
     }
 
     public void recordCacheMiss() {
-        cacheMisses++;
+        cacheMisses.increment();
     }
 
     public double getCacheHitRate() {
-        long total = cacheHits + cacheMisses;
-        return total == 0 ? 0.0 : (double) cacheHits / total;
+        long hits = cacheHits.sum();
+        long total = hits + cacheMisses.sum();
+        return total == 0 ? 0.0 : (double) hits / total;
     }
 
     public void clearCacheMetrics() {
-        cacheHits = 0;
-        cacheMisses = 0;
+        cacheHits.reset();
+        cacheMisses.reset();
+    }
+
+    public boolean isAutoIndexing() {
+        return autoIndex;
     }
 
     public boolean isCachingEnabled() {
@@ -2,16 +2,36 @@ package edu.smu.smusql.bplustreeA.bplustreeArray;
 
 import edu.smu.smusql.AbstractTable;
 import edu.smu.smusql.Constants;
-import edu.smu.smusql.bplustreeA.BPlusTree;
+import edu.smu.smusql.bplustreeA.RowStore;
+import edu.smu.smusql.bplustreeA.TreeRowStore;
+import edu.smu.smusql.bplustreeA.arena.PackedRowStore;
+import edu.smu.smusql.bplustreeA.helper.StringDictionary;
 import java.util.List;
 
-public class BPlusTreeTableArray extends AbstractTable<BPlusTree<Integer, Object[]>> {
+public class BPlusTreeTableArray extends AbstractTable<RowStore> {
     private final int columnCount;
+    // Columns that have held a string, whose index keys are hash codes rather than the values
+    private final boolean[] stringValued;
+    private final StringDictionary[] dictionaries;
 
     public BPlusTreeTableArray(List<String> columns) {
         super(columns);
         this.columnCount = columns.size();
-        setRows(new BPlusTree<>(Constants.B_PLUS_TREE_ORDER));
+        this.stringValued = new boolean[columnCount];
+        this.dictionaries = new StringDictionary[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            dictionaries[i] = new StringDictionary(Constants.DICTIONARY_MAX_VALUES);
+        }
+        setRows(newRowStore());
+    }
+
+    /**
+     * An empty row store for the table, its rows packed off heap if ROW_ARENA is set
+     */
+    public RowStore newRowStore() {
+        return Constants.ROW_ARENA
+            ? new PackedRowStore(Constants.ROW_STORE_NODE_SIZE, dictionaries)
+            : new TreeRowStore(Constants.B_PLUS_TREE_ORDER);
     }
 
     public int getColumnCount() {
@@ -21,4 +41,33 @@ public class BPlusTreeTableArray extends AbstractTable<BPlusTree<Integer, Object
     public int getColumnIndex(String columnName) {
         return getColumns().indexOf(columnName);
     }
-}
\ No newline at end of file
+
+    /**
+     * Notes a value stored in the column and returns what the row should hold: for a string, the
+     * column dictionary's shared instance. Columns are independent, so different columns may be
+     * recorded from different threads
+     */
+    public Object recordValue(int columnIndex, Object value) {
+        if (!(value instanceof String)) {
+            return value;
+        }
+
+        stringValued[columnIndex] = true;
+        return dictionaries[columnIndex].encode((String) value);
+    }
+
+    /**
+     * Distinct strings shared by the column's rows
+     */
+    public int getDictionarySize(int columnIndex) {
+        return dictionaries[columnIndex].size();
+    }
+
+    /**
+     * True if every value ever stored in the column was numeric, so its index keys are the
+     * column values themselves and the index can answer for the column on its own
+     */
+    public boolean isNumericColumn(int columnIndex) {
+        return !stringValued[columnIndex];
+    }
+}
@@ -2,6 +2,8 @@ package edu.smu.smusql.bplustreeA.bplustreeArray;
 
 import edu.smu.smusql.Constants;
 import edu.smu.smusql.IEngine;
+import edu.smu.smusql.IteratorResultSet;
+import edu.smu.smusql.ResultSet;
 import edu.smu.smusql.bplustreeA.AstParser.AstParser;
 import edu.smu.smusql.bplustreeA.AstParser.Token;
 import edu.smu.smusql.bplustreeA.AstParser.Tokenizer;
@@ -9,34 +11,43 @@ import edu.smu.smusql.bplustreeA.AstParser.nodes.ASTNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.AssignmentNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.ColumnNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.ConditionNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.CreateIndexNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.CreateTableNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.DeleteNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.DropIndexNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.ExpressionNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.InsertNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.MultiInsertNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.LiteralNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.SelectNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.UpdateNode;
 import edu.smu.smusql.bplustreeA.BPlusTreeMultiRange;
+import edu.smu.smusql.bplustreeA.helper.Aggregator;
 import edu.smu.smusql.bplustreeA.lruCache.CacheQueryKey;
-import edu.smu.smusql.bplustreeA.lruCache.LRUCache;
+import edu.smu.smusql.bplustreeA.lruCache.QueryResultCache;
+import edu.smu.smusql.bplustreeA.lruCache.TableGenerations;
+import edu.smu.smusql.bplustreeA.planner.ConditionEvaluator;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 public class BPlusTree_MultiRange_ArrayEngine implements IEngine {
 
-    private final LRUCache<CacheQueryKey, String> queryCache; // Only implemented for "SELECT *" statements
+    private final QueryResultCache queryCache;
+    private final TableGenerations tableGenerations = new TableGenerations();
     private final boolean useCaching;
     private Map<String, BPlusTree_MultiRange_TableArray> database;
     private Map<String, BPlusTreeMultiRange<Number, Integer>> indexDatabase;
-    private long cacheHits = 0;
-    private long cacheMisses = 0;
+    private Map<String, String> indexNames; // Index name to its key in indexDatabase
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
 
     public BPlusTree_MultiRange_ArrayEngine() {
         this(true);
@@ -45,8 +56,9 @@ public class BPlusTree_MultiRange_ArrayEngine implements IEngine {
     public BPlusTree_MultiRange_ArrayEngine(boolean useCaching) {
         this.database = new HashMap<>();
         this.indexDatabase = new HashMap<>();
+        this.indexNames = new HashMap<>();
         this.useCaching = useCaching;
-        this.queryCache = useCaching ? new LRUCache<>(Constants.CACHE_SIZE) : null;
+        this.queryCache = useCaching ? new QueryResultCache() : null;
     }
 
     private static String buildHeaderString(List<String> columns) {
@@ -130,8 +142,12 @@ public class BPlusTree_MultiRange_ArrayEngine implements IEngine {
         }
 
         String indexTableName = Constants.getIndexTableName(tableName, columnName);
-        BPlusTreeMultiRange<Number, Integer> indexTree = retrieveTable(indexDatabase,
-            indexTableName);
+        BPlusTreeMultiRange<Number, Integer> indexTree = indexDatabase.get(indexTableName);
+
+        // Strings range lexically, which hash code keys cannot answer
+        if (indexTree == null || !ConditionEvaluator.usesIndexKey(operator, value)) {
+            return scanCondition(tableName, columnName, operator, value);
+        }
 
         // Convert value to appropriate type for comparison
         Number searchValue;
@@ -146,6 +162,28 @@ public class BPlusTree_MultiRange_ArrayEngine implements IEngine {
         return evaluateCondition(indexTree, searchValue, operator);
     }
 
+    /**
+     * Matching primary keys of an unindexed column, found by visiting every row
+     */
+    private List<Integer> scanCondition(String tableName, String columnName, String operator,
+        Object value) {
+        BPlusTree_MultiRange_TableArray table = retrieveTable(database, tableName);
+        int columnIndex = table.getColumnIndex(columnName);
+        if (columnIndex < 0) {
+            throw new RuntimeException("ERROR: Column " + columnName + " does not exist");
+        }
+
+        List<Integer> keys = new ArrayList<>();
+        Iterator<Map.Entry<Integer, Object[]>> rows = table.getRows().entryIterator();
+        while (rows.hasNext()) {
+            Map.Entry<Integer, Object[]> row = rows.next();
+            if (ConditionEvaluator.matches(row.getValue()[columnIndex], operator, value)) {
+                keys.add(row.getKey());
+            }
+        }
+        return keys;
+    }
+
     private Object getValueFromLiteralNode(LiteralNode literalNode) {
         switch (literalNode.getType()) {
             case STRING:
@@ -300,45 +338,41 @@ public class BPlusTree_MultiRange_ArrayEngine implements IEngine {
         }
     }
 
-    private String formatSelectResults(Map<Integer, Object[]> rows, List<String> columns) {
-        String header = buildHeaderString(columns);
+    private String formatSelectResults(ResultSet resultSet) {
+        String header = buildHeaderString(
+            resultSet.getColumnNames().subList(1, resultSet.getColumnCount()));
 
-        if (rows == null || rows.isEmpty()) {
+        if (!resultSet.next()) {
             return header;
         }
 
         StringBuilder sb = new StringBuilder();
         sb.append(header);
 
-        // Rows data
-        for (Map.Entry<Integer, Object[]> entry : rows.entrySet()) {
-            Integer id = entry.getKey();
-            Object[] row = entry.getValue();
-
-            if (row == null) {
-                continue;
-            }
-
-            sb.append(id).append("\t");
-
-            for (int i = 0; i < columns.size(); i++) {
-                Object value = row[i];
+        // Rows data, the primary key first
+        do {
+            for (int i = 1; i <= resultSet.getColumnCount(); i++) {
+                Object value = resultSet.getObject(i);
                 sb.append(value != null ? value.toString() : "NULL").append('\t');
             }
             sb.append('\n');
-        }
+        } while (resultSet.next());
 
         return sb.toString().trim();
     }
 
     public String executeSQL(String query) {
 
-        List<Token> tokens = Tokenizer.tokenize(query);
-        AstParser parser = new AstParser(tokens);
-        ASTNode statement = parser.parse();
+        ASTNode statement = parse(query);
 
         if (statement instanceof InsertNode) {
             return insert((InsertNode) statement);
+        } else if (statement instanceof MultiInsertNode) {
+            return insertRows((MultiInsertNode) statement);
+        } else if (statement instanceof CreateIndexNode) {
+            return createIndex((CreateIndexNode) statement);
+        } else if (statement instanceof DropIndexNode) {
+            return dropIndex((DropIndexNode) statement);
         } else if (statement instanceof DeleteNode) {
             return delete((DeleteNode) statement);
         } else if (statement instanceof SelectNode) {
@@ -352,6 +386,22 @@ public class BPlusTree_MultiRange_ArrayEngine implements IEngine {
         }
     }
 
+    public ResultSet executeQuery(String query) {
+
+        ASTNode statement = parse(query);
+
+        if (!(statement instanceof SelectNode)) {
+            throw new RuntimeException("ERROR: executeQuery only runs SELECT statements");
+        }
+        return query((SelectNode) statement);
+    }
+
+    private static ASTNode parse(String query) {
+        List<Token> tokens = Tokenizer.tokenize(query);
+        AstParser parser = new AstParser(tokens);
+        return parser.parse();
+    }
+
     /**
      * Clears all data from the database and index database. Used primarily for testing purposes.
      */
@@ -359,6 +409,11 @@ public class BPlusTree_MultiRange_ArrayEngine implements IEngine {
         // Clear both main database and index database
         database.clear();
         indexDatabase.clear();
+        indexNames.clear();
+        tableGenerations.clear();
+        if (useCaching) {
+            queryCache.clear();
+        }
     }
 
     public String create(CreateTableNode node) {
@@ -371,25 +426,96 @@ public class BPlusTree_MultiRange_ArrayEngine implements IEngine {
             throw new RuntimeException("Table " + tableName + " already exist");
         }
 
+        // Tables start without column indexes, see createIndex
         BPlusTree_MultiRange_TableArray table = new BPlusTree_MultiRange_TableArray(columns);
         database.put(tableName, table);
 
-        /**
-         * Create Indexing Trees with column fields as Key and PrimaryKey as Value
-         */
-        for (String col : columns) {
-            BPlusTreeMultiRange<Number, Integer> indexTree = new BPlusTreeMultiRange<>(
-                Constants.B_PLUS_TREE_ORDER);
-            String indexTableName = Constants.getIndexTableName(tableName, col);
-            indexDatabase.put(indexTableName, indexTree);
-
-            if (Constants.LOGGING) {
-                System.out.println("Indexing Table " + indexTableName + " created successfully");
+        return "Table " + tableName + " created successfully";
+    }
+
+    /**
+     * Builds an index tree with the column's values as keys and primary keys as values from the
+     * rows already in the table. An unnamed index is named after its tree, idx_table_column
+     */
+    public String createIndex(CreateIndexNode node) {
+        String tableName = node.getTableName();
+        String column = node.getColumn();
+        BPlusTree_MultiRange_TableArray table = retrieveTable(database, tableName);
+        int columnIndex = table.getColumnIndex(column);
+
+        if (column.equals("id")) {
+            throw new RuntimeException("ERROR: Column id is the primary key and always indexed");
+        }
+        if (columnIndex < 0) {
+            throw new RuntimeException("ERROR: Column " + column + " does not exist");
+        }
+
+        String indexTableName = Constants.getIndexTableName(tableName, column);
+        String indexName = node.getIndexName() != null ? node.getIndexName() : indexTableName;
+        if (indexDatabase.containsKey(indexTableName)) {
+            throw new RuntimeException("ERROR: Column " + column + " is already indexed");
+        }
+        if (indexNames.containsKey(indexName)) {
+            throw new RuntimeException("ERROR: Index " + indexName + " already exists");
+        }
+
+        BPlusTreeMultiRange<Number, Integer> indexTree = new BPlusTreeMultiRange<>(
+            Constants.B_PLUS_TREE_ORDER);
+        Iterator<Map.Entry<Integer, Object[]>> rows = table.getRows().entryIterator();
+        while (rows.hasNext()) {
+            Map.Entry<Integer, Object[]> row = rows.next();
+            indexTree.insert(convertToNumber(row.getValue()[columnIndex]), row.getKey());
+        }
+        indexDatabase.put(indexTableName, indexTree);
+        indexNames.put(indexName, indexTableName);
+
+        if (Constants.LOGGING) {
+            System.out.println("Indexing Table " + indexTableName + " created successfully");
+        }
+
+        return "Index " + indexName + " created successfully";
+    }
+
+    public String dropIndex(DropIndexNode node) {
+        String indexName = node.getIndexName();
+        String indexTableName;
+
+        if (indexName != null) {
+            indexTableName = indexNames.get(indexName);
+        } else {
+            retrieveTable(database, node.getTableName());
+            indexTableName = Constants.getIndexTableName(node.getTableName(), node.getColumn());
+            indexName = indexTableName;
+            for (Map.Entry<String, String> entry : indexNames.entrySet()) {
+                if (entry.getValue().equals(indexTableName)) {
+                    indexName = entry.getKey();
+                }
             }
+        }
 
+        if (indexTableName == null || indexDatabase.remove(indexTableName) == null) {
+            throw new RuntimeException("ERROR: Index " + indexName + " does not exist");
         }
+        indexNames.remove(indexName);
 
-        return "Table " + tableName + " created successfully";
+        return "Index " + indexName + " dropped successfully";
+    }
+
+    /**
+     * Inserts each tuple of a multi row INSERT in turn
+     */
+    private String insertRows(MultiInsertNode node) {
+        int inserted = 0;
+        for (InsertNode row : node.getRows()) {
+            if (insertRow(row)) {
+                inserted++;
+            }
+        }
+
+        int skipped = node.getRows().size() - inserted;
+        String message = inserted + (inserted == 1 ? " row" : " rows") + " inserted successfully";
+        return skipped > 0 ? message + ", " + skipped + " skipped, primary key already exists"
+            : message;
     }
 
     /**
@@ -401,6 +527,14 @@ public class BPlusTree_MultiRange_ArrayEngine implements IEngine {
      * does not exist.
      */
     public String insert(InsertNode node) {
+        return insertRow(node) ? "1 row inserted successfully"
+            : "0 row inserted, primary key already exists";
+    }
+
+    /**
+     * Inserts the row unless its primary key is taken. Returns whether it was inserted
+     */
+    private boolean insertRow(InsertNode node) {
         String tableName = node.getTableName();
         Integer primaryKey = node.getPrimaryKey().getIntegerValue();
         List<LiteralNode> values = node.getValues().stream().map(LiteralNode.class::cast).toList();
@@ -414,7 +548,7 @@ public class BPlusTree_MultiRange_ArrayEngine implements IEngine {
         }
 
         if (rows.search(primaryKey) != null) {
-            return "0 row inserted, primary key already exists";
+            return false;
         }
 
         invalidateCacheForTable(node.getTableName());
@@ -431,17 +565,19 @@ public class BPlusTree_MultiRange_ArrayEngine implements IEngine {
             rowData[i] = value;
 
             BPlusTreeMultiRange<Number, Integer> tree = indexDatabase.get(indexTableName);
-            tree.insert(convertToNumber(value), primaryKey);
+            if (tree != null) {
+                tree.insert(convertToNumber(value), primaryKey);
+            }
         }
 
         rows.insert(primaryKey, rowData);
-        return "1 row inserted successfully";
+        return true;
     }
 
     private void invalidateCacheForTable(String tableName) {
 
         if (useCaching) {
-            queryCache.entrySet().removeIf(entry -> entry.getKey().tableName.equals(tableName));
+            tableGenerations.advance(tableName);
         }
     }
 
@@ -471,7 +607,9 @@ public class BPlusTree_MultiRange_ArrayEngine implements IEngine {
 
             // Create cache key
             queryKey = new CacheQueryKey(node.getTableName(), node.getWhereClause(),
-                node.getColumns());
+                node.isAggregate() ? Aggregator.describe(node)
+                    : node.getColumns(),
+                tableGenerations.current(node.getTableName()));
 
             // Check cache first
             String cachedResult = queryCache.get(queryKey);
@@ -485,31 +623,52 @@ public class BPlusTree_MultiRange_ArrayEngine implements IEngine {
         }
 
         // If not in cache, execute query
+        String result = node.isAggregate() ? Aggregator.format(query(node))
+            : formatSelectResults(query(node));
+
+        if (useCaching) {
+            queryCache.put(queryKey, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Cursor over the matching rows. Columns are the primary key followed by every table column.
+     * A full scan walks the leaves lazily, filtered rows are located up front by multiKeySearch
+     */
+    public ResultSet query(SelectNode node) {
+        if (node.isAggregate()) {
+            return Aggregator.aggregate(node, query(Aggregator.scanOf(node)));
+        }
+        String tableName = node.getTableName();
         BPlusTree_MultiRange_TableArray table = retrieveTable(database, tableName);
         BPlusTreeMultiRange<Integer, Object[]> rows = table.getRows();
-        List<String> columns = table.getColumns();
 
-        String result;
+        Iterator<Map.Entry<Integer, Object[]>> matches = node.getWhereClause() == null
+            ? rows.entryIterator()
+            : retrieveFilteredRows(filterIndexes(tableName, node.getWhereClause()), rows)
+                .entrySet().iterator();
 
-        // Handle SELECT * Query
-        if (whereClause == null && Objects.equals(node.getColumns().get(0), "*")) {
-            result = formatSelectResults(rows.getAllKeyValues(), columns);
+        List<String> columnNames = new ArrayList<>();
+        columnNames.add("id");
+        columnNames.addAll(table.getColumns());
 
-            if (useCaching) {
-                queryCache.put(queryKey, result);
+        return new IteratorResultSet(columnNames, new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return matches.hasNext();
             }
 
-            return result;
-        }
-
-        // Get primary keys based on whereClause
-        List<Integer> filteredKeys = filterIndexes(tableName, whereClause);
-        // Get rows using filteredKeys
-        Map<Integer, Object[]> fitleredRows = retrieveFilteredRows(filteredKeys, rows);
-
-        // Format results
-        result = formatSelectResults(fitleredRows, columns);
-        return result;
+            @Override
+            public Object[] next() {
+                Map.Entry<Integer, Object[]> entry = matches.next();
+                Object[] row = new Object[columnNames.size()];
+                row[0] = entry.getKey();
+                System.arraycopy(entry.getValue(), 0, row, 1, entry.getValue().length);
+                return row;
+            }
+        });
     }
 
     public String delete(DeleteNode node) {
@@ -553,12 +712,17 @@ public class BPlusTree_MultiRange_ArrayEngine implements IEngine {
     }
 
     private void removeIndexEntry(String indexTableName, Object value, Integer key) {
+        BPlusTreeMultiRange<Number, Integer> indexTree = indexDatabase.get(indexTableName);
+        if (indexTree == null) {
+            return; // Column is not indexed
+        }
+
         if (value instanceof String) {
-            indexDatabase.get(indexTableName).removeValue(((String) value).hashCode(), key);
+            indexTree.removeValue(((String) value).hashCode(), key);
         } else if (value instanceof Integer) {
-            indexDatabase.get(indexTableName).removeValue((Integer) value, key);
+            indexTree.removeValue((Integer) value, key);
         } else if (value instanceof Float) {
-            indexDatabase.get(indexTableName).removeValue((Float) value, key);
+            indexTree.removeValue((Float) value, key);
         } else {
             throw new IllegalStateException(
                 "Unexpected value type for removal: " + value.getClass());
@@ -602,8 +766,10 @@ public class BPlusTree_MultiRange_ArrayEngine implements IEngine {
                 String indexTableName = Constants.getIndexTableName(tableName, columnName);
                 BPlusTreeMultiRange<Number, Integer> indexTree = indexDatabase.get(indexTableName);
 
-                indexTree.removeValue(convertToNumber(oldValue), primaryKey);
-                indexTree.insert(convertToNumber(newValue), primaryKey);
+                if (indexTree != null) {
+                    indexTree.removeValue(convertToNumber(oldValue), primaryKey);
+                    indexTree.insert(convertToNumber(newValue), primaryKey);
+                }
 
                 updatedRowData[columnIndex] = newValue;
             }
@@ -615,21 +781,22 @@ public class BPlusTree_MultiRange_ArrayEngine implements IEngine {
     }
 
     public void recordCacheHit() {
-        cacheHits++;
+        cacheHits.increment();
     }
 
     public void recordCacheMiss() {
-        cacheMisses++;
+        cacheMisses.increment();
     }
 
     public double getCacheHitRate() {
-        long total = cacheHits + cacheMisses;
-        return total == 0 ? 0.0 : (double) cacheHits / total;
+        long hits = cacheHits.sum();
+        long total = hits + cacheMisses.sum();
+        return total == 0 ? 0.0 : (double) hits / total;
     }
 
     public void clearCacheMetrics() {
-        cacheHits = 0;
-        cacheMisses = 0;
+        cacheHits.reset();
+        cacheMisses.reset();
     }
 
     public boolean isCachingEnabled() {
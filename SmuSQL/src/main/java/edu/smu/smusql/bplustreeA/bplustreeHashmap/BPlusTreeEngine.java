@@ -2,8 +2,11 @@ package edu.smu.smusql.bplustreeA.bplustreeHashmap;
 
 import edu.smu.smusql.Constants;
 import edu.smu.smusql.IEngine;
+import edu.smu.smusql.IteratorResultSet;
+import edu.smu.smusql.ResultSet;
 import edu.smu.smusql.bplustreeA.BPlusTree;
-import edu.smu.smusql.bplustreeA.lruCache.LRUCache;
+import edu.smu.smusql.bplustreeA.lruCache.QueryResultCache;
+import edu.smu.smusql.bplustreeA.lruCache.TableGenerations;
 import edu.smu.smusql.bplustreeA.lruCache.CacheQueryKey;
 import edu.smu.smusql.bplustreeA.AstParser.AstParser;
 import edu.smu.smusql.bplustreeA.AstParser.Token;
@@ -12,31 +15,37 @@ import edu.smu.smusql.bplustreeA.AstParser.nodes.ASTNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.AssignmentNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.ColumnNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.ConditionNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.CreateIndexNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.CreateTableNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.DeleteNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.DropIndexNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.ExpressionNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.InsertNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.MultiInsertNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.LiteralNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.SelectNode;
 import edu.smu.smusql.bplustreeA.AstParser.nodes.UpdateNode;
+import edu.smu.smusql.bplustreeA.helper.Aggregator;
+import edu.smu.smusql.bplustreeA.helper.PostingLists;
+import edu.smu.smusql.bplustreeA.planner.ConditionEvaluator;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.LongAdder;
 
 public class BPlusTreeEngine implements IEngine {
 
-    private final LRUCache<CacheQueryKey, String> queryCache; // Only implemented for "SELECT *" statements
+    private final QueryResultCache queryCache;
+    private final TableGenerations tableGenerations = new TableGenerations();
     private final boolean useCaching;
     private Map<String, BPlusTreeTableHashMap> database;
     private Map<String, BPlusTree<Number, Integer>> indexDatabase;
-    private long cacheHits = 0;
-    private long cacheMisses = 0;
+    private Map<String, String> indexNames; // Index name to its key in indexDatabase
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
 
     public BPlusTreeEngine() {
         this(true);
@@ -45,8 +54,9 @@ public class BPlusTreeEngine implements IEngine {
     public BPlusTreeEngine(boolean useCaching) {
         this.database = new HashMap<>();
         indexDatabase = new HashMap<>();
+        indexNames = new HashMap<>();
         this.useCaching = useCaching;
-        this.queryCache = useCaching ? new LRUCache<>(Constants.CACHE_SIZE) : null;
+        this.queryCache = useCaching ? new QueryResultCache() : null;
     }
 
     private static String buildHeaderString(List<String> columns) {
@@ -67,7 +77,7 @@ public class BPlusTreeEngine implements IEngine {
         return database.get(tableName);
     }
 
-    private List<Integer> filterIndexes(String tableName, ConditionNode node) {
+    private int[] filterIndexes(String tableName, ConditionNode node) {
 
         if (node == null) {
             return null;
@@ -76,14 +86,17 @@ public class BPlusTreeEngine implements IEngine {
         return evaluateConditionNode(tableName, node);
     }
 
-    private List<Integer> evaluateConditionNode(String tableName, ConditionNode node) {
+    /**
+     * Matching primary keys as a sorted, duplicate free array
+     */
+    private int[] evaluateConditionNode(String tableName, ConditionNode node) {
 
         if (node.getLeft() instanceof ConditionNode && node.getRight() instanceof ConditionNode) {
 
             // Both left and right are ConditionNodes
-            List<Integer> leftResult = evaluateConditionNode(tableName,
+            int[] leftResult = evaluateConditionNode(tableName,
                     (ConditionNode) node.getLeft());
-            List<Integer> rightResult = evaluateConditionNode(tableName,
+            int[] rightResult = evaluateConditionNode(tableName,
                     (ConditionNode) node.getRight());
             return combineResults(leftResult, rightResult, node.getOperator());
 
@@ -96,7 +109,7 @@ public class BPlusTreeEngine implements IEngine {
         }
     }
 
-    private List<Integer> evaluateSimpleCondition(String tableName, ConditionNode node) {
+    private int[] evaluateSimpleCondition(String tableName, ConditionNode node) {
 
         ExpressionNode left = (ExpressionNode) node.getLeft();
         ExpressionNode right = (ExpressionNode) node.getRight();
@@ -118,19 +131,23 @@ public class BPlusTreeEngine implements IEngine {
 
             // For primary key searches, return a single-element list
             if (operator.equals("=")) {
-                return Collections.singletonList(intValue);
+                return new int[]{intValue};
             }
 
-            // For other operators, get all keys and filter
+            // For other operators, range scan the main tree keys
             BPlusTreeTableHashMap table = retrieveTable(database, tableName);
             BPlusTree<Integer, Map<String, Object>> mainTree = table.getRows();
-            List<Integer> allKeys = mainTree.getAllKeys();
 
-            return filterKeysByOperator(allKeys, intValue, operator);
+            return filterKeysByOperator(mainTree, intValue, operator);
         }
 
         String indexTableName = Constants.getIndexTableName(tableName, columnName);
-        BPlusTree<Number, Integer> indexTree = retrieveTable(indexDatabase, indexTableName);
+        BPlusTree<Number, Integer> indexTree = indexDatabase.get(indexTableName);
+
+        // Strings range lexically, which hash code keys cannot answer
+        if (indexTree == null || !ConditionEvaluator.usesIndexKey(operator, value)) {
+            return scanCondition(tableName, columnName, operator, value);
+        }
 
         // Convert value to appropriate type for comparison
         Number searchValue;
@@ -145,6 +162,29 @@ public class BPlusTreeEngine implements IEngine {
         return evaluateCondition(indexTree, searchValue, operator);
     }
 
+    /**
+     * Matching primary keys of an unindexed column, found by visiting every row
+     */
+    private int[] scanCondition(String tableName, String columnName, String operator,
+            Object value) {
+        BPlusTreeTableHashMap table = retrieveTable(database, tableName);
+        if (!table.getColumns().contains(columnName)) {
+            throw new RuntimeException("ERROR: Column " + columnName + " does not exist");
+        }
+
+        BPlusTree<Integer, Map<String, Object>> mainTree = table.getRows();
+        int[] keys = new int[mainTree.getSize()];
+        int count = 0;
+        Iterator<Map.Entry<Integer, Map<String, Object>>> rows = mainTree.entryIterator();
+        while (rows.hasNext()) {
+            Map.Entry<Integer, Map<String, Object>> row = rows.next();
+            if (ConditionEvaluator.matches(row.getValue().get(columnName), operator, value)) {
+                keys[count++] = row.getKey();
+            }
+        }
+        return Arrays.copyOf(keys, count);
+    }
+
     private Object getValueFromLiteralNode(LiteralNode literalNode) {
         switch (literalNode.getType()) {
             case STRING:
@@ -171,139 +211,78 @@ public class BPlusTreeEngine implements IEngine {
         }
     }
 
-    private List<Integer> filterKeysByOperator(List<Integer> keys, Integer value, String operator) {
-        return keys.stream().filter(key -> {
-            switch (operator) {
-                case "!=":
-                    return !key.equals(value);
-                case "<":
-                    return key < value;
-                case "<=":
-                    return key <= value;
-                case ">":
-                    return key > value;
-                case ">=":
-                    return key >= value;
-                default:
-                    return false;
-            }
-        }).collect(Collectors.toList());
+    private int[] filterKeysByOperator(BPlusTree<Integer, Map<String, Object>> mainTree,
+            Integer value, String operator) {
+        switch (operator) {
+            case "!=":
+                return PostingLists.union(
+                        mainTree.rangeSearchKeys(Integer.MIN_VALUE, true, value, false),
+                        mainTree.rangeSearchKeys(value, false, Integer.MAX_VALUE, true));
+            case "<":
+                return mainTree.rangeSearchKeys(Integer.MIN_VALUE, true, value, false);
+            case "<=":
+                return mainTree.rangeSearchKeys(Integer.MIN_VALUE, true, value, true);
+            case ">":
+                return mainTree.rangeSearchKeys(value, false, Integer.MAX_VALUE, true);
+            case ">=":
+                return mainTree.rangeSearchKeys(value, true, Integer.MAX_VALUE, true);
+            default:
+                return PostingLists.EMPTY;
+        }
     }
 
-    private List<Integer> evaluateCondition(BPlusTree<Number, Integer> indexTree, Number value,
+    private int[] evaluateCondition(BPlusTree<Number, Integer> indexTree, Number value,
             String operator) {
 
         // If the index tree is empty, return an empty list
         if (indexTree.getSize() == 0) {
-            return new ArrayList<>();
+            return PostingLists.EMPTY;
         }
 
         switch (operator) {
             case "=":
-                return indexTree.search(value);
+                return indexTree.rangeSearchPostings(value, true, value, true);
 
             case "!=":
-                // Get all values
-                List<Integer> allValues = indexTree.getAllValues();
-                if (allValues.isEmpty()) {
-                    return allValues;
-                }
-
-                // Remove matching values using a Set
-                Set<Integer> equalValues = new HashSet<>(
-                        indexTree.search(value) != null ? indexTree.search(value)
-                                : Collections.emptyList());
-
-                return allValues.stream().filter(v -> !equalValues.contains(v))
-                        .collect(Collectors.toList());
+                return PostingLists.union(
+                        indexTree.rangeSearchPostings(Double.NEGATIVE_INFINITY, true, value, false),
+                        indexTree.rangeSearchPostings(value, false, Double.POSITIVE_INFINITY, true));
 
             case "<":
-                List<Integer> lessThanResult = indexTree.rangeSearch(Double.NEGATIVE_INFINITY,
-                        value.doubleValue());
-                if (lessThanResult == null || lessThanResult.isEmpty()) {
-                    return new ArrayList<>();
-                }
-
-                // Remove boundary values using Set
-                Set<Integer> boundaryValues = new HashSet<>(
-                        indexTree.search(value) != null ? indexTree.search(value)
-                                : Collections.emptyList());
-                return lessThanResult.stream().filter(v -> !boundaryValues.contains(v))
-                        .collect(Collectors.toList());
+                return indexTree.rangeSearchPostings(Double.NEGATIVE_INFINITY, true, value, false);
 
             case "<=":
-                return indexTree.rangeSearch(Double.NEGATIVE_INFINITY, value.doubleValue());
+                return indexTree.rangeSearchPostings(Double.NEGATIVE_INFINITY, true, value, true);
 
             case ">":
-                List<Integer> greaterThanResult = indexTree.rangeSearch(value.doubleValue(),
-                        Double.POSITIVE_INFINITY);
-                if (greaterThanResult == null || greaterThanResult.isEmpty()) {
-                    return new ArrayList<>();
-                }
-
-                // Remove boundary values using Set
-                Set<Integer> upperBoundaryValues = new HashSet<>(
-                        indexTree.search(value) != null ? indexTree.search(value)
-                                : Collections.emptyList());
-                return greaterThanResult.stream().filter(v -> !upperBoundaryValues.contains(v))
-                        .collect(Collectors.toList());
+                return indexTree.rangeSearchPostings(value, false, Double.POSITIVE_INFINITY, true);
 
             case ">=":
-                return indexTree.rangeSearch(value.doubleValue(), Double.POSITIVE_INFINITY);
+                return indexTree.rangeSearchPostings(value, true, Double.POSITIVE_INFINITY, true);
 
             default:
                 throw new IllegalArgumentException("Unsupported operator: " + operator);
         }
     }
 
-    private List<Integer> combineResults(List<Integer> leftResult, List<Integer> rightResult,
-            String operator) {
-
-        if (leftResult == null || leftResult.isEmpty()) {
-            return rightResult != null ? new ArrayList<>(rightResult) : new ArrayList<>();
-        }
-        if (rightResult == null || rightResult.isEmpty()) {
-            return new ArrayList<>(leftResult);
-        }
+    private int[] combineResults(int[] leftResult, int[] rightResult, String operator) {
 
+        // Both sides are sorted, so the set operations are merges rather than hash lookups
         if (operator.equals("AND")) {
-            // Use HashSet for better performance with large datasets
-            if (leftResult.size() > rightResult.size()) {
-                // Swap to ensure we use the smaller list for the HashSet
-                List<Integer> temp = leftResult;
-                leftResult = rightResult;
-                rightResult = temp;
-            }
-
-            // Create HashSet from the smaller list
-            Set<Integer> rightSet = new HashSet<>(rightResult);
-            List<Integer> result = new ArrayList<>();
-
-            // Iterate through the smaller list
-            for (Integer value : leftResult) {
-                if (rightSet.contains(value)) {
-                    result.add(value);
-                }
-            }
-            return result;
+            return PostingLists.intersect(leftResult, rightResult);
         } else if (operator.equals("OR")) {
-            // For OR operations, use HashSet for deduplication
-            Set<Integer> uniqueResults = new HashSet<>(leftResult);
-            uniqueResults.addAll(rightResult);
-            List<Integer> result = new ArrayList<>(uniqueResults);
-            Collections.sort(result); // Maintain sorted order
-            return result;
+            return PostingLists.union(leftResult, rightResult);
         } else {
             throw new RuntimeException("Unsupported logical operator: " + operator);
         }
     }
 
-    private String formatSelectResults(Map<Integer, Map<String, Object>> rows,
-            List<String> columns) {
+    private String formatSelectResults(ResultSet resultSet) {
 
-        String header = buildHeaderString(columns);
+        String header = buildHeaderString(
+                resultSet.getColumnNames().subList(1, resultSet.getColumnCount()));
 
-        if (rows == null || rows.isEmpty()) {
+        if (!resultSet.next()) {
             return header;
         }
 
@@ -312,36 +291,30 @@ public class BPlusTreeEngine implements IEngine {
         // Header (column names)
         sb.append(header);
 
-        // Rows data
-        for (Map.Entry<Integer, Map<String, Object>> entry : rows.entrySet()) {
-
-            Integer id = entry.getKey();
-            Map<String, Object> row = entry.getValue();
-
-            if (row == null) {
-                continue; // Skip null rows
-            }
-
-            sb.append(id).append("\t");
-
-            for (String column : columns) {
-                Object value = row.get(column);
+        // Rows data, the primary key first
+        do {
+            for (int i = 1; i <= resultSet.getColumnCount(); i++) {
+                Object value = resultSet.getObject(i);
                 sb.append(value != null ? value.toString() : "NULL").append('\t');
             }
             sb.append('\n');
-        }
+        } while (resultSet.next());
 
-        return sb.toString().trim(); // Return the formatted string
+        return sb.toString().trim();
     }
 
     public String executeSQL(String query) {
 
-        List<Token> tokens = Tokenizer.tokenize(query);
-        AstParser parser = new AstParser(tokens);
-        ASTNode statement = parser.parse();
+        ASTNode statement = parse(query);
 
         if (statement instanceof InsertNode) {
             return insert((InsertNode) statement);
+        } else if (statement instanceof MultiInsertNode) {
+            return insertRows((MultiInsertNode) statement);
+        } else if (statement instanceof CreateIndexNode) {
+            return createIndex((CreateIndexNode) statement);
+        } else if (statement instanceof DropIndexNode) {
+            return dropIndex((DropIndexNode) statement);
         } else if (statement instanceof DeleteNode) {
             return delete((DeleteNode) statement);
         } else if (statement instanceof SelectNode) {
@@ -355,6 +328,22 @@ public class BPlusTreeEngine implements IEngine {
         }
     }
 
+    public ResultSet executeQuery(String query) {
+
+        ASTNode statement = parse(query);
+
+        if (!(statement instanceof SelectNode)) {
+            throw new RuntimeException("ERROR: executeQuery only runs SELECT statements");
+        }
+        return query((SelectNode) statement);
+    }
+
+    private static ASTNode parse(String query) {
+        List<Token> tokens = Tokenizer.tokenize(query);
+        AstParser parser = new AstParser(tokens);
+        return parser.parse();
+    }
+
     /**
      * Clears all data from the database and index database. Used primarily for
      * testing purposes.
@@ -363,6 +352,11 @@ public class BPlusTreeEngine implements IEngine {
         // Clear both main database and index database
         database.clear();
         indexDatabase.clear();
+        indexNames.clear();
+        tableGenerations.clear();
+        if (useCaching) {
+            queryCache.clear();
+        }
     }
 
     public String create(CreateTableNode node) {
@@ -375,24 +369,94 @@ public class BPlusTreeEngine implements IEngine {
             throw new RuntimeException("Table " + tableName + " already exist");
         }
 
+        // Tables start without column indexes, see createIndex
         BPlusTreeTableHashMap table = new BPlusTreeTableHashMap(columns);
         database.put(tableName, table);
 
-        /**
-         * Create Indexing Trees with column fields as Key and PrimaryKey as Value
-         */
-        for (String col : columns) {
-            BPlusTree<Number, Integer> indexTree = new BPlusTree<>(Constants.B_PLUS_TREE_ORDER);
-            String indexTableName = Constants.getIndexTableName(tableName, col);
-            indexDatabase.put(indexTableName, indexTree);
+        return "Table " + tableName + " created successfully";
+    }
 
-            if (Constants.LOGGING) {
-                System.out.println("Indexing Table " + indexTableName + " created successfully");
+    /**
+     * Builds an index tree with the column's values as keys and primary keys as values from the
+     * rows already in the table. An unnamed index is named after its tree, idx_table_column
+     */
+    public String createIndex(CreateIndexNode node) {
+        String tableName = node.getTableName();
+        String column = node.getColumn();
+        BPlusTreeTableHashMap table = retrieveTable(database, tableName);
+
+        if (column.equals("id")) {
+            throw new RuntimeException("ERROR: Column id is the primary key and always indexed");
+        }
+        if (!table.getColumns().contains(column)) {
+            throw new RuntimeException("ERROR: Column " + column + " does not exist");
+        }
+
+        String indexTableName = Constants.getIndexTableName(tableName, column);
+        String indexName = node.getIndexName() != null ? node.getIndexName() : indexTableName;
+        if (indexDatabase.containsKey(indexTableName)) {
+            throw new RuntimeException("ERROR: Column " + column + " is already indexed");
+        }
+        if (indexNames.containsKey(indexName)) {
+            throw new RuntimeException("ERROR: Index " + indexName + " already exists");
+        }
+
+        BPlusTree<Number, Integer> indexTree = new BPlusTree<>(Constants.B_PLUS_TREE_ORDER);
+        Iterator<Map.Entry<Integer, Map<String, Object>>> rows = table.getRows().entryIterator();
+        while (rows.hasNext()) {
+            Map.Entry<Integer, Map<String, Object>> row = rows.next();
+            indexTree.insert(convertToNumber(row.getValue().get(column)), row.getKey());
+        }
+        indexDatabase.put(indexTableName, indexTree);
+        indexNames.put(indexName, indexTableName);
+
+        if (Constants.LOGGING) {
+            System.out.println("Indexing Table " + indexTableName + " created successfully");
+        }
+
+        return "Index " + indexName + " created successfully";
+    }
+
+    public String dropIndex(DropIndexNode node) {
+        String indexName = node.getIndexName();
+        String indexTableName;
+
+        if (indexName != null) {
+            indexTableName = indexNames.get(indexName);
+        } else {
+            retrieveTable(database, node.getTableName());
+            indexTableName = Constants.getIndexTableName(node.getTableName(), node.getColumn());
+            indexName = indexTableName;
+            for (Map.Entry<String, String> entry : indexNames.entrySet()) {
+                if (entry.getValue().equals(indexTableName)) {
+                    indexName = entry.getKey();
+                }
             }
+        }
 
+        if (indexTableName == null || indexDatabase.remove(indexTableName) == null) {
+            throw new RuntimeException("ERROR: Index " + indexName + " does not exist");
         }
+        indexNames.remove(indexName);
 
-        return "Table " + tableName + " created successfully";
+        return "Index " + indexName + " dropped successfully";
+    }
+
+    /**
+     * Inserts each tuple of a multi row INSERT in turn
+     */
+    private String insertRows(MultiInsertNode node) {
+        int inserted = 0;
+        for (InsertNode row : node.getRows()) {
+            if (insertRow(row)) {
+                inserted++;
+            }
+        }
+
+        int skipped = node.getRows().size() - inserted;
+        String message = inserted + (inserted == 1 ? " row" : " rows") + " inserted successfully";
+        return skipped > 0 ? message + ", " + skipped + " skipped, primary key already exists"
+            : message;
     }
 
     /**
@@ -407,6 +471,14 @@ public class BPlusTreeEngine implements IEngine {
      *         does not exist.
      */
     public String insert(InsertNode node) {
+        return insertRow(node) ? "1 row inserted successfully"
+            : "0 row inserted, primary key already exists";
+    }
+
+    /**
+     * Inserts the row unless its primary key is taken. Returns whether it was inserted
+     */
+    private boolean insertRow(InsertNode node) {
 
         // Retrieve Query Information
         String tableName = node.getTableName();
@@ -424,7 +496,7 @@ public class BPlusTreeEngine implements IEngine {
 
         // Search database for existing primary key
         if (rows.search(primaryKey) != null) {
-            return "0 row inserted, primary key already exists";
+            return false;
         }
 
         invalidateCacheForTable(node.getTableName());
@@ -440,33 +512,32 @@ public class BPlusTreeEngine implements IEngine {
             Object value = getValueFromLiteralNode(literalNode);
             rowData.put(column, value);
             BPlusTree<Number, Integer> tree = indexDatabase.get(indexTableName);
-            tree.insert(convertToNumber(value), primaryKey);
+            if (tree != null) {
+                tree.insert(convertToNumber(value), primaryKey);
+            }
         }
 
         // Get the table
         rows.insert(primaryKey, rowData);
 
-        return "1 row inserted successfully";
+        return true;
     }
 
     private void invalidateCacheForTable(String tableName) {
 
         if (useCaching) {
-            queryCache.entrySet().removeIf(entry -> entry.getKey().tableName.equals(tableName));
+            tableGenerations.advance(tableName);
         }
     }
 
-    private Map<Integer, Map<String, Object>> retrieveFilteredRows(List<Integer> filteredKeys,
+    private Map<Integer, Map<String, Object>> retrieveFilteredRows(int[] filteredKeys,
             BPlusTree<Integer, Map<String, Object>> rows) {
 
-        if (filteredKeys == null || filteredKeys.isEmpty()) {
+        if (filteredKeys == null || filteredKeys.length == 0) {
             return new HashMap<>();
         }
 
-        // Pre-sort filtered keys if not already sorted
-        Collections.sort(filteredKeys);
-
-        // Use the optimized multi-key search
+        // Keys are already sorted, use the optimized multi-key search
         return rows.multiKeySearch(filteredKeys);
     }
 
@@ -482,7 +553,9 @@ public class BPlusTreeEngine implements IEngine {
 
             // Create cache key
             queryKey = new CacheQueryKey(node.getTableName(), node.getWhereClause(),
-                    node.getColumns());
+                    node.isAggregate() ? Aggregator.describe(node)
+                        : node.getColumns(),
+                    tableGenerations.current(node.getTableName()));
 
             // Check cache first
             String cachedResult = queryCache.get(queryKey);
@@ -496,31 +569,55 @@ public class BPlusTreeEngine implements IEngine {
         }
 
         // If not in cache, execute query
-        BPlusTreeTableHashMap table = retrieveTable(database, tableName);
+        String result = node.isAggregate() ? Aggregator.format(query(node))
+            : formatSelectResults(query(node));
+
+        if (useCaching) {
+            queryCache.put(queryKey, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Cursor over the matching rows, fetched from the main tree as it advances. Columns are the
+     * primary key followed by every table column
+     */
+    public ResultSet query(SelectNode node) {
+        if (node.isAggregate()) {
+            return Aggregator.aggregate(node, query(Aggregator.scanOf(node)));
+        }
+
+        BPlusTreeTableHashMap table = retrieveTable(database, node.getTableName());
         BPlusTree<Integer, Map<String, Object>> rows = table.getRows();
         List<String> columns = table.getColumns();
 
-        String result;
+        Iterator<Map.Entry<Integer, Map<String, Object>>> matches =
+                node.getWhereClause() == null ? rows.entryIterator()
+                        : rows.multiKeyIterator(filterIndexes(node.getTableName(),
+                                node.getWhereClause()));
 
-        // Handle SELECT * Query
-        if (whereClause == null && Objects.equals(node.getColumns().get(0), "*")) {
-            result = formatSelectResults(rows.getAllKeyValues(), columns);
+        List<String> columnNames = new ArrayList<>();
+        columnNames.add("id");
+        columnNames.addAll(columns);
 
-            if (useCaching) {
-                queryCache.put(queryKey, result);
+        return new IteratorResultSet(columnNames, new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return matches.hasNext();
             }
 
-            return result;
-        }
-
-        // Get primary keys based on whereClause
-        List<Integer> filteredKeys = filterIndexes(tableName, whereClause);
-        // Get rows using filteredKeys
-        Map<Integer, Map<String, Object>> fitleredRows = retrieveFilteredRows(filteredKeys, rows);
-
-        // Format results
-        result = formatSelectResults(fitleredRows, columns);
-        return result;
+            @Override
+            public Object[] next() {
+                Map.Entry<Integer, Map<String, Object>> entry = matches.next();
+                Object[] row = new Object[columns.size() + 1];
+                row[0] = entry.getKey();
+                for (int i = 0; i < columns.size(); i++) {
+                    row[i + 1] = entry.getValue().get(columns.get(i));
+                }
+                return row;
+            }
+        });
     }
 
     public String delete(DeleteNode node) {
@@ -538,7 +635,7 @@ public class BPlusTreeEngine implements IEngine {
         }
 
         // Get primary keys based on whereClause
-        List<Integer> filteredKeys = filterIndexes(tableName, whereClause);
+        int[] filteredKeys = filterIndexes(tableName, whereClause);
         // Get rows using filteredKeys
         Map<Integer, Map<String, Object>> fitleredRows = retrieveFilteredRows(filteredKeys, rows);
 
@@ -568,20 +665,25 @@ public class BPlusTreeEngine implements IEngine {
             }
         }
 
-        for (Integer key : filteredKeys) {
+        for (int key : filteredKeys) {
             rows.removeKey(key);
         }
 
-        return filteredKeys.size() + " row(s) deleted successfully";
+        return filteredKeys.length + " row(s) deleted successfully";
     }
 
     private void removeIndexEntry(String indexTableName, Object value, Integer key) {
+        BPlusTree<Number, Integer> indexTree = indexDatabase.get(indexTableName);
+        if (indexTree == null) {
+            return; // Column is not indexed
+        }
+
         if (value instanceof String) {
-            indexDatabase.get(indexTableName).removeValue(((String) value).hashCode(), key);
+            indexTree.removeValue(((String) value).hashCode(), key);
         } else if (value instanceof Integer) {
-            indexDatabase.get(indexTableName).removeValue((Integer) value, key);
+            indexTree.removeValue((Integer) value, key);
         } else if (value instanceof Float) {
-            indexDatabase.get(indexTableName).removeValue((Float) value, key);
+            indexTree.removeValue((Float) value, key);
         } else {
             throw new IllegalStateException(
                     "Unexpected value type for removal: " + value.getClass());
@@ -604,7 +706,7 @@ public class BPlusTreeEngine implements IEngine {
         }
 
         // Get primary keys based on whereClause
-        List<Integer> filteredKeys = filterIndexes(tableName, whereClause);
+        int[] filteredKeys = filterIndexes(tableName, whereClause);
         // Get rows using filteredKeys
         Map<Integer, Map<String, Object>> filteredRows = retrieveFilteredRows(filteredKeys, rows);
 
@@ -634,11 +736,13 @@ public class BPlusTreeEngine implements IEngine {
                 String indexTableName = Constants.getIndexTableName(tableName, columnName);
                 BPlusTree<Number, Integer> indexTree = indexDatabase.get(indexTableName);
 
-                // Remove old index entry
-                indexTree.removeValue(convertToNumber(oldValue), primaryKey);
+                if (indexTree != null) {
+                    // Remove old index entry
+                    indexTree.removeValue(convertToNumber(oldValue), primaryKey);
 
-                // Insert new index entry
-                indexTree.insert(convertToNumber(newValue), primaryKey);
+                    // Insert new index entry
+                    indexTree.insert(convertToNumber(newValue), primaryKey);
+                }
 
                 // Update the row data
                 updatedRowData.put(columnName, newValue);
@@ -648,25 +752,26 @@ public class BPlusTreeEngine implements IEngine {
             rows.update(primaryKey, updatedRowData);
         }
 
-        return filteredKeys.size() + " row(s) updated successfully";
+        return filteredKeys.length + " row(s) updated successfully";
     }
 
     public void recordCacheHit() {
-        cacheHits++;
+        cacheHits.increment();
     }
 
     public void recordCacheMiss() {
-        cacheMisses++;
+        cacheMisses.increment();
     }
 
     public double getCacheHitRate() {
-        long total = cacheHits + cacheMisses;
-        return total == 0 ? 0.0 : (double) cacheHits / total;
+        long hits = cacheHits.sum();
+        long total = hits + cacheMisses.sum();
+        return total == 0 ? 0.0 : (double) hits / total;
     }
 
     public void clearCacheMetrics() {
-        cacheHits = 0;
-        cacheMisses = 0;
+        cacheHits.reset();
+        cacheMisses.reset();
     }
 
     public boolean isCachingEnabled() {
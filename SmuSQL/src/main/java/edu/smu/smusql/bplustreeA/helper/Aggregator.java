@@ -0,0 +1,241 @@
+package edu.smu.smusql.bplustreeA.helper;
+
+import edu.smu.smusql.IteratorResultSet;
+import edu.smu.smusql.ResultSet;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.AggregateNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.SelectNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Running state of one aggregate in a SELECT list. Values are fed one at a time, so an aggregate
+ * over any number of rows is a single pass in constant memory. MIN and MAX order numbers by value
+ * and strings lexically, numbers first. NULLs are skipped, and every aggregate but COUNT of no
+ * values is NULL.
+ */
+public class Aggregator {
+
+    private final AggregateNode aggregate;
+    private long count;
+    private long intSum;
+    private double floatSum;
+    private boolean floating; // A float was summed, so the sum is a float too
+    private Object extreme; // Smallest or largest value so far
+
+    public Aggregator(AggregateNode aggregate) {
+        this.aggregate = aggregate;
+    }
+
+    public AggregateNode getAggregate() {
+        return aggregate;
+    }
+
+    public void add(Object value) {
+        if (value == null) {
+            return;
+        }
+        count++;
+
+        switch (aggregate.getFunction()) {
+            case "SUM":
+            case "AVG":
+                if (value instanceof Integer) {
+                    intSum += (Integer) value;
+                } else if (value instanceof Float) {
+                    floatSum += (Float) value;
+                    floating = true;
+                } else {
+                    throw new RuntimeException("ERROR: " + aggregate + " needs a numeric column");
+                }
+                break;
+            case "MIN":
+            case "MAX":
+                if (extreme == null) {
+                    extreme = value;
+                    break;
+                }
+                int order = compareValues(value, extreme);
+                if (aggregate.getFunction().equals("MIN") ? order < 0 : order > 0) {
+                    extreme = value;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Orders two non-NULL values: numbers by value, strings lexically, and numbers before strings
+     */
+    public static int compareValues(Object a, Object b) {
+        boolean aNumber = a instanceof Number;
+        boolean bNumber = b instanceof Number;
+        if (aNumber && bNumber) {
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        }
+        if (aNumber != bNumber) {
+            return aNumber ? -1 : 1;
+        }
+        return a.toString().compareTo(b.toString());
+    }
+
+    /**
+     * Counts rows without looking at them, for a COUNT answered from key lists
+     */
+    public void addCount(long rows) {
+        count += rows;
+    }
+
+    /**
+     * Folds in the state of the same aggregate over other rows
+     */
+    public void merge(Aggregator other) {
+        count += other.count;
+        intSum += other.intSum;
+        floatSum += other.floatSum;
+        floating |= other.floating;
+        if (other.extreme != null) {
+            add(other.extreme);
+            count--;
+        }
+    }
+
+    public Object result() {
+        switch (aggregate.getFunction()) {
+            case "COUNT":
+                return count;
+            case "SUM":
+                if (count == 0) {
+                    return null;
+                }
+                return floating ? (Object) (intSum + floatSum) : (Object) intSum;
+            case "AVG":
+                return count == 0 ? null : (intSum + floatSum) / count;
+            default:
+                return extreme;
+        }
+    }
+
+    public static List<Aggregator> of(List<AggregateNode> aggregates) {
+        List<Aggregator> aggregators = new ArrayList<>(aggregates.size());
+        for (AggregateNode aggregate : aggregates) {
+            aggregators.add(new Aggregator(aggregate));
+        }
+        return aggregators;
+    }
+
+    /**
+     * Result column names, e.g. COUNT(*) and MAX(price)
+     */
+    public static List<String> labels(List<AggregateNode> aggregates) {
+        List<String> labels = new ArrayList<>(aggregates.size());
+        for (AggregateNode aggregate : aggregates) {
+            labels.add(aggregate.toString());
+        }
+        return labels;
+    }
+
+    /**
+     * Result column names: the group column if it was selected, then the aggregates
+     */
+    public static List<String> resultColumns(SelectNode node) {
+        List<String> columns = new ArrayList<>();
+        if (node.getGroupBy() != null && !node.getColumns().isEmpty()) {
+            columns.add(node.getGroupBy());
+        }
+        columns.addAll(labels(node.getAggregates()));
+        return columns;
+    }
+
+    /**
+     * The result columns and the GROUP BY clause. Labels hold parentheses and the clause a space,
+     * so as a query cache key's column list this never collides with a plain select's
+     */
+    public static List<String> describe(SelectNode node) {
+        List<String> description = resultColumns(node);
+        if (node.getGroupBy() != null) {
+            description.add("GROUP BY " + node.getGroupBy());
+        }
+        return description;
+    }
+
+    /**
+     * The single row of results, one column per aggregate
+     */
+    public static ResultSet toResultSet(List<Aggregator> aggregators) {
+        List<AggregateNode> aggregates = new ArrayList<>(aggregators.size());
+        Object[] row = new Object[aggregators.size()];
+        for (int i = 0; i < row.length; i++) {
+            aggregates.add(aggregators.get(i).getAggregate());
+            row[i] = aggregators.get(i).result();
+        }
+        return new IteratorResultSet(labels(aggregates),
+            Collections.singletonList(row).iterator());
+    }
+
+    /**
+     * The select without its aggregates, naming the columns they and the GROUP BY read. Engines
+     * run it and pass the rows to {@link #aggregate}
+     */
+    public static SelectNode scanOf(SelectNode node) {
+        List<String> columns = new ArrayList<>();
+        if (node.getGroupBy() != null) {
+            columns.add(node.getGroupBy());
+        }
+        for (AggregateNode aggregate : node.getAggregates()) {
+            if (!aggregate.isCountAll() && !columns.contains(aggregate.getColumn())) {
+                columns.add(aggregate.getColumn());
+            }
+        }
+        if (columns.isEmpty()) {
+            columns.add("id");
+        }
+        return new SelectNode(columns, node.getTableName(), node.getWhereClause());
+    }
+
+    /**
+     * Aggregates the rows in one pass, by group if the select has a GROUP BY. The primary key is
+     * the first column and never NULL, so it stands in for COUNT(*)
+     */
+    public static ResultSet aggregate(SelectNode node, ResultSet rows) {
+        if (node.getGroupBy() != null) {
+            return GroupAggregator.aggregate(node, rows);
+        }
+
+        List<AggregateNode> aggregates = node.getAggregates();
+        List<Aggregator> aggregators = of(aggregates);
+        int[] columns = new int[aggregates.size()];
+        for (int i = 0; i < columns.length; i++) {
+            AggregateNode aggregate = aggregates.get(i);
+            columns[i] = aggregate.isCountAll() ? 1 : rows.findColumn(aggregate.getColumn());
+        }
+
+        while (rows.next()) {
+            for (int i = 0; i < columns.length; i++) {
+                aggregators.get(i).add(rows.getObject(columns[i]));
+            }
+        }
+        return toResultSet(aggregators);
+    }
+
+    /**
+     * Formats aggregate results like other selects: a header of the column names, then a line
+     * per row
+     */
+    public static String format(ResultSet resultSet) {
+        StringBuilder sb = new StringBuilder(String.join("\t", resultSet.getColumnNames()))
+            .append('\n');
+        if (!resultSet.next()) {
+            return sb.toString();
+        }
+        do {
+            for (int i = 1; i <= resultSet.getColumnCount(); i++) {
+                Object value = resultSet.getObject(i);
+                sb.append(value != null ? value.toString() : "NULL").append('\t');
+            }
+            sb.append('\n');
+        } while (resultSet.next());
+        return sb.toString().trim();
+    }
+}
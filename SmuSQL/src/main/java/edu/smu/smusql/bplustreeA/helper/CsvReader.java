@@ -0,0 +1,262 @@
+package edu.smu.smusql.bplustreeA.helper;
+
+import edu.smu.smusql.Constants;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads rows for COPY FROM. The file is read through a FileChannel in large chunks cut at line
+ * boundaries, and each chunk is parsed on a worker thread while the next one is being read.
+ *
+ * Each line is the primary key followed by one field per column. Fields are typed the way INSERT
+ * literals are: quoted fields (single or double quotes) are strings, unquoted ones are integers,
+ * floats or otherwise strings. A first line whose first field is not an integer is a header and
+ * is skipped.
+ */
+public class CsvReader {
+
+    /**
+     * Parsed rows in file order
+     */
+    public static class Rows {
+        public final int[] keys;
+        public final Object[][] values;
+
+        Rows(int[] keys, Object[][] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        public int size() {
+            return keys.length;
+        }
+    }
+
+    public static Rows read(Path path, int columnCount) throws IOException {
+        ExecutorService parsers = Executors.newFixedThreadPool(Constants.COPY_PARSER_THREADS);
+        List<Future<Rows>> chunks = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Constants.COPY_CHUNK_SIZE);
+            boolean first = true;
+
+            while (true) {
+                boolean eof = channel.read(buffer) < 0;
+                if (!eof && buffer.hasRemaining()) {
+                    continue; // Fill the chunk before cutting it
+                }
+
+                buffer.flip();
+                int end = eof ? buffer.limit() : lastLineEnd(buffer);
+                if (end < 0) {
+                    // A single line longer than the buffer, grow it and keep reading
+                    ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+                    grown.put(buffer);
+                    buffer = grown;
+                    continue;
+                }
+
+                byte[] chunk = new byte[end];
+                buffer.get(chunk);
+                boolean skipHeader = first;
+                chunks.add(parsers.submit(() -> parseChunk(chunk, columnCount, skipHeader)));
+                first = false;
+
+                buffer.compact();
+                if (eof) {
+                    break;
+                }
+            }
+
+            return concat(chunks);
+        } finally {
+            parsers.shutdownNow();
+        }
+    }
+
+    // Length up to and including the last newline, or -1 if there is none
+    private static int lastLineEnd(ByteBuffer buffer) {
+        for (int i = buffer.limit() - 1; i >= buffer.position(); i--) {
+            if (buffer.get(i) == '\n') {
+                return i + 1 - buffer.position();
+            }
+        }
+        return -1;
+    }
+
+    private static Rows concat(List<Future<Rows>> chunks) throws IOException {
+        List<Rows> parsed = new ArrayList<>(chunks.size());
+        int total = 0;
+        for (Future<Rows> chunk : chunks) {
+            try {
+                Rows rows = chunk.get();
+                parsed.add(rows);
+                total += rows.size();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while parsing", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+
+        if (parsed.size() == 1) {
+            return parsed.get(0);
+        }
+
+        int[] keys = new int[total];
+        Object[][] values = new Object[total][];
+        int offset = 0;
+        for (Rows rows : parsed) {
+            System.arraycopy(rows.keys, 0, keys, offset, rows.size());
+            System.arraycopy(rows.values, 0, values, offset, rows.size());
+            offset += rows.size();
+        }
+        return new Rows(keys, values);
+    }
+
+    static Rows parseChunk(byte[] chunk, int columnCount, boolean skipHeader) {
+        String text = new String(chunk, StandardCharsets.UTF_8);
+        List<Object[]> lines = new ArrayList<>();
+        Object[] fields = new Object[columnCount + 1];
+        int position = 0;
+
+        while (position < text.length()) {
+            int lineEnd = text.indexOf('\n', position);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+            int contentEnd = lineEnd > position && text.charAt(lineEnd - 1) == '\r'
+                ? lineEnd - 1 : lineEnd;
+
+            if (!isBlank(text, position, contentEnd)) {
+                int count = parseLine(text, position, contentEnd, fields);
+
+                if (skipHeader && !(fields[0] instanceof Integer)) {
+                    // Header line, not data
+                } else if (count != columnCount + 1) {
+                    throw new RuntimeException("ERROR: Column count does not match value count: "
+                        + text.substring(position, contentEnd));
+                } else if (!(fields[0] instanceof Integer)) {
+                    throw new RuntimeException("ERROR: Primary key must be an integer: "
+                        + text.substring(position, contentEnd));
+                } else {
+                    lines.add(fields.clone());
+                }
+                skipHeader = false;
+            }
+            position = lineEnd + 1;
+        }
+
+        int[] keys = new int[lines.size()];
+        Object[][] values = new Object[lines.size()][];
+        for (int i = 0; i < lines.size(); i++) {
+            Object[] line = lines.get(i);
+            keys[i] = (Integer) line[0];
+            Object[] row = new Object[columnCount];
+            System.arraycopy(line, 1, row, 0, columnCount);
+            values[i] = row;
+        }
+        return new Rows(keys, values);
+    }
+
+    private static boolean isBlank(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits text[start, end) on commas into fields, returning the number of fields found. Only
+     * the first fields.length fields are stored
+     */
+    private static int parseLine(String text, int start, int end, Object[] fields) {
+        int count = 0;
+        int i = start;
+
+        while (true) {
+            while (i < end && text.charAt(i) == ' ') {
+                i++;
+            }
+
+            Object value;
+            if (i < end && (text.charAt(i) == '"' || text.charAt(i) == '\'')) {
+                char quote = text.charAt(i++);
+                StringBuilder sb = new StringBuilder();
+                while (i < end) {
+                    char c = text.charAt(i++);
+                    if (c != quote) {
+                        sb.append(c);
+                    } else if (i < end && text.charAt(i) == quote) {
+                        sb.append(quote); // Doubled quote
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                value = sb.toString();
+                while (i < end && text.charAt(i) != ',') {
+                    i++;
+                }
+            } else {
+                int fieldStart = i;
+                while (i < end && text.charAt(i) != ',') {
+                    i++;
+                }
+                value = typed(text.substring(fieldStart, i).trim());
+            }
+
+            if (count < fields.length) {
+                fields[count] = value;
+            }
+            count++;
+
+            if (i >= end) {
+                return count;
+            }
+            i++; // Skip the comma
+        }
+    }
+
+    // Same typing as the tokenizer gives unquoted literals: -?\d+ is an integer, -?\d*\.\d+ a float
+    private static Object typed(String field) {
+        int i = field.startsWith("-") ? 1 : 0;
+        int digits = 0;
+        int dot = -1;
+        for (int j = i; j < field.length(); j++) {
+            char c = field.charAt(j);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (c == '.' && dot < 0) {
+                dot = j;
+            } else {
+                return field;
+            }
+        }
+
+        if (digits == 0 || dot == field.length() - 1) {
+            return field;
+        }
+        try {
+            return dot < 0 ? (Object) Integer.parseInt(field) : (Object) Float.parseFloat(field);
+        } catch (NumberFormatException e) {
+            return field; // Out of int range
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package edu.smu.smusql.bplustreeA.helper;
+
+import edu.smu.smusql.IteratorResultSet;
+import edu.smu.smusql.ResultSet;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.AggregateNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.SelectNode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates of a GROUP BY select, one set of {@link Aggregator}s per distinct value of the group
+ * column. Numbers are grouped by value, so 5 and 5.0 share a group as they share an index key.
+ * Partial results built over disjoint rows merge into the full result, and groups come out in the
+ * order MIN and MAX compare their values.
+ */
+public class GroupAggregator {
+
+    // NULL first, then the order MIN and MAX use
+    private static final Comparator<Object> GROUP_ORDER = Comparator.nullsFirst(
+        Aggregator::compareValues);
+
+    private final SelectNode node;
+    private final Map<Object, Group> groups = new HashMap<>();
+
+    private static final class Group {
+        final Object value; // First value seen, shown in the result
+        final List<Aggregator> aggregators;
+
+        Group(Object value, List<Aggregator> aggregators) {
+            this.value = value;
+            this.aggregators = aggregators;
+        }
+    }
+
+    public GroupAggregator(SelectNode node) {
+        this.node = node;
+    }
+
+    /**
+     * Aggregators of the value's group, in select order. The group is created on first sight
+     */
+    public List<Aggregator> groupOf(Object value) {
+        Group group = groups.get(groupKey(value));
+        if (group == null) {
+            group = new Group(value, Aggregator.of(node.getAggregates()));
+            groups.put(groupKey(value), group);
+        }
+        return group.aggregators;
+    }
+
+    private static Object groupKey(Object value) {
+        return value instanceof Number ? (Object) ((Number) value).doubleValue() : value;
+    }
+
+    /**
+     * Folds in groups aggregated over other rows
+     */
+    public void merge(GroupAggregator other) {
+        for (Map.Entry<Object, Group> entry : other.groups.entrySet()) {
+            Group group = groups.putIfAbsent(entry.getKey(), entry.getValue());
+            if (group != null) {
+                for (int i = 0; i < group.aggregators.size(); i++) {
+                    group.aggregators.get(i).merge(entry.getValue().aggregators.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * A row per group: the group value if it was selected, then the aggregates
+     */
+    public ResultSet toResultSet() {
+        List<Group> sorted = new ArrayList<>(groups.values());
+        sorted.sort(Comparator.comparing(group -> group.value, GROUP_ORDER));
+
+        boolean withValue = !node.getColumns().isEmpty();
+        List<Object[]> rows = new ArrayList<>(sorted.size());
+        for (Group group : sorted) {
+            Object[] row = new Object[group.aggregators.size() + (withValue ? 1 : 0)];
+            int n = 0;
+            if (withValue) {
+                row[n++] = group.value;
+            }
+            for (Aggregator aggregator : group.aggregators) {
+                row[n++] = aggregator.result();
+            }
+            rows.add(row);
+        }
+        return new IteratorResultSet(Aggregator.resultColumns(node), rows.iterator());
+    }
+
+    /**
+     * Hash aggregates the rows in one pass
+     */
+    public static ResultSet aggregate(SelectNode node, ResultSet rows) {
+        GroupAggregator groups = new GroupAggregator(node);
+        int groupColumn = rows.findColumn(node.getGroupBy());
+        List<AggregateNode> aggregates = node.getAggregates();
+        int[] columns = new int[aggregates.size()];
+        for (int i = 0; i < columns.length; i++) {
+            AggregateNode aggregate = aggregates.get(i);
+            columns[i] = aggregate.isCountAll() ? 1 : rows.findColumn(aggregate.getColumn());
+        }
+
+        while (rows.next()) {
+            List<Aggregator> aggregators = groups.groupOf(rows.getObject(groupColumn));
+            for (int i = 0; i < columns.length; i++) {
+                aggregators.get(i).add(rows.getObject(columns[i]));
+            }
+        }
+        return groups.toResultSet();
+    }
+}
@@ -1,5 +1,7 @@
 package edu.smu.smusql.bplustreeA.helper;
 
+import edu.smu.smusql.bplustreeA.AstParser.nodes.LiteralNode;
+
 public class Helper {
     public static boolean tryParseFloat(String value) {
         try {
@@ -9,7 +11,7 @@ public class Helper {
             return false;
         }
     }
-    
+
     public static boolean tryParseInt(String value) {
         try {
             Integer.parseInt(value);
@@ -18,4 +20,33 @@ public class Helper {
             return false;
         }
     }
+
+    public static Object getValueFromLiteralNode(LiteralNode literalNode) {
+        switch (literalNode.getType()) {
+            case STRING:
+                return literalNode.getStringValue();
+            case NUMBER:
+                return literalNode.getIntegerValue();
+            case FLOAT:
+                return literalNode.getFloatValue();
+            default:
+                throw new IllegalStateException(
+                    "Unexpected LiteralNodeType: " + literalNode.getType());
+        }
+    }
+
+    /**
+     * Index key for a column value. Strings are keyed by their hash code
+     */
+    public static Number convertToNumber(Object obj) {
+        if (obj instanceof String) {
+            return obj.hashCode();
+        } else if (obj instanceof Integer) {
+            return (Integer) obj;
+        } else if (obj instanceof Float) {
+            return (Float) obj;
+        } else {
+            throw new IllegalArgumentException("Received an unsupported object: " + obj.toString());
+        }
+    }
 }
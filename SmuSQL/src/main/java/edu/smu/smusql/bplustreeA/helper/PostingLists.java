@@ -0,0 +1,134 @@
+package edu.smu.smusql.bplustreeA.helper;
+
+import edu.smu.smusql.kernels.ScanKernels;
+import java.util.Arrays;
+
+/**
+ * Set algebra on sorted, duplicate free primary key lists held in primitive int arrays.
+ *
+ * Intersection gallops through the larger list when the sizes are very skewed and falls back to
+ * a linear merge when they are similar. Union is always a linear merge.
+ */
+public class PostingLists {
+
+    public static final int[] EMPTY = new int[0];
+
+    // Above this size ratio exponential search beats walking the larger list element by element
+    static final int GALLOP_RATIO = 16;
+
+    private static final ScanKernels KERNELS = ScanKernels.get();
+
+    public static int[] intersect(int[] a, int[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return EMPTY;
+        }
+
+        int[] small = a.length <= b.length ? a : b;
+        int[] large = small == a ? b : a;
+
+        if (large.length / small.length >= GALLOP_RATIO) {
+            return gallopingIntersect(small, large);
+        }
+        return linearIntersect(small, large);
+    }
+
+    static int[] linearIntersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    static int[] gallopingIntersect(int[] small, int[] large) {
+        int[] result = new int[small.length];
+        int n = 0;
+        int low = 0;
+
+        for (int target : small) {
+            // Double the step until we overshoot target, then binary search the last step
+            int step = 1;
+            int high = low;
+            while (high < large.length && large[high] < target) {
+                low = high + 1;
+                high = low + step - 1;
+                step <<= 1;
+            }
+            high = Math.min(high, large.length - 1);
+
+            low = KERNELS.lowerBound(large, low, high + 1, target);
+            if (low < large.length && large[low] == target) {
+                result[n++] = target;
+                low++;
+            }
+
+            if (low >= large.length) {
+                break;
+            }
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    public static int[] union(int[] a, int[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        if (b.length == 0) {
+            return a;
+        }
+
+        int[] result = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[n++] = a[i++];
+            } else if (a[i] > b[j]) {
+                result[n++] = b[j++];
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        while (i < a.length) {
+            result[n++] = a[i++];
+        }
+        while (j < b.length) {
+            result[n++] = b[j++];
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    /**
+     * Sorts and removes duplicates in place, returning a list of the distinct keys
+     */
+    public static int[] sortedDistinct(int[] keys, int length) {
+        Arrays.sort(keys, 0, length);
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            if (n == 0 || keys[n - 1] != keys[i]) {
+                keys[n++] = keys[i];
+            }
+        }
+        return n == keys.length ? keys : Arrays.copyOf(keys, n);
+    }
+
+    public static int[] fromList(java.util.List<Integer> keys) {
+        int[] result = new int[keys.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = keys.get(i);
+        }
+        return sortedDistinct(result, result.length);
+    }
+}
@@ -0,0 +1,74 @@
+package edu.smu.smusql.bplustreeA.helper;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Distinct strings of one column, each with a small int code, so rows holding the same value
+ * share a single instance rather than each keeping the copy parsed from its statement, and packed
+ * rows can store the code in place of the string. The shared instance also caches its hash code,
+ * the index key strings are looked up by, once for every row.
+ *
+ * Codes are handed out in insertion order, so they identify values but do not order them.
+ * Nothing compares codes: predicates and indexes work on the decoded strings.
+ *
+ * Stops taking new values once the column has maxValues distinct strings, as a dictionary of
+ * mostly unique values costs more memory than it saves. Values past that are stored as given.
+ *
+ * One thread adds values at a time, the table's writer, while any number of readers may decode
+ * codes already handed out.
+ */
+public class StringDictionary {
+
+    private final int maxValues;
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[16];
+    private int size;
+
+    public StringDictionary(int maxValues) {
+        this.maxValues = maxValues;
+    }
+
+    /**
+     * The shared instance equal to the value, added if there is room, or the value itself once
+     * the dictionary is full
+     */
+    public String encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return values[code];
+        }
+        if (size == maxValues) {
+            return value;
+        }
+
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        // Published after the value, a reader that finds the code also finds the value
+        codes.put(value, size++);
+        return value;
+    }
+
+    /**
+     * Code of the value, or -1 if it is not in the dictionary
+     */
+    public int codeOf(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    public String valueOf(int code) {
+        return values[code];
+    }
+
+    public boolean isFull() {
+        return size == maxValues;
+    }
+
+    public int size() {
+        return codes.size();
+    }
+}
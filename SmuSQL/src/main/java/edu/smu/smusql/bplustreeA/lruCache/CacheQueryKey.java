@@ -9,16 +9,21 @@ public class CacheQueryKey {
     public final String tableName;
     private final ConditionNode whereClause;
     private final List<String> columns;
+    private final long generation; // See TableGenerations
+    private final int hash; // Looked up twice per query, once for the shard and once in it
 
-    public CacheQueryKey(String tableName, ConditionNode whereClause, List<String> columns) {
+    public CacheQueryKey(String tableName, ConditionNode whereClause, List<String> columns,
+        long generation) {
         this.tableName = tableName;
         this.whereClause = whereClause;
         this.columns = columns;
+        this.generation = generation;
+        this.hash = Objects.hash(tableName, whereClause, columns, generation);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(tableName, whereClause, columns);
+        return hash;
     }
 
     @Override
@@ -34,7 +39,8 @@ public class CacheQueryKey {
 
         CacheQueryKey queryKey = (CacheQueryKey) o;
 
-        return Objects.equals(tableName, queryKey.tableName) && Objects.equals(whereClause,
+        return hash == queryKey.hash && generation == queryKey.generation && Objects.equals(tableName, queryKey.tableName)
+            && Objects.equals(whereClause,
             queryKey.whereClause) && Objects.equals(columns, queryKey.columns);
     }
 }
@@ -0,0 +1,84 @@
+package edu.smu.smusql.bplustreeA.lruCache;
+
+import java.util.Arrays;
+
+/**
+ * Approximate access counts for the TinyLFU admission policy of {@link WeightedCache}.
+ *
+ * A count-min sketch of 4 bit counters, sixteen to a long. Every key maps to four counters and
+ * its frequency is the smallest of them. Once the number of increments reaches ten times the
+ * expected number of entries all counters are halved, so the counts describe recent history.
+ */
+public class FrequencySketch {
+
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    public FrequencySketch(int expectedEntries) {
+        int length = Integer.highestOneBit(Math.max(expectedEntries, 16) - 1) << 1;
+        this.table = new long[length];
+        this.tableMask = length - 1;
+        this.sampleSize = 10 * Math.max(expectedEntries, 16);
+    }
+
+    public void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = counterHash(hash, i);
+            int index = (int) h & tableMask;
+            int shift = (int) (h >>> 60) << 2;
+            if (((table[index] >>> shift) & MAX_COUNT) < MAX_COUNT) {
+                table[index] += 1L << shift;
+                added = true;
+            }
+        }
+
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    public int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = counterHash(hash, i);
+            int shift = (int) (h >>> 60) << 2;
+            int count = (int) (table[(int) h & tableMask] >>> shift) & MAX_COUNT;
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        additions = 0;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private static long counterHash(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        return h ^ (h >>> 29);
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,266 @@
+package edu.smu.smusql.bplustreeA.lruCache;
+
+import edu.smu.smusql.Constants;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Primary key lists returned by single column index probes, keyed by (index, operator, value),
+ * so queries sharing a hot predicate share its lookup.
+ *
+ * Each entry covers the range of index keys its predicate selects. A write to an index key only
+ * drops the entries of that index whose range contains the key, found through per index maps
+ * ordered by predicate value, so cached lookups on other ranges survive unrelated writes.
+ * Bounded by the total number of cached keys, evicting the least recently used lists.
+ *
+ * Safe for concurrent use. Lookups are spread by key over independently locked shards, each with
+ * its share of the key budget and its own range maps, so concurrent readers of different
+ * predicates rarely meet on a lock. A write to an index key visits every shard.
+ */
+public class PostingListCache {
+
+    private final Shard[] shards;
+    private final int shardMask;
+    private final int maxListKeys;
+
+    private static final class Key {
+        final String indexName;
+        final String operator;
+        final double value;
+
+        Key(String indexName, String operator, double value) {
+            this.indexName = indexName;
+            this.operator = operator.equals("<>") ? "!=" : operator;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return Double.compare(value, other.value) == 0 && indexName.equals(other.indexName)
+                && operator.equals(other.operator);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(indexName, operator, value);
+        }
+    }
+
+    // Cached predicates of one index by the key ranges they cover
+    private static final class IndexRanges {
+        final TreeMap<Double, Set<Key>> equal = new TreeMap<>(); // [v, v]
+        final TreeMap<Double, Set<Key>> below = new TreeMap<>(); // < and <=, up to v
+        final TreeMap<Double, Set<Key>> above = new TreeMap<>(); // > and >=, from v
+        final Set<Key> notEqual = new HashSet<>(); // Everything but v
+
+        NavigableMap<Double, Set<Key>> mapFor(String operator) {
+            switch (operator) {
+                case "=":
+                    return equal;
+                case "<":
+                case "<=":
+                    return below;
+                case ">":
+                case ">=":
+                    return above;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    // One shard's entries, range maps and share of the key budget
+    private static final class Shard {
+        private final LinkedHashMap<Key, int[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final Map<String, IndexRanges> indexes = new HashMap<>();
+        private final long maxKeys;
+        private long cachedKeys;
+
+        Shard(long maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+
+        synchronized int[] get(Key key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(Key key, int[] keys) {
+            remove(key);
+            entries.put(key, keys);
+            cachedKeys += keys.length;
+
+            IndexRanges ranges = indexes.computeIfAbsent(key.indexName, name -> new IndexRanges());
+            NavigableMap<Double, Set<Key>> map = ranges.mapFor(key.operator);
+            if (map != null) {
+                map.computeIfAbsent(key.value, v -> new HashSet<>()).add(key);
+            } else {
+                ranges.notEqual.add(key);
+            }
+
+            while (cachedKeys > maxKeys) {
+                remove(entries.keySet().iterator().next()); // Least recently used
+            }
+        }
+
+        synchronized void invalidate(String indexName, Number indexKey) {
+            IndexRanges ranges = indexes.get(indexName);
+            if (ranges == null) {
+                return;
+            }
+
+            double k = indexKey.doubleValue();
+            List<Key> stale = new ArrayList<>();
+            Set<Key> equal = ranges.equal.get(k);
+            if (equal != null) {
+                stale.addAll(equal);
+            }
+            // A bound equal to the key is dropped for both strict and inclusive operators
+            ranges.below.tailMap(k, true).values().forEach(stale::addAll);
+            ranges.above.headMap(k, true).values().forEach(stale::addAll);
+            for (Key key : ranges.notEqual) {
+                if (key.value != k) {
+                    stale.add(key);
+                }
+            }
+
+            for (Key key : stale) {
+                remove(key);
+            }
+        }
+
+        synchronized void invalidateIndex(String indexName) {
+            IndexRanges ranges = indexes.remove(indexName);
+            if (ranges == null) {
+                return;
+            }
+            Iterator<Map.Entry<Key, int[]>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, int[]> entry = it.next();
+                if (entry.getKey().indexName.equals(indexName)) {
+                    cachedKeys -= entry.getValue().length;
+                    it.remove();
+                }
+            }
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            indexes.clear();
+            cachedKeys = 0;
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        private void remove(Key key) {
+            int[] keys = entries.remove(key);
+            if (keys != null) {
+                cachedKeys -= keys.length;
+                unregister(key);
+            }
+        }
+
+        // Removes the key from the range maps, the entry itself is already gone
+        private void unregister(Key key) {
+            IndexRanges ranges = indexes.get(key.indexName);
+            if (ranges == null) {
+                return;
+            }
+            NavigableMap<Double, Set<Key>> map = ranges.mapFor(key.operator);
+            if (map == null) {
+                ranges.notEqual.remove(key);
+                return;
+            }
+            Set<Key> keys = map.get(key.value);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                map.remove(key.value);
+            }
+        }
+    }
+
+    public PostingListCache() {
+        this(Constants.POSTING_CACHE_MAX_KEYS, Constants.POSTING_CACHE_MAX_LIST_KEYS,
+            Constants.CACHE_SHARDS);
+    }
+
+    /**
+     * @param shards a power of two, each shard holding an equal share of maxKeys
+     */
+    public PostingListCache(long maxKeys, int maxListKeys, int shards) {
+        this.shards = new Shard[shards];
+        this.shardMask = shards - 1;
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new Shard(maxKeys / shards);
+        }
+        this.maxListKeys = maxListKeys;
+    }
+
+    public int[] get(String indexName, String operator, Number value) {
+        Key key = new Key(indexName, operator, value.doubleValue());
+        return shard(key).get(key);
+    }
+
+    /**
+     * Caches the keys of a probe. The array is shared with later callers and must not be
+     * modified
+     */
+    public void put(String indexName, String operator, Number value, int[] keys) {
+        if (keys.length > maxListKeys) {
+            return;
+        }
+        Key key = new Key(indexName, operator, value.doubleValue());
+        shard(key).put(key, keys);
+    }
+
+    /**
+     * Drops the cached lookups on the index whose result may change when the key is inserted
+     * into or removed from it
+     */
+    public void invalidate(String indexName, Number indexKey) {
+        for (Shard shard : shards) {
+            shard.invalidate(indexName, indexKey);
+        }
+    }
+
+    public void invalidateIndex(String indexName) {
+        for (Shard shard : shards) {
+            shard.invalidateIndex(indexName);
+        }
+    }
+
+    public void clear() {
+        for (Shard shard : shards) {
+            shard.clear();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    private Shard shard(Key key) {
+        int hash = key.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & shardMask];
+    }
+}
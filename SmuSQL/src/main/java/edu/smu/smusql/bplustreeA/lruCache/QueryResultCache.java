@@ -0,0 +1,207 @@
+package edu.smu.smusql.bplustreeA.lruCache;
+
+import edu.smu.smusql.Constants;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * SELECT result cache of the B+ tree engines, bounded by the size of the cached strings.
+ *
+ * Hit rates are also tracked per table. A table whose hit rate over a window of lookups falls
+ * below a threshold is bypassed for a while: its lookups miss immediately and its results are not
+ * stored, so a table that is only ever scanned with fresh predicates stops evicting useful
+ * results. When the bypass runs out the table is given another window to prove itself.
+ *
+ * Safe for concurrent use. Keys are spread over independently locked shards, each a
+ * {@link WeightedCache} with its share of the byte budget. Lookups never lock: they read the
+ * shard's map directly and leave the key in a small read buffer, which is replayed into the
+ * eviction policy by whichever thread next holds the shard's lock. When the buffer is full
+ * further accesses are dropped, which only makes the recency and frequency counts approximate.
+ */
+public class QueryResultCache {
+
+    private final Shard[] shards;
+    private final int shardMask;
+    private final Map<String, TableStats> tables = new ConcurrentHashMap<>();
+    private final int bypassWindow;
+    private final double bypassHitRate;
+    private final int bypassLookups;
+
+    private static final class Shard {
+        final ReentrantLock lock = new ReentrantLock();
+        final WeightedCache<CacheQueryKey, String> cache;
+        final AtomicReferenceArray<CacheQueryKey> readBuffer =
+            new AtomicReferenceArray<>(Constants.CACHE_READ_BUFFER_SIZE);
+        final AtomicInteger reads = new AtomicInteger();
+
+        Shard(long maxBytes, int expectedEntries) {
+            this.cache = new WeightedCache<>(maxBytes, expectedEntries,
+                Constants.CACHE_WINDOW_FRACTION, Constants.CACHE_PROTECTED_FRACTION,
+                Constants.CACHE_MAX_ENTRY_FRACTION, QueryResultCache::weigh);
+        }
+
+        String get(CacheQueryKey key) {
+            String result = cache.peek(key);
+            int slot = reads.getAndIncrement();
+            if (slot < Constants.CACHE_READ_BUFFER_SIZE) {
+                readBuffer.lazySet(slot, key);
+            }
+            if (slot >= Constants.CACHE_READ_BUFFER_SIZE / 2 && lock.tryLock()) {
+                try {
+                    drain();
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return result;
+        }
+
+        void put(CacheQueryKey key, String result) {
+            lock.lock();
+            try {
+                drain();
+                cache.put(key, result);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Caller holds the lock
+        void drain() {
+            int pending = Math.min(reads.getAndSet(0), Constants.CACHE_READ_BUFFER_SIZE);
+            for (int i = 0; i < pending; i++) {
+                CacheQueryKey key = readBuffer.getAndSet(i, null);
+                if (key != null) {
+                    cache.recordAccess(key);
+                }
+            }
+        }
+    }
+
+    private static final class TableStats {
+        final AtomicInteger lookups = new AtomicInteger();
+        final AtomicInteger hits = new AtomicInteger();
+        final AtomicInteger bypassRemaining = new AtomicInteger();
+    }
+
+    public QueryResultCache() {
+        this(Constants.CACHE_MAX_BYTES, Constants.CACHE_BYPASS_WINDOW,
+            Constants.CACHE_BYPASS_HIT_RATE, Constants.CACHE_BYPASS_LOOKUPS);
+    }
+
+    public QueryResultCache(long maxBytes, int bypassWindow, double bypassHitRate,
+        int bypassLookups) {
+        this.shards = new Shard[Constants.CACHE_SHARDS];
+        this.shardMask = shards.length - 1;
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(maxBytes / shards.length, Constants.CACHE_SIZE / shards.length);
+        }
+        this.bypassWindow = bypassWindow;
+        this.bypassHitRate = bypassHitRate;
+        this.bypassLookups = bypassLookups;
+    }
+
+    public String get(CacheQueryKey key) {
+        TableStats stats = tables.computeIfAbsent(key.tableName, table -> new TableStats());
+        if (stats.bypassRemaining.get() > 0 && stats.bypassRemaining.getAndDecrement() > 0) {
+            return null;
+        }
+
+        String result = shard(key).get(key);
+        recordLookup(stats, result != null);
+        return result;
+    }
+
+    /**
+     * Like {@link #get} for a hit, but a miss is not counted, for callers that follow a miss
+     * with a full lookup
+     */
+    public String getIfPresent(CacheQueryKey key) {
+        TableStats stats = tables.get(key.tableName);
+        if (stats == null || stats.bypassRemaining.get() > 0) {
+            return null;
+        }
+
+        Shard shard = shard(key);
+        if (shard.cache.peek(key) == null) {
+            return null;
+        }
+        String result = shard.get(key);
+        if (result != null) {
+            recordLookup(stats, true);
+        }
+        return result;
+    }
+
+    private void recordLookup(TableStats stats, boolean hit) {
+        if (hit) {
+            stats.hits.incrementAndGet();
+        }
+
+        // Only the thread completing a window judges it, a few lookups racing the reset are lost
+        if (stats.lookups.incrementAndGet() == bypassWindow) {
+            if ((double) stats.hits.getAndSet(0) / bypassWindow < bypassHitRate) {
+                stats.bypassRemaining.set(bypassLookups);
+            }
+            stats.lookups.set(0);
+        }
+    }
+
+    public void put(CacheQueryKey key, String result) {
+        if (!isBypassed(key.tableName)) {
+            shard(key).put(key, result);
+        }
+    }
+
+    public boolean isBypassed(String tableName) {
+        TableStats stats = tables.get(tableName);
+        return stats != null && stats.bypassRemaining.get() > 0;
+    }
+
+    public void clear() {
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                shard.drain();
+                shard.cache.clear();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        tables.clear();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.cache.size();
+        }
+        return size;
+    }
+
+    public long weight() {
+        long weight = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                weight += shard.cache.weight();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return weight;
+    }
+
+    private Shard shard(CacheQueryKey key) {
+        int hash = key.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & shardMask];
+    }
+
+    // Approximate heap footprint: a compact string stores Latin-1 text at one byte per character
+    private static long weigh(String result) {
+        return Constants.CACHE_ENTRY_OVERHEAD + result.length();
+    }
+}
@@ -0,0 +1,28 @@
+package edu.smu.smusql.bplustreeA.lruCache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per table write counters for the query cache. Cache keys carry the generation of their table
+ * at the time the result was computed, so a write only has to advance the counter: results from
+ * older generations can no longer be looked up and age out of the cache on their own.
+ */
+public class TableGenerations {
+
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public long current(String tableName) {
+        AtomicLong generation = generations.get(tableName);
+        return generation == null ? 0 : generation.get();
+    }
+
+    public void advance(String tableName) {
+        generations.computeIfAbsent(tableName, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    public void clear() {
+        generations.clear();
+    }
+}
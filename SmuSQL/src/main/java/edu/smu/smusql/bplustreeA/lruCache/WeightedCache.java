@@ -0,0 +1,257 @@
+package edu.smu.smusql.bplustreeA.lruCache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache bounded by the total weight of its values rather than their number, using W-TinyLFU.
+ *
+ * New entries enter a small LRU window. When the window overflows its oldest entry becomes a
+ * candidate for the main space, a segmented LRU of probation and protected entries, and is only
+ * admitted if the frequency sketch has seen it more often than the probation entries it would
+ * evict. A one-off scan therefore churns through the window without flushing the entries that
+ * are actually reused. Values heavier than a fixed fraction of the capacity are never stored.
+ *
+ * Not thread safe, except for {@link #peek}: callers guard every other method with a lock and
+ * replay the accesses of lock-free peeks through {@link #recordAccess} when they hold it.
+ */
+public class WeightedCache<K, V> {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final Map<K, Node<K, V>> entries = new ConcurrentHashMap<>();
+    private final FrequencySketch sketch;
+    private final ToLongFunction<V> weigher;
+    private final Segment<K, V>[] segments;
+
+    private final long maxWeight;
+    private final long maxEntryWeight;
+    private final long windowMaxWeight;
+    private final long protectedMaxWeight;
+
+    private static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        long weight;
+        int segment;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key) {
+            this.key = key;
+        }
+    }
+
+    // Doubly linked list in LRU order, the head is the next eviction candidate
+    private static final class Segment<K, V> {
+        Node<K, V> head;
+        Node<K, V> tail;
+        long weight;
+
+        void addLast(Node<K, V> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            weight += node.weight;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            weight -= node.weight;
+        }
+    }
+
+    /**
+     * @param maxWeight        total weight the cache may hold
+     * @param expectedEntries  sizes the frequency sketch
+     * @param windowFraction   share of maxWeight given to the admission window
+     * @param protectedFraction share of the main space given to the protected segment
+     * @param maxEntryFraction values heavier than this share of maxWeight are not cached
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public WeightedCache(long maxWeight, int expectedEntries, double windowFraction,
+        double protectedFraction, double maxEntryFraction, ToLongFunction<V> weigher) {
+        this.maxWeight = maxWeight;
+        this.maxEntryWeight = (long) (maxWeight * maxEntryFraction);
+        this.windowMaxWeight = Math.max(1, (long) (maxWeight * windowFraction));
+        this.protectedMaxWeight = (long) ((maxWeight - windowMaxWeight) * protectedFraction);
+        this.sketch = new FrequencySketch(expectedEntries);
+        this.weigher = weigher;
+        this.segments = new Segment[] {new Segment<>(), new Segment<>(), new Segment<>()};
+    }
+
+    public V get(K key) {
+        recordAccess(key);
+        return peek(key);
+    }
+
+    /**
+     * Value for the key without updating the eviction policy. Safe to call concurrently with
+     * the other methods
+     */
+    public V peek(K key) {
+        Node<K, V> node = entries.get(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Counts a lookup of the key, hit or miss, and refreshes its position if present
+     */
+    public void recordAccess(K key) {
+        sketch.increment(key);
+        Node<K, V> node = entries.get(key);
+        if (node != null) {
+            onAccess(node);
+        }
+    }
+
+    public void put(K key, V value) {
+        long weight = weigher.applyAsLong(value);
+        Node<K, V> node = entries.get(key);
+
+        if (weight > maxEntryWeight) {
+            if (node != null) {
+                remove(node);
+            }
+            return;
+        }
+
+        if (node != null) {
+            Segment<K, V> segment = segments[node.segment];
+            segment.weight += weight - node.weight;
+            node.weight = weight;
+            node.value = value;
+            onAccess(node);
+        } else {
+            node = new Node<>(key);
+            node.value = value;
+            node.weight = weight;
+            node.segment = WINDOW;
+            segments[WINDOW].addLast(node);
+            entries.put(key, node);
+        }
+
+        evict();
+    }
+
+    public V remove(K key) {
+        Node<K, V> node = entries.get(key);
+        if (node == null) {
+            return null;
+        }
+        remove(node);
+        return node.value;
+    }
+
+    public void clear() {
+        entries.clear();
+        sketch.clear();
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment<>();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long weight() {
+        return segments[WINDOW].weight + segments[PROBATION].weight + segments[PROTECTED].weight;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    private void onAccess(Node<K, V> node) {
+        Segment<K, V> segment = segments[node.segment];
+        segment.remove(node);
+
+        if (node.segment == PROBATION) {
+            // A second hit promotes it, making room by demoting the oldest protected entries
+            node.segment = PROTECTED;
+            segments[PROTECTED].addLast(node);
+            while (segments[PROTECTED].weight > protectedMaxWeight
+                && segments[PROTECTED].head != node) {
+                Node<K, V> demoted = segments[PROTECTED].head;
+                segments[PROTECTED].remove(demoted);
+                demoted.segment = PROBATION;
+                segments[PROBATION].addLast(demoted);
+            }
+        } else {
+            segment.addLast(node);
+        }
+    }
+
+    private void evict() {
+        while (segments[WINDOW].weight > windowMaxWeight && segments[WINDOW].head != null) {
+            Node<K, V> candidate = segments[WINDOW].head;
+            segments[WINDOW].remove(candidate);
+            admit(candidate);
+        }
+
+        // Only reachable when a value grew in place
+        while (weight() > maxWeight) {
+            Node<K, V> victim = oldest();
+            if (victim == null) {
+                break;
+            }
+            remove(victim);
+        }
+    }
+
+    private void admit(Node<K, V> candidate) {
+        long mainMaxWeight = maxWeight - windowMaxWeight;
+        int candidateFrequency = sketch.frequency(candidate.key);
+
+        while (segments[PROBATION].weight + segments[PROTECTED].weight + candidate.weight
+            > mainMaxWeight) {
+            Node<K, V> victim = segments[PROBATION].head != null ? segments[PROBATION].head
+                : segments[PROTECTED].head;
+            if (victim == null) {
+                break;
+            }
+            if (candidateFrequency <= sketch.frequency(victim.key)) {
+                entries.remove(candidate.key);
+                return;
+            }
+            remove(victim);
+        }
+
+        candidate.segment = PROBATION;
+        segments[PROBATION].addLast(candidate);
+    }
+
+    private Node<K, V> oldest() {
+        for (int segment : new int[] {PROBATION, PROTECTED, WINDOW}) {
+            if (segments[segment].head != null) {
+                return segments[segment].head;
+            }
+        }
+        return null;
+    }
+
+    private void remove(Node<K, V> node) {
+        segments[node.segment].remove(node);
+        entries.remove(node.key);
+    }
+}
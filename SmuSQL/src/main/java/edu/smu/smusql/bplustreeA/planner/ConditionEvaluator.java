@@ -0,0 +1,112 @@
+package edu.smu.smusql.bplustreeA.planner;
+
+import edu.smu.smusql.bplustreeA.AstParser.nodes.ColumnNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.ConditionNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.LiteralNode;
+import edu.smu.smusql.bplustreeA.NumberComparator;
+import edu.smu.smusql.bplustreeA.helper.Helper;
+import java.util.List;
+
+/**
+ * Evaluates a WHERE condition against a fetched row. Values are compared through their index key
+ * (see {@link Helper#convertToNumber}) so residual filters agree with index lookups, except that a
+ * string compared with a string literal by a range operator compares lexically, as MIN and MAX
+ * order strings. Index keys are hash codes there, so such predicates are never answered by an
+ * index (see {@link #usesIndexKey}).
+ */
+public class ConditionEvaluator {
+
+    private final List<String> columns;
+    private static final NumberComparator COMPARATOR = new NumberComparator();
+
+    public ConditionEvaluator(List<String> columns) {
+        this.columns = columns;
+    }
+
+    public boolean matches(ConditionNode node, Integer primaryKey, Object[] row) {
+
+        if (node.isLogical()) {
+            ConditionNode left = (ConditionNode) node.getLeft();
+            ConditionNode right = (ConditionNode) node.getRight();
+            switch (node.getOperator()) {
+                case "AND":
+                    return matches(left, primaryKey, row) && matches(right, primaryKey, row);
+                case "OR":
+                    return matches(left, primaryKey, row) || matches(right, primaryKey, row);
+                default:
+                    throw new RuntimeException("Unsupported logical operator: " + node.getOperator());
+            }
+        }
+
+        if (!(node.getLeft() instanceof ColumnNode) || !(node.getRight() instanceof LiteralNode)) {
+            throw new RuntimeException("Unsupported simple condition structure");
+        }
+
+        String columnName = ((ColumnNode) node.getLeft()).getName();
+        Object rowValue;
+        if (columnName.equals("id")) {
+            rowValue = primaryKey;
+        } else {
+            int columnIndex = columns.indexOf(columnName);
+            if (columnIndex < 0) {
+                throw new RuntimeException("ERROR: Column " + columnName + " does not exist");
+            }
+            rowValue = row[columnIndex];
+        }
+
+        Object literal = Helper.getValueFromLiteralNode((LiteralNode) node.getRight());
+        return matches(rowValue, node.getOperator(), literal);
+    }
+
+    /**
+     * Compares a stored value with a literal the way an index lookup on the column would, or
+     * lexically for a string range
+     */
+    public static boolean matches(Object rowValue, String operator, Object literal) {
+        if (rowValue instanceof String && literal instanceof String && isRange(operator)) {
+            return compare(((String) rowValue).compareTo((String) literal), operator);
+        }
+        int comparison = COMPARATOR.compare(Helper.convertToNumber(rowValue),
+            Helper.convertToNumber(literal));
+        return compare(comparison, operator);
+    }
+
+    /**
+     * Whether the predicate compares index keys, so an index on the column can answer it
+     */
+    public static boolean usesIndexKey(String operator, Object literal) {
+        return !(literal instanceof String) || !isRange(operator);
+    }
+
+    private static boolean isRange(String operator) {
+        switch (operator) {
+            case "<":
+            case "<=":
+            case ">":
+            case ">=":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    static boolean compare(int comparison, String operator) {
+        switch (operator) {
+            case "=":
+                return comparison == 0;
+            case "!=":
+            case "<>":
+                return comparison != 0;
+            case "<":
+                return comparison < 0;
+            case "<=":
+                return comparison <= 0;
+            case ">":
+                return comparison > 0;
+            case ">=":
+                return comparison >= 0;
+            default:
+                throw new IllegalArgumentException("Unsupported operator: " + operator);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package edu.smu.smusql.bplustreeA.planner;
+
+import edu.smu.smusql.bplustreeA.AstParser.nodes.ConditionNode;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Checks residual predicates against the rows fetched by its child
+ */
+public class FilterNode extends PlanNode {
+
+    private final PlanNode child;
+    private final List<ConditionNode> residuals;
+    private final ConditionEvaluator evaluator;
+
+    public FilterNode(PlanNode child, List<ConditionNode> residuals, ConditionEvaluator evaluator,
+        double estimatedRows) {
+        super(estimatedRows);
+        this.child = child;
+        this.residuals = residuals;
+        this.evaluator = evaluator;
+    }
+
+    @Override
+    public Map<Integer, Object[]> execute() {
+        Map<Integer, Object[]> rows = child.execute();
+        rows.entrySet().removeIf(entry -> {
+            for (ConditionNode residual : residuals) {
+                if (!evaluator.matches(residual, entry.getKey(), entry.getValue())) {
+                    return true;
+                }
+            }
+            return false;
+        });
+        return rows;
+    }
+
+    @Override
+    public Iterator<Map.Entry<Integer, Object[]>> iterator() {
+        return new FilteredIterator(child.iterator(), entry -> {
+            for (ConditionNode residual : residuals) {
+                if (!evaluator.matches(residual, entry.getKey(), entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    @Override
+    protected String describe() {
+        return "Filter: " + residuals.stream().map(ConditionNode::toString)
+            .collect(Collectors.joining(" AND "));
+    }
+
+    @Override
+    protected List<PlanNode> getChildren() {
+        return Collections.singletonList(child);
+    }
+}
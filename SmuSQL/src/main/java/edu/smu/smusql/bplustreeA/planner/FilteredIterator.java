@@ -0,0 +1,43 @@
+package edu.smu.smusql.bplustreeA.planner;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * Passes on only the rows of the source that match, checking each one as it is pulled
+ */
+class FilteredIterator implements Iterator<Map.Entry<Integer, Object[]>> {
+
+    private final Iterator<Map.Entry<Integer, Object[]>> source;
+    private final Predicate<Map.Entry<Integer, Object[]>> predicate;
+    private Map.Entry<Integer, Object[]> pending;
+
+    FilteredIterator(Iterator<Map.Entry<Integer, Object[]>> source,
+        Predicate<Map.Entry<Integer, Object[]>> predicate) {
+        this.source = source;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (pending == null && source.hasNext()) {
+            Map.Entry<Integer, Object[]> candidate = source.next();
+            if (predicate.test(candidate)) {
+                pending = candidate;
+            }
+        }
+        return pending != null;
+    }
+
+    @Override
+    public Map.Entry<Integer, Object[]> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Map.Entry<Integer, Object[]> entry = pending;
+        pending = null;
+        return entry;
+    }
+}
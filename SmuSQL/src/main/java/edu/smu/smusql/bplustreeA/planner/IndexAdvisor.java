@@ -0,0 +1,204 @@
+package edu.smu.smusql.bplustreeA.planner;
+
+import edu.smu.smusql.Constants;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.ColumnNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.ConditionNode;
+import edu.smu.smusql.bplustreeA.BPlusTree;
+import edu.smu.smusql.bplustreeA.bplustreeArray.BPlusTreeTableArray;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Recommends column indexes from the workload. Every executed WHERE clause records which columns
+ * it filters on and with which operators, and every write records the rows whose index entries
+ * would have to be maintained.
+ *
+ * A column is worth indexing when the rows its predicates would otherwise scan outweigh the cost
+ * of keeping an index current under the observed writes. Equality predicates count fully, range
+ * predicates at {@link Constants#INDEX_ADVISOR_RANGE_WEIGHT} since they often match too much of
+ * the table to use the index, and != not at all.
+ *
+ * Synchronized, statements on different tables may record concurrently.
+ */
+public class IndexAdvisor {
+
+    public enum Action {
+        CREATE, DROP
+    }
+
+    public static class Advice {
+
+        private final Action action;
+        private final String tableName;
+        private final String column;
+        private final String reason;
+
+        Advice(Action action, String tableName, String column, String reason) {
+            this.action = action;
+            this.tableName = tableName;
+            this.column = column;
+            this.reason = reason;
+        }
+
+        public Action getAction() {
+            return action;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        // The statement that applies the advice
+        public String getStatement() {
+            return (action == Action.CREATE ? "CREATE INDEX ON " : "DROP INDEX ON ") + tableName
+                + " (" + column + ")";
+        }
+
+        @Override
+        public String toString() {
+            return getStatement() + " -- " + reason;
+        }
+    }
+
+    private static class ColumnStats {
+
+        double equalities;
+        double ranges;
+        double others;
+        double updates; // Rows whose value in this column was assigned
+    }
+
+    private static class TableStats {
+
+        double rowWrites; // Rows inserted or deleted, these touch every index of the table
+        final Map<String, ColumnStats> columns = new HashMap<>();
+
+        ColumnStats column(String name) {
+            return columns.computeIfAbsent(name, key -> new ColumnStats());
+        }
+    }
+
+    private final Map<String, TableStats> tables = new HashMap<>();
+
+    public synchronized void recordPredicates(String tableName, ConditionNode whereClause) {
+        if (whereClause != null) {
+            recordCondition(table(tableName), whereClause);
+        }
+    }
+
+    private void recordCondition(TableStats stats, ConditionNode node) {
+        if (node.isLogical()) {
+            recordCondition(stats, (ConditionNode) node.getLeft());
+            recordCondition(stats, (ConditionNode) node.getRight());
+            return;
+        }
+        if (!(node.getLeft() instanceof ColumnNode)) {
+            return;
+        }
+
+        String column = ((ColumnNode) node.getLeft()).getName();
+        if (column.equals("id")) {
+            return; // Always served by the main tree
+        }
+
+        ColumnStats columnStats = stats.column(column);
+        switch (node.getOperator()) {
+            case "=":
+                columnStats.equalities++;
+                break;
+            case "<":
+            case "<=":
+            case ">":
+            case ">=":
+                columnStats.ranges++;
+                break;
+            default:
+                columnStats.others++;
+                break;
+        }
+    }
+
+    public synchronized void recordRowWrites(String tableName, int rows) {
+        table(tableName).rowWrites += rows;
+    }
+
+    public synchronized void recordUpdates(String tableName, Collection<String> columns,
+        int rows) {
+        TableStats stats = table(tableName);
+        for (String column : columns) {
+            stats.column(column).updates += rows;
+        }
+    }
+
+    /**
+     * Halves every count, so the advice follows the recent workload rather than all of history
+     */
+    public synchronized void decay() {
+        for (TableStats stats : tables.values()) {
+            stats.rowWrites /= 2;
+            for (ColumnStats columnStats : stats.columns.values()) {
+                columnStats.equalities /= 2;
+                columnStats.ranges /= 2;
+                columnStats.others /= 2;
+                columnStats.updates /= 2;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        tables.clear();
+    }
+
+    /**
+     * Indexes to create and indexes to drop for the tables in the database, ordered by table and
+     * column
+     */
+    public synchronized List<Advice> advise(Map<String, BPlusTreeTableArray> database,
+        Map<String, BPlusTree<Number, Integer>> indexDatabase) {
+        List<Advice> advice = new ArrayList<>();
+
+        for (Map.Entry<String, BPlusTreeTableArray> entry : new TreeMap<>(database).entrySet()) {
+            String tableName = entry.getKey();
+            BPlusTreeTableArray table = entry.getValue();
+            TableStats stats = tables.getOrDefault(tableName, new TableStats());
+            double rows = table.getRows().getSize();
+
+            for (String column : table.getColumns()) {
+                ColumnStats columnStats = stats.columns.getOrDefault(column, new ColumnStats());
+                boolean indexed = indexDatabase.containsKey(
+                    Constants.getIndexTableName(tableName, column));
+
+                double predicates = columnStats.equalities
+                    + columnStats.ranges * Constants.INDEX_ADVISOR_RANGE_WEIGHT;
+                double writes = stats.rowWrites + columnStats.updates;
+                double benefit = predicates * rows;
+                double cost = writes * Constants.INDEX_ADVISOR_WRITE_COST;
+
+                String reason = String.format("%d =, %d range, %d other predicates, %d writes",
+                    Math.round(columnStats.equalities), Math.round(columnStats.ranges),
+                    Math.round(columnStats.others), Math.round(writes));
+
+                if (!indexed && predicates >= Constants.INDEX_ADVISOR_MIN_PREDICATES
+                    && benefit > cost) {
+                    advice.add(new Advice(Action.CREATE, tableName, column, reason));
+                } else if (indexed && writes >= Constants.INDEX_ADVISOR_MIN_PREDICATES
+                    && benefit < cost) {
+                    advice.add(new Advice(Action.DROP, tableName, column, reason));
+                }
+            }
+        }
+        return advice;
+    }
+
+    private TableStats table(String tableName) {
+        return tables.computeIfAbsent(tableName, key -> new TableStats());
+    }
+}
@@ -0,0 +1,117 @@
+package edu.smu.smusql.bplustreeA.planner;
+
+import edu.smu.smusql.bplustreeA.BPlusTree;
+import edu.smu.smusql.bplustreeA.RowStore;
+import edu.smu.smusql.bplustreeA.helper.PostingLists;
+import edu.smu.smusql.bplustreeA.lruCache.PostingListCache;
+import java.util.function.BiConsumer;
+
+/**
+ * Looks up primary keys in a column index tree, then fetches the rows from the main tree. Key
+ * lists are taken from and added to the posting list cache when the engine has one
+ */
+public class IndexScanNode extends KeyScanNode {
+
+    private final String indexName;
+    private final String columnName;
+    private final BPlusTree<Number, Integer> indexTree;
+    private final String operator;
+    private final Number value;
+    private final PostingListCache postingCache; // Null when caching is off
+
+    public IndexScanNode(String indexName, String columnName, BPlusTree<Number, Integer> indexTree,
+        RowStore mainTree, String operator, Number value,
+        double estimatedRows, PostingListCache postingCache) {
+        super(mainTree, estimatedRows);
+        this.indexName = indexName;
+        this.columnName = columnName;
+        this.indexTree = indexTree;
+        this.operator = operator;
+        this.value = value;
+        this.postingCache = postingCache;
+    }
+
+    @Override
+    public int[] executeKeys() {
+        if (indexTree.getSize() == 0) {
+            return PostingLists.EMPTY;
+        }
+        if (postingCache == null) {
+            return searchKeys();
+        }
+
+        int[] keys = postingCache.get(indexName, operator, value);
+        if (keys == null) {
+            keys = searchKeys();
+            postingCache.put(indexName, operator, value, keys);
+        }
+        return keys;
+    }
+
+    private int[] searchKeys() {
+
+        switch (operator) {
+            case "=":
+                return indexTree.rangeSearchPostings(value, true, value, true);
+            case "!=":
+            case "<>":
+                return PostingLists.union(
+                    indexTree.rangeSearchPostings(Double.NEGATIVE_INFINITY, true, value, false),
+                    indexTree.rangeSearchPostings(value, false, Double.POSITIVE_INFINITY, true));
+            case "<":
+                return indexTree.rangeSearchPostings(Double.NEGATIVE_INFINITY, true, value, false);
+            case "<=":
+                return indexTree.rangeSearchPostings(Double.NEGATIVE_INFINITY, true, value, true);
+            case ">":
+                return indexTree.rangeSearchPostings(value, false, Double.POSITIVE_INFINITY, true);
+            case ">=":
+                return indexTree.rangeSearchPostings(value, true, Double.POSITIVE_INFINITY, true);
+            default:
+                throw new IllegalArgumentException("Unsupported operator: " + operator);
+        }
+    }
+
+    /**
+     * Visits the matching (column value, primary key) pairs straight from the index leaves, for
+     * queries that need nothing from the row but this column
+     */
+    public void scanEntries(BiConsumer<Number, Integer> action) {
+        if (indexTree.getSize() == 0) {
+            return;
+        }
+
+        switch (operator) {
+            case "=":
+                indexTree.rangeForEach(value, true, value, true, action);
+                break;
+            case "!=":
+            case "<>":
+                indexTree.rangeForEach(Double.NEGATIVE_INFINITY, true, value, false, action);
+                indexTree.rangeForEach(value, false, Double.POSITIVE_INFINITY, true, action);
+                break;
+            case "<":
+                indexTree.rangeForEach(Double.NEGATIVE_INFINITY, true, value, false, action);
+                break;
+            case "<=":
+                indexTree.rangeForEach(Double.NEGATIVE_INFINITY, true, value, true, action);
+                break;
+            case ">":
+                indexTree.rangeForEach(value, false, Double.POSITIVE_INFINITY, true, action);
+                break;
+            case ">=":
+                indexTree.rangeForEach(value, true, Double.POSITIVE_INFINITY, true, action);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported operator: " + operator);
+        }
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    @Override
+    protected String describe() {
+        return "Index Scan using " + indexName + ": " + columnName + " " + operator + " " + value;
+    }
+}
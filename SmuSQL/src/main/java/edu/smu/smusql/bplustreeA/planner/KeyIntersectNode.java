@@ -0,0 +1,40 @@
+package edu.smu.smusql.bplustreeA.planner;
+
+import edu.smu.smusql.bplustreeA.RowStore;
+import edu.smu.smusql.bplustreeA.helper.PostingLists;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * AND of key scans, intersected on their sorted key lists so only rows matching every child are
+ * fetched. Children are ordered by estimated size, smallest first
+ */
+public class KeyIntersectNode extends KeyScanNode {
+
+    private final List<KeyScanNode> children;
+
+    public KeyIntersectNode(RowStore mainTree, List<KeyScanNode> children,
+        double estimatedRows) {
+        super(mainTree, estimatedRows);
+        this.children = children;
+    }
+
+    @Override
+    public int[] executeKeys() {
+        int[] keys = children.get(0).executeKeys();
+        for (int i = 1; i < children.size() && keys.length > 0; i++) {
+            keys = PostingLists.intersect(keys, children.get(i).executeKeys());
+        }
+        return keys;
+    }
+
+    @Override
+    protected String describe() {
+        return "Key Intersect";
+    }
+
+    @Override
+    protected List<PlanNode> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+}
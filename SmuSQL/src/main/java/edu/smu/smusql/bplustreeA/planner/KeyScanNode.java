@@ -0,0 +1,32 @@
+package edu.smu.smusql.bplustreeA.planner;
+
+import edu.smu.smusql.bplustreeA.RowStore;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Access path that can produce its matching primary keys before touching any row. Key lists are
+ * sorted and free of duplicates, so they combine with {@link edu.smu.smusql.bplustreeA.helper.PostingLists}
+ * and are fetched from the main tree in a single pass
+ */
+public abstract class KeyScanNode extends PlanNode {
+
+    protected final RowStore mainTree;
+
+    protected KeyScanNode(RowStore mainTree, double estimatedRows) {
+        super(estimatedRows);
+        this.mainTree = mainTree;
+    }
+
+    public abstract int[] executeKeys();
+
+    @Override
+    public Map<Integer, Object[]> execute() {
+        return mainTree.multiKeySearch(executeKeys());
+    }
+
+    @Override
+    public Iterator<Map.Entry<Integer, Object[]>> iterator() {
+        return mainTree.multiKeyIterator(executeKeys());
+    }
+}
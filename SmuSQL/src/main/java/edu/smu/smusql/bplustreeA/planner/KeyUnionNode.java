@@ -0,0 +1,39 @@
+package edu.smu.smusql.bplustreeA.planner;
+
+import edu.smu.smusql.bplustreeA.RowStore;
+import edu.smu.smusql.bplustreeA.helper.PostingLists;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * OR of key scans, merged on their sorted key lists before any row is fetched
+ */
+public class KeyUnionNode extends KeyScanNode {
+
+    private final List<KeyScanNode> children;
+
+    public KeyUnionNode(RowStore mainTree, List<KeyScanNode> children,
+        double estimatedRows) {
+        super(mainTree, estimatedRows);
+        this.children = children;
+    }
+
+    @Override
+    public int[] executeKeys() {
+        int[] keys = PostingLists.EMPTY;
+        for (KeyScanNode child : children) {
+            keys = PostingLists.union(keys, child.executeKeys());
+        }
+        return keys;
+    }
+
+    @Override
+    protected String describe() {
+        return "Key Union";
+    }
+
+    @Override
+    protected List<PlanNode> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+}
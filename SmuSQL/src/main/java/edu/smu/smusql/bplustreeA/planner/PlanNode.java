@@ -0,0 +1,60 @@
+package edu.smu.smusql.bplustreeA.planner;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Physical plan operator. Every operator produces the matching rows keyed by primary key
+ */
+public abstract class PlanNode {
+
+    private final double estimatedRows;
+
+    protected PlanNode(double estimatedRows) {
+        this.estimatedRows = estimatedRows;
+    }
+
+    public double getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    public abstract Map<Integer, Object[]> execute();
+
+    /**
+     * Matching rows pulled one at a time. Operators that can stream override this, the rest
+     * materialize through execute()
+     */
+    public Iterator<Map.Entry<Integer, Object[]>> iterator() {
+        return execute().entrySet().iterator();
+    }
+
+    /**
+     * One line description of this operator, used by EXPLAIN
+     */
+    protected abstract String describe();
+
+    protected List<PlanNode> getChildren() {
+        return Collections.emptyList();
+    }
+
+    public String explain() {
+        StringBuilder sb = new StringBuilder();
+        explain(sb, 0);
+        return sb.toString().trim();
+    }
+
+    private void explain(StringBuilder sb, int depth) {
+        for (int i = 0; i < depth; i++) {
+            sb.append("  ");
+        }
+        if (depth > 0) {
+            sb.append("-> ");
+        }
+        sb.append(describe()).append(String.format(" (rows=%.0f)", estimatedRows)).append('\n');
+        for (PlanNode child : getChildren()) {
+            child.explain(sb, depth + 1);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package edu.smu.smusql.bplustreeA.planner;
+
+import edu.smu.smusql.bplustreeA.RowStore;
+import edu.smu.smusql.bplustreeA.helper.PostingLists;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Point or range lookup directly on the main tree, which is keyed by primary key
+ */
+public class PrimaryKeyScanNode extends KeyScanNode {
+
+    private final String tableName;
+    private final String operator;
+    private final Integer value;
+
+    public PrimaryKeyScanNode(String tableName, RowStore mainTree,
+        String operator, Integer value, double estimatedRows) {
+        super(mainTree, estimatedRows);
+        this.tableName = tableName;
+        this.operator = operator;
+        this.value = value;
+    }
+
+    @Override
+    public int[] executeKeys() {
+        switch (operator) {
+            case "=":
+                List<Object[]> found = mainTree.search(value);
+                return found != null && !found.isEmpty() ? new int[]{value} : PostingLists.EMPTY;
+            case "!=":
+            case "<>":
+                return PostingLists.union(
+                    mainTree.rangeSearchKeys(Integer.MIN_VALUE, true, value, false),
+                    mainTree.rangeSearchKeys(value, false, Integer.MAX_VALUE, true));
+            case "<":
+                return mainTree.rangeSearchKeys(Integer.MIN_VALUE, true, value, false);
+            case "<=":
+                return mainTree.rangeSearchKeys(Integer.MIN_VALUE, true, value, true);
+            case ">":
+                return mainTree.rangeSearchKeys(value, false, Integer.MAX_VALUE, true);
+            case ">=":
+                return mainTree.rangeSearchKeys(value, true, Integer.MAX_VALUE, true);
+            default:
+                throw new IllegalArgumentException("Unsupported operator: " + operator);
+        }
+    }
+
+    /**
+     * Reads the rows straight off the main tree leaves instead of going through the key list
+     */
+    @Override
+    public Map<Integer, Object[]> execute() {
+        switch (operator) {
+            case "=":
+                Map<Integer, Object[]> row = new LinkedHashMap<>();
+                List<Object[]> found = mainTree.search(value);
+                if (found != null && !found.isEmpty()) {
+                    row.put(value, found.get(0));
+                }
+                return row;
+            case "!=":
+            case "<>":
+                Map<Integer, Object[]> rows = mainTree.rangeSearchKeyValues(Integer.MIN_VALUE,
+                    true, value, false);
+                rows.putAll(
+                    mainTree.rangeSearchKeyValues(value, false, Integer.MAX_VALUE, true));
+                return rows;
+            case "<":
+                return mainTree.rangeSearchKeyValues(Integer.MIN_VALUE, true, value, false);
+            case "<=":
+                return mainTree.rangeSearchKeyValues(Integer.MIN_VALUE, true, value, true);
+            case ">":
+                return mainTree.rangeSearchKeyValues(value, false, Integer.MAX_VALUE, true);
+            case ">=":
+                return mainTree.rangeSearchKeyValues(value, true, Integer.MAX_VALUE, true);
+            default:
+                throw new IllegalArgumentException("Unsupported operator: " + operator);
+        }
+    }
+
+    @Override
+    protected String describe() {
+        return (operator.equals("=") ? "Primary Key Lookup on " : "Primary Key Range Scan on ")
+            + tableName + ": id " + operator + " " + value;
+    }
+}
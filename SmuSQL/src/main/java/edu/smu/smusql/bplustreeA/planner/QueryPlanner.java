@@ -0,0 +1,279 @@
+package edu.smu.smusql.bplustreeA.planner;
+
+import edu.smu.smusql.Constants;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.ColumnNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.ConditionNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.LiteralNode;
+import edu.smu.smusql.bplustreeA.BPlusTree;
+import edu.smu.smusql.bplustreeA.RowStore;
+import edu.smu.smusql.bplustreeA.bplustreeArray.BPlusTreeTableArray;
+import edu.smu.smusql.bplustreeA.helper.Helper;
+import edu.smu.smusql.bplustreeA.lruCache.PostingListCache;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns a WHERE condition into a physical plan.
+ *
+ * An AND drives from its most selective indexed conjunct and checks the others as residual
+ * filters on the fetched rows, unless intersecting further index posting lists is cheaper than
+ * fetching and filtering. An OR becomes a union of its branches' plans, merged on primary keys
+ * when every branch is a key scan. Whenever the chosen access path is estimated to return most of
+ * the table, a sequential scan is used instead.
+ */
+public class QueryPlanner {
+
+    private final String tableName;
+    private final BPlusTreeTableArray table;
+    private final RowStore mainTree;
+    private final Map<String, BPlusTree<Number, Integer>> indexDatabase;
+    private final ConditionEvaluator evaluator;
+    private final double tableRows;
+    private final PostingListCache postingCache; // Null when caching is off
+
+    public QueryPlanner(String tableName, BPlusTreeTableArray table,
+        Map<String, BPlusTree<Number, Integer>> indexDatabase, PostingListCache postingCache) {
+        this.tableName = tableName;
+        this.table = table;
+        this.mainTree = table.getRows();
+        this.indexDatabase = indexDatabase;
+        this.evaluator = new ConditionEvaluator(table.getColumns());
+        this.tableRows = mainTree.getSize();
+        this.postingCache = postingCache;
+    }
+
+    public PlanNode plan(ConditionNode whereClause) {
+
+        if (whereClause == null) {
+            return new SeqScanNode(tableName, mainTree, null, evaluator, tableRows);
+        }
+
+        PlanNode access = planAccess(whereClause);
+
+        if (access == null
+            || access.getEstimatedRows() > tableRows * Constants.PLANNER_SEQ_SCAN_THRESHOLD) {
+            double estimate = access != null ? access.getEstimatedRows()
+                : tableRows * Constants.PLANNER_DEFAULT_SELECTIVITY;
+            return new SeqScanNode(tableName, mainTree, whereClause, evaluator, estimate);
+        }
+
+        return access;
+    }
+
+    /**
+     * Cheapest index driven plan for the condition, or null if some part of it can only be
+     * answered by scanning
+     */
+    private PlanNode planAccess(ConditionNode node) {
+
+        if (!node.isLogical()) {
+            return planPredicate(node);
+        }
+
+        switch (node.getOperator()) {
+            case "AND":
+                return planConjunction(node);
+            case "OR":
+                return planDisjunction(node);
+            default:
+                throw new RuntimeException("Unsupported logical operator: " + node.getOperator());
+        }
+    }
+
+    private PlanNode planConjunction(ConditionNode node) {
+        List<ConditionNode> conjuncts = new ArrayList<>();
+        flatten(node, "AND", conjuncts);
+
+        List<PlanNode> plans = new ArrayList<>();
+        int driver = -1;
+        for (int i = 0; i < conjuncts.size(); i++) {
+            PlanNode plan = planAccess(conjuncts.get(i));
+            plans.add(plan);
+            if (plan != null && (driver < 0
+                || plan.getEstimatedRows() < plans.get(driver).getEstimatedRows())) {
+                driver = i;
+            }
+        }
+
+        if (driver < 0) {
+            return null;
+        }
+
+        // Keep intersecting the next smallest key scan while reading its posting list is cheaper
+        // than fetching the rows it would have filtered out
+        PlanNode driverPlan = plans.get(driver);
+        double estimate = driverPlan.getEstimatedRows();
+        boolean[] consumed = new boolean[conjuncts.size()];
+        consumed[driver] = true;
+
+        if (driverPlan instanceof KeyScanNode) {
+            List<KeyScanNode> intersected = new ArrayList<>();
+            intersected.add((KeyScanNode) driverPlan);
+
+            int next;
+            while ((next = nextKeyScan(plans, consumed)) >= 0) {
+                PlanNode candidate = plans.get(next);
+                double filterCost = estimate * Constants.PLANNER_ROW_FETCH_COST;
+                double intersectCost = candidate.getEstimatedRows()
+                    + estimate * selectivity(candidate) * Constants.PLANNER_ROW_FETCH_COST;
+                if (intersectCost >= filterCost) {
+                    break;
+                }
+                intersected.add((KeyScanNode) candidate);
+                consumed[next] = true;
+                estimate *= selectivity(candidate);
+            }
+
+            if (intersected.size() > 1) {
+                driverPlan = new KeyIntersectNode(mainTree, intersected, estimate);
+            }
+        }
+
+        // Estimate the output assuming the residual predicates are independent
+        List<ConditionNode> residuals = new ArrayList<>();
+        for (int i = 0; i < conjuncts.size(); i++) {
+            if (consumed[i]) {
+                continue;
+            }
+            residuals.add(conjuncts.get(i));
+            estimate *= plans.get(i) != null ? selectivity(plans.get(i))
+                : Constants.PLANNER_DEFAULT_SELECTIVITY;
+        }
+
+        if (residuals.isEmpty()) {
+            return driverPlan;
+        }
+        return new FilterNode(driverPlan, residuals, evaluator, estimate);
+    }
+
+    private static int nextKeyScan(List<PlanNode> plans, boolean[] consumed) {
+        int best = -1;
+        for (int i = 0; i < plans.size(); i++) {
+            PlanNode plan = plans.get(i);
+            if (!consumed[i] && plan instanceof KeyScanNode && (best < 0
+                || plan.getEstimatedRows() < plans.get(best).getEstimatedRows())) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private PlanNode planDisjunction(ConditionNode node) {
+        List<ConditionNode> disjuncts = new ArrayList<>();
+        flatten(node, "OR", disjuncts);
+
+        List<PlanNode> children = new ArrayList<>();
+        List<KeyScanNode> keyScans = new ArrayList<>();
+        double estimate = 0;
+        for (ConditionNode disjunct : disjuncts) {
+            PlanNode plan = planAccess(disjunct);
+            if (plan == null) {
+                // One unindexable branch means every row has to be visited anyway
+                return null;
+            }
+            children.add(plan);
+            if (plan instanceof KeyScanNode) {
+                keyScans.add((KeyScanNode) plan);
+            }
+            estimate += plan.getEstimatedRows();
+        }
+
+        estimate = Math.min(estimate, tableRows);
+        if (keyScans.size() == children.size()) {
+            return new KeyUnionNode(mainTree, keyScans, estimate);
+        }
+        return new UnionNode(children, estimate);
+    }
+
+    private PlanNode planPredicate(ConditionNode node) {
+
+        if (!(node.getLeft() instanceof ColumnNode) || !(node.getRight() instanceof LiteralNode)) {
+            throw new RuntimeException("Unsupported simple condition structure");
+        }
+
+        String columnName = ((ColumnNode) node.getLeft()).getName();
+        LiteralNode literalNode = (LiteralNode) node.getRight();
+        String operator = node.getOperator();
+
+        if (columnName.equals("id")) {
+            Integer key = literalNode.getType() == LiteralNode.LiteralNodeType.NUMBER
+                ? literalNode.getIntegerValue()
+                : literalNode.getValue().hashCode();
+            return new PrimaryKeyScanNode(tableName, mainTree, operator, key,
+                estimatePrimaryKey(operator, key));
+        }
+
+        if (table.getColumnIndex(columnName) < 0) {
+            throw new RuntimeException("ERROR: Column " + columnName + " does not exist");
+        }
+
+        String indexTableName = Constants.getIndexTableName(tableName, columnName);
+        BPlusTree<Number, Integer> indexTree = indexDatabase.get(indexTableName);
+        Object literal = Helper.getValueFromLiteralNode(literalNode);
+        if (indexTree == null || !ConditionEvaluator.usesIndexKey(operator, literal)) {
+            return null;
+        }
+
+        Number value = Helper.convertToNumber(literal);
+        return new IndexScanNode(indexTableName, columnName, indexTree, mainTree, operator, value,
+            estimateIndex(indexTree, operator, value), postingCache);
+    }
+
+    private double estimatePrimaryKey(String operator, Integer key) {
+        if (operator.equals("=") || operator.equals("!=") || operator.equals("<>")) {
+            List<Object[]> found = mainTree.search(key);
+            double matches = found != null && !found.isEmpty() ? 1 : 0;
+            return operator.equals("=") ? matches : tableRows - matches;
+        }
+        return tableRows * rangeFraction(mainTree.getMinKey(), mainTree.getMaxKey(), key,
+            operator);
+    }
+
+    private double estimateIndex(BPlusTree<Number, Integer> indexTree, String operator,
+        Number value) {
+        double entries = indexTree.getSize();
+        if (operator.equals("=") || operator.equals("!=") || operator.equals("<>")) {
+            // An equality probe is a single descent, counted from list sizes without building
+            // the posting list a sequential scan may make unnecessary
+            double matches = indexTree.rangeCount(value, true, value, true);
+            return operator.equals("=") ? matches : entries - matches;
+        }
+        return entries * rangeFraction(indexTree.getMinKey(), indexTree.getMaxKey(), value,
+            operator);
+    }
+
+    /**
+     * Fraction of [min, max] on the requested side of value, assuming uniformly spread keys
+     */
+    private static double rangeFraction(Number min, Number max, Number value, String operator) {
+        if (min == null || max == null) {
+            return 0;
+        }
+
+        double low = min.doubleValue();
+        double high = max.doubleValue();
+        double v = value.doubleValue();
+        boolean below = operator.equals("<") || operator.equals("<=");
+
+        if (high <= low) {
+            return ConditionEvaluator.compare(Double.compare(low, v), operator) ? 1 : 0;
+        }
+
+        double fractionBelow = Math.max(0, Math.min(1, (v - low) / (high - low)));
+        return below ? fractionBelow : 1 - fractionBelow;
+    }
+
+    private double selectivity(PlanNode plan) {
+        return tableRows == 0 ? 0 : Math.min(1, plan.getEstimatedRows() / tableRows);
+    }
+
+    private static void flatten(ConditionNode node, String operator, List<ConditionNode> out) {
+        if (node.isLogical() && node.getOperator().equals(operator)) {
+            flatten((ConditionNode) node.getLeft(), operator, out);
+            flatten((ConditionNode) node.getRight(), operator, out);
+        } else {
+            out.add(node);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package edu.smu.smusql.bplustreeA.planner;
+
+import edu.smu.smusql.bplustreeA.AstParser.nodes.ConditionNode;
+import edu.smu.smusql.bplustreeA.RowStore;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Walks every leaf of the main tree and keeps the rows matching the filter, if any
+ */
+public class SeqScanNode extends PlanNode {
+
+    private final String tableName;
+    private final RowStore mainTree;
+    private final ConditionNode filter;
+    private final ConditionEvaluator evaluator;
+
+    public SeqScanNode(String tableName, RowStore mainTree,
+        ConditionNode filter, ConditionEvaluator evaluator, double estimatedRows) {
+        super(estimatedRows);
+        this.tableName = tableName;
+        this.mainTree = mainTree;
+        this.filter = filter;
+        this.evaluator = evaluator;
+    }
+
+    @Override
+    public Map<Integer, Object[]> execute() {
+        Map<Integer, Object[]> rows = mainTree.getAllKeyValues();
+        if (filter != null) {
+            rows.entrySet().removeIf(
+                entry -> !evaluator.matches(filter, entry.getKey(), entry.getValue()));
+        }
+        return rows;
+    }
+
+    @Override
+    public Iterator<Map.Entry<Integer, Object[]>> iterator() {
+        Iterator<Map.Entry<Integer, Object[]>> rows = mainTree.entryIterator();
+        if (filter == null) {
+            return rows;
+        }
+        return new FilteredIterator(rows,
+            entry -> evaluator.matches(filter, entry.getKey(), entry.getValue()));
+    }
+
+    @Override
+    protected String describe() {
+        return "Seq Scan on " + tableName + (filter != null ? " filter: " + filter : "");
+    }
+}
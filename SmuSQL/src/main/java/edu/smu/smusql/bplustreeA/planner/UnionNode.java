@@ -0,0 +1,37 @@
+package edu.smu.smusql.bplustreeA.planner;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OR of several access paths, rows reached by more than one branch are kept once
+ */
+public class UnionNode extends PlanNode {
+
+    private final List<PlanNode> children;
+
+    public UnionNode(List<PlanNode> children, double estimatedRows) {
+        super(estimatedRows);
+        this.children = children;
+    }
+
+    @Override
+    public Map<Integer, Object[]> execute() {
+        Map<Integer, Object[]> rows = new HashMap<>();
+        for (PlanNode child : children) {
+            rows.putAll(child.execute());
+        }
+        return rows;
+    }
+
+    @Override
+    protected String describe() {
+        return "Union";
+    }
+
+    @Override
+    protected List<PlanNode> getChildren() {
+        return children;
+    }
+}
@@ -0,0 +1,182 @@
+package edu.smu.smusql.bplustreeA.wal;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Describes the last checkpoint: every table with its columns, its {@link SnapshotFile} and its
+ * indexes, and how far into the write-ahead log the snapshot already reaches. Replaced
+ * atomically, so a crash during a checkpoint leaves the previous one in place.
+ */
+public class SnapshotCatalog {
+
+    public static final String FILE_NAME = "catalog";
+    private static final int MAGIC = 0x534D5343; // "SMSC"
+
+    public static final class TableEntry {
+        private final String name;
+        private final List<String> columns;
+        private final String file;
+        private final Map<String, String> indexes; // Index name to column
+
+        public TableEntry(String name, List<String> columns, String file,
+            Map<String, String> indexes) {
+            this.name = name;
+            this.columns = columns;
+            this.file = file;
+            this.indexes = indexes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<String> getColumns() {
+            return columns;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public Map<String, String> getIndexes() {
+            return indexes;
+        }
+    }
+
+    private final long generation;
+    private final long logOffset;
+    private final List<TableEntry> tables;
+
+    public SnapshotCatalog(long generation, long logOffset, List<TableEntry> tables) {
+        this.generation = generation;
+        this.logOffset = logOffset;
+        this.tables = tables;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Bytes at the start of the write-ahead log whose changes the snapshot already holds
+     */
+    public long getLogOffset() {
+        return logOffset;
+    }
+
+    public List<TableEntry> getTables() {
+        return tables;
+    }
+
+    public SnapshotCatalog withLogOffset(long logOffset) {
+        return new SnapshotCatalog(generation, logOffset, tables);
+    }
+
+    public void write(Path dir) throws IOException {
+        Path temp = dir.resolve(FILE_NAME + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+            DataOutputStream out = new DataOutputStream(file)) {
+            out.writeInt(MAGIC);
+            out.writeLong(generation);
+            out.writeLong(logOffset);
+            out.writeInt(tables.size());
+            for (TableEntry table : tables) {
+                out.writeUTF(table.name);
+                out.writeUTF(table.file);
+                out.writeInt(table.columns.size());
+                for (String column : table.columns) {
+                    out.writeUTF(column);
+                }
+                out.writeInt(table.indexes.size());
+                for (Map.Entry<String, String> index : table.indexes.entrySet()) {
+                    out.writeUTF(index.getKey());
+                    out.writeUTF(index.getValue());
+                }
+            }
+            out.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(temp, dir.resolve(FILE_NAME), StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads the catalog in the directory, or returns null if no checkpoint was taken there
+     */
+    public static SnapshotCatalog read(Path dir) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+            Files.newInputStream(dir.resolve(FILE_NAME)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(dir.resolve(FILE_NAME) + " is not a snapshot catalog");
+            }
+            long generation = in.readLong();
+            long logOffset = in.readLong();
+            int tableCount = in.readInt();
+
+            List<TableEntry> tables = new ArrayList<>(tableCount);
+            for (int t = 0; t < tableCount; t++) {
+                String name = in.readUTF();
+                String file = in.readUTF();
+                List<String> columns = new ArrayList<>();
+                for (int c = in.readInt(); c > 0; c--) {
+                    columns.add(in.readUTF());
+                }
+                Map<String, String> indexes = new LinkedHashMap<>();
+                for (int i = in.readInt(); i > 0; i--) {
+                    indexes.put(in.readUTF(), in.readUTF());
+                }
+                tables.add(new TableEntry(name, columns, file, indexes));
+            }
+            return new SnapshotCatalog(generation, logOffset, tables);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the snapshot files of earlier checkpoints
+     */
+    public void deleteUnreferenced(Path dir) throws IOException {
+        Set<String> keep = new HashSet<>();
+        keep.add(FILE_NAME);
+        for (TableEntry table : tables) {
+            keep.add(table.file);
+        }
+        deleteFiles(dir, keep);
+    }
+
+    /**
+     * Deletes the catalog and every snapshot file, leaving no checkpoint behind
+     */
+    public static void deleteAll(Path dir) throws IOException {
+        if (Files.isDirectory(dir)) {
+            // Catalog first, so a crash midway never leaves it naming deleted files
+            Files.deleteIfExists(dir.resolve(FILE_NAME));
+            deleteFiles(dir, Set.of());
+        }
+    }
+
+    private static void deleteFiles(Path dir, Set<String> keep) throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(dir)) {
+            files = listing.filter(file -> !keep.contains(file.getFileName().toString())).toList();
+        }
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package edu.smu.smusql.bplustreeA.wal;
+
+import edu.smu.smusql.Constants;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Binary copy of one table's rows in primary key order: a header of magic, column count and row
+ * count, then per row the primary key and its tagged values, encoded as in {@link WalRecord}.
+ * Rows are written straight from the main tree's leaves and read back in the order a bulk load
+ * needs, with no SQL parsing either way.
+ */
+public final class SnapshotFile {
+
+    private static final int MAGIC = 0x534D5351; // "SMSQ"
+
+    private SnapshotFile() {
+    }
+
+    public static class Rows {
+        public final int[] keys;
+        public final Object[][] values;
+
+        Rows(int[] keys, Object[][] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        public int size() {
+            return keys.length;
+        }
+    }
+
+    /**
+     * Writes the rows and forces the file to disk
+     */
+    public static void write(Path path, int columnCount, int rowCount,
+        Iterator<Map.Entry<Integer, Object[]>> rows) throws IOException {
+        try (FileOutputStream file = new FileOutputStream(path.toFile());
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(file, Constants.SNAPSHOT_BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(columnCount);
+            out.writeInt(rowCount);
+
+            int written = 0;
+            while (rows.hasNext()) {
+                Map.Entry<Integer, Object[]> row = rows.next();
+                out.writeInt(row.getKey());
+                for (Object value : row.getValue()) {
+                    WalRecord.writeValue(out, value);
+                }
+                written++;
+            }
+            if (written != rowCount) {
+                throw new IOException("Expected " + rowCount + " rows but wrote " + written);
+            }
+
+            out.flush();
+            file.getChannel().force(true);
+        }
+    }
+
+    /**
+     * Reads the rows through a memory mapping of the file, so decoding copies straight out of the
+     * page cache without a read call per buffer. Files too large to map in one piece are streamed
+     */
+    public static Rows read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() <= Integer.MAX_VALUE) {
+                MappedByteBuffer mapped = channel.map(MapMode.READ_ONLY, 0, channel.size());
+                return read(path, new DataInputStream(new ByteBufferInputStream(mapped)));
+            }
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+            Files.newInputStream(path), Constants.SNAPSHOT_BUFFER_SIZE))) {
+            return read(path, in);
+        }
+    }
+
+    private static Rows read(Path path, DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException(path + " is not a snapshot file");
+        }
+        int columnCount = in.readInt();
+        int rowCount = in.readInt();
+
+        int[] keys = new int[rowCount];
+        Object[][] values = new Object[rowCount][];
+        for (int i = 0; i < rowCount; i++) {
+            keys[i] = in.readInt();
+            Object[] row = new Object[columnCount];
+            for (int c = 0; c < columnCount; c++) {
+                row[c] = WalRecord.readValue(in);
+            }
+            values[i] = row;
+        }
+        return new Rows(keys, values);
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
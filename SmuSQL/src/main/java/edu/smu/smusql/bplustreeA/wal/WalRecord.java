@@ -0,0 +1,148 @@
+package edu.smu.smusql.bplustreeA.wal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * One logical change in the write-ahead log. Row changes carry the table, the primary key and
+ * for inserts and updates the full row, catalog changes carry the statement that redoes them.
+ */
+public class WalRecord {
+
+    public enum Type {
+        INSERT, UPDATE, DELETE, STATEMENT
+    }
+
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte FLOAT = 2;
+    private static final byte STRING = 3;
+
+    private final Type type;
+    private final String table; // The statement for STATEMENT records
+    private final int key;
+    private final Object[] row;
+
+    private WalRecord(Type type, String table, int key, Object[] row) {
+        this.type = type;
+        this.table = table;
+        this.key = key;
+        this.row = row;
+    }
+
+    public static WalRecord insert(String table, int key, Object[] row) {
+        return new WalRecord(Type.INSERT, table, key, row);
+    }
+
+    public static WalRecord update(String table, int key, Object[] row) {
+        return new WalRecord(Type.UPDATE, table, key, row);
+    }
+
+    public static WalRecord delete(String table, int key) {
+        return new WalRecord(Type.DELETE, table, key, null);
+    }
+
+    public static WalRecord statement(String sql) {
+        return new WalRecord(Type.STATEMENT, sql, 0, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getStatement() {
+        return table;
+    }
+
+    public int getKey() {
+        return key;
+    }
+
+    public Object[] getRow() {
+        return row;
+    }
+
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type.ordinal());
+            switch (type) {
+                case INSERT:
+                case UPDATE:
+                    out.writeUTF(table);
+                    out.writeInt(key);
+                    out.writeShort(row.length);
+                    for (Object value : row) {
+                        writeValue(out, value);
+                    }
+                    break;
+                case DELETE:
+                    out.writeUTF(table);
+                    out.writeInt(key);
+                    break;
+                default:
+                    out.writeUTF(table);
+                    break;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // In memory, cannot happen
+        }
+        return bytes.toByteArray();
+    }
+
+    static WalRecord decode(DataInputStream in) throws IOException {
+        Type type = Type.values()[in.readUnsignedByte()];
+        switch (type) {
+            case INSERT:
+            case UPDATE: {
+                String table = in.readUTF();
+                int key = in.readInt();
+                Object[] row = new Object[in.readUnsignedShort()];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = readValue(in);
+                }
+                return new WalRecord(type, table, key, row);
+            }
+            case DELETE:
+                return delete(in.readUTF(), in.readInt());
+            default:
+                return statement(in.readUTF());
+        }
+    }
+
+    static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else {
+            out.writeByte(STRING);
+            out.writeUTF(value.toString());
+        }
+    }
+
+    static Object readValue(DataInputStream in) throws IOException {
+        switch (in.readUnsignedByte()) {
+            case NULL:
+                return null;
+            case INT:
+                return in.readInt();
+            case FLOAT:
+                return in.readFloat();
+            case STRING:
+                return in.readUTF();
+            default:
+                throw new IOException("Unknown value tag");
+        }
+    }
+}
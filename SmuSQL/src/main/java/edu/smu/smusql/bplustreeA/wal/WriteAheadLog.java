@@ -0,0 +1,357 @@
+package edu.smu.smusql.bplustreeA.wal;
+
+import edu.smu.smusql.Constants;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append only log of {@link WalRecord}s. Each record is framed as a 4 byte length, a CRC32 of the
+ * payload and the payload, so a write torn by a crash is detected and cut off when the log is
+ * opened again.
+ *
+ * Appends only copy the record into an in memory buffer. {@link #commit()} makes the calling
+ * thread's appends durable with group commit: the first thread to arrive writes out everything
+ * buffered so far and forces it to disk once, while threads arriving meanwhile wait and are
+ * usually covered by that same force or by the next one. One fsync thus serves every writer that
+ * committed while the previous fsync was running.
+ */
+public class WriteAheadLog implements AutoCloseable {
+
+    public enum Durability {
+        SYNC,     // commit() returns once the records are on disk
+        INTERVAL, // records are forced every WAL_FLUSH_INTERVAL_MS, commit() does not wait
+        OFF       // records are written to the file but never forced
+    }
+
+    private static final int HEADER_BYTES = 8;
+
+    private final Path path;
+    private final Durability durability;
+    private final FileChannel channel;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    private final ThreadLocal<long[]> lastLsn = ThreadLocal.withInitial(() -> new long[1]);
+    private final ScheduledExecutorService flusher;
+
+    // Guarded by lock
+    private Buffer pending = new Buffer();
+    private Buffer spare = new Buffer();
+    private long appendedLsn;
+    private long writtenLsn;
+    private long forcedLsn;
+    private boolean flushing;
+    private IOException failure;
+    private boolean closed;
+
+    /**
+     * Opens or creates the log, dropping a torn or corrupt tail left by a crash
+     */
+    public WriteAheadLog(Path path, Durability durability) throws IOException {
+        this.path = path;
+        this.durability = durability;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        long validLength = scan(0, null);
+        if (validLength < channel.size()) {
+            channel.truncate(validLength);
+            channel.force(true);
+        }
+        channel.position(validLength);
+
+        if (durability == Durability.SYNC) {
+            this.flusher = null;
+        } else {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "smusql-wal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, Constants.WAL_FLUSH_INTERVAL_MS,
+                Constants.WAL_FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Hands every record that survived the last shutdown or crash to the consumer, in log order.
+     * Must be called before anything is appended
+     */
+    public void replay(Consumer<WalRecord> consumer) throws IOException {
+        scan(0, consumer);
+    }
+
+    /**
+     * Replays the records from a record boundary on, such as the log offset of a checkpoint
+     */
+    public void replay(long from, Consumer<WalRecord> consumer) throws IOException {
+        scan(from, consumer);
+    }
+
+    /**
+     * Bytes in the log file. Records still buffered are not counted, {@link #sync()} first
+     */
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Reads records from a record boundary up to the first incomplete or corrupt one and returns
+     * where that one begins
+     */
+    private long scan(long from, Consumer<WalRecord> consumer) throws IOException {
+        long size = channel.size();
+        long position = from;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        CRC32 crc = new CRC32();
+
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(header, position);
+            int length = header.getInt(0);
+            long checksum = header.getInt(4) & 0xFFFFFFFFL;
+            if (length <= 0 || position + HEADER_BYTES + length > size) {
+                break;
+            }
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, position + HEADER_BYTES);
+            crc.reset();
+            crc.update(payload.array(), 0, length);
+            if (crc.getValue() != checksum) {
+                break;
+            }
+
+            if (consumer != null) {
+                consumer.accept(WalRecord.decode(
+                    new DataInputStream(new ByteArrayInputStream(payload.array()))));
+            }
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of " + path);
+            }
+        }
+    }
+
+    /**
+     * Buffers the record and returns its log sequence number. The record is not durable until
+     * {@link #commit()}, though a buffer past WAL_BUFFER_SIZE is written out straight away
+     */
+    public long append(WalRecord record) {
+        byte[] payload = record.encode();
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        long lsn;
+        boolean full;
+
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("ERROR: Write-ahead log is closed");
+            }
+            pending.putInt(payload.length);
+            pending.putInt((int) crc.getValue());
+            pending.put(payload);
+            lsn = ++appendedLsn;
+            full = pending.size >= Constants.WAL_BUFFER_SIZE;
+        } finally {
+            lock.unlock();
+        }
+
+        lastLsn.get()[0] = lsn;
+        if (full) {
+            // Bounds the buffer during large statements such as COPY, forcing is left to commit
+            flush(lsn, false);
+        }
+        return lsn;
+    }
+
+    /**
+     * Makes the calling thread's appends durable as the durability mode promises. In SYNC mode
+     * this blocks until they are forced to disk, in the other modes the flusher takes care of them
+     */
+    public void commit() {
+        if (durability == Durability.SYNC) {
+            flush(lastLsn.get()[0], true);
+        }
+    }
+
+    /**
+     * Writes and forces everything appended so far, whatever the durability mode
+     */
+    public void sync() {
+        flush(appendedLsn(), true);
+    }
+
+    private long appendedLsn() {
+        lock.lock();
+        try {
+            return appendedLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns once every record up to lsn is written, and forced if force is set. A thread that
+     * finds no flush running becomes the leader: it takes the whole buffer, writes it outside the
+     * lock and wakes the waiting threads, which either find their records covered or lead the
+     * next flush
+     */
+    private void flush(long lsn, boolean force) {
+        lock.lock();
+        try {
+            while ((force ? forcedLsn : writtenLsn) < lsn) {
+                if (failure != null) {
+                    throw new UncheckedIOException("ERROR: Write-ahead log failed", failure);
+                }
+                if (flushing) {
+                    flushed.awaitUninterruptibly();
+                    continue;
+                }
+
+                flushing = true;
+                Buffer batch = pending;
+                pending = spare;
+                long batchLsn = appendedLsn;
+                lock.unlock();
+
+                IOException error = null;
+                try {
+                    batch.writeTo(channel);
+                    if (force) {
+                        channel.force(false);
+                    }
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    lock.lock();
+                }
+
+                batch.size = 0;
+                spare = batch;
+                flushing = false;
+                if (error != null) {
+                    // The batch is lost, so nothing after it may be reported durable either
+                    failure = error;
+                } else {
+                    writtenLsn = batchLsn;
+                    if (force) {
+                        // Forcing the file also covers earlier batches written without a force
+                        forcedLsn = batchLsn;
+                    }
+                }
+                flushed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush(appendedLsn(), durability == Durability.INTERVAL);
+        } catch (RuntimeException e) {
+            System.err.println("Write-ahead log flush failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Empties the log, for a database that was cleared or checkpointed. Callers must keep other
+     * threads from appending meanwhile
+     */
+    public void truncate() throws IOException {
+        sync();
+        lock.lock();
+        try {
+            while (flushing) {
+                flushed.awaitUninterruptibly();
+            }
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            // Not shutdownNow, interrupting a thread inside a channel write closes the channel
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        sync();
+        lock.lock();
+        try {
+            closed = true;
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Growable byte buffer, swapped between appenders and the flushing thread
+    private static final class Buffer {
+        byte[] bytes = new byte[4096];
+        int size;
+
+        void putInt(int value) {
+            ensure(4);
+            bytes[size++] = (byte) (value >>> 24);
+            bytes[size++] = (byte) (value >>> 16);
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) value;
+        }
+
+        void put(byte[] data) {
+            ensure(data.length);
+            System.arraycopy(data, 0, bytes, size, data.length);
+            size += data.length;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+
+        void writeTo(FileChannel channel) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, size);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
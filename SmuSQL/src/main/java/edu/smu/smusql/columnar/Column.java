@@ -0,0 +1,79 @@
+package edu.smu.smusql.columnar;
+
+import edu.smu.smusql.Constants;
+
+/**
+ * One column of a {@link ColumnarTable}, its values stored by row id in a primitive array of the
+ * column's type. Predicates are evaluated a 64 row word at a time into a bitmap.
+ */
+abstract class Column {
+
+    interface RowFilter {
+        /**
+         * Sets bit i - from of the words from offset on for each matching row i in [from, to),
+         * from is a multiple of 64
+         */
+        void select(int from, int to, long[] out, int offset);
+    }
+
+    abstract Object get(int row);
+
+    /**
+     * Stores the value, or returns false if it does not fit the column's type
+     */
+    abstract boolean set(int row, Object value);
+
+    /**
+     * Binds the predicate to this column's values. Only valid until the column is next written
+     */
+    abstract RowFilter filter(Predicate predicate);
+
+    /**
+     * A column typed for its first value
+     */
+    static Column forValue(Object value) {
+        if (value instanceof Integer) {
+            return new IntColumn();
+        } else if (value instanceof Float) {
+            return new FloatColumn();
+        } else if (value instanceof String) {
+            return new StringColumn();
+        }
+        return new ObjectColumn();
+    }
+
+    /**
+     * Copies the first size rows into a column that holds any value, for a value the typed
+     * column cannot store
+     */
+    ObjectColumn toObjectColumn(int size) {
+        ObjectColumn column = new ObjectColumn();
+        for (int row = 0; row < size; row++) {
+            column.set(row, get(row));
+        }
+        return column;
+    }
+
+    static int grow(int capacity, int row) {
+        return Math.max(Math.max(capacity * 2, row + 1), Constants.COLUMNAR_INITIAL_CAPACITY);
+    }
+
+    // The low n bits set
+    static long mask(int n) {
+        return n == 64 ? -1L : (1L << n) - 1;
+    }
+
+    // Flips the bits of the rows in [from, to), from is a multiple of 64
+    static void negate(int from, int to, long[] out, int offset) {
+        for (int base = from, w = offset; base < to; base += 64, w++) {
+            out[w] = ~out[w] & mask(Math.min(64, to - base));
+        }
+    }
+
+    // Sets the bits of the rows in [from, to) to the value
+    static void fill(int from, int to, long[] out, int offset, boolean value) {
+        for (int base = from, w = offset; base < to; base += 64, w++) {
+            out[w] = value ? mask(Math.min(64, to - base)) : 0L;
+        }
+    }
+}
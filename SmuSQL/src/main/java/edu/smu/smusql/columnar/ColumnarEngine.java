@@ -0,0 +1,317 @@
+package edu.smu.smusql.columnar;
+
+import edu.smu.smusql.IEngine;
+import edu.smu.smusql.IteratorResultSet;
+import edu.smu.smusql.ResultSet;
+import edu.smu.smusql.bplustreeA.AstParser.AstParser;
+import edu.smu.smusql.bplustreeA.AstParser.Tokenizer;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.ASTNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.AssignmentNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.ColumnNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.ConditionNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.CreateTableNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.DeleteNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.ExpressionNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.InsertNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.LiteralNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.MultiInsertNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.SelectNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.UpdateNode;
+import edu.smu.smusql.bplustreeA.helper.Aggregator;
+import edu.smu.smusql.bplustreeA.helper.Helper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Engine storing each table column by column, see {@link ColumnarTable}. It speaks the same SQL
+ * as the B+ tree engines and formats results the same way, but has no secondary indexes: every
+ * WHERE clause is a scan, made cheap by reading only the columns it names from primitive arrays.
+ */
+public class ColumnarEngine implements IEngine {
+
+    // Concurrent so statements on different tables can run together, see ConcurrentEngine
+    private final Map<String, ColumnarTable> database = new ConcurrentHashMap<>();
+
+    @Override
+    public String executeSQL(String query) {
+        ASTNode statement = parse(query);
+
+        if (statement instanceof InsertNode) {
+            return insert((InsertNode) statement);
+        } else if (statement instanceof MultiInsertNode) {
+            return insertMany((MultiInsertNode) statement);
+        } else if (statement instanceof SelectNode) {
+            return select((SelectNode) statement);
+        } else if (statement instanceof UpdateNode) {
+            return update((UpdateNode) statement);
+        } else if (statement instanceof DeleteNode) {
+            return delete((DeleteNode) statement);
+        } else if (statement instanceof CreateTableNode) {
+            return create((CreateTableNode) statement);
+        } else {
+            return "Unsupported SQL statement";
+        }
+    }
+
+    @Override
+    public ResultSet executeQuery(String query) {
+        ASTNode statement = parse(query);
+
+        if (!(statement instanceof SelectNode)) {
+            throw new RuntimeException("ERROR: executeQuery only runs SELECT statements");
+        }
+        return query((SelectNode) statement);
+    }
+
+    private static ASTNode parse(String query) {
+        return new AstParser(Tokenizer.tokenize(query)).parse();
+    }
+
+    @Override
+    public void clearDatabase() {
+        database.clear();
+    }
+
+    private ColumnarTable retrieveTable(String tableName) {
+        ColumnarTable table = database.get(tableName);
+        if (table == null) {
+            throw new RuntimeException("ERROR: Table " + tableName + " does not exist");
+        }
+        return table;
+    }
+
+    public String create(CreateTableNode node) {
+        String tableName = node.getTableName();
+        if (database.containsKey(tableName)) {
+            throw new RuntimeException("Table " + tableName + " already exist");
+        }
+
+        database.put(tableName, new ColumnarTable(node.getColumns()));
+        return "Table " + tableName + " created successfully";
+    }
+
+    public String insert(InsertNode node) {
+        ColumnarTable table = retrieveTable(node.getTableName());
+        int row = table.insert(node.getPrimaryKey().getIntegerValue(), toRowData(table, node));
+        return row < 0 ? "0 row inserted, primary key already exists"
+            : "1 row inserted successfully";
+    }
+
+    /**
+     * Every row is checked before any is stored, so a malformed row rejects the statement
+     */
+    private String insertMany(MultiInsertNode node) {
+        ColumnarTable table = retrieveTable(node.getTableName());
+        List<Object[]> rows = new ArrayList<>(node.getRows().size());
+        for (InsertNode row : node.getRows()) {
+            rows.add(toRowData(table, row));
+        }
+
+        int count = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            if (table.insert(node.getRows().get(i).getPrimaryKey().getIntegerValue(),
+                rows.get(i)) >= 0) {
+                count++;
+            }
+        }
+
+        int skipped = rows.size() - count;
+        String message = count + (count == 1 ? " row" : " rows") + " inserted successfully";
+        return skipped > 0 ? message + ", " + skipped + " skipped, primary key already exists"
+            : message;
+    }
+
+    private static Object[] toRowData(ColumnarTable table, InsertNode node) {
+        List<ExpressionNode> values = node.getValues();
+        if (values.size() != table.getColumnCount()) {
+            throw new RuntimeException("ERROR: Column count does not match value count");
+        }
+
+        Object[] rowData = new Object[values.size()];
+        for (int i = 0; i < values.size(); i++) {
+            rowData[i] = Helper.getValueFromLiteralNode((LiteralNode) values.get(i));
+        }
+        return rowData;
+    }
+
+    public String select(SelectNode node) {
+        if (node.isAggregate()) {
+            return Aggregator.format(query(node));
+        }
+        ResultSet resultSet = query(node);
+        List<String> columns = resultSet.getColumnNames();
+
+        StringBuilder sb = new StringBuilder(String.join("\t", columns)).append('\n');
+        if (!resultSet.next()) {
+            return sb.toString();
+        }
+        do {
+            for (int i = 1; i <= columns.size(); i++) {
+                sb.append(resultSet.getObject(i)).append('\t');
+            }
+            sb.append('\n');
+        } while (resultSet.next());
+        return sb.toString().trim();
+    }
+
+    /**
+     * Rows in primary key order, the primary key followed by the selected columns, or a single
+     * row with one column per aggregate
+     */
+    public ResultSet query(SelectNode node) {
+        if (node.isAggregate()) {
+            return Aggregator.aggregate(node, query(Aggregator.scanOf(node)));
+        }
+        ColumnarTable table = retrieveTable(node.getTableName());
+        int[] projection = resolveProjection(table, node.getColumns());
+        int[] rows = matchingRows(table, node.getWhereClause(), true);
+
+        List<String> columnNames = new ArrayList<>();
+        columnNames.add("id");
+        for (int column : projection) {
+            columnNames.add(table.getColumns().get(column));
+        }
+
+        return new IteratorResultSet(columnNames, new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < rows.length;
+            }
+
+            @Override
+            public Object[] next() {
+                if (next >= rows.length) {
+                    throw new NoSuchElementException();
+                }
+                int row = rows[next++];
+                Object[] values = new Object[projection.length + 1];
+                values[0] = table.getKey(row);
+                for (int i = 0; i < projection.length; i++) {
+                    values[i + 1] = table.get(row, projection[i]);
+                }
+                return values;
+            }
+        });
+    }
+
+    private static int[] resolveProjection(ColumnarTable table, List<String> selected) {
+        if (selected.size() == 1 && selected.get(0).equals("*")) {
+            int[] all = new int[table.getColumnCount()];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] projection = new int[selected.size()];
+        int n = 0;
+        for (String column : selected) {
+            if (column.equals("id")) {
+                continue;
+            }
+            int columnIndex = table.getColumnIndex(column);
+            if (columnIndex < 0) {
+                throw new RuntimeException("ERROR: Column " + column + " does not exist");
+            }
+            projection[n++] = columnIndex;
+        }
+        return Arrays.copyOf(projection, n);
+    }
+
+    /**
+     * Row ids matching the condition. A lone primary key equality is a hash lookup, anything else
+     * a scan. Sorted by primary key if asked, otherwise in row id order
+     */
+    private static int[] matchingRows(ColumnarTable table, ConditionNode where,
+        boolean keyOrder) {
+        if (where != null && !where.isLogical() && where.getOperator().equals("=")
+            && where.getLeft() instanceof ColumnNode
+            && ((ColumnNode) where.getLeft()).getName().equals("id")
+            && where.getRight() instanceof LiteralNode
+            && ((LiteralNode) where.getRight()).getType() == LiteralNode.LiteralNodeType.NUMBER) {
+            int row = table.rowOf(((LiteralNode) where.getRight()).getIntegerValue());
+            return row < 0 ? new int[0] : new int[]{row};
+        }
+
+        long[] bitmap = table.select(where);
+        int count = 0;
+        for (long word : bitmap) {
+            count += Long.bitCount(word);
+        }
+
+        int[] rows = new int[count];
+        int n = 0;
+        for (int w = 0; w < bitmap.length; w++) {
+            for (long word = bitmap[w]; word != 0; word &= word - 1) {
+                rows[n++] = (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+        }
+        if (!keyOrder) {
+            return rows;
+        }
+
+        // Sort (primary key, row id) pairs packed into longs, keys are signed so they sort first
+        long[] byKey = new long[count];
+        for (int i = 0; i < count; i++) {
+            byKey[i] = ((long) table.getKey(rows[i]) << 32) | rows[i];
+        }
+        Arrays.sort(byKey);
+        for (int i = 0; i < count; i++) {
+            rows[i] = (int) byKey[i];
+        }
+        return rows;
+    }
+
+    public String update(UpdateNode node) {
+        ColumnarTable table = retrieveTable(node.getTableName());
+        if (table.rowCount() == 0) {
+            return "0 row(s) updated, no rows found";
+        }
+
+        int[] columns = new int[node.getAssignments().size()];
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            AssignmentNode assignment = node.getAssignments().get(i);
+            columns[i] = table.getColumnIndex(assignment.getColumn());
+            if (columns[i] < 0) {
+                throw new RuntimeException(
+                    "ERROR: Column " + assignment.getColumn() + " does not exist");
+            }
+            values[i] = Helper.getValueFromLiteralNode((LiteralNode) assignment.getValue());
+        }
+
+        int[] rows = matchingRows(table, node.getWhereClause(), false);
+        if (rows.length == 0) {
+            return "0 row(s) updated, not found";
+        }
+        for (int row : rows) {
+            for (int i = 0; i < columns.length; i++) {
+                table.set(row, columns[i], values[i]);
+            }
+        }
+        return rows.length + " row(s) updated successfully";
+    }
+
+    public String delete(DeleteNode node) {
+        ColumnarTable table = retrieveTable(node.getTableName());
+        if (table.rowCount() == 0) {
+            return "0 row(s) deleted, no rows found";
+        }
+
+        int[] rows = matchingRows(table, node.getWhereClause(), false);
+        if (rows.length == 0) {
+            return "0 row(s) deleted, not found";
+        }
+        for (int row : rows) {
+            table.delete(row);
+        }
+        return rows.length + " row(s) deleted successfully";
+    }
+}
@@ -0,0 +1,206 @@
+package edu.smu.smusql.columnar;
+
+import edu.smu.smusql.AbstractTable;
+import edu.smu.smusql.Constants;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.ColumnNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.ConditionNode;
+import edu.smu.smusql.bplustreeA.AstParser.nodes.LiteralNode;
+import edu.smu.smusql.bplustreeA.helper.Helper;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rows addressed by row id: the primary keys and every column are arrays indexed by it, a bitmap
+ * marks the row ids in use and a hash map gives the row id of a primary key. Row ids freed by
+ * deletes are handed to later inserts, so the arrays only grow with the live row count.
+ *
+ * A WHERE clause is evaluated COLUMNAR_BATCH_ROWS rows at a time, each comparison filling a
+ * bitmap of the batch from a single column's array and AND and OR combining the bitmaps a word
+ * at a time, so a scan only touches the columns its predicates name.
+ */
+public class ColumnarTable extends AbstractTable<Column[]> {
+
+    private final IntColumn keys = new IntColumn();
+    private final Map<Integer, Integer> rowOfKey = new HashMap<>();
+    private long[] live = new long[0];
+    private int size; // Row ids below this have been written
+    private int[] freeRows = new int[0];
+    private int freeCount;
+
+    public ColumnarTable(List<String> columns) {
+        super(columns);
+        setRows(new Column[columns.size()]);
+    }
+
+    public int getColumnCount() {
+        return getColumns().size();
+    }
+
+    public int getColumnIndex(String columnName) {
+        return getColumns().indexOf(columnName);
+    }
+
+    public int rowCount() {
+        return rowOfKey.size();
+    }
+
+    /**
+     * Stores the row and returns its row id, or -1 if the primary key is taken
+     */
+    public int insert(int key, Object[] values) {
+        if (rowOfKey.containsKey(key)) {
+            return -1;
+        }
+
+        int row = freeCount > 0 ? freeRows[--freeCount] : size;
+        keys.setInt(row, key);
+        for (int column = 0; column < values.length; column++) {
+            set(row, column, values[column]);
+        }
+        if (row == size) {
+            size++;
+        }
+
+        if ((row >>> 6) >= live.length) {
+            live = Arrays.copyOf(live, Math.max(live.length * 2, (row >>> 6) + 1));
+        }
+        live[row >>> 6] |= 1L << row;
+        rowOfKey.put(key, row);
+        return row;
+    }
+
+    public void delete(int row) {
+        rowOfKey.remove(keys.getInt(row));
+        live[row >>> 6] &= ~(1L << row);
+
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, Column.grow(freeRows.length, freeCount));
+        }
+        freeRows[freeCount++] = row;
+    }
+
+    /**
+     * Writes a value, moving the column to boxed storage if its type cannot hold the value
+     */
+    public void set(int row, int column, Object value) {
+        Column[] columns = getRows();
+        if (columns[column] == null) {
+            columns[column] = Column.forValue(value);
+        }
+        if (!columns[column].set(row, value)) {
+            columns[column] = columns[column].toObjectColumn(size);
+            columns[column].set(row, value);
+        }
+    }
+
+    public Object get(int row, int column) {
+        return getRows()[column].get(row);
+    }
+
+    public int getKey(int row) {
+        return keys.getInt(row);
+    }
+
+    /**
+     * Row id of the primary key, or -1 if no row has it
+     */
+    public int rowOf(int key) {
+        Integer row = rowOfKey.get(key);
+        return row == null ? -1 : row;
+    }
+
+    /**
+     * Bitmap over row ids of the live rows matching the condition, all live rows if it is null
+     */
+    public long[] select(ConditionNode where) {
+        long[] result = new long[(size + 63) >>> 6];
+        if (where == null) {
+            System.arraycopy(live, 0, result, 0, result.length);
+            return result;
+        }
+
+        Filter filter = bind(where);
+        long[][] scratch = new long[filter.depth()][Constants.COLUMNAR_BATCH_ROWS >>> 6];
+        for (int from = 0; from < size; from += Constants.COLUMNAR_BATCH_ROWS) {
+            int to = Math.min(from + Constants.COLUMNAR_BATCH_ROWS, size);
+            filter.select(from, to, result, from >>> 6, scratch, 0);
+            for (int w = from >>> 6; w < (to + 63) >>> 6; w++) {
+                result[w] &= live[w];
+            }
+        }
+        return result;
+    }
+
+    private Filter bind(ConditionNode node) {
+        if (node.isLogical()) {
+            return new Filter(node.getOperator(), bind((ConditionNode) node.getLeft()),
+                bind((ConditionNode) node.getRight()), null);
+        }
+
+        if (!(node.getLeft() instanceof ColumnNode) || !(node.getRight() instanceof LiteralNode)) {
+            throw new RuntimeException("Unsupported simple condition structure");
+        }
+
+        String columnName = ((ColumnNode) node.getLeft()).getName();
+        Column column;
+        if (columnName.equals("id")) {
+            column = keys;
+        } else {
+            int columnIndex = getColumnIndex(columnName);
+            if (columnIndex < 0) {
+                throw new RuntimeException("ERROR: Column " + columnName + " does not exist");
+            }
+            column = getRows()[columnIndex];
+        }
+
+        Predicate predicate = Predicate.of(node.getOperator(),
+            Helper.getValueFromLiteralNode((LiteralNode) node.getRight()));
+        // An empty table has no typed columns yet, and no rows to filter
+        return new Filter(null, null, null, column == null ? null : column.filter(predicate));
+    }
+
+    // A WHERE clause bound to the table's columns
+    private static final class Filter {
+        final String operator;
+        final Filter left;
+        final Filter right;
+        final Column.RowFilter rows;
+
+        Filter(String operator, Filter left, Filter right, Column.RowFilter rows) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+            this.rows = rows;
+        }
+
+        int depth() {
+            return operator == null ? 0 : 1 + Math.max(left.depth(), right.depth());
+        }
+
+        void select(int from, int to, long[] out, int offset, long[][] scratch, int level) {
+            if (operator == null) {
+                if (rows != null) {
+                    rows.select(from, to, out, offset);
+                }
+                return;
+            }
+
+            left.select(from, to, out, offset, scratch, level + 1);
+            long[] other = scratch[level];
+            right.select(from, to, other, 0, scratch, level + 1);
+
+            int words = (to - from + 63) >>> 6;
+            if (operator.equals("AND")) {
+                for (int w = 0; w < words; w++) {
+                    out[offset + w] &= other[w];
+                }
+            } else {
+                for (int w = 0; w < words; w++) {
+                    out[offset + w] |= other[w];
+                }
+            }
+        }
+    }
+}
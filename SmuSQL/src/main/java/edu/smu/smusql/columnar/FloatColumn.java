@@ -0,0 +1,55 @@
+package edu.smu.smusql.columnar;
+
+import edu.smu.smusql.kernels.ScanKernels;
+import java.util.Arrays;
+
+class FloatColumn extends Column {
+
+    private float[] values = new float[0];
+
+    @Override
+    Object get(int row) {
+        return values[row];
+    }
+
+    float getFloat(int row) {
+        return values[row];
+    }
+
+    @Override
+    boolean set(int row, Object value) {
+        if (!(value instanceof Float)) {
+            return false;
+        }
+        if (row >= values.length) {
+            values = Arrays.copyOf(values, grow(values.length, row));
+        }
+        values[row] = (Float) value;
+        return true;
+    }
+
+    @Override
+    RowFilter filter(Predicate predicate) {
+        // Float bounds selecting the same floats as the double interval
+        float low = (float) predicate.low;
+        if (low < predicate.low) {
+            low = Math.nextUp(low);
+        }
+        float high = (float) predicate.high;
+        if (high > predicate.high) {
+            high = Math.nextDown(high);
+        }
+        float lowBound = low;
+        float highBound = high;
+        boolean negate = predicate.negate;
+        float[] values = this.values;
+        ScanKernels kernels = ScanKernels.get();
+
+        return (from, to, out, offset) -> {
+            kernels.selectRange(values, from, to, lowBound, highBound, out, offset);
+            if (negate) {
+                negate(from, to, out, offset);
+            }
+        };
+    }
+}
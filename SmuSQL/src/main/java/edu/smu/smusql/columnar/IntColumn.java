@@ -0,0 +1,56 @@
+package edu.smu.smusql.columnar;
+
+import edu.smu.smusql.kernels.ScanKernels;
+import java.util.Arrays;
+
+class IntColumn extends Column {
+
+    private int[] values = new int[0];
+
+    @Override
+    Object get(int row) {
+        return values[row];
+    }
+
+    int getInt(int row) {
+        return values[row];
+    }
+
+    @Override
+    boolean set(int row, Object value) {
+        if (!(value instanceof Integer)) {
+            return false;
+        }
+        setInt(row, (Integer) value);
+        return true;
+    }
+
+    void setInt(int row, int value) {
+        if (row >= values.length) {
+            values = Arrays.copyOf(values, grow(values.length, row));
+        }
+        values[row] = value;
+    }
+
+    @Override
+    RowFilter filter(Predicate predicate) {
+        // Integer bounds of the interval, empty if low ends up above high
+        long low = predicate.low <= Integer.MIN_VALUE ? Integer.MIN_VALUE
+            : (long) Math.ceil(predicate.low);
+        long high = predicate.high >= Integer.MAX_VALUE ? Integer.MAX_VALUE
+            : (long) Math.floor(predicate.high);
+        boolean negate = predicate.negate;
+        int[] values = this.values;
+        ScanKernels kernels = ScanKernels.get();
+
+        if (low > high) {
+            return (from, to, out, offset) -> fill(from, to, out, offset, negate);
+        }
+        return (from, to, out, offset) -> {
+            kernels.selectRange(values, from, to, (int) low, (int) high, out, offset);
+            if (negate) {
+                negate(from, to, out, offset);
+            }
+        };
+    }
+}
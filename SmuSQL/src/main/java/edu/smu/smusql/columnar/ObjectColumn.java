@@ -0,0 +1,43 @@
+package edu.smu.smusql.columnar;
+
+import java.util.Arrays;
+
+/**
+ * Boxed values, for a column that has held values of more than one type
+ */
+class ObjectColumn extends Column {
+
+    private Object[] values = new Object[0];
+
+    @Override
+    Object get(int row) {
+        return values[row];
+    }
+
+    @Override
+    boolean set(int row, Object value) {
+        if (row >= values.length) {
+            values = Arrays.copyOf(values, grow(values.length, row));
+        }
+        values[row] = value;
+        return true;
+    }
+
+    @Override
+    RowFilter filter(Predicate predicate) {
+        Object[] values = this.values;
+
+        return (from, to, out, offset) -> {
+            for (int base = from, w = offset; base < to; base += 64, w++) {
+                int end = Math.min(base + 64, to);
+                long word = 0;
+                for (int i = base; i < end; i++) {
+                    if (predicate.matches(values[i])) {
+                        word |= 1L << (i - base);
+                    }
+                }
+                out[w] = word;
+            }
+        };
+    }
+}
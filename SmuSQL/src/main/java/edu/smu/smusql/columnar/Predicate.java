@@ -0,0 +1,64 @@
+package edu.smu.smusql.columnar;
+
+import edu.smu.smusql.bplustreeA.helper.Helper;
+import edu.smu.smusql.bplustreeA.planner.ConditionEvaluator;
+
+/**
+ * A comparison with a literal as a closed interval over comparison keys, the values as the B+
+ * tree engines order them: numbers by value and strings by hash code. Every operator but != is
+ * then a single low <= key <= high test, which the column loops evaluate without branches. A
+ * range over a string literal compares strings lexically instead, so values go through
+ * {@link #matches(Object)}.
+ */
+final class Predicate {
+
+    final double low;
+    final double high;
+    final boolean negate; // Matches the keys outside [low, high]
+    private final String operator;
+    private final Object literal;
+    private final boolean lexical; // Strings compare lexically rather than by key
+
+    private Predicate(double low, double high, boolean negate, String operator, Object literal) {
+        this.low = low;
+        this.high = high;
+        this.negate = negate;
+        this.operator = operator;
+        this.literal = literal;
+        this.lexical = !ConditionEvaluator.usesIndexKey(operator, literal);
+    }
+
+    static Predicate of(String operator, Object literal) {
+        double key = Helper.convertToNumber(literal).doubleValue();
+        switch (operator) {
+            case "=":
+                return new Predicate(key, key, false, operator, literal);
+            case "!=":
+            case "<>":
+                return new Predicate(key, key, true, operator, literal);
+            case "<":
+                return new Predicate(Double.NEGATIVE_INFINITY, Math.nextDown(key), false, operator,
+                    literal);
+            case "<=":
+                return new Predicate(Double.NEGATIVE_INFINITY, key, false, operator, literal);
+            case ">":
+                return new Predicate(Math.nextUp(key), Double.POSITIVE_INFINITY, false, operator,
+                    literal);
+            case ">=":
+                return new Predicate(key, Double.POSITIVE_INFINITY, false, operator, literal);
+            default:
+                throw new RuntimeException("ERROR: Unsupported operator " + operator);
+        }
+    }
+
+    boolean matches(double key) {
+        return (low <= key && key <= high) != negate;
+    }
+
+    boolean matches(Object value) {
+        if (lexical && value instanceof String) {
+            return ConditionEvaluator.matches(value, operator, literal);
+        }
+        return matches(Helper.convertToNumber(value).doubleValue());
+    }
+}
@@ -0,0 +1,65 @@
+package edu.smu.smusql.columnar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Strings stored as int codes into a dictionary of the distinct values. A predicate is decided
+ * once per distinct value, the row loop then only looks up each row's code.
+ */
+class StringColumn extends Column {
+
+    private int[] codes = new int[0];
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> codeOf = new HashMap<>();
+
+    @Override
+    Object get(int row) {
+        return dictionary.get(codes[row]);
+    }
+
+    @Override
+    boolean set(int row, Object value) {
+        if (!(value instanceof String)) {
+            return false;
+        }
+        Integer code = codeOf.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add((String) value);
+            codeOf.put((String) value, code);
+        }
+        if (row >= codes.length) {
+            codes = Arrays.copyOf(codes, grow(codes.length, row));
+        }
+        codes[row] = code;
+        return true;
+    }
+
+    int distinctValues() {
+        return dictionary.size();
+    }
+
+    @Override
+    RowFilter filter(Predicate predicate) {
+        boolean[] matches = new boolean[dictionary.size()];
+        for (int code = 0; code < matches.length; code++) {
+            matches[code] = predicate.matches(dictionary.get(code));
+        }
+        int[] codes = this.codes;
+
+        return (from, to, out, offset) -> {
+            for (int base = from, w = offset; base < to; base += 64, w++) {
+                int end = Math.min(base + 64, to);
+                long word = 0;
+                for (int i = base; i < end; i++) {
+                    word |= (matches[codes[i]] ? 1L : 0L) << (i - base);
+                }
+                out[w] = word;
+            }
+        };
+    }
+}
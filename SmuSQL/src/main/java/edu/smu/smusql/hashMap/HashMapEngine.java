@@ -1,6 +1,8 @@
 package edu.smu.smusql.hashMap;
 
 import edu.smu.smusql.IEngine;
+import edu.smu.smusql.IteratorResultSet;
+import edu.smu.smusql.ResultSet;
 import java.util.*;
 
 public class HashMapEngine implements IEngine {
@@ -92,17 +94,62 @@ public class HashMapEngine implements IEngine {
             return "ERROR: No such table: " + tableName;
         }
 
-        // Simple select all (assuming SELECT * FROM table_name for now)
+        return formatSelectResults(query(tbl, tokens));
+    }
+
+    public ResultSet executeQuery(String query) {
+        String[] tokens = capitalizeTokens(query.trim().split("\\s+"));
+
+        if (!tokens[0].equals("SELECT")) {
+            throw new RuntimeException("ERROR: executeQuery only runs SELECT statements");
+        }
+
+        Table tbl = getTableByName(tokens[3]);
+        if (tbl == null) {
+            throw new RuntimeException("ERROR: No such table: " + tokens[3]);
+        }
+
+        return query(tbl, tokens);
+    }
+
+    private ResultSet query(Table tbl, String[] tokens) {
+        List<String> columns = tbl.getColumns();
+        Iterator<Map<String, String>> rows;
+
+        // Simple select all (assuming SELECT * FROM table_name for now), read as the cursor advances
         if (tokens.length == 4) {
-            List<Map<String, String>> allRows = tbl.getDataList();
-            List<Map<String, String>> nonNullRows = new ArrayList<>();
-            for (Map<String, String> row : allRows) {
-                if (row != null) {
-                    nonNullRows.add(row);
+            rows = tbl.getDataList().iterator();
+        } else {
+            rows = selectWhere(tbl, tokens).iterator();
+        }
+
+        return new IteratorResultSet(columns, new Iterator<>() {
+            private Map<String, String> pending;
+
+            @Override
+            public boolean hasNext() {
+                while (pending == null && rows.hasNext()) {
+                    pending = rows.next(); // Deleted rows are left as nulls
                 }
+                return pending != null;
             }
-            return formatSelectResults(tbl.getColumns(), nonNullRows);
-        }
+
+            @Override
+            public Object[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Object[] values = new Object[columns.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = pending.get(columns.get(i));
+                }
+                pending = null;
+                return values;
+            }
+        });
+    }
+
+    private List<Map<String, String>> selectWhere(Table tbl, String[] tokens) {
 
         // Handle WHERE clause with AND/OR logic
         Set<Map<String, String>> resultSet = new HashSet<>();
@@ -146,7 +193,7 @@ public class HashMapEngine implements IEngine {
             resultSet.addAll(rowsMatchingCondition1);
         }
 
-        return formatSelectResults(tbl.getColumns(), new ArrayList<>(resultSet));
+        return new ArrayList<>(resultSet);
     }
 
     public String update(String[] tokens) {
@@ -349,10 +396,21 @@ public class HashMapEngine implements IEngine {
         return tokens;
     }
 
-    // Format the SELECT results with aligned columns
-    private String formatSelectResults(List<String> columns, List<Map<String, String>> rows) {
+    // Format the SELECT results with aligned columns. Column widths depend on every row, so the
+    // cursor is drained before anything is written
+    private String formatSelectResults(ResultSet resultSet) {
         StringBuilder result = new StringBuilder();
 
+        List<String> columns = resultSet.getColumnNames();
+        List<String[]> rows = new ArrayList<>();
+        while (resultSet.next()) {
+            String[] row = new String[columns.size()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = resultSet.getString(i + 1);
+            }
+            rows.add(row);
+        }
+
         int[] columnWidths = new int[columns.size()]; // Width of each column
 
         int numberOfColumns = columns.size();
@@ -361,9 +419,9 @@ public class HashMapEngine implements IEngine {
         }
 
         // Measure the longest column value to determine spacing
-        for (Map<String, String> row : rows) {
+        for (String[] row : rows) {
             for (int i = 0; i < numberOfColumns; i++) {
-                String columnValue = row.get(columns.get(i));
+                String columnValue = row[i];
                 if (columnValue != null) {
                     columnWidths[i] = Math.max(columnWidths[i], columnValue.length()); // Take the highest length to
                                                                                        // ensure correct spacing
@@ -382,9 +440,9 @@ public class HashMapEngine implements IEngine {
         result.append("\n");
 
         // Print selected rows
-        for (Map<String, String> row : rows) {
+        for (String[] row : rows) {
             for (int i = 0; i < columns.size(); i++) {
-                String value = row.get(columns.get(i));
+                String value = row[i];
                 result.append(String.format("%-" + columnWidths[i] + "s", value != null ? value : "NULL"));
                 if (i < numberOfColumns - 1)
                     result.append('\t');
@@ -0,0 +1,52 @@
+package edu.smu.smusql.kernels;
+
+class ScalarKernels extends ScanKernels {
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    public void selectRange(int[] values, int from, int to, int low, int high, long[] out,
+        int offset) {
+        for (int base = from, w = offset; base < to; base += 64, w++) {
+            int end = Math.min(base + 64, to);
+            long word = 0;
+            for (int i = base; i < end; i++) {
+                int value = values[i];
+                word |= (value >= low & value <= high ? 1L : 0L) << (i - base);
+            }
+            out[w] = word;
+        }
+    }
+
+    @Override
+    public void selectRange(float[] values, int from, int to, float low, float high, long[] out,
+        int offset) {
+        for (int base = from, w = offset; base < to; base += 64, w++) {
+            int end = Math.min(base + 64, to);
+            long word = 0;
+            for (int i = base; i < end; i++) {
+                float value = values[i];
+                word |= (value >= low & value <= high ? 1L : 0L) << (i - base);
+            }
+            out[w] = word;
+        }
+    }
+
+    @Override
+    public int lowerBound(int[] keys, int from, int to, int key) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,72 @@
+package edu.smu.smusql.kernels;
+
+import edu.smu.smusql.Constants;
+
+/**
+ * Inner loops of scans over primitive arrays: comparing a column against an interval into a row
+ * bitmap, and finding a key in a sorted key array.
+ *
+ * {@link #get()} returns the Vector API kernels when they were compiled in (the vector profile)
+ * and the JVM was started with --add-modules jdk.incubator.vector, otherwise the scalar ones.
+ * Both give identical results.
+ */
+public abstract class ScanKernels {
+
+    private static final ScanKernels INSTANCE = load();
+
+    public static ScanKernels get() {
+        return INSTANCE;
+    }
+
+    /**
+     * The scalar kernels, or the vector ones if they can be used here, otherwise null
+     */
+    public static ScanKernels named(String name) {
+        switch (name) {
+            case "scalar":
+                return new ScalarKernels();
+            case "vector":
+                return loadVector();
+            default:
+                throw new IllegalArgumentException("Unknown kernels: " + name);
+        }
+    }
+
+    private static ScanKernels load() {
+        ScanKernels vector = Constants.VECTOR_KERNELS ? loadVector() : null;
+        return vector != null ? vector : new ScalarKernels();
+    }
+
+    private static ScanKernels loadVector() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (ScanKernels) Class.forName("edu.smu.smusql.kernels.VectorKernels")
+                .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null; // Built without the vector profile
+        }
+    }
+
+    public abstract String getName();
+
+    /**
+     * Sets bit i - from of the words from offset on for each i in [from, to) with low <= values[i]
+     * <= high, clearing the other bits of those words. from is a multiple of 64
+     */
+    public abstract void selectRange(int[] values, int from, int to, int low, int high,
+        long[] out, int offset);
+
+    /**
+     * Float form of {@link #selectRange(int[], int, int, int, int, long[], int)}
+     */
+    public abstract void selectRange(float[] values, int from, int to, float low, float high,
+        long[] out, int offset);
+
+    /**
+     * First index in [from, to) whose key is at least the given one, or to if there is none. The
+     * keys in the range must be sorted
+     */
+    public abstract int lowerBound(int[] keys, int from, int to, int key);
+}
@@ -0,0 +1,99 @@
+package edu.smu.smusql.kernels;
+
+import edu.smu.smusql.Constants;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernels on the incubating Vector API, compared a full register of lanes at a time. Only built
+ * by the vector profile, and only loaded by {@link ScanKernels#get()} when the module is present.
+ */
+class VectorKernels extends ScalarKernels {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public String getName() {
+        return "vector";
+    }
+
+    @Override
+    public void selectRange(int[] values, int from, int to, int low, int high, long[] out,
+        int offset) {
+        int lanes = INTS.length();
+        for (int base = from, w = offset; base < to; base += 64, w++) {
+            int end = Math.min(base + 64, to);
+            long word = 0;
+            int i = base;
+            for (; i <= end - lanes; i += lanes) {
+                IntVector vector = IntVector.fromArray(INTS, values, i);
+                VectorMask<Integer> mask = vector.compare(VectorOperators.GE, low)
+                    .and(vector.compare(VectorOperators.LE, high));
+                word |= mask.toLong() << (i - base);
+            }
+            for (; i < end; i++) {
+                int value = values[i];
+                word |= (value >= low & value <= high ? 1L : 0L) << (i - base);
+            }
+            out[w] = word;
+        }
+    }
+
+    @Override
+    public void selectRange(float[] values, int from, int to, float low, float high, long[] out,
+        int offset) {
+        int lanes = FLOATS.length();
+        for (int base = from, w = offset; base < to; base += 64, w++) {
+            int end = Math.min(base + 64, to);
+            long word = 0;
+            int i = base;
+            for (; i <= end - lanes; i += lanes) {
+                FloatVector vector = FloatVector.fromArray(FLOATS, values, i);
+                VectorMask<Float> mask = vector.compare(VectorOperators.GE, low)
+                    .and(vector.compare(VectorOperators.LE, high));
+                word |= mask.toLong() << (i - base);
+            }
+            for (; i < end; i++) {
+                float value = values[i];
+                word |= (value >= low & value <= high ? 1L : 0L) << (i - base);
+            }
+            out[w] = word;
+        }
+    }
+
+    /**
+     * Binary search down to VECTOR_SEARCH_SPAN keys, then counts the keys below the target a
+     * register at a time, which is branch free where the last steps of a binary search mispredict
+     */
+    @Override
+    public int lowerBound(int[] keys, int from, int to, int key) {
+        int low = from;
+        int high = to;
+        while (high - low > Constants.VECTOR_SEARCH_SPAN) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        int lanes = INTS.length();
+        int i = low;
+        for (; i <= high - lanes; i += lanes) {
+            int below = IntVector.fromArray(INTS, keys, i).compare(VectorOperators.LT, key)
+                .trueCount();
+            if (below < lanes) {
+                return i + below;
+            }
+        }
+        while (i < high && keys[i] < key) {
+            i++;
+        }
+        return i;
+    }
+}
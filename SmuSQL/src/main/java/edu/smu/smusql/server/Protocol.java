@@ -0,0 +1,48 @@
+package edu.smu.smusql.server;
+
+import edu.smu.smusql.Constants;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wire format shared by {@link QueryServer} and {@link QueryClient}. A request is one SQL
+ * statement as a frame: a 4 byte big endian length followed by that many bytes of UTF-8. A
+ * response is a status byte, OK or ERROR, followed by a frame holding the result or the error
+ * message. Responses come back in request order, so a client may send several requests before
+ * reading any response.
+ */
+final class Protocol {
+
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+
+    private Protocol() {
+    }
+
+    static void writeFrame(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a frame, or returns null if the stream ended cleanly before one started
+     */
+    static String readFrame(DataInputStream in) throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return null;
+        }
+        int length = (first << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedByte() << 8)
+            | in.readUnsignedByte();
+        if (length < 0 || length > Constants.SERVER_MAX_FRAME_BYTES) {
+            throw new IOException("Frame of " + length + " bytes exceeds the limit");
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,95 @@
+package edu.smu.smusql.server;
+
+import edu.smu.smusql.Constants;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Connection to a {@link QueryServer}. Not thread safe, each thread should open its own.
+ *
+ * Statements that fail on the server are rethrown here as a RuntimeException carrying the
+ * engine's message.
+ */
+public class QueryClient implements AutoCloseable {
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    public QueryClient(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        this.socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(
+            new BufferedInputStream(socket.getInputStream(), Constants.SERVER_BUFFER_SIZE));
+        this.out = new DataOutputStream(
+            new BufferedOutputStream(socket.getOutputStream(), Constants.SERVER_BUFFER_SIZE));
+    }
+
+    public String executeSQL(String query) {
+        try {
+            Protocol.writeFrame(out, query);
+            out.flush();
+            return readResponse();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Sends every statement before reading any response, paying one round trip for the lot.
+     * Statements still run one after another on the server, and a failing one does not stop the
+     * ones after it: its error is thrown once all responses are read.
+     */
+    public List<String> executePipelined(List<String> queries) {
+        try {
+            for (String query : queries) {
+                Protocol.writeFrame(out, query);
+            }
+            out.flush();
+
+            List<String> results = new ArrayList<>(queries.size());
+            RuntimeException firstError = null;
+            for (int i = 0; i < queries.size(); i++) {
+                try {
+                    results.add(readResponse());
+                } catch (RuntimeException e) {
+                    results.add(null);
+                    if (firstError == null) {
+                        firstError = e;
+                    }
+                }
+            }
+
+            if (firstError != null) {
+                throw firstError;
+            }
+            return results;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String readResponse() throws IOException {
+        byte status = in.readByte();
+        String body = Protocol.readFrame(in);
+        if (body == null) {
+            throw new IOException("Connection closed by server");
+        }
+        if (status == Protocol.ERROR) {
+            throw new RuntimeException(body);
+        }
+        return body;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
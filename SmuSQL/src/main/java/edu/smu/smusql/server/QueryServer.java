@@ -0,0 +1,146 @@
+package edu.smu.smusql.server;
+
+import edu.smu.smusql.ConcurrentEngine;
+import edu.smu.smusql.Constants;
+import edu.smu.smusql.IEngine;
+import edu.smu.smusql.bplustreeA.bplustreeArray.BPlusTreeArrayEngine;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves one engine to many TCP clients, see {@link Protocol} for the wire format.
+ *
+ * Each connection is handled by its own task that reads a request, runs it and writes the
+ * response, so a connection's statements run in order. Responses are only flushed once no further
+ * request is already waiting, so pipelined requests are answered in a single write. On a JVM with
+ * virtual threads (Java 21) every connection gets one and idle connections cost next to nothing;
+ * on older JVMs connections fall back to a cached pool of platform threads.
+ *
+ * The engine is wrapped in a {@link ConcurrentEngine} unless it already is one.
+ */
+public class QueryServer implements AutoCloseable {
+
+    private final IEngine engine;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    /**
+     * Binds to the port, 0 for any free one, and starts accepting connections
+     */
+    public QueryServer(IEngine engine, int port) throws IOException {
+        this.engine = engine instanceof ConcurrentEngine ? engine : new ConcurrentEngine(engine);
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(port), Constants.SERVER_BACKLOG);
+        this.connections = newConnectionExecutor();
+        this.acceptor = new Thread(this::acceptLoop, "smusql-acceptor");
+        this.acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public IEngine getEngine() {
+        return engine;
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                clients.add(socket);
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+            DataInputStream in = new DataInputStream(
+                new BufferedInputStream(socket.getInputStream(), Constants.SERVER_BUFFER_SIZE));
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(socket.getOutputStream(), Constants.SERVER_BUFFER_SIZE))) {
+
+            String query;
+            while ((query = Protocol.readFrame(in)) != null) {
+                String result;
+                byte status;
+                try {
+                    result = engine.executeSQL(query);
+                    status = Protocol.OK;
+                } catch (RuntimeException e) {
+                    result = e.getMessage() != null ? e.getMessage() : e.toString();
+                    status = Protocol.ERROR;
+                }
+
+                out.writeByte(status);
+                Protocol.writeFrame(out, result != null ? result : "");
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        } catch (EOFException | SocketException e) {
+            // Client went away mid request, or the server is closing
+        } catch (IOException e) {
+            if (!closed) {
+                System.err.println("Connection failed: " + e.getMessage());
+            }
+        } finally {
+            clients.remove(socket);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        for (Socket client : clients) {
+            client.close();
+        }
+        connections.shutdownNow();
+    }
+
+    /**
+     * A virtual thread per connection where the running JVM has them. Looked up reflectively
+     * since the project targets Java 17
+     */
+    static ExecutorService newConnectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "smusql-connection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Constants.SERVER_PORT;
+        QueryServer server = new QueryServer(new BPlusTreeArrayEngine(true), port);
+        System.out.println("smuSQL server listening on port " + server.getPort());
+    }
+}
@@ -3,6 +3,8 @@ package edu.smu.smusql.skipHash;
 
 
 import edu.smu.smusql.IEngine;
+import edu.smu.smusql.IteratorResultSet;
+import edu.smu.smusql.ResultSet;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -192,9 +194,50 @@ public class SkipHashEngine implements IEngine {
             return "Table " + tableName + " does not exist";
         }
 
+        return formatSelectResults(query(table, tokens));
+    }
+
+    public ResultSet executeQuery(String query) {
+        String[] tokens = tokenize(query);
+
+        if (!tokens[0].equalsIgnoreCase("SELECT")) {
+            throw new RuntimeException("ERROR: executeQuery only runs SELECT statements");
+        }
+
+        String tableName = tokens[3].toLowerCase();
+        Table table = data.get(tableName);
+
+        if (table == null) {
+            throw new RuntimeException("Table " + tableName + " does not exist");
+        }
+
+        return query(table, tokens);
+    }
+
+    // Rows are read off the table as the cursor advances, a full scan never copies the table
+    private ResultSet query(Table table, String[] tokens) {
+        List<String> columns = table.getColumnNames();
         List<String[]> whereConditions = parseWhereClause(tokens, 4);
-        List<Row> selectedRows = applySelectLogic(table, whereConditions);
-        return formatSelectResults(selectedRows, table.getColumnNames());
+        Iterator<Row> rows = whereConditions.isEmpty()
+                ? table.getData().values().iterator()
+                : applySelectLogic(table, whereConditions).iterator();
+
+        return new IteratorResultSet(columns, new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public Object[] next() {
+                Map<String, Object> rowData = rows.next().getData();
+                Object[] values = new Object[columns.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = rowData.get(columns.get(i));
+                }
+                return values;
+            }
+        });
     }
 
     // Helper methods for parsing, condition handling, and formatting...
@@ -330,13 +373,14 @@ public class SkipHashEngine implements IEngine {
                 .collect(Collectors.toList());
     }
 
-    private String formatSelectResults(List<Row> rows, List<String> columns) {
+    private String formatSelectResults(ResultSet resultSet) {
         StringBuilder sb = new StringBuilder();
-        sb.append(String.join("\t", columns)).append("\n");
+        sb.append(String.join("\t", resultSet.getColumnNames())).append("\n");
 
-        for (Row row : rows) {
-            for (String column : columns) {
-                sb.append(row.getData().getOrDefault(column, "NULL")).append("\t");
+        while (resultSet.next()) {
+            for (int i = 1; i <= resultSet.getColumnCount(); i++) {
+                Object value = resultSet.getObject(i);
+                sb.append(value != null ? value : "NULL").append("\t");
             }
             sb.append("\n");
         }
@@ -1,12 +1,16 @@
 package edu.smu.smusql.skipLinkedListIndexed;
 
 import edu.smu.smusql.IEngine;
+import edu.smu.smusql.IteratorResultSet;
+import edu.smu.smusql.ResultSet;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 public class SkipLinkedListIndexedEngine implements IEngine {
@@ -84,10 +88,32 @@ public class SkipLinkedListIndexedEngine implements IEngine {
         String tableName = tokens[3].toLowerCase(); // Ensure table names are case-insensitive
         Table t = data.get(tableName); // Get the table from the map
 
-        List<Row> resultRows = new ArrayList<>(); // To store result rows
+        return formatSelectResults(query(t, tokens));
+    }
+
+    public ResultSet executeQuery(String query) {
+        String[] tokens = query.trim().split("\\s+");
+
+        if (!tokens[0].equalsIgnoreCase("SELECT")) {
+            throw new RuntimeException("ERROR: executeQuery only runs SELECT statements");
+        }
+
+        String tableName = tokens[3].toLowerCase();
+        Table t = data.get(tableName);
+
+        if (t == null) {
+            throw new RuntimeException("ERROR: Table " + tableName + " does not exist");
+        }
+
+        return query(t, tokens);
+    }
+
+    private ResultSet query(Table t, String[] tokens) {
+        Iterator<Row> rows;
 
         // Check if there is a WHERE clause
         if (tokens.length > 4 && tokens[4].equalsIgnoreCase("WHERE")) {
+            List<Row> resultRows = new ArrayList<>(); // To store result rows
             List<String[]> whereClauseConditions = new ArrayList<>();
 
             // Parse WHERE clause conditions
@@ -163,18 +189,43 @@ public class SkipLinkedListIndexedEngine implements IEngine {
                     resultRows.add(t.getRow(id));
                 }
             }
+            rows = resultRows.iterator();
         } else {
-            // No WHERE clause, select all rows
-            for (Row r : t.getData()) {
-                if (r != null) {
-                    resultRows.add(r);
-                }
-            }
+            // No WHERE clause, read the skip list as the cursor advances
+            rows = t.getData().iterator();
         }
 
-        // Format the results for display
+        List<String> columns = t.getColumns();
+        return new IteratorResultSet(columns, new Iterator<>() {
+            private Row pending;
+
+            @Override
+            public boolean hasNext() {
+                while (pending == null && rows.hasNext()) {
+                    pending = rows.next(); // Null rows are skipped
+                }
+                return pending != null;
+            }
 
-        return formatSelectResults(resultRows, t.getColumns());
+            @Override
+            public Object[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Map<String, String> rowData = pending.getData();
+                pending = null;
+
+                Object[] values = new Object[columns.size()];
+                for (int i = 0; i < values.length; i++) {
+                    String value = rowData.get(columns.get(i)).trim();
+                    if (value.startsWith("'") && value.endsWith("'")) {
+                        value = value.substring(1, value.length() - 1); // Remove surrounding single quotes
+                    }
+                    values[i] = value;
+                }
+                return values;
+            }
+        });
     }
 
     public String update(String[] tokens) {
@@ -372,24 +423,16 @@ public class SkipLinkedListIndexedEngine implements IEngine {
     }
 
     // Helper method to format the results of a SELECT query
-    private String formatSelectResults(List<Row> rows, List<String> columns) {
+    private String formatSelectResults(ResultSet resultSet) {
         StringBuilder sb = new StringBuilder();
 
         // Header (column names)
-        sb.append(String.join("\t", columns)).append("\n");
+        sb.append(String.join("\t", resultSet.getColumnNames())).append("\n");
 
         // Rows data
-        for (Row row : rows) {
-            if (row == null) {
-                continue; // Skip null rows
-            }
-            Map<String, String> rowData = row.getData();
-            for (String column : columns) {
-                String value = rowData.get(column).trim();
-                if (value.startsWith("'") && value.endsWith("'")) {
-                    value = value.substring(1, value.length() - 1); // Remove surrounding single quotes
-                }
-                sb.append(value).append("\t");
+        while (resultSet.next()) {
+            for (int i = 1; i <= resultSet.getColumnCount(); i++) {
+                sb.append(resultSet.getString(i)).append("\t");
             }
             sb.append("\n");
         }
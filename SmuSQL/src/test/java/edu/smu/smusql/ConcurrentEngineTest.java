@@ -0,0 +1,69 @@
+package edu.smu.smusql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.smu.smusql.bplustreeA.bplustreeArray.BPlusTreeArrayEngine;
+import edu.smu.smusql.hashMap.HashMapEngine;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentEngineTest {
+
+    private static final int THREADS = 8;
+    private static final int ROWS_PER_THREAD = 300;
+
+    @Test
+    void testParallelWritersAndReaders() throws Exception {
+        runWorkload(new ConcurrentEngine(new BPlusTreeArrayEngine(true)));
+        runWorkload(new ConcurrentEngine(new BPlusTreeArrayEngine(false)));
+        runWorkload(new ConcurrentEngine(new HashMapEngine()));
+    }
+
+    @Test
+    void testAutoIndexingIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new ConcurrentEngine(new BPlusTreeArrayEngine(true, true)));
+    }
+
+    private static void runWorkload(IEngine engine) throws Exception {
+        engine.executeSQL("CREATE TABLE orders (id, customer, amount)");
+        engine.executeSQL("CREATE TABLE users (id, name, age)");
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                String table = t % 2 == 0 ? "orders" : "users";
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < ROWS_PER_THREAD; i++) {
+                        int id = thread * ROWS_PER_THREAD + i;
+                        engine.executeSQL(String.format(
+                            "INSERT INTO %s VALUES (%d, 'x%d', %d)", table, id, id, i % 10));
+                        String rows = engine.executeSQL("SELECT * FROM " + table + " WHERE id = "
+                            + id);
+                        assertTrue(rows.toLowerCase().contains("x" + id), rows);
+                        if (i % 10 == 0) {
+                            engine.executeSQL("SELECT * FROM " + table);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        int perTable = THREADS / 2 * ROWS_PER_THREAD;
+        assertEquals(perTable + 1, engine.executeSQL("SELECT * FROM orders").split("\n").length);
+        assertEquals(perTable + 1, engine.executeSQL("SELECT * FROM users").split("\n").length);
+    }
+}
@@ -0,0 +1,119 @@
+package edu.smu.smusql.bplustreeA.AstParser;
+
+import edu.smu.smusql.bplustreeA.AstParser.Token.TokenType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH comparison of the hand-written {@link Tokenizer} against the previous regex tokenizer.
+ *
+ * Not picked up by surefire, run main() from the IDE or org.openjdk.jmh.Main on the test
+ * classpath after mvn test-compile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    // Same statement mix as the evaluation workload in Main
+    private final String[] queries = {
+        "INSERT INTO users VALUES (1234, 'User1234', 42, 'Chicago')",
+        "SELECT * FROM users WHERE id = 1234",
+        "UPDATE users SET age = 35 WHERE id = 1234",
+        "DELETE FROM users WHERE id = 1234",
+        "SELECT * FROM products WHERE price > 50.5 AND category = 'Electronics'",
+        "UPDATE users SET city = 'Boston' WHERE age > 30 AND city = 'Chicago' OR age < 25"
+    };
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(TokenizerBenchmark.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+
+    @Benchmark
+    public void handWritten(Blackhole blackhole) {
+        for (String query : queries) {
+            blackhole.consume(Tokenizer.tokenize(query));
+        }
+    }
+
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+        for (String query : queries) {
+            blackhole.consume(RegexTokenizer.tokenize(query));
+        }
+    }
+
+    /**
+     * The regex tokenizer replaced by {@link Tokenizer}, kept as the baseline
+     */
+    static class RegexTokenizer {
+
+        private static final String[] KEYWORDS = {
+            "INSERT", "INTO", "VALUES", "SELECT", "FROM", "WHERE", "UPDATE", "SET", "DELETE",
+            "CREATE", "TABLE", "AND", "OR"
+        };
+
+        private static final String[] OPERATORS = {
+            "<=", ">=", "<>", "!=", "=", "<", ">"
+        };
+
+        private static final Pattern TOKEN_PATTERN = Pattern.compile(
+            "(?i)\\b(" + String.join("|", KEYWORDS) + ")\\b" + "|" +
+                "(" + String.join("|", OPERATORS).replace("<=", "\\<=").replace(">=", "\\>=") + ")"
+                + "|" +
+                "(-?\\d*\\.?\\d+)" + "|" +
+                "'([^']*)'" + "|" +
+                "([a-zA-Z_]\\w*)" + "|" +
+                "(,|\\(|\\)|\\*)");
+
+        static List<Token> tokenize(String input) {
+            List<Token> tokens = new ArrayList<>();
+            Matcher matcher = TOKEN_PATTERN.matcher(input);
+
+            while (matcher.find()) {
+                if (matcher.group(1) != null) {
+                    tokens.add(token(TokenType.KEYWORD, matcher.group(1).toUpperCase()));
+                } else if (matcher.group(2) != null) {
+                    tokens.add(token(TokenType.OPERATOR, matcher.group(2)));
+                } else if (matcher.group(3) != null) {
+                    tokens.add(token(TokenType.LITERAL, matcher.group(3)));
+                } else if (matcher.group(4) != null) {
+                    tokens.add(token(TokenType.LITERAL, "'" + matcher.group(4) + "'"));
+                } else if (matcher.group(5) != null) {
+                    tokens.add(token(TokenType.IDENTIFIER, matcher.group(5)));
+                } else if (matcher.group(6) != null) {
+                    tokens.add(token(TokenType.PUNCTUATION, matcher.group(6)));
+                }
+            }
+
+            return tokens;
+        }
+
+        private static Token token(TokenType type, String value) {
+            return new Token(type, value, 0, value.length(), value);
+        }
+    }
+}
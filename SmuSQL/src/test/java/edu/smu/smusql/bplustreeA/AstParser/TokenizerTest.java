@@ -0,0 +1,66 @@
+package edu.smu.smusql.bplustreeA.AstParser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.smu.smusql.bplustreeA.AstParser.TokenizerBenchmark.RegexTokenizer;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class TokenizerTest {
+
+    private static String describe(List<Token> tokens) {
+        return tokens.stream().map(t -> "(" + t.getType() + ", " + t.getValue() + ")")
+            .collect(Collectors.joining(", "));
+    }
+
+    private static void assertSameAsRegex(String input) {
+        assertEquals(describe(RegexTokenizer.tokenize(input)), describe(Tokenizer.tokenize(input)),
+            input);
+    }
+
+    @Test
+    void testKeywordsAreCaseInsensitive() {
+        List<Token> tokens = Tokenizer.tokenize("select * From users wHeRe id = 1");
+        assertEquals("(KEYWORD, SELECT), (PUNCTUATION, *), (KEYWORD, FROM), (IDENTIFIER, users), "
+            + "(KEYWORD, WHERE), (IDENTIFIER, id), (OPERATOR, =), (LITERAL, 1)", describe(tokens));
+    }
+
+    @Test
+    void testOffsetsPointIntoInput() {
+        String input = "SELECT name FROM users";
+        Token identifier = Tokenizer.tokenize(input).get(1);
+        assertEquals(7, identifier.getStart());
+        assertEquals(11, identifier.getEnd());
+        assertEquals("name", identifier.getValue());
+    }
+
+    @Test
+    void testLiteralKinds() {
+        List<Token> tokens = Tokenizer.tokenize("VALUES (1, -2.5, 'a.b')");
+        assertEquals(false, tokens.get(2).isFloatLiteral());
+        assertEquals(true, tokens.get(4).isFloatLiteral());
+        assertEquals(true, tokens.get(6).isStringLiteral());
+        assertEquals(false, tokens.get(6).isFloatLiteral());
+    }
+
+    @Test
+    void testMatchesRegexTokenizer() {
+        String[] inputs = {
+            "SELECT * FROM table WHERE column = 10",
+            "column1 >= 5.5 AND column2 < -10.25",
+            "column1 >= 5.5 AND column2 <= 10 AND column3 <> 'test'",
+            "SELECT * FROM table WHERE price >= -10.5 AND status != 'pending'",
+            "INSERT INTO table VALUES (1, 'text', 3.14)",
+            "UPDATE table SET column1 = 'value' WHERE column2 <> 100",
+            "CREATE TABLE orders (id, user_id, product_id, quantity)",
+            "SELECT * FROM t WHERE a = 'New York' OR b > .5 AND c < -.25;",
+            "insert into t values (1, 'unterminated)",
+            "SELECT order_by, ANDROID, ORx, _or FROM t WHERE x = 1.2.3 AND y = 15.",
+            "a-1 ! = !x 'it''s' #"
+        };
+        for (String input : inputs) {
+            assertSameAsRegex(input);
+        }
+    }
+}
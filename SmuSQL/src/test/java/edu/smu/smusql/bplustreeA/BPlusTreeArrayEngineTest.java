@@ -1,14 +1,28 @@
 package edu.smu.smusql.bplustreeA;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import edu.smu.smusql.IEngine;
+import edu.smu.smusql.ResultSet;
 import edu.smu.smusql.bplustreeA.bplustreeArray.BPlusTreeArrayEngine;
+import edu.smu.smusql.bplustreeA.helper.StringDictionary;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class BPlusTreeArrayEngineTest {
 
@@ -59,6 +73,132 @@ class BPlusTreeArrayEngineTest {
         assertThrows(RuntimeException.class, () -> engine.executeSQL("INSERT INTO student VALUES (1, 'John')"));
     }
 
+    @Test
+    void testMultiRowInsert() {
+        engine.executeSQL("CREATE TABLE student (id, name, age)");
+        engine.executeSQL("INSERT INTO student VALUES (2, 'Jane', 22)");
+        assertEquals("2 rows inserted successfully, 2 skipped, primary key already exists",
+                engine.executeSQL("INSERT INTO student VALUES (3, 'Bob', 20), (1, 'John', 20), "
+                        + "(2, 'Mary', 21), (3, 'Alice', 23)"));
+        assertEquals("id\tname\tage\n" +
+                "1\tJohn\t20\t\n" +
+                "2\tJane\t22\t\n" +
+                "3\tBob\t20", engine.executeSQL("SELECT * FROM student"));
+        assertEquals("id\tname\tage\n" +
+                "1\tJohn\t20\t\n" +
+                "3\tBob\t20", engine.executeSQL("SELECT * FROM student WHERE age = 20"));
+    }
+
+    @Test
+    void testExecuteBatch() {
+        engine.executeSQL("CREATE TABLE large (id, value)");
+        engine.executeSQL("SELECT * FROM large"); // Cached until the batch writes
+
+        List<String> batch = new ArrayList<>();
+        for (int i = 500; i >= 1; i--) {
+            batch.add(String.format("INSERT INTO large VALUES (%d, %d)", i, i % 50));
+        }
+        batch.add("INSERT INTO large VALUES (7, 0)");
+        batch.add("SELECT * FROM large WHERE value = 0 AND id < 200");
+        batch.add("INSERT INTO large VALUES (501, 0), (502, 1)");
+
+        List<String> results = engine.executeBatch(batch);
+        assertEquals(503, results.size());
+        assertEquals("1 row inserted successfully", results.get(0));
+        assertEquals("0 row inserted, primary key already exists", results.get(500));
+        assertEquals("id\tvalue\n" +
+                "50\t0\t\n" +
+                "100\t0\t\n" +
+                "150\t0", results.get(501));
+        assertEquals("2 rows inserted successfully", results.get(502));
+
+        assertEquals(503, engine.executeSQL("SELECT * FROM large").split("\n").length);
+        assertEquals(12, engine.executeSQL("SELECT * FROM large WHERE value = 1").split("\n").length);
+    }
+
+    @Test
+    void testExecuteBatchAppliesStatementsBeforeFailure() {
+        engine.executeSQL("CREATE TABLE student (id, name, age)");
+        assertThrows(RuntimeException.class, () -> engine.executeBatch(List.of(
+                "INSERT INTO student VALUES (1, 'John', 20)",
+                "INSERT INTO student VALUES (2, 'Jane')",
+                "INSERT INTO student VALUES (3, 'Bob', 20)")));
+        assertEquals("id\tname\tage\n" +
+                "1\tJohn\t20", engine.executeSQL("SELECT * FROM student"));
+    }
+
+    @Test
+    void testCopyFrom(@TempDir Path dir) throws IOException {
+        Path csv = dir.resolve("student.csv");
+        StringBuilder sb = new StringBuilder("id,name,age,gpa\n");
+        for (int i = 2000; i >= 1; i--) {
+            sb.append(i).append(",\"Student ").append(i).append("\",").append(18 + i % 7)
+                    .append(',').append(i % 4).append(".5\r\n");
+        }
+        sb.append("7,'Duplicate',99,0.0"); // No trailing newline
+        Files.writeString(csv, sb.toString());
+
+        engine.executeSQL("CREATE TABLE student (id, name, age, gpa)");
+        assertEquals("2000 row(s) copied successfully, 1 skipped, primary key already exists",
+                engine.executeSQL("COPY student FROM '" + csv + "'"));
+
+        assertEquals("id\tname\tage\tgpa\n" +
+                "7\tStudent 7\t18\t3.5", engine.executeSQL("SELECT * FROM student WHERE id = 7"));
+        assertEquals("id\tname\tage\tgpa\n" +
+                "14\tStudent 14\t18\t2.5", engine.executeSQL(
+                "SELECT * FROM student WHERE age = 18 AND name = 'Student 14'"));
+        assertEquals(2000 / 7 + 1, engine.executeSQL("SELECT * FROM student WHERE age = 18")
+                .split("\n").length);
+
+        // A table that already holds rows takes the batch insert path
+        Files.writeString(csv, "2001,'New',20,1.5\n5,'Old',20,1.5\n");
+        assertEquals("1 row(s) copied successfully, 1 skipped, primary key already exists",
+                engine.executeSQL("COPY student FROM '" + csv + "'"));
+        assertEquals(2002, engine.executeSQL("SELECT * FROM student").split("\n").length);
+    }
+
+    @Test
+    void testCachedSelectSeesLaterWrites() {
+        BPlusTreeArrayEngine cached = new BPlusTreeArrayEngine(true);
+        cached.executeSQL("CREATE TABLE student (id, name, age)");
+        cached.executeSQL("CREATE TABLE teacher (id, name)");
+        cached.executeSQL("INSERT INTO student VALUES (1, 'John', 20)");
+
+        String before = cached.executeSQL("SELECT * FROM student");
+        assertEquals(before, cached.executeSQL("SELECT * FROM student"));
+        cached.executeSQL("INSERT INTO teacher VALUES (1, 'Smith')"); // Other table, still cached
+        assertEquals(before, cached.executeSQL("SELECT * FROM student"));
+        assertEquals(2.0 / 3, cached.getCacheHitRate(), 1e-9);
+
+        cached.executeSQL("UPDATE student SET age = 21 WHERE id = 1");
+        assertEquals("id\tname\tage\n1\tJohn\t21", cached.executeSQL("SELECT * FROM student"));
+        cached.executeSQL("DELETE FROM student WHERE id = 1");
+        assertEquals("id\tname\tage\n", cached.executeSQL("SELECT * FROM student"));
+    }
+
+    @Test
+    void testFilteredSelectsShareCanonicalCacheEntry() {
+        BPlusTreeArrayEngine cached = new BPlusTreeArrayEngine(true);
+        cached.executeSQL("CREATE TABLE student (id, name, age)");
+        cached.executeSQL("INSERT INTO student VALUES (1, 'John', 20), (2, 'Jane', 22)");
+
+        String result = cached.executeSQL(
+            "SELECT * FROM student WHERE age > 19 AND name = 'Jane' OR id = 1");
+        assertEquals(result, cached.executeSQL(
+            "SELECT * FROM student WHERE name = 'Jane' AND age > 19 OR id = 1"));
+        assertEquals(result, cached.executeSQL(
+            "SELECT * FROM student WHERE name = 'Jane' and age > 19 or id = 1"));
+        assertEquals(2.0 / 3, cached.getCacheHitRate(), 1e-9);
+
+        // Same text, different literal type
+        cached.executeSQL("SELECT * FROM student WHERE age > 19.0 AND name = 'Jane' OR id = 1");
+        assertEquals(2.0 / 4, cached.getCacheHitRate(), 1e-9);
+
+        cached.executeSQL("UPDATE student SET age = 18 WHERE id = 2");
+        assertEquals("id\tname\tage\n1\tJohn\t20", cached.executeSQL(
+            "SELECT * FROM student WHERE name = 'Jane' AND age > 19 OR id = 1"));
+    }
+
     // SELECT TESTS
     @Test
     void testSelectAll() {
@@ -70,6 +210,280 @@ class BPlusTreeArrayEngineTest {
         assertEquals(expected, engine.executeSQL("SELECT * FROM student"));
     }
 
+    @Test
+    void testExecuteQueryTypedGetters() {
+        setupStudentTable();
+        ResultSet resultSet = engine.executeQuery("SELECT name, gpa FROM student WHERE age >= 20");
+        assertEquals(List.of("id", "name", "gpa"), resultSet.getColumnNames());
+
+        assertTrue(resultSet.next());
+        assertEquals(1, resultSet.getInt("id"));
+        assertEquals("John", resultSet.getString("name"));
+        assertEquals(3.5f, resultSet.getFloat(3));
+        assertTrue(resultSet.next());
+        assertEquals("Jane", resultSet.getString(2));
+        assertFalse(resultSet.next());
+
+        assertThrows(RuntimeException.class,
+                () -> engine.executeQuery("DELETE FROM student WHERE id = 1"));
+    }
+
+    @Test
+    void testRowsShareDictionaryStrings() {
+        engine.executeSQL("CREATE TABLE users (id, name, city)");
+        engine.executeSQL("INSERT INTO users VALUES (1, 'Amy', 'Paris')");
+        engine.executeSQL("INSERT INTO users VALUES (2, 'Bob', 'Oslo'), (3, 'Cy', 'Paris')");
+        engine.executeSQL("CREATE INDEX idx_city ON users (city)");
+        engine.executeSQL("UPDATE users SET city = 'Paris' WHERE id = 2");
+
+        ResultSet resultSet = engine.executeQuery("SELECT city FROM users");
+        List<String> cities = new ArrayList<>();
+        while (resultSet.next()) {
+            cities.add(resultSet.getString("city"));
+        }
+        assertEquals(List.of("Paris", "Paris", "Paris"), cities);
+        assertSame(cities.get(0), cities.get(1));
+        assertSame(cities.get(0), cities.get(2));
+        assertEquals("id\tname\n1\tAmy\t\n2\tBob\t\n3\tCy",
+                engine.executeSQL("SELECT name FROM users WHERE city = 'Paris'"));
+
+        StringDictionary dictionary = new StringDictionary(2);
+        assertSame(dictionary.encode("a"), dictionary.encode(new String("a")));
+        dictionary.encode("b");
+        assertTrue(dictionary.isFull());
+        String c = new String("c");
+        assertSame(c, dictionary.encode(c));
+        assertEquals(-1, dictionary.codeOf("c"));
+        assertEquals("b", dictionary.valueOf(dictionary.codeOf("b")));
+    }
+
+    @Test
+    void testSelectColumnList() {
+        setupStudentTable();
+        String expected = "id\tgpa\tname\n" +
+                "1\t3.5\tJohn\t\n" +
+                "2\t3.8\tJane";
+        assertEquals(expected, engine.executeSQL("SELECT gpa, name FROM student WHERE age >= 20"));
+        assertEquals("id\tage\n2\t22", engine.executeSQL("SELECT id, age FROM student WHERE age > 20"));
+        assertThrows(RuntimeException.class, () -> engine.executeSQL("SELECT height FROM student"));
+    }
+
+    @Test
+    void testSelectAggregates() {
+        setupStudentTable();
+        assertEquals("COUNT(*)\tMIN(age)\tMAX(gpa)\tSUM(age)\tAVG(age)\n3\t19\t3.8\t61\t"
+                + (61 / 3.0), engine.executeSQL(
+                "SELECT COUNT(*), MIN(age), MAX(gpa), SUM(age), AVG(age) FROM student"));
+        assertEquals("COUNT(*)\tMAX(id)\n2\t2",
+                engine.executeSQL("select count(*), max(id) FROM student WHERE age >= 20"));
+        assertEquals("COUNT(*)\tSUM(age)\n1\t19",
+                engine.executeSQL("SELECT COUNT(*), SUM(age) FROM student WHERE gpa < 3.0"));
+        assertEquals("MIN(age)\tMAX(age)\n20\t22",
+                engine.executeSQL("SELECT MIN(age), MAX(age) FROM student WHERE age >= 20"));
+        assertEquals("COUNT(*)\tAVG(gpa)\n0\tNULL",
+                engine.executeSQL("SELECT COUNT(*), AVG(gpa) FROM student WHERE age > 30"));
+
+        // Reflects rows changed since the last aggregate
+        engine.executeSQL("UPDATE student SET age = 40 WHERE id = 3");
+        assertEquals("MIN(age)\tMAX(age)\n20\t40",
+                engine.executeSQL("SELECT MIN(age), MAX(age) FROM student"));
+
+        assertThrows(RuntimeException.class,
+                () -> engine.executeSQL("SELECT SUM(name) FROM student"));
+        assertThrows(RuntimeException.class,
+                () -> engine.executeSQL("SELECT MAX(height) FROM student"));
+        assertThrows(RuntimeException.class,
+                () -> engine.executeSQL("SELECT name, COUNT(*) FROM student"));
+    }
+
+    @Test
+    void testStringMinMaxAreLexical() {
+        // 'b' hashes below 'aaa', so neither the index nor hash codes may order them
+        engine = new BPlusTreeArrayEngine(false);
+        engine.executeSQL("CREATE TABLE words (id, word)");
+        engine.executeSQL("INSERT INTO words VALUES (1, 'aaa'), (2, 'b'), (3, 'ab')");
+
+        String query = "SELECT MIN(word), MAX(word) FROM words";
+        assertEquals("MIN(word)\tMAX(word)\naaa\tb", engine.executeSQL(query));
+        assertEquals("word\tCOUNT(*)\naaa\t1\t\nab\t1\t\nb\t1",
+                engine.executeSQL("SELECT word, COUNT(*) FROM words GROUP BY word"));
+
+        engine.executeSQL("CREATE INDEX ON words (word)");
+        assertEquals("MIN(word)\tMAX(word)\naaa\tb", engine.executeSQL(query));
+    }
+
+    @Test
+    void testStringRangesAreLexical() {
+        // Ranges order strings as MIN and MAX do, whether or not the column is indexed
+        engine = new BPlusTreeArrayEngine(false);
+        engine.executeSQL("CREATE TABLE words (id, word)");
+        engine.executeSQL("INSERT INTO words VALUES (1, 'aaa'), (2, 'b'), (3, 'ab')");
+
+        String header = "id\tword\n";
+        for (boolean indexed : new boolean[]{false, true}) {
+            if (indexed) {
+                engine.executeSQL("CREATE INDEX ON words (word)");
+            }
+            assertEquals(header + "2\tb\t\n3\tab",
+                    engine.executeSQL("SELECT * FROM words WHERE word > 'aaa'"));
+            assertEquals(header + "1\taaa\t\n3\tab",
+                    engine.executeSQL("SELECT * FROM words WHERE word < 'b'"));
+            assertEquals(header + "3\tab",
+                    engine.executeSQL("SELECT * FROM words WHERE word >= 'ab' AND word <= 'ab'"));
+            assertEquals(header + "1\taaa",
+                    engine.executeSQL("SELECT * FROM words WHERE word = 'aaa'"));
+        }
+    }
+
+    @Test
+    void testGroupBy() {
+        // Uncached, so the same query reruns once indexes exist
+        engine = new BPlusTreeArrayEngine(false);
+        engine.executeSQL("CREATE TABLE products (id, category, price, qty)");
+        engine.executeSQL("INSERT INTO products VALUES (1, 'toys', 10.5, 3), (2, 'books', 4.5, 3), "
+                + "(3, 'toys', 2.5, 1), (4, 'games', 30.5, 2), (5, 'books', 8.5, 1)");
+
+        String byCategory = "SELECT category, COUNT(*), AVG(price), MAX(qty) FROM products "
+                + "GROUP BY category";
+        String expected = engine.executeSQL(byCategory);
+        assertEquals(3, expected.split("\n").length - 1);
+        assertTrue(expected.contains("toys\t2\t6.5\t3"));
+        assertTrue(expected.contains("books\t2\t6.5\t3"));
+
+        String byQty = "SELECT qty, COUNT(*), SUM(qty) FROM products GROUP BY qty";
+        assertEquals("qty\tCOUNT(*)\tSUM(qty)\n1\t2\t2\t\n2\t1\t2\t\n3\t2\t6",
+                engine.executeSQL(byQty));
+        assertEquals("COUNT(*)\n2",
+                engine.executeSQL("SELECT COUNT(*) FROM products WHERE qty >= 2 AND price < 20 "
+                        + "GROUP BY qty"));
+
+        // Walking the indexes gives the same groups as hashing the rows
+        String minMax = "SELECT MIN(category), MAX(category), MIN(price) FROM products";
+        String unindexed = engine.executeSQL(minMax);
+        engine.executeSQL("CREATE INDEX ON products (category)");
+        engine.executeSQL("CREATE INDEX ON products (qty)");
+        engine.executeSQL("CREATE INDEX ON products (price)");
+        assertEquals(expected, engine.executeSQL(byCategory));
+        assertEquals(unindexed, engine.executeSQL(minMax));
+        assertEquals("qty\tCOUNT(*)\tSUM(qty)\n1\t2\t2\t\n2\t1\t2\t\n3\t2\t6",
+                engine.executeSQL(byQty));
+
+        assertThrows(RuntimeException.class, () -> engine.executeSQL(
+                "SELECT price, COUNT(*) FROM products GROUP BY category"));
+        assertThrows(RuntimeException.class, () -> engine.executeSQL(
+                "SELECT COUNT(*) FROM products GROUP BY weight"));
+    }
+
+    @Test
+    void testParallelGroupByMatchesIndex() {
+        engine = new BPlusTreeArrayEngine(false);
+        engine.executeSQL("CREATE TABLE sales (id, region, amount)");
+        for (int batch = 0; batch < 80; batch++) {
+            StringBuilder insert = new StringBuilder("INSERT INTO sales VALUES ");
+            for (int i = 0; i < 1000; i++) {
+                int id = batch * 1000 + i;
+                insert.append(i > 0 ? ", " : "").append('(').append(id).append(", 'r")
+                        .append(id % 13).append("', ").append(id % 97).append(')');
+            }
+            engine.executeSQL(insert.toString());
+        }
+
+        // Above GROUP_BY_PARALLEL_ROWS, so hashed by range in parallel, then walked in the index
+        String query = "SELECT region, COUNT(*), SUM(amount), MIN(amount) FROM sales "
+                + "GROUP BY region";
+        String hashed = engine.executeSQL(query);
+        engine.executeSQL("CREATE INDEX ON sales (region)");
+        assertEquals(hashed, engine.executeSQL(query));
+        assertEquals(13, hashed.split("\n").length - 1);
+        assertTrue(hashed.contains("r0\t6154\t"));
+
+        assertEquals("COUNT(*)\n80000", engine.executeSQL("SELECT COUNT(*) FROM sales"));
+        assertEquals(engine.executeSQL("SELECT region, COUNT(*) FROM sales GROUP BY region"),
+                engine.executeSQL("SELECT region, COUNT(*) FROM sales WHERE id >= 0 "
+                        + "GROUP BY region"));
+    }
+
+    @Test
+    void testGroupByIndexMixesIntAndFloatKeys() {
+        // 5 and 5.0 are separate index keys that compare equal, and share one group
+        engine = new BPlusTreeArrayEngine(false);
+        engine.executeSQL("CREATE TABLE prices (id, price)");
+        engine.executeSQL("INSERT INTO prices VALUES (1, 5), (2, 5.0), (3, 7), (4, 5.0)");
+
+        String query = "SELECT price, COUNT(*), SUM(price) FROM prices GROUP BY price";
+        String hashed = engine.executeSQL(query);
+        assertTrue(hashed.contains("\t3\t15.0"));
+        assertTrue(hashed.contains("7\t1\t7"));
+
+        engine.executeSQL("CREATE INDEX ON prices (price)");
+        assertEquals(hashed, engine.executeSQL(query));
+        assertEquals(engine.executeSQL("SELECT price, COUNT(*) FROM prices WHERE id > 0 "
+                + "GROUP BY price"), engine.executeSQL("SELECT price, COUNT(*) FROM prices "
+                + "GROUP BY price"));
+
+        // Inserted in random order, some equal int and float keys land in neighbouring leaves
+        engine.executeSQL("CREATE TABLE scores (id, score)");
+        engine.executeSQL("CREATE INDEX ON scores (score)");
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; id <= 2000; id++) {
+            ids.add(id);
+        }
+        Collections.shuffle(ids, new Random(0));
+        for (int id : ids) {
+            int score = id % 500;
+            engine.executeSQL("INSERT INTO scores VALUES (" + id + ", " + score
+                    + (id % 1000 < 500 ? "" : ".0") + ")");
+        }
+        // A group shows whichever of 5 and 5.0 its path saw first, so compare counts by value
+        Map<Double, String> indexed = countsByValue(
+                engine.executeSQL("SELECT score, COUNT(*) FROM scores GROUP BY score"));
+        assertEquals(countsByValue(engine.executeSQL("SELECT score, COUNT(*) FROM scores "
+                + "WHERE id > 0 GROUP BY score")), indexed);
+        assertEquals(500, indexed.size());
+        assertEquals("4", indexed.get(7.0));
+    }
+
+    private static Map<Double, String> countsByValue(String result) {
+        Map<Double, String> counts = new HashMap<>();
+        for (String line : result.split("\n")) {
+            String[] fields = line.trim().split("\t");
+            if (!fields[0].equals("score")) {
+                counts.put(Double.parseDouble(fields[0]), fields[1]);
+            }
+        }
+        return counts;
+    }
+
+    @Test
+    void testAggregatesMatchRows() {
+        engine.executeSQL("CREATE TABLE items (id, price, qty)");
+        for (int i = 1; i <= 500; i++) {
+            engine.executeSQL("INSERT INTO items VALUES (" + i + ", " + (i % 37) + ".5, "
+                    + (i * 7 % 101) + ")");
+        }
+
+        String where = " FROM items WHERE qty > 50 AND price < 20";
+        int count = 0;
+        long sum = 0;
+        int max = Integer.MIN_VALUE;
+        try (ResultSet rows = engine.executeQuery("SELECT qty" + where)) {
+            while (rows.next()) {
+                count++;
+                sum += rows.getInt("qty");
+                max = Math.max(max, rows.getInt("qty"));
+            }
+        }
+
+        try (ResultSet result = engine.executeQuery(
+                "SELECT COUNT(*), SUM(qty), MAX(qty), AVG(price)" + where)) {
+            assertTrue(result.next());
+            assertEquals(count, result.getInt("COUNT(*)"));
+            assertEquals(sum, ((Number) result.getObject("SUM(qty)")).longValue());
+            assertEquals(max, result.getInt("MAX(qty)"));
+            assertFalse(result.next());
+        }
+    }
+
     // Helper method to set up test data
     private void setupStudentTable() {
         engine.executeSQL("CREATE TABLE student (id, name, age, gpa, deans_list)");
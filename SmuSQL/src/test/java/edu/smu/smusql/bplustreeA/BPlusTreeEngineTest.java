@@ -248,4 +248,46 @@ class BPlusTreeEngineTest {
                 "2\tJane\t25\t60000\t\n" +
                 "3\tBob\t35\t45000", result3);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testIndexedAndUnindexedPredicatesAgree() {
+        setupStudentTable();
+        String query = "SELECT * FROM student WHERE age >= 20 AND deans_list = 'True'";
+        String scanned = engine.executeSQL(query);
+
+        assertEquals("Index idx_student_age created successfully",
+                engine.executeSQL("CREATE INDEX ON student (age)"));
+        assertEquals(scanned, engine.executeSQL(query));
+
+        engine.executeSQL("UPDATE student SET age = 18 WHERE id = 2");
+        assertEquals("id\tname\tage\tgpa\tdeans_list\n" +
+                "1\tJohn\t20\t3.5\tTrue", engine.executeSQL(query));
+
+        assertEquals("Index idx_student_age dropped successfully",
+                engine.executeSQL("DROP INDEX ON student (age)"));
+        assertEquals("id\tname\tage\tgpa\tdeans_list\n" +
+                "1\tJohn\t20\t3.5\tTrue", engine.executeSQL(query));
+    }
+
+    @Test
+    void testStringRangesAreLexical() {
+        // 'b' hashes below 'aaa', so the index must not answer string ranges by hash code
+        engine.executeSQL("CREATE TABLE words (id, word)");
+        engine.executeSQL("INSERT INTO words VALUES (1, 'aaa')");
+        engine.executeSQL("INSERT INTO words VALUES (2, 'b')");
+        engine.executeSQL("INSERT INTO words VALUES (3, 'ab')");
+
+        String header = "id\tword\n";
+        for (boolean indexed : new boolean[]{false, true}) {
+            if (indexed) {
+                engine.executeSQL("CREATE INDEX ON words (word)");
+            }
+            assertEquals(header + "2\tb\t\n3\tab",
+                    engine.executeSQL("SELECT * FROM words WHERE word > 'aaa'"));
+            assertEquals(header + "1\taaa\t\n3\tab",
+                    engine.executeSQL("SELECT * FROM words WHERE word < 'b'"));
+            assertEquals(header + "1\taaa",
+                    engine.executeSQL("SELECT * FROM words WHERE word = 'aaa'"));
+        }
+    }
+}
@@ -249,4 +249,50 @@ class BPlusTreeMultiRangeArrayEngineTest {
                 "2\tJane\t25\t60000\t\n" +
                 "3\tBob\t35\t45000", result3);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testIndexedStrictRangesExcludeBoundary() {
+        // Strict comparisons are an inclusive range search minus the boundary key's postings
+        setupStudentTable();
+        engine.executeSQL("INSERT INTO student VALUES (4, 'Amy', 20, 3.0, 'False')");
+        assertEquals("Index idx_student_age created successfully",
+                engine.executeSQL("CREATE INDEX ON student (age)"));
+
+        String header = "id\tname\tage\tgpa\tdeans_list\n";
+        assertEquals(header + "2\tJane\t22\t3.8\tTrue",
+                engine.executeSQL("SELECT * FROM student WHERE age > 20"));
+        assertEquals(header + "3\tBob\t19\t2.5\tFalse",
+                engine.executeSQL("SELECT * FROM student WHERE age < 20"));
+        assertEquals(3, engine.executeSQL("SELECT * FROM student WHERE age >= 20")
+                .split("\n").length - 1);
+
+        // Deleting a row takes it out of the boundary key's postings
+        engine.executeSQL("DELETE FROM student WHERE id = 1");
+        assertEquals(header + "4\tAmy\t20\t3.0\tFalse",
+                engine.executeSQL("SELECT * FROM student WHERE age = 20"));
+        assertEquals(2, engine.executeSQL("SELECT * FROM student WHERE age != 20")
+                .split("\n").length - 1);
+    }
+
+    @Test
+    void testStringRangesAreLexical() {
+        // 'b' hashes below 'aaa', so the index must not answer string ranges by hash code
+        engine.executeSQL("CREATE TABLE words (id, word)");
+        engine.executeSQL("INSERT INTO words VALUES (1, 'aaa')");
+        engine.executeSQL("INSERT INTO words VALUES (2, 'b')");
+        engine.executeSQL("INSERT INTO words VALUES (3, 'ab')");
+
+        String header = "id\tword\n";
+        for (boolean indexed : new boolean[]{false, true}) {
+            if (indexed) {
+                engine.executeSQL("CREATE INDEX ON words (word)");
+            }
+            assertEquals(header + "2\tb\t\n3\tab",
+                    engine.executeSQL("SELECT * FROM words WHERE word > 'aaa'"));
+            assertEquals(header + "1\taaa\t\n3\tab",
+                    engine.executeSQL("SELECT * FROM words WHERE word < 'b'"));
+            assertEquals(header + "1\taaa",
+                    engine.executeSQL("SELECT * FROM words WHERE word = 'aaa'"));
+        }
+    }
+}
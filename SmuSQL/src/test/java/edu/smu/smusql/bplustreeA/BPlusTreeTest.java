@@ -7,7 +7,10 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -286,4 +289,71 @@ public class BPlusTreeTest {
                 () -> tree.updateKey(2, 3));
     }
 
-}
\ No newline at end of file
+
+    @Test
+    public void testBulkLoadMatchesInserts() {
+        BPlusTree<Integer, String> loaded = new BPlusTree<>(ORDER);
+        List<Integer> keys = new ArrayList<>();
+        List<List<String>> values = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            keys.add(i * 2);
+            values.add(new ArrayList<>(List.of("v" + i)));
+        }
+        loaded.bulkLoad(keys, values);
+
+        assertEquals(1000, loaded.getSize());
+        assertEquals(keys, loaded.getAllKeys());
+        assertEquals("v500", loaded.search(1000).get(0));
+        assertNull(loaded.search(1001));
+        assertEquals(List.of("v10", "v11", "v12"), loaded.rangeSearch(20, 24));
+
+        // Still splits and merges like a tree built by inserts
+        for (int i = 0; i < 1000; i++) {
+            loaded.insert(i * 2 + 1, "odd" + i);
+        }
+        assertEquals(2000, loaded.getSize());
+        assertEquals("odd250", loaded.search(501).get(0));
+        assertEquals("v250", loaded.search(500).get(0));
+        assertThrows(IllegalStateException.class, () -> loaded.bulkLoad(keys, values));
+    }
+
+    @Test
+    public void testRangeCountMatchesPostings() {
+        BPlusTree<Number, Integer> index = new BPlusTree<>(ORDER);
+        for (int key = 0; key < 200; key++) {
+            index.insert(key % 7, key);
+        }
+        index.insert(3.0f, 500); // Compares equal to 3 but is its own tree key
+
+        assertEquals(index.rangeSearchPostings(3, true, 3, true).length,
+            index.rangeCount(3, true, 3, true));
+        assertEquals(30, index.rangeCount(3, true, 3, true));
+        assertEquals(index.rangeSearchPostings(2, false, 5, true).length,
+            index.rangeCount(2, false, 5, true));
+        assertEquals(0, index.rangeCount(10, true, 10, true));
+    }
+
+    @Test
+    public void testForEachKeyListPassesEachStoredKeyOnce() {
+        // Every int has a float twin that compares equal. Inserted in random order some pairs
+        // straddle two leaves, where looking a key up again finds the wrong leaf
+        List<Number> keys = new ArrayList<>();
+        for (int key = 0; key < 100; key++) {
+            keys.add(key);
+            keys.add((float) key);
+        }
+        Collections.shuffle(keys, new Random(0));
+        BPlusTree<Number, Integer> index = new BPlusTree<>(ORDER);
+        for (Number key : keys) {
+            index.insert(key, key instanceof Float ? 1000 + key.intValue() : key.intValue());
+        }
+
+        int[] visited = {0};
+        index.forEachKeyList((key, postings) -> {
+            int value = key.intValue();
+            assertEquals(List.of(key instanceof Float ? 1000 + value : value), postings);
+            visited[0]++;
+        });
+        assertEquals(200, visited[0]);
+    }
+}
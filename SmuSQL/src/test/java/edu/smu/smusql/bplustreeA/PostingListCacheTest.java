@@ -0,0 +1,79 @@
+package edu.smu.smusql.bplustreeA;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import edu.smu.smusql.Constants;
+import edu.smu.smusql.bplustreeA.bplustreeArray.BPlusTreeArrayEngine;
+import edu.smu.smusql.bplustreeA.lruCache.PostingListCache;
+import org.junit.jupiter.api.Test;
+
+class PostingListCacheTest {
+
+    @Test
+    void testWritesOnlyInvalidateCoveringRanges() {
+        PostingListCache cache = new PostingListCache(1000, 100, Constants.CACHE_SHARDS);
+        cache.put("idx_t_a", "=", 5, new int[] {1, 2});
+        cache.put("idx_t_a", "=", 9, new int[] {3});
+        cache.put("idx_t_a", "<", 7, new int[] {1, 2});
+        cache.put("idx_t_a", ">=", 7, new int[] {3});
+        cache.put("idx_t_a", "<>", 5, new int[] {3});
+        cache.put("idx_t_b", "=", 5, new int[] {4});
+
+        cache.invalidate("idx_t_a", 5);
+        assertNull(cache.get("idx_t_a", "=", 5));
+        assertNull(cache.get("idx_t_a", "<", 7));
+        assertArrayEquals(new int[] {3}, cache.get("idx_t_a", "=", 9));
+        assertArrayEquals(new int[] {3}, cache.get("idx_t_a", ">=", 7));
+        assertArrayEquals(new int[] {3}, cache.get("idx_t_a", "!=", 5)); // 5 is the excluded key
+        assertArrayEquals(new int[] {4}, cache.get("idx_t_b", "=", 5));
+
+        cache.invalidate("idx_t_a", 8.5f);
+        assertNull(cache.get("idx_t_a", ">=", 7));
+        assertNull(cache.get("idx_t_a", "!=", 5));
+        assertNotNull(cache.get("idx_t_a", "=", 9));
+
+        cache.invalidateIndex("idx_t_a");
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedLists() {
+        PostingListCache cache = new PostingListCache(4, 2, 1); // One shard, so one LRU order
+        cache.put("idx", "=", 1, new int[] {1, 2});
+        cache.put("idx", "=", 2, new int[] {3, 4});
+        cache.get("idx", "=", 1);
+        cache.put("idx", "=", 3, new int[] {5});
+        cache.put("idx", "=", 4, new int[] {6, 7, 8}); // Longer than a list may be
+
+        assertNotNull(cache.get("idx", "=", 1));
+        assertNull(cache.get("idx", "=", 2));
+        assertNotNull(cache.get("idx", "=", 3));
+        assertNull(cache.get("idx", "=", 4));
+    }
+
+    @Test
+    void testEngineSeesWritesThroughCachedLookups() {
+        BPlusTreeArrayEngine engine = new BPlusTreeArrayEngine(true);
+        engine.executeSQL("CREATE TABLE users (id, name, age)");
+        engine.executeSQL("CREATE INDEX ON users (age)");
+        for (int i = 1; i <= 100; i++) {
+            engine.executeSQL("INSERT INTO users VALUES (" + i + ", 'u" + i + "', " + i + ")");
+        }
+
+        String young = "SELECT * FROM users WHERE age < 3";
+        assertEquals(3, engine.executeSQL(young).split("\n").length);
+        assertEquals(2, engine.executeSQL("SELECT * FROM users WHERE age < 3 AND id > 1")
+            .split("\n").length);
+
+        engine.executeSQL("INSERT INTO users VALUES (101, 'new', 1)");
+        engine.executeSQL("UPDATE users SET age = 50 WHERE id = 2");
+        assertEquals("id\tname\tage\n1\tu1\t1\t\n101\tnew\t1", engine.executeSQL(young));
+
+        engine.executeSQL("DELETE FROM users WHERE age = 1");
+        assertEquals("id\tname\tage\n", engine.executeSQL(young));
+        assertEquals(3, engine.executeSQL("SELECT * FROM users WHERE age = 50").split("\n").length);
+    }
+}
@@ -0,0 +1,76 @@
+package edu.smu.smusql.bplustreeA;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.smu.smusql.bplustreeA.helper.PostingLists;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+class PostingListsTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    void testIntersectAndUnionMatchSetSemantics() {
+        // Covers both the linear merge (similar sizes) and galloping (skewed sizes) paths
+        int[][] sizes = {{0, 10}, {10, 10}, {100, 120}, {5, 5000}, {1, 100000}, {300, 40000}};
+        for (int[] size : sizes) {
+            TreeSet<Integer> a = randomSet(size[0], size[1] * 4);
+            TreeSet<Integer> b = randomSet(size[1], size[1] * 4);
+
+            TreeSet<Integer> intersection = new TreeSet<>(a);
+            intersection.retainAll(b);
+            TreeSet<Integer> union = new TreeSet<>(a);
+            union.addAll(b);
+
+            assertArrayEquals(toArray(intersection), PostingLists.intersect(toArray(a), toArray(b)));
+            assertArrayEquals(toArray(intersection), PostingLists.intersect(toArray(b), toArray(a)));
+            assertArrayEquals(toArray(union), PostingLists.union(toArray(a), toArray(b)));
+        }
+    }
+
+    @Test
+    void testSortedDistinct() {
+        int[] keys = {5, 3, 5, -1, 3, 9};
+        assertArrayEquals(new int[]{-1, 3, 5, 9}, PostingLists.sortedDistinct(keys, keys.length));
+    }
+
+    @Test
+    void testIndexPostingsStaySorted() {
+        BPlusTree<Number, Integer> index = new BPlusTree<>(4);
+        // Insert primary keys out of order under a handful of index keys
+        for (int i = 0; i < 500; i++) {
+            int primaryKey = (i * 7919) % 500;
+            index.insert(primaryKey % 5, primaryKey);
+        }
+
+        int[] postings = index.rangeSearchPostings(2, true, 2, true);
+        assertEquals(100, postings.length);
+        assertSorted(postings);
+
+        int[] range = index.rangeSearchPostings(1, true, 3, true);
+        assertEquals(300, range.length);
+        assertSorted(range);
+    }
+
+    private static void assertSorted(int[] keys) {
+        for (int i = 1; i < keys.length; i++) {
+            assertTrue(keys[i - 1] < keys[i], "Not sorted at position " + i);
+        }
+    }
+
+    private TreeSet<Integer> randomSet(int size, int bound) {
+        TreeSet<Integer> set = new TreeSet<>();
+        while (set.size() < size) {
+            set.add(random.nextInt(bound));
+        }
+        return set;
+    }
+
+    private static int[] toArray(TreeSet<Integer> set) {
+        return set.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,170 @@
+package edu.smu.smusql.bplustreeA;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.smu.smusql.bplustreeA.bplustreeArray.BPlusTreeArrayEngine;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class QueryPlannerTest {
+
+    private BPlusTreeArrayEngine engine;
+
+    @BeforeEach
+    public void setUp() {
+        engine = new BPlusTreeArrayEngine(false);
+        engine.executeSQL("CREATE TABLE users (id, name, age, city)");
+        String[] cities = {"Boston", "Chicago", "Denver", "Miami"};
+        for (int i = 1; i <= 200; i++) {
+            engine.executeSQL(String.format("INSERT INTO users VALUES (%d, 'User%d', %d, '%s')", i,
+                i, 20 + (i % 40), cities[i % cities.length]));
+        }
+        engine.executeSQL("CREATE INDEX ON users (age)");
+        engine.executeSQL("CREATE INDEX ON users (city)");
+    }
+
+    @AfterEach
+    public void cleanup() {
+        engine.clearDatabase();
+    }
+
+    @Test
+    void testDrivesFromMostSelectivePredicate() {
+        String plan = engine.executeSQL("EXPLAIN SELECT * FROM users WHERE age > 20 AND id = 5");
+        assertTrue(plan.startsWith("Filter: age > 20"), plan);
+        assertTrue(plan.contains("-> Primary Key Lookup on users: id = 5"), plan);
+
+        assertEquals("id\tname\tage\tcity\n5\tUser5\t25\tChicago",
+            engine.executeSQL("SELECT * FROM users WHERE age > 20 AND id = 5"));
+    }
+
+    @Test
+    void testFallsBackToSeqScanForUnselectivePredicate() {
+        String plan = engine.executeSQL("EXPLAIN SELECT * FROM users WHERE age >= 21");
+        assertTrue(plan.startsWith("Seq Scan on users filter: age >= 21"), plan);
+    }
+
+    @Test
+    void testUsesIndexForSelectiveRange() {
+        String plan = engine.executeSQL("EXPLAIN SELECT * FROM users WHERE age > 57");
+        assertTrue(plan.startsWith("Index Scan using idx_users_age"), plan);
+    }
+
+    @Test
+    void testUnionForSelectiveDisjunction() {
+        String plan = engine.executeSQL("EXPLAIN SELECT * FROM users WHERE id = 3 OR age = 59");
+        assertTrue(plan.startsWith("Key Union"), plan);
+
+        String result = engine.executeSQL("SELECT * FROM users WHERE id = 3 OR age = 59");
+        // id 3 plus ids 39, 79, 119, 159, 199 with age 59
+        assertEquals(7, result.split("\n").length, result);
+    }
+
+    @Test
+    void testIntersectsPostingListsOfSimilarSize() {
+        String plan = engine.executeSQL(
+            "EXPLAIN SELECT * FROM users WHERE age < 25 AND city = 'Miami'");
+        assertTrue(plan.startsWith("Key Intersect"), plan);
+
+        // age < 25 and Miami means i % 40 == 3
+        assertEquals("id\tname\tage\tcity\n"
+                + "3\tUser3\t23\tMiami\t\n43\tUser43\t23\tMiami\t\n83\tUser83\t23\tMiami\t\n"
+                + "123\tUser123\t23\tMiami\t\n163\tUser163\t23\tMiami",
+            engine.executeSQL("SELECT * FROM users WHERE age < 25 AND city = 'Miami'"));
+    }
+
+    @Test
+    void testIndexOnlySelect() {
+        String plan = engine.executeSQL("EXPLAIN SELECT age FROM users WHERE age > 58");
+        assertTrue(plan.endsWith("Output: id, age (index only)"), plan);
+        assertEquals("id\tage\n39\t59\t\n79\t59\t\n119\t59\t\n159\t59\t\n199\t59",
+            engine.executeSQL("SELECT age FROM users WHERE age > 58"));
+
+        plan = engine.executeSQL("EXPLAIN SELECT id FROM users WHERE age < 25 AND city = 'Miami'");
+        assertTrue(plan.endsWith("Output: id (index only)"), plan);
+        assertEquals("id\n3\t\n43\t\n83\t\n123\t\n163",
+            engine.executeSQL("SELECT id FROM users WHERE age < 25 AND city = 'Miami'"));
+
+        // City values are strings, indexed by hash code, so they still come from the row
+        plan = engine.executeSQL("EXPLAIN SELECT city FROM users WHERE city = 'Miami'");
+        assertTrue(plan.endsWith("Output: id, city"), plan);
+    }
+
+    @Test
+    void testExplainUpdateAndDelete() {
+        assertTrue(engine.executeSQL("EXPLAIN UPDATE users SET age = 1 WHERE id < 3")
+            .startsWith("Primary Key Range Scan on users: id < 3"));
+        assertTrue(engine.executeSQL("EXPLAIN DELETE FROM users WHERE city = 'Miami'")
+            .startsWith("Index Scan using idx_users_city"));
+    }
+
+    @Test
+    void testPlansAgreeWithScan() {
+        // Same predicate through an index driven plan and through a forced scan
+        String viaIndex = engine.executeSQL(
+            "SELECT * FROM users WHERE age = 30 AND city = 'Miami'");
+        String viaScan = engine.executeSQL(
+            "SELECT * FROM users WHERE age >= 30 AND age <= 30 AND city = 'Miami' OR id < 0");
+        assertEquals(viaScan, viaIndex);
+        assertEquals("5 row(s) deleted successfully",
+            engine.executeSQL("DELETE FROM users WHERE age = 30"));
+    }
+
+    @Test
+    void testCreateAndDropIndex() {
+        String query = "SELECT * FROM users WHERE name = 'User7'";
+        String expected = "id\tname\tage\tcity\n7\tUser7\t27\tMiami";
+        assertTrue(engine.executeSQL("EXPLAIN " + query).startsWith("Seq Scan on users"));
+        assertEquals(expected, engine.executeSQL(query));
+
+        assertEquals("Index idx_name created successfully",
+            engine.executeSQL("CREATE INDEX idx_name ON users (name)"));
+        assertTrue(engine.executeSQL("EXPLAIN " + query).startsWith("Index Scan using"));
+        assertEquals(expected, engine.executeSQL(query));
+        assertThrows(RuntimeException.class,
+            () -> engine.executeSQL("CREATE INDEX ON users (name)"));
+        assertThrows(RuntimeException.class,
+            () -> engine.executeSQL("CREATE INDEX ON users (missing)"));
+
+        // Writes keep the new index in step
+        engine.executeSQL("UPDATE users SET name = 'Renamed' WHERE id = 7");
+        assertEquals("id\tname\tage\tcity\n", engine.executeSQL(query));
+
+        assertEquals("Index idx_name dropped successfully",
+            engine.executeSQL("DROP INDEX idx_name"));
+        assertTrue(engine.executeSQL("EXPLAIN " + query).startsWith("Seq Scan on users"));
+        assertThrows(RuntimeException.class, () -> engine.executeSQL("DROP INDEX idx_name"));
+
+        assertEquals("Index idx_users_age dropped successfully",
+            engine.executeSQL("DROP INDEX ON users (age)"));
+        assertEquals("5 row(s) deleted successfully",
+            engine.executeSQL("DELETE FROM users WHERE age = 30"));
+    }
+
+    @Test
+    void testIndexAdvisor() {
+        // 200 inserts so far and no predicates, neither index pays for its upkeep
+        for (int i = 0; i < 40; i++) {
+            engine.executeSQL("SELECT * FROM users WHERE name = 'User" + i + "'");
+        }
+        engine.executeSQL("SELECT * FROM users WHERE id = 1");
+
+        assertEquals("CREATE INDEX ON users (name) -- 40 =, 0 range, 0 other predicates, 200 writes\n"
+                + "DROP INDEX ON users (age) -- 0 =, 0 range, 0 other predicates, 200 writes\n"
+                + "DROP INDEX ON users (city) -- 0 =, 0 range, 0 other predicates, 200 writes",
+            engine.executeSQL("ADVISE"));
+
+        assertEquals("Index idx_users_name created successfully\n"
+                + "Index idx_users_age dropped successfully\n"
+                + "Index idx_users_city dropped successfully",
+            engine.executeSQL("ADVISE APPLY"));
+        assertEquals(List.of("idx_users_name"), engine.getIndexNames());
+        assertTrue(engine.executeSQL("EXPLAIN SELECT * FROM users WHERE name = 'User7'")
+            .startsWith("Index Scan using idx_users_name"));
+        assertEquals("No index changes recommended", engine.executeSQL("ADVISE"));
+    }
+}
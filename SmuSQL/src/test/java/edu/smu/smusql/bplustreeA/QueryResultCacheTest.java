@@ -0,0 +1,137 @@
+package edu.smu.smusql.bplustreeA;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.smu.smusql.bplustreeA.lruCache.CacheQueryKey;
+import edu.smu.smusql.bplustreeA.lruCache.QueryResultCache;
+import edu.smu.smusql.bplustreeA.lruCache.WeightedCache;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.Test;
+
+class QueryResultCacheTest {
+
+    private static WeightedCache<String, String> newCache(long maxWeight) {
+        return new WeightedCache<>(maxWeight, 100, 0.01, 0.8, 0.1, String::length);
+    }
+
+    @Test
+    void testWeightBoundAndOversizedValues() {
+        WeightedCache<String, String> cache = newCache(1000);
+        for (int i = 0; i < 500; i++) {
+            cache.put("k" + i, "x".repeat(1 + i % 40));
+            assertTrue(cache.weight() <= 1000);
+        }
+
+        // Looked up once before being stored, like a missed query, so it outranks the unread entries
+        assertNull(cache.get("small"));
+        cache.put("small", "y".repeat(100));
+        assertNull(cache.get("large"));
+        cache.put("large", "z".repeat(101)); // Above a tenth of the capacity
+        assertEquals("y".repeat(100), cache.get("small"));
+        assertNull(cache.get("large"));
+    }
+
+    @Test
+    void testFrequentEntriesSurviveScans() {
+        WeightedCache<String, String> cache = newCache(1000);
+        String value = "v".repeat(10);
+        int hotHits = 0;
+        int hotLookups = 0;
+
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 50; i++) {
+                hotLookups++;
+                if (cache.get("hot" + i) != null) {
+                    hotHits++;
+                } else {
+                    cache.put("hot" + i, value);
+                }
+            }
+            // A scan of more one-off results than the cache can hold, which would flush an LRU
+            for (int i = 0; i < 200; i++) {
+                String key = "scan" + round + "_" + i;
+                if (cache.get(key) == null) {
+                    cache.put(key, value);
+                }
+            }
+        }
+
+        assertTrue(hotHits > hotLookups * 0.9, hotHits + " of " + hotLookups);
+    }
+
+    @Test
+    void testTablesWithLowHitRatesAreBypassed() {
+        QueryResultCache cache = new QueryResultCache(1 << 20, 10, 0.5, 20);
+
+        for (int i = 0; i < 10; i++) {
+            CacheQueryKey hot = new CacheQueryKey("hot", null, List.of("*"), 0);
+            if (cache.get(hot) == null) {
+                cache.put(hot, "result");
+            }
+            CacheQueryKey scan = new CacheQueryKey("scan", null, List.of("*"), i);
+            assertNull(cache.get(scan));
+            cache.put(scan, "result" + i);
+        }
+
+        assertFalse(cache.isBypassed("hot"));
+        assertTrue(cache.isBypassed("scan"));
+
+        int size = cache.size();
+        CacheQueryKey key = new CacheQueryKey("scan", null, List.of("*"), 100);
+        cache.put(key, "ignored");
+        assertEquals(size, cache.size());
+
+        for (int i = 0; i < 20; i++) {
+            assertNull(cache.get(key));
+        }
+        assertFalse(cache.isBypassed("scan"));
+        cache.put(key, "stored");
+        assertEquals("stored", cache.get(key));
+    }
+
+    @Test
+    void testConcurrentLookupsAndInserts() throws Exception {
+        long maxBytes = 1 << 20;
+        QueryResultCache cache = new QueryResultCache(maxBytes, 1000, 0, 0);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    int hits = 0;
+                    for (int i = 0; i < 20000; i++) {
+                        // Skewed towards a small set of hot keys
+                        int id = ThreadLocalRandom.current().nextInt(64)
+                            * ThreadLocalRandom.current().nextInt(64);
+                        CacheQueryKey key = new CacheQueryKey("t", null, List.of("*"), id);
+                        String result = cache.get(key);
+                        if (result == null) {
+                            cache.put(key, "result " + id);
+                        } else {
+                            assertEquals("result " + id, result);
+                            hits++;
+                        }
+                    }
+                    return hits;
+                }));
+            }
+
+            int hits = 0;
+            for (Future<Integer> future : futures) {
+                hits += future.get();
+            }
+            assertTrue(hits > 0);
+            assertTrue(cache.weight() <= maxBytes);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
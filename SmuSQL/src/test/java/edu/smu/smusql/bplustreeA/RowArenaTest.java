@@ -0,0 +1,174 @@
+package edu.smu.smusql.bplustreeA;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.smu.smusql.Constants;
+import edu.smu.smusql.bplustreeA.arena.PackedRowStore;
+import edu.smu.smusql.bplustreeA.arena.RowArena;
+import edu.smu.smusql.bplustreeA.helper.StringDictionary;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+class RowArenaTest {
+
+    private static StringDictionary[] dictionaries(int columnCount) {
+        StringDictionary[] dictionaries = new StringDictionary[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            dictionaries[i] = new StringDictionary(Constants.DICTIONARY_MAX_VALUES);
+        }
+        return dictionaries;
+    }
+
+    @Test
+    void testRowsRoundTrip() {
+        StringDictionary[] dictionaries = dictionaries(4);
+        String paris = dictionaries[2].encode("Paris");
+        RowArena arena = new RowArena(dictionaries);
+
+        long first = arena.allocate(new Object[]{1, 2.5f, "Paris", "naïve"});
+        long second = arena.allocate(new Object[]{-7, null, "Oslo", ""});
+
+        Object[] row = arena.read(first);
+        assertArrayEquals(new Object[]{1, 2.5f, "Paris", "naïve"}, row);
+        assertSame(paris, row[2]); // Stored by code, read back as the shared instance
+        assertArrayEquals(new Object[]{-7, null, "Oslo", ""}, arena.read(second));
+    }
+
+    @Test
+    void testFreedBlocksAreReused() {
+        RowArena arena = new RowArena(dictionaries(2));
+        long first = arena.allocate(new Object[]{1, "abc"});
+        long second = arena.allocate(new Object[]{2, "def"});
+        long slabBytes = arena.getSlabBytes();
+
+        arena.free(first);
+        assertEquals(arena.getSlabBytes(), slabBytes);
+        assertEquals(first, arena.allocate(new Object[]{3, "xyz"}));
+        assertEquals(0, arena.getFreeBytes());
+
+        // Fits the block in place, then outgrows it and moves
+        assertEquals(second, arena.replace(second, new Object[]{2, "d"}));
+        long moved = arena.replace(second, new Object[]{2, "a much longer string value"});
+        assertNotEquals(second, moved);
+        assertArrayEquals(new Object[]{2, "a much longer string value"}, arena.read(moved));
+        assertArrayEquals(new Object[]{3, "xyz"}, arena.read(first));
+    }
+
+    @Test
+    void testRowLargerThanSlab() {
+        RowArena arena = new RowArena(dictionaries(1));
+        String large = "x".repeat(Constants.ROW_ARENA_SLAB_SIZE + 10);
+        long small = arena.allocate(new Object[]{"small"});
+        long address = arena.allocate(new Object[]{large});
+
+        assertEquals(large, arena.read(address)[0]);
+        assertEquals("small", arena.read(small)[0]);
+    }
+
+    @Test
+    void testPackedRowStore() {
+        PackedRowStore store = new PackedRowStore(4, dictionaries(2));
+        for (int key = 99; key >= 0; key -= 2) {
+            store.insert(key, new Object[]{key, "v" + key});
+        }
+        for (int key = 0; key < 100; key += 2) {
+            store.insert(key, new Object[]{key, "v" + key});
+        }
+        store.update(5, new Object[]{5, "a longer replacement value"});
+        store.removeKey(6);
+
+        assertEquals(99, store.getSize());
+        assertNull(store.search(6));
+        assertEquals("a longer replacement value", store.search(5).get(0)[1]);
+        Map<Integer, Object[]> range = store.rangeSearchKeyValues(4, true, 7, false);
+        assertEquals(List.of(4, 5), List.copyOf(range.keySet()));
+        assertArrayEquals(new int[]{8, 9}, store.rangeSearchKeys(7, false, 9, true));
+        assertEquals(0, store.entryIterator().next().getKey());
+        assertEquals(0, store.getMinKey());
+        assertEquals(99, store.getMaxKey());
+        assertEquals(List.of(5, 7), List.copyOf(store.multiKeySearch(new int[]{5, 6, 7}).keySet()));
+
+        // Changing a row read from the store does not change the stored row
+        store.search(7).get(0)[1] = "changed";
+        assertEquals("v7", store.search(7).get(0)[1]);
+
+        // Ranges cut at the split keys cover every row once
+        List<Integer> bounds = store.splitKeys(4);
+        assertTrue(bounds.size() >= 3);
+        int[] seen = {0};
+        for (int i = 0; i <= bounds.size(); i++) {
+            int from = i == 0 ? Integer.MIN_VALUE : bounds.get(i - 1);
+            int to = i == bounds.size() ? Integer.MAX_VALUE : bounds.get(i);
+            store.rangeForEach(from, true, to, i == bounds.size(), (key, row) -> seen[0]++);
+        }
+        assertEquals(99, seen[0]);
+
+        // Emptied leaves are dropped, and the store fills again
+        for (int key = 0; key < 100; key++) {
+            store.removeKey(key);
+        }
+        assertEquals(0, store.getSize());
+        assertNull(store.getMinKey());
+        assertEquals(List.of(), store.splitKeys(4));
+        store.bulkLoad(List.of(1, 2, 3), List.of(new Object[]{1, "a"}, new Object[]{2, "b"},
+            new Object[]{3, "c"}));
+        assertEquals("b", store.search(2).get(0)[1]);
+    }
+
+    @Test
+    void testPackedRowStoreMatchesSortedMap() {
+        // Small nodes, so random inserts and removals split and empty several internal levels
+        PackedRowStore store = new PackedRowStore(4, dictionaries(1));
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        Random random = new Random(1);
+        for (int step = 0; step < 20000; step++) {
+            int key = random.nextInt(3000);
+            if (random.nextInt(3) == 0) {
+                store.removeKey(key);
+                expected.remove(key);
+            } else if (!expected.containsKey(key)) {
+                store.insert(key, new Object[]{key});
+                expected.put(key, key);
+            }
+        }
+
+        assertEquals(expected.size(), store.getSize());
+        assertEquals(expected.firstKey(), store.getMinKey());
+        assertEquals(expected.lastKey(), store.getMaxKey());
+        List<Integer> scanned = new ArrayList<>();
+        store.entryIterator().forEachRemaining(entry -> scanned.add(entry.getKey()));
+        assertEquals(List.copyOf(expected.keySet()), scanned);
+        assertEquals(List.copyOf(expected.subMap(500, false, 900, true).keySet()),
+            List.copyOf(store.rangeSearchKeyValues(500, false, 900, true).keySet()));
+        for (int key = 0; key < 3000; key++) {
+            assertEquals(expected.containsKey(key), store.search(key) != null);
+        }
+
+        List<Integer> bounds = store.splitKeys(8);
+        assertTrue(bounds.size() >= 7);
+        int[] seen = {0};
+        for (int i = 0; i <= bounds.size(); i++) {
+            int from = i == 0 ? Integer.MIN_VALUE : bounds.get(i - 1);
+            int to = i == bounds.size() ? Integer.MAX_VALUE : bounds.get(i);
+            store.rangeForEach(from, true, to, i == bounds.size(), (key, row) -> seen[0]++);
+        }
+        assertEquals(expected.size(), seen[0]);
+
+        for (int key : List.copyOf(expected.keySet())) {
+            store.removeKey(key);
+        }
+        assertEquals(0, store.getSize());
+        assertNull(store.getMaxKey());
+        assertFalse(store.entryIterator().hasNext());
+    }
+}
@@ -0,0 +1,225 @@
+package edu.smu.smusql.bplustreeA;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.smu.smusql.ConcurrentEngine;
+import edu.smu.smusql.IEngine;
+import edu.smu.smusql.bplustreeA.bplustreeArray.BPlusTreeArrayEngine;
+import edu.smu.smusql.bplustreeA.wal.WalRecord;
+import edu.smu.smusql.bplustreeA.wal.WriteAheadLog;
+import edu.smu.smusql.bplustreeA.wal.WriteAheadLog.Durability;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testChangesSurviveReopen() throws IOException {
+        Path path = dir.resolve("smusql.wal");
+        String expected;
+
+        try (WriteAheadLog wal = new WriteAheadLog(path, Durability.SYNC)) {
+            BPlusTreeArrayEngine engine = new BPlusTreeArrayEngine(true, false, wal);
+            engine.executeSQL("CREATE TABLE users (id, name, age)");
+            engine.executeSQL("CREATE INDEX by_age ON users (age)");
+            engine.executeBatch(List.of("INSERT INTO users VALUES (1, 'alice', 30)",
+                "INSERT INTO users VALUES (2, 'bob', 25)",
+                "INSERT INTO users VALUES (3, 'carol', 41)"));
+            engine.executeSQL("UPDATE users SET age = 26 WHERE name = 'bob'");
+            engine.executeSQL("DELETE FROM users WHERE id = 3");
+            engine.executeSQL("INSERT INTO users VALUES (4, 'dave', 26.5)");
+            expected = engine.executeSQL("SELECT * FROM users WHERE age > 20");
+        }
+
+        try (WriteAheadLog wal = new WriteAheadLog(path, Durability.SYNC)) {
+            BPlusTreeArrayEngine engine = new BPlusTreeArrayEngine(true, false, wal);
+            assertEquals(expected, engine.executeSQL("SELECT * FROM users WHERE age > 20"));
+            assertEquals("id\tname\tage\n2\tbob\t26",
+                engine.executeSQL("SELECT * FROM users WHERE age = 26"));
+            assertEquals(List.of("by_age"), engine.getIndexNames());
+        }
+    }
+
+    @Test
+    void testCheckpointRestoresTablesAndIndexes() throws IOException {
+        Path path = dir.resolve("checkpoint.wal");
+        String expected;
+
+        try (WriteAheadLog wal = new WriteAheadLog(path, Durability.SYNC)) {
+            BPlusTreeArrayEngine engine = new BPlusTreeArrayEngine(true, false, wal);
+            engine.executeSQL("CREATE TABLE products (id, name, price, category)");
+            engine.executeSQL("CREATE TABLE empty (id, a)");
+            engine.executeSQL("CREATE INDEX by_price ON products (price)");
+            List<String> inserts = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                inserts.add("INSERT INTO products VALUES (" + i + ", 'p" + i + "', " + (i % 50)
+                    + ".5, 'c" + (i % 7) + "')");
+            }
+            engine.executeBatch(inserts);
+            engine.executeSQL("CHECKPOINT");
+            assertEquals(0, wal.size());
+
+            // Changes after the checkpoint come back from the log
+            engine.executeSQL("DELETE FROM products WHERE price < 10");
+            engine.executeSQL("CREATE INDEX ON products (category)");
+            engine.executeSQL("UPDATE products SET name = 'renamed' WHERE id = 499");
+            engine.executeSQL("CHECKPOINT");
+            engine.executeSQL("INSERT INTO products VALUES (1000, 'late', 99.5, 'c1')");
+            expected = engine.executeSQL("SELECT * FROM products WHERE category = 'c1'");
+        }
+
+        try (Stream<Path> files = Files.list(dir.resolve("checkpoint.wal.snapshot"))) {
+            assertEquals(3, files.count()); // Catalog and the latest snapshot of each table
+        }
+
+        try (WriteAheadLog wal = new WriteAheadLog(path, Durability.SYNC)) {
+            BPlusTreeArrayEngine engine = new BPlusTreeArrayEngine(true, false, wal);
+            assertEquals(expected,
+                engine.executeSQL("SELECT * FROM products WHERE category = 'c1'"));
+            assertEquals(List.of("by_price", "idx_products_category"), engine.getIndexNames());
+            assertTrue(engine.executeSQL("EXPLAIN SELECT * FROM products WHERE price = 45.5")
+                .startsWith("Index Scan using idx_products_price"));
+            assertEquals("id\tname\n499\trenamed",
+                engine.executeSQL("SELECT name FROM products WHERE id = 499"));
+            assertEquals("id\ta\n", engine.executeSQL("SELECT * FROM empty"));
+
+            engine.clearDatabase();
+        }
+
+        try (WriteAheadLog wal = new WriteAheadLog(path, Durability.SYNC)) {
+            BPlusTreeArrayEngine engine = new BPlusTreeArrayEngine(true, false, wal);
+            assertEquals(List.of(), engine.getIndexNames());
+        }
+    }
+
+    @Test
+    void testTablesLoadOnFirstUse() throws IOException {
+        Path path = dir.resolve("lazy.wal");
+        try (WriteAheadLog wal = new WriteAheadLog(path, Durability.SYNC)) {
+            BPlusTreeArrayEngine engine = new BPlusTreeArrayEngine(true, false, wal);
+            for (String table : List.of("a", "b", "c")) {
+                engine.executeSQL("CREATE TABLE " + table + " (id, v)");
+                engine.executeSQL("CREATE INDEX ON " + table + " (v)");
+                engine.executeSQL("INSERT INTO " + table + " VALUES (1, 10)");
+                engine.executeSQL("INSERT INTO " + table + " VALUES (2, 20)");
+            }
+            engine.executeSQL("CHECKPOINT");
+            engine.executeSQL("INSERT INTO c VALUES (3, 30)");
+        }
+
+        try (WriteAheadLog wal = new WriteAheadLog(path, Durability.SYNC)) {
+            BPlusTreeArrayEngine engine = new BPlusTreeArrayEngine(true, false, wal);
+            assertFalse(engine.isTableLoaded("a"));
+            assertFalse(engine.isTableLoaded("b"));
+            assertTrue(engine.isTableLoaded("c")); // Needed to replay the log
+
+            assertEquals("id\tv\n2\t20", engine.executeSQL("SELECT * FROM a WHERE v > 15"));
+            assertTrue(engine.isTableLoaded("a"));
+            assertFalse(engine.isTableLoaded("b"));
+
+            // Writes wait for the background index build, so the index sees them
+            engine.executeSQL("UPDATE a SET v = 5 WHERE id = 2");
+            assertEquals("id\tv\n2\t5", engine.executeSQL("SELECT * FROM a WHERE v = 5"));
+            assertEquals(List.of("idx_a_v", "idx_b_v", "idx_c_v"), engine.getIndexNames());
+
+            // Tables never loaded keep their snapshot through the next checkpoint
+            assertEquals("Checkpoint written, 2 table(s), 5 row(s)",
+                engine.executeSQL("CHECKPOINT"));
+            assertFalse(engine.isTableLoaded("b"));
+        }
+
+        try (WriteAheadLog wal = new WriteAheadLog(path, Durability.SYNC)) {
+            BPlusTreeArrayEngine engine = new BPlusTreeArrayEngine(true, false, wal);
+            assertEquals("id\tv\n1\t10\t\n2\t20", engine.executeSQL("SELECT * FROM b"));
+            assertEquals("id\tv\n3\t30", engine.executeSQL("SELECT * FROM c WHERE v = 30"));
+        }
+    }
+
+    @Test
+    void testTornTailIsDropped() throws IOException {
+        Path path = dir.resolve("torn.wal");
+        try (WriteAheadLog wal = new WriteAheadLog(path, Durability.SYNC)) {
+            wal.append(WalRecord.statement("CREATE TABLE t (id, a)"));
+            wal.append(WalRecord.insert("t", 1, new Object[]{"x"}));
+            wal.append(WalRecord.insert("t", 2, new Object[]{"y"}));
+            wal.commit();
+        }
+
+        // Cut the last record short, as a crash in the middle of its write would
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        List<WalRecord> replayed = new ArrayList<>();
+        try (WriteAheadLog wal = new WriteAheadLog(path, Durability.SYNC)) {
+            wal.replay(replayed::add);
+            assertEquals(2, replayed.size());
+
+            // Appends continue after the last intact record
+            wal.append(WalRecord.delete("t", 1));
+            wal.commit();
+        }
+
+        replayed.clear();
+        try (WriteAheadLog wal = new WriteAheadLog(path, Durability.OFF)) {
+            wal.replay(replayed::add);
+        }
+        assertEquals(3, replayed.size());
+        assertEquals(WalRecord.Type.DELETE, replayed.get(2).getType());
+        assertEquals(1, replayed.get(2).getKey());
+    }
+
+    @Test
+    void testConcurrentWritersShareCommits() throws Exception {
+        Path path = dir.resolve("group.wal");
+        int threads = 8;
+        int rowsPerThread = 200;
+
+        try (WriteAheadLog wal = new WriteAheadLog(path, Durability.SYNC)) {
+            IEngine engine = new ConcurrentEngine(new BPlusTreeArrayEngine(true, false, wal));
+            engine.executeSQL("CREATE TABLE orders (id, amount)");
+
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int thread = t;
+                    futures.add(pool.submit(() -> {
+                        for (int i = 0; i < rowsPerThread; i++) {
+                            int id = thread * rowsPerThread + i;
+                            engine.executeSQL("INSERT INTO orders VALUES (" + id + ", " + i + ")");
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        try (WriteAheadLog wal = new WriteAheadLog(path, Durability.INTERVAL)) {
+            BPlusTreeArrayEngine engine = new BPlusTreeArrayEngine(true, false, wal);
+            assertEquals(threads * rowsPerThread + 1,
+                engine.executeSQL("SELECT * FROM orders").split("\n").length);
+        }
+        assertTrue(Files.size(path) > 0);
+    }
+}
@@ -0,0 +1,144 @@
+package edu.smu.smusql.columnar;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.smu.smusql.IEngine;
+import edu.smu.smusql.ResultSet;
+import edu.smu.smusql.bplustreeA.bplustreeArray.BPlusTreeArrayEngine;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ColumnarEngineTest {
+
+    private static final String[] CITIES = {"Paris", "Tokyo", "Lima", "Oslo", "Cairo"};
+    private static final String AGGREGATES =
+        "SELECT COUNT(*), MIN(age), MAX(city), SUM(age), AVG(age) FROM users";
+    private static final String GROUPED =
+        "SELECT city, COUNT(*), MIN(name), AVG(age) FROM users WHERE %s GROUP BY city";
+
+    private ColumnarEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new ColumnarEngine();
+        engine.executeSQL("CREATE TABLE users (id, name, age, city)");
+    }
+
+    @Test
+    void testBasicStatements() {
+        assertEquals("1 row inserted successfully",
+            engine.executeSQL("INSERT INTO users VALUES (2, 'Bob', 30, 'Paris')"));
+        assertEquals("0 row inserted, primary key already exists",
+            engine.executeSQL("INSERT INTO users VALUES (2, 'Bob', 30, 'Paris')"));
+        engine.executeSQL("INSERT INTO users VALUES (1, 'Amy', 25, 'Oslo')");
+
+        assertEquals("id\tname\tage\tcity\n1\tAmy\t25\tOslo\t\n2\tBob\t30\tParis",
+            engine.executeSQL("SELECT * FROM users"));
+        assertEquals("id\tname\n2\tBob", engine.executeSQL("SELECT name FROM users WHERE id = 2"));
+        assertEquals("id\tname\tage\tcity\n",
+            engine.executeSQL("SELECT * FROM users WHERE age > 40"));
+
+        assertEquals("1 row(s) updated successfully",
+            engine.executeSQL("UPDATE users SET age = 26 WHERE name = 'Amy'"));
+        assertEquals("0 row(s) deleted, not found",
+            engine.executeSQL("DELETE FROM users WHERE age < 0"));
+        assertEquals("2 row(s) deleted successfully",
+            engine.executeSQL("DELETE FROM users WHERE age >= 26"));
+        assertEquals("0 row(s) deleted, no rows found",
+            engine.executeSQL("DELETE FROM users WHERE age >= 26"));
+    }
+
+    @Test
+    void testErrors() {
+        assertThrows(RuntimeException.class,
+            () -> engine.executeSQL("SELECT * FROM missing"));
+        assertThrows(RuntimeException.class,
+            () -> engine.executeSQL("INSERT INTO users VALUES (1, 'Amy')"));
+        engine.executeSQL("INSERT INTO users VALUES (1, 'Amy', 25, 'Oslo')");
+        assertThrows(RuntimeException.class,
+            () -> engine.executeSQL("SELECT * FROM users WHERE height > 3"));
+        assertThrows(RuntimeException.class,
+            () -> engine.executeSQL("UPDATE users SET height = 3 WHERE id = 1"));
+    }
+
+    @Test
+    void testExecuteQuery() {
+        engine.executeSQL("INSERT INTO users VALUES (5, 'Eve', 41, 'Lima')");
+        ResultSet resultSet = engine.executeQuery("SELECT age FROM users WHERE city = 'Lima'");
+        assertEquals(Arrays.asList("id", "age"), resultSet.getColumnNames());
+        assertEquals(true, resultSet.next());
+        assertEquals(5, resultSet.getObject(1));
+        assertEquals(41, resultSet.getObject(2));
+        assertEquals(false, resultSet.next());
+    }
+
+    @Test
+    void testMatchesArrayEngine() {
+        IEngine reference = new BPlusTreeArrayEngine(false);
+        reference.executeSQL("CREATE TABLE users (id, name, age, city)");
+        Random random = new Random(201);
+
+        for (int i = 0; i < 3000; i++) {
+            int id = random.nextInt(2000);
+            String statement;
+            switch (random.nextInt(7)) {
+                case 0:
+                case 1:
+                    // Mostly integers, with the odd float moving the column to boxed storage
+                    Object age = random.nextInt(50) == 0 ? random.nextInt(100) + ".5"
+                        : String.valueOf(random.nextInt(100));
+                    statement = String.format("INSERT INTO users VALUES (%d, 'u%d', %s, '%s')",
+                        id, id, age, CITIES[random.nextInt(CITIES.length)]);
+                    break;
+                case 2:
+                    statement = "DELETE FROM users WHERE " + randomCondition(random);
+                    break;
+                case 3:
+                    statement = String.format("UPDATE users SET city = '%s' WHERE %s",
+                        CITIES[random.nextInt(CITIES.length)], randomCondition(random));
+                    break;
+                case 4:
+                    statement = random.nextBoolean()
+                        ? AGGREGATES + " WHERE " + randomCondition(random)
+                        : String.format(GROUPED, randomCondition(random));
+                    break;
+                default:
+                    statement = "SELECT * FROM users WHERE " + randomCondition(random);
+            }
+            assertEquals(reference.executeSQL(statement), engine.executeSQL(statement),
+                statement);
+        }
+        assertEquals(reference.executeSQL("SELECT * FROM users"),
+            engine.executeSQL("SELECT * FROM users"));
+        assertEquals(reference.executeSQL(AGGREGATES), engine.executeSQL(AGGREGATES));
+        for (String groupBy : new String[]{"city", "age"}) {
+            String statement = "SELECT " + groupBy + ", COUNT(*), MAX(age), SUM(id) FROM users "
+                + "GROUP BY " + groupBy;
+            assertEquals(reference.executeSQL(statement), engine.executeSQL(statement));
+        }
+    }
+
+    private static String randomCondition(Random random) {
+        String condition = randomComparison(random);
+        for (int terms = random.nextInt(3); terms > 0; terms--) {
+            condition += (random.nextBoolean() ? " AND " : " OR ") + randomComparison(random);
+        }
+        return condition;
+    }
+
+    private static String randomComparison(Random random) {
+        String[] operators = {"=", "!=", "<", "<=", ">", ">="};
+        String operator = operators[random.nextInt(operators.length)];
+        switch (random.nextInt(4)) {
+            case 0:
+                return "id " + operator + " " + random.nextInt(2000);
+            case 1:
+                return "city " + operator + " '" + CITIES[random.nextInt(CITIES.length)] + "'";
+            default:
+                return "age " + operator + " " + random.nextInt(100);
+        }
+    }
+}
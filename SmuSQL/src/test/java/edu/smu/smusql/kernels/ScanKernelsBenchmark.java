@@ -0,0 +1,103 @@
+package edu.smu.smusql.kernels;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH comparison of the scalar and Vector API {@link ScanKernels}: a range predicate over a
+ * million row int and float column, and lower bound searches in sorted key arrays.
+ *
+ * Build with mvn -Pvector test-compile, then run main() or org.openjdk.jmh.Main on the test
+ * classpath. The forked JVM adds the vector module itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class ScanKernelsBenchmark {
+
+    private static final int ROWS = 1 << 20;
+
+    @Param({"scalar", "vector"})
+    private String kernelsName;
+
+    @Param({"64", "4096"})
+    private int keyCount;
+
+    private ScanKernels kernels;
+    private int[] ints;
+    private float[] floats;
+    private long[] bitmap;
+    private int[] keys;
+    private int[] probes;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(ScanKernelsBenchmark.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+
+    @Setup
+    public void setUp() {
+        kernels = ScanKernels.named(kernelsName);
+        if (kernels == null) {
+            throw new IllegalStateException("Vector kernels missing, build with -Pvector");
+        }
+
+        Random random = new Random(48);
+        ints = new int[ROWS];
+        floats = new float[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            ints[i] = random.nextInt(1000);
+            floats[i] = random.nextFloat() * 1000;
+        }
+        bitmap = new long[ROWS >>> 6];
+
+        keys = new int[keyCount];
+        for (int i = 1; i < keyCount; i++) {
+            keys[i] = keys[i - 1] + 1 + random.nextInt(4);
+        }
+        probes = new int[1024];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = random.nextInt(keys[keyCount - 1] + 1);
+        }
+    }
+
+    @Benchmark
+    public long[] selectIntRange() {
+        kernels.selectRange(ints, 0, ROWS, 250, 749, bitmap, 0);
+        return bitmap;
+    }
+
+    @Benchmark
+    public long[] selectFloatRange() {
+        kernels.selectRange(floats, 0, ROWS, 250f, 749f, bitmap, 0);
+        return bitmap;
+    }
+
+    @Benchmark
+    public void lowerBound(Blackhole blackhole) {
+        for (int probe : probes) {
+            blackhole.consume(kernels.lowerBound(keys, 0, keyCount, probe));
+        }
+    }
+}
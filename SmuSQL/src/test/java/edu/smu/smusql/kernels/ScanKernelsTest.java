@@ -0,0 +1,88 @@
+package edu.smu.smusql.kernels;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks every kernel set this JVM can run against the scalar kernels. The vector ones take part
+ * under mvn -Pvector
+ */
+class ScanKernelsTest {
+
+    private static List<ScanKernels> available() {
+        List<ScanKernels> kernels = new ArrayList<>();
+        kernels.add(ScanKernels.named("scalar"));
+        ScanKernels vector = ScanKernels.named("vector");
+        if (vector != null) {
+            kernels.add(vector);
+        }
+        return kernels;
+    }
+
+    @Test
+    void testSelectRange() {
+        Random random = new Random(48);
+        int size = 1000;
+        int[] ints = new int[size];
+        float[] floats = new float[size];
+        for (int i = 0; i < size; i++) {
+            ints[i] = random.nextInt(200) - 100;
+            floats[i] = ints[i] / 4f;
+        }
+
+        for (ScanKernels kernels : available()) {
+            for (int from = 0; from < size; from += 320) {
+                int to = Math.min(from + 320, size);
+                long[] actual = new long[5];
+                long[] expected = new long[5];
+
+                kernels.selectRange(ints, from, to, -10, 25, actual, 0);
+                for (int i = from; i < to; i++) {
+                    if (ints[i] >= -10 && ints[i] <= 25) {
+                        expected[(i - from) >>> 6] |= 1L << (i - from);
+                    }
+                }
+                assertArrayEquals(expected, actual, kernels.getName());
+
+                Arrays.fill(expected, 0);
+                kernels.selectRange(floats, from, to, -2.5f, 6.25f, actual, 0);
+                for (int i = from; i < to; i++) {
+                    if (floats[i] >= -2.5f && floats[i] <= 6.25f) {
+                        expected[(i - from) >>> 6] |= 1L << (i - from);
+                    }
+                }
+                assertArrayEquals(expected, actual, kernels.getName());
+            }
+        }
+    }
+
+    @Test
+    void testLowerBound() {
+        Random random = new Random(48);
+        int[] keys = new int[500];
+        for (int i = 1; i < keys.length; i++) {
+            keys[i] = keys[i - 1] + random.nextInt(3);
+        }
+
+        for (ScanKernels kernels : available()) {
+            for (int trial = 0; trial < 2000; trial++) {
+                int from = random.nextInt(keys.length);
+                int to = from + random.nextInt(keys.length - from + 1);
+                int key = random.nextInt(keys[keys.length - 1] + 10) - 5;
+
+                int expected = from;
+                while (expected < to && keys[expected] < key) {
+                    expected++;
+                }
+                assertEquals(expected, kernels.lowerBound(keys, from, to, key),
+                    kernels.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package edu.smu.smusql.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.smu.smusql.bplustreeA.bplustreeArray.BPlusTreeArrayEngine;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class QueryServerTest {
+
+    @Test
+    void testClientsShareOneEngine() throws Exception {
+        try (QueryServer server = new QueryServer(new BPlusTreeArrayEngine(true), 0)) {
+            try (QueryClient client = new QueryClient("localhost", server.getPort())) {
+                assertEquals("Table users created successfully",
+                    client.executeSQL("CREATE TABLE users (id, name, age)"));
+            }
+
+            ExecutorService pool = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < 8; t++) {
+                    int thread = t;
+                    futures.add(pool.submit(() -> {
+                        try (QueryClient client = new QueryClient("localhost", server.getPort())) {
+                            List<String> batch = new ArrayList<>();
+                            for (int i = 0; i < 100; i++) {
+                                int id = thread * 100 + i;
+                                batch.add("INSERT INTO users VALUES (" + id + ", 'u" + id + "', "
+                                    + i + ")");
+                                batch.add("SELECT * FROM users WHERE id = " + id);
+                            }
+                            List<String> results = client.executePipelined(batch);
+                            for (int i = 0; i < 100; i++) {
+                                assertEquals("1 row inserted successfully", results.get(2 * i));
+                                assertTrue(results.get(2 * i + 1).contains("u" + (thread * 100 + i)));
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                pool.shutdown();
+            }
+
+            try (QueryClient client = new QueryClient("localhost", server.getPort())) {
+                assertEquals(801, client.executeSQL("SELECT * FROM users").split("\n").length);
+            }
+        }
+    }
+
+    @Test
+    void testErrorsReachTheClient() throws Exception {
+        try (QueryServer server = new QueryServer(new BPlusTreeArrayEngine(), 0);
+            QueryClient client = new QueryClient("localhost", server.getPort())) {
+            RuntimeException error = assertThrows(RuntimeException.class,
+                () -> client.executeSQL("SELECT * FROM missing"));
+            assertTrue(error.getMessage().startsWith("ERROR"), error.getMessage());
+
+            // The connection stays usable and later pipelined statements still run
+            client.executeSQL("CREATE TABLE t (id, v)");
+            assertThrows(RuntimeException.class, () -> client.executePipelined(List.of(
+                "INSERT INTO t VALUES (1, 'a')", "INSERT INTO t VALUES (2)",
+                "INSERT INTO t VALUES (3, 'c')")));
+            assertEquals(3, client.executeSQL("SELECT * FROM t").split("\n").length);
+        }
+    }
+}
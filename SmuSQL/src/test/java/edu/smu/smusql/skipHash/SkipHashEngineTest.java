@@ -1,9 +1,11 @@
 package edu.smu.smusql.skipHash;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import edu.smu.smusql.IEngine;
+import edu.smu.smusql.ResultSet;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -68,6 +70,17 @@ class SkipHashEngineTest {
         assertEquals(expected, engine.executeSQL("SELECT * FROM student"));
     }
 
+    @Test
+    void testExecuteQueryParsesStoredText() {
+        setupStudentTable();
+        ResultSet resultSet = engine.executeQuery("SELECT * FROM student WHERE age > 20");
+        assertTrue(resultSet.next());
+        assertEquals(2, resultSet.getInt("id"));
+        assertEquals(22, resultSet.getInt("age"));
+        assertEquals(3.8f, resultSet.getFloat("gpa"));
+        assertFalse(resultSet.next());
+    }
+
     // Helper method to set up test data
     private void setupStudentTable() {
         engine.executeSQL("CREATE TABLE student (id, name, age, gpa, deans_list)");